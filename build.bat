@@ -6,7 +6,7 @@ echo Creating build directory...
 if not exist source mkdir source
 
 echo Compiling Java source files...
-javac -d source -cp "lib/*" source\**\*.java
+javac --add-modules jdk.incubator.vector -d source -cp "lib/*" source\**\*.java
 
 if %errorlevel% neq 0 (
     echo Compilation failed.
@@ -14,6 +14,9 @@ if %errorlevel% neq 0 (
     exit /b %errorlevel%
 )
 
+echo Compiling game data...
+java -cp "source;lib/*" mastersofmq.fileio.ContentSnapshot data
+
 echo Compilation complete.
 echo To run manually: java -cp "source;lib/*" mastersofmq.MastersOfMQ
 
@@ -1,7 +1,8 @@
 #!/bin/bash
 # Simple build script (unix). Ensure lib/junit-4.13.2.jar and org.json are available on classpath.
 mkdir -p source
-javac -d source -cp "lib/*" $(find source -name "*.java")
+javac --add-modules jdk.incubator.vector -d source -cp "lib/*" $(find source -name "*.java")
+java -cp "source:lib/*" mastersofmq.fileio.ContentSnapshot data
 echo "Compiled. To run: java -cp \"source:lib/*\" mastersofmq.MastersOfMQ"
 
 
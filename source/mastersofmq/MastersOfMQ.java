@@ -1,12 +1,13 @@
 package mastersofmq;
 
+import mastersofmq.game.Difficulty;
 import mastersofmq.game.GameEngine;
-import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.event.ConsoleBattleRenderer;
+import mastersofmq.fileio.ContentRegistry;
 import mastersofmq.model.CharacterClass;
 import mastersofmq.model.Skill;
 import mastersofmq.model.Team;
 
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -18,7 +19,7 @@ import java.util.Scanner;
  * 1. Load character/skill data from JSON
  * 2. Player selects team members
  * 3. Start story narrative
- * 4. Progress through 3 battles:
+ * 4. Progress through the chapters of data/campaign.json:
  *    - Library Battle (2 enemies)
  *    - Courtyard Battle (2 tougher enemies)
  *    - Final Boss Battle
@@ -29,6 +30,10 @@ import java.util.Scanner;
  * - Team composition strategy
  * - Progressive difficulty
  * - Narrative elements
+ * - Battle text verbosity chosen on the command line:
+ *   --verbosity=full (default), --verbosity=compact or --verbosity=silent
+ * - Enemy AI difficulty chosen on the command line:
+ *   --difficulty=easy (random, the default), --difficulty=normal or --difficulty=hard
  * 
  * Access Control:
  * - Public class as it contains the main entry point
@@ -47,24 +52,25 @@ import java.util.Scanner;
 public class MastersOfMQ {
     public static void main(String[] args) {
         System.out.println("Masters of MQ - Starting game...");
+        ConsoleBattleRenderer.Verbosity verbosity = parseVerbosity(args); // How much battle text to show
+        Difficulty difficulty = parseDifficulty(args); // How hard the enemies think
 
         /*
-            * builds a path to data/characters.json, creates a GameDataLoader to read that file,
-            * and tries to load the game data. If loading fails, it prints an error message and stops the program.
+            * loads every data file in data/ once into the shared ContentRegistry, which the
+            * campaign reuses for its opponents. If loading fails, it prints an error message and stops the program.
         */
-        String dataPath = Paths.get("data", "characters.json").toString(); // Creates a platform-independent path to characters.json
-        GameDataLoader loader = new GameDataLoader(dataPath); // Initializes a loader to read game data from the JSON file
+        ContentRegistry content;
         try {
-            loader.load(); // Attempts to load the game data
+            content = ContentRegistry.shared(); // Attempts to load the game data
         } catch (Exception e) { // Catches any exceptions during loading
             System.err.println("Failed to load game data: " + e.getMessage());
             return;
         }
         /*
-         * After successfully loading the game data, the program retrieves the list of character templates from the loader.
+         * After successfully loading the game data, the program retrieves the list of character templates from the registry.
          * It then initializes a Scanner to read user input from the console.
          */
-        List<CharacterClass> characters = loader.getCharacters();
+        List<CharacterClass> characters = content.getCharacters();
         Scanner sc = new Scanner(System.in);
 
         System.out.println("=== Masters of MQ ===");
@@ -90,6 +96,8 @@ public class MastersOfMQ {
         System.out.println("================\n");
 
         GameEngine engine = new GameEngine(playerTeam); // Initializes the game engine with the player's team
+        engine.setEventSink(new ConsoleBattleRenderer(System.out, verbosity)); // Battle text at the chosen verbosity
+        engine.setEnemyPolicy(difficulty.createPolicy()); // Enemy AI at the chosen difficulty
         engine.startNarrative(); // Starts the game's narrative
     }
 
@@ -176,6 +184,40 @@ public class MastersOfMQ {
         System.out.println();
     }
 
+    /*
+     * Reads the battle text verbosity from the command line arguments.
+     * @return The requested verbosity, FULL if none or an unknown one was given
+     */
+    private static ConsoleBattleRenderer.Verbosity parseVerbosity(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--verbosity=")) continue;
+            String level = arg.substring("--verbosity=".length()).toUpperCase();
+            try {
+                return ConsoleBattleRenderer.Verbosity.valueOf(level);
+            } catch (IllegalArgumentException e) { // Error handling for unknown levels
+                System.out.println("Unknown verbosity '" + level.toLowerCase() + "', using full. Choose full, compact or silent.");
+            }
+        }
+        return ConsoleBattleRenderer.Verbosity.FULL;
+    }
+
+    /*
+     * Reads the enemy AI difficulty from the command line arguments.
+     * @return The requested difficulty, EASY if none or an unknown one was given
+     */
+    private static Difficulty parseDifficulty(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--difficulty=")) continue;
+            String level = arg.substring("--difficulty=".length()).toUpperCase();
+            try {
+                return Difficulty.valueOf(level);
+            } catch (IllegalArgumentException e) { // Error handling for unknown levels
+                System.out.println("Unknown difficulty '" + level.toLowerCase() + "', using easy. Choose easy, normal or hard.");
+            }
+        }
+        return Difficulty.EASY;
+    }
+
     private static boolean isValidPick(int pick, int size) {
         return pick >= 0 && pick < size; // Check if pick is within valid range
     }
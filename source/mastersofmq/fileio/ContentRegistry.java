@@ -0,0 +1,92 @@
+package mastersofmq.fileio;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.DamageTable;
+import mastersofmq.model.SkillDefinition;
+import mastersofmq.model.SkillTree;
+import mastersofmq.model.TemplateIndex;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * All game content, loaded once per process and shared by every session.
+ *
+ * How it works:
+ * - {@link #shared()} loads data/characters.json and data/opponents.json
+ *   together on first use; later calls (a second campaign, another thread)
+ *   return the same registry without parsing anything
+ * - Both files go through one {@link GameDataLoader}, so opponents can use the
+ *   skills defined in characters.json
+ * - Starts read the binary snapshot compiled from the current JSON
+ *   (data/content-&lt;checksum&gt;.bin), and compile it when there is none
+ *   (see {@link ContentSnapshot})
+ * - If loading fails nothing is kept, and the next call tries again
+ *
+ * Templates:
+ * - The lists are unmodifiable and their characters are templates: sessions
+ *   clone them (or take them from a {@link mastersofmq.model.CombatantPool})
+ *   and never change them, so one registry is safe to share between threads
+ * - Skill definitions and the skill tree are immutable
+ *
+ * Access Control:
+ * - Public final class; build one with {@link #load(Path)} for other data directories
+ */
+public final class ContentRegistry {
+    public static final Path DATA_DIR = Paths.get("data"); // Where shared() loads from, relative to the working directory
+
+    private static volatile ContentRegistry shared; // Set once the first load succeeds
+
+    private final List<CharacterClass> characters;
+    private final List<CharacterClass> opponents;
+    private final GameDataLoader loader;
+
+    private ContentRegistry(GameDataLoader loader) {
+        this.loader = loader;
+        this.characters = loader.getPlayableCharacters();
+        this.opponents = loader.getOpponents();
+    }
+
+    /*
+     * @return The process-wide registry, loading it on first use
+     * @throws Exception if the data files can't be read or parsed
+     */
+    public static ContentRegistry shared() throws Exception {
+        ContentRegistry r = shared;
+        if (r != null) return r;
+        synchronized (ContentRegistry.class) {
+            if (shared == null) shared = load(DATA_DIR, DATA_DIR.resolve(ContentSnapshot.FILE_NAME));
+            return shared;
+        }
+    }
+
+    /*
+     * Loads the content of a data directory into a new registry, not shared.
+     * @throws Exception if the data files can't be read or parsed
+     */
+    public static ContentRegistry load(Path dataDir) throws Exception {
+        return load(dataDir, null);
+    }
+
+    /*
+     * Loads the content of a data directory through a binary snapshot, see {@link ContentSnapshot}.
+     * @param snapshot Snapshot to read if it is up to date and (re)write otherwise, or null to always parse the JSON
+     * @throws Exception if the data files can't be read or parsed
+     */
+    public static ContentRegistry load(Path dataDir, Path snapshot) throws Exception {
+        GameDataLoader loader = new GameDataLoader(dataDir.resolve("characters.json").toString(),
+                dataDir.resolve("opponents.json").toString());
+        if (snapshot == null) loader.load();
+        else loader.loadWithSnapshot(snapshot);
+        return new ContentRegistry(loader);
+    }
+
+    public List<CharacterClass> getCharacters() { return characters; } // Playable character templates
+    public List<CharacterClass> getOpponents() { return opponents; } // Opponent templates
+    public TemplateIndex getCharacterIndex() { return loader.getPlayableIndex(); } // Playable templates by name, type and skill
+    public TemplateIndex getOpponentIndex() { return loader.getOpponentIndex(); } // Opponent templates by name, type and skill
+    public SkillDefinition getSkill(String id) { return loader.getSkill(id); } // Null if unknown
+    public SkillTree getSkillTree() { return loader.getSkillTree(); }
+    public DamageTable getDamageTable() { return loader.getDamageTable(); } // Covers every loaded character
+}
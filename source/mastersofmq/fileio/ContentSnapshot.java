@@ -0,0 +1,285 @@
+package mastersofmq.fileio;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.SkillDefinition;
+import mastersofmq.model.SkillTree;
+import mastersofmq.model.StatusEffect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of loaded game data, so a start doesn't have to parse
+ * the JSON. JSON stays the format content is written in; the snapshot is
+ * compiled from it (at build time by {@link #main(String[])}, or by the first
+ * start after the JSON changes).
+ *
+ * Layout (big-endian):
+ * - Header: magic "MQCS", format version, CRC32 of the JSON files it was compiled
+ *   from, and the length of the whole file
+ * - String table: count, then each name, type, skill ID and skill name once as
+ *   a length-prefixed UTF-8 run; everything else refers to strings by index
+ * - Skills, in {@link SkillTree} order so prerequisites come first: fixed-width
+ *   records (id, name, damage, cost, cooldown, effect kind/amount/duration),
+ *   each followed by its prerequisites as skill indices
+ * - Characters, in load order: fixed-width stat records (playable or opponent,
+ *   name, type, HP, stamina, strength, defence, endurance), each followed by its
+ *   skills as skill indices
+ *
+ * Files:
+ * - A snapshot is named after the JSON it was compiled from: data/content.bin
+ *   stands for data/content-&lt;checksum&gt;.bin, see {@link #versioned(Path, long)}
+ * - Reading maps the file with {@link FileChannel#map} and builds the templates
+ *   straight from the mapped bytes. The mapping lasts until it is collected, and
+ *   some systems (Windows) can't replace or delete a mapped file, so a file this
+ *   process has mapped is never written over; changed JSON gets a new name instead
+ * - A snapshot that is missing, unreadable, damaged or from another format
+ *   version is treated as missing; the header and length are checked before mapping
+ *
+ * Access Control:
+ * - Public final utility class; {@link GameDataLoader#loadWithSnapshot(Path)} is the usual way in
+ */
+public final class ContentSnapshot {
+    public static final String FILE_NAME = "content.bin"; // Snapshot name inside a data directory
+    private static final int MAGIC = 0x4D514353; // "MQCS"
+    private static final int VERSION = 2;
+    private static final int HEADER = 24; // Magic, version, checksum, length
+    private static final Set<Path> MAPPED = ConcurrentHashMap.newKeySet(); // Files this process has mapped, absolute
+    private static final byte PLAYABLE = 0;
+    private static final byte OPPONENT = 1;
+    private static final byte NO_EFFECT = -1;
+
+    private ContentSnapshot() {}
+
+    /*
+     * @return CRC32 of the files' names and contents, in the order given
+     */
+    public static long checksum(List<String> paths) throws IOException {
+        CRC32 crc = new CRC32();
+        for (String path : paths) {
+            crc.update(Paths.get(path).getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            crc.update(Files.readAllBytes(Paths.get(path)));
+        }
+        return crc.getValue();
+    }
+
+    /*
+     * @param snapshot Snapshot name, e.g. data/content.bin
+     * @return The file holding the snapshot compiled from JSON with the given checksum, e.g. data/content-0000abcd1234ef56.bin
+     */
+    public static Path versioned(Path snapshot, long checksum) {
+        String name = snapshot.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        return snapshot.resolveSibling(String.format("%s-%016x%s", base, checksum, dot < 0 ? "" : name.substring(dot)));
+    }
+
+    /*
+     * Writes the data held by a loader as a snapshot, then removes snapshots of
+     * older JSON that this process hasn't mapped. The file is written next to its
+     * final name and moved into place, so readers never see half of it.
+     * @param checksum Checksum of the JSON the loader read, see {@link #checksum(List)}
+     * @param snapshot Snapshot name; the file written is {@link #versioned(Path, long)}
+     * @return The file written
+     * @throws IOException if it can't be written, or this process has the file mapped
+     */
+    public static Path write(GameDataLoader loaded, long checksum, Path snapshot) throws IOException {
+        Path out = versioned(snapshot, checksum);
+        if (MAPPED.contains(out.toAbsolutePath().normalize())) throw new IOException(out + " is mapped by this process");
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        SkillTree tree = loaded.getSkillTree();
+        for (int i = 0; i < tree.size(); i++) {
+            string(tree.get(i).getId(), strings, stringIndex);
+            string(tree.get(i).getName(), strings, stringIndex);
+        }
+        for (CharacterClass c : loaded.getCharacters()) {
+            string(c.getName(), strings, stringIndex);
+            string(c.getType(), strings, stringIndex);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(checksum);
+        data.writeLong(0); // Length, filled in below
+        data.writeInt(strings.size());
+        for (String s : strings) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(utf8.length);
+            data.write(utf8);
+        }
+        data.writeInt(tree.size());
+        for (int i = 0; i < tree.size(); i++) {
+            SkillDefinition d = tree.get(i);
+            StatusEffect e = d.getEffect();
+            data.writeInt(stringIndex.get(d.getId()));
+            data.writeInt(stringIndex.get(d.getName()));
+            data.writeInt(d.getDamage());
+            data.writeInt(d.getStaminaCost());
+            data.writeInt(d.getCooldownMax());
+            data.writeByte(e == null ? NO_EFFECT : e.getKind().ordinal());
+            data.writeInt(e == null ? 0 : e.getAmount());
+            data.writeInt(e == null ? 0 : e.getDuration());
+            int[] pre = tree.getPrerequisites(i);
+            data.writeInt(pre.length);
+            for (int p : pre) data.writeInt(p);
+        }
+        Set<CharacterClass> opponents = Collections.newSetFromMap(new IdentityHashMap<>());
+        opponents.addAll(loaded.getOpponents());
+        data.writeInt(loaded.getCharacters().size());
+        for (CharacterClass c : loaded.getCharacters()) {
+            data.writeByte(opponents.contains(c) ? OPPONENT : PLAYABLE);
+            data.writeInt(stringIndex.get(c.getName()));
+            data.writeInt(stringIndex.get(c.getType()));
+            data.writeInt(c.getMaxHP());
+            data.writeInt(c.getMaxStamina());
+            data.writeInt(c.getStrength());
+            data.writeInt(c.getDefence());
+            data.writeInt(c.getEndurance());
+            data.writeInt(c.getSkills().size());
+            for (Skill s : c.getSkills()) data.writeInt(tree.indexOf(s.getId()));
+        }
+        data.flush();
+        ByteBuffer file = ByteBuffer.wrap(bytes.toByteArray());
+        file.putLong(16, file.capacity());
+
+        Path dir = out.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, FILE_NAME, ".tmp");
+        try {
+            Files.write(tmp, file.array());
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        removeStale(snapshot, out);
+        return out;
+    }
+
+    private static void removeStale(Path snapshot, Path current) { // Best effort: a file still in use elsewhere is left for a later start
+        String name = snapshot.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String glob = dot < 0 ? name + "-*" : name.substring(0, dot) + "-*" + name.substring(dot);
+        try (DirectoryStream<Path> old = Files.newDirectoryStream(current.toAbsolutePath().getParent(), glob)) {
+            for (Path p : old) {
+                if (!p.getFileName().equals(current.getFileName()) && !MAPPED.contains(p.toAbsolutePath().normalize())) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        } catch (IOException e) {
+            // Harmless: stale snapshots are never read, since their checksum is in the name
+        }
+    }
+
+    private static void string(String s, List<String> strings, Map<String, Integer> index) { // Adds a string to the table once
+        if (index.putIfAbsent(s, strings.size()) == null) strings.add(s);
+    }
+
+    /*
+     * Reads a snapshot into an empty loader.
+     * @param snapshot Snapshot name; the file read is {@link #versioned(Path, long)}
+     * @param checksum Checksum of the JSON the snapshot must have been compiled from
+     * @return false, leaving the loader untouched, if the snapshot is missing, unreadable or damaged
+     */
+    static boolean read(Path snapshot, long checksum, GameDataLoader into) {
+        Path in = versioned(snapshot, checksum);
+        if (!Files.isRegularFile(in)) return false;
+        try (FileChannel channel = FileChannel.open(in, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER); // Checked before mapping, so a bad file stays replaceable
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) return false; // Shorter than a header
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != checksum || header.getLong() != channel.size()) return false;
+            MAPPED.add(in.toAbsolutePath().normalize());
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buf.position(HEADER);
+            String[] strings = new String[count(buf)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] utf8 = new byte[count(buf)];
+                buf.get(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            SkillDefinition[] skills = new SkillDefinition[count(buf)];
+            for (int i = 0; i < skills.length; i++) {
+                String id = strings[buf.getInt()];
+                String name = strings[buf.getInt()];
+                int damage = buf.getInt();
+                int cost = buf.getInt();
+                int cooldown = buf.getInt();
+                byte kind = buf.get();
+                int amount = buf.getInt();
+                int duration = buf.getInt();
+                StatusEffect effect = kind == NO_EFFECT ? null : new StatusEffect(StatusEffect.Kind.values()[kind], amount, duration);
+                List<SkillDefinition> pre = new ArrayList<>();
+                for (int n = count(buf); n > 0; n--) pre.add(before(skills, buf.getInt(), i));
+                skills[i] = new SkillDefinition(id, name, damage, cost, cooldown, effect, pre);
+            }
+            List<CharacterClass> playable = new ArrayList<>();
+            List<CharacterClass> opponents = new ArrayList<>();
+            List<CharacterClass> all = new ArrayList<>();
+            for (int n = count(buf); n > 0; n--) {
+                byte kind = buf.get();
+                CharacterClass c = new CharacterClass(strings[buf.getInt()], strings[buf.getInt()],
+                        buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt(), buf.getInt());
+                for (int k = count(buf); k > 0; k--) c.addSkill(new Skill(before(skills, buf.getInt(), skills.length)));
+                (kind == OPPONENT ? opponents : playable).add(c);
+                all.add(c);
+            }
+            if (buf.hasRemaining()) return false;
+            into.restore(skills, all, playable, opponents);
+            return true;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return false; // Damaged: recompile from the JSON
+        } catch (IOException e) {
+            return false; // Can't be opened or mapped: load the JSON instead
+        }
+    }
+
+    private static int count(ByteBuffer buf) { // A length or count, which can't be negative or exceed what is left
+        int n = buf.getInt();
+        if (n < 0 || n > buf.remaining()) throw new IllegalArgumentException("Bad count " + n);
+        return n;
+    }
+
+    private static SkillDefinition before(SkillDefinition[] skills, int index, int limit) { // A skill already read
+        if (index < 0 || index >= limit) throw new IllegalArgumentException("Bad skill index " + index);
+        return skills[index];
+    }
+
+    /*
+     * Build-time compiler: writes data/content-<checksum>.bin from data/characters.json
+     * and data/opponents.json (or the given data directory).
+     */
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "data");
+        GameDataLoader loader = new GameDataLoader(dir.resolve("characters.json").toString(), dir.resolve("opponents.json").toString());
+        Path out = loader.compileSnapshot(dir.resolve(FILE_NAME));
+        System.out.printf("Compiled %d skills and %d characters into %s (%d bytes)%n",
+                loader.getSkillTree().size(), loader.getCharacters().size(), out, Files.size(out));
+    }
+}
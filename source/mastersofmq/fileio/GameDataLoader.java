@@ -1,17 +1,26 @@
 package mastersofmq.fileio;
 
 import mastersofmq.model.Skill;
+import mastersofmq.model.SkillDefinition;
+import mastersofmq.model.SkillTree;
 import mastersofmq.model.CharacterClass;
+import mastersofmq.model.DamageTable;
+import mastersofmq.model.StatusEffect;
+import mastersofmq.model.TemplateIndex;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Loads game data from JSON configuration files.
+ * Several files can be loaded together: skills are read from all of them
+ * first, so a character in one file can use skills defined in another.
  * Handles loading and parsing of:
  * - Character definitions
  * - Skill definitions
@@ -21,13 +30,28 @@ import java.util.*;
  * JSON Format:
  * {
  *   "skills": [
- *     {"id": "skill_id", "name": "Skill Name", "damage": X, "staminaCost": Y, "cooldown": Z}
+ *     {"id": "skill_id", "name": "Skill Name", "damage": X, "staminaCost": Y, "cooldown": Z,
+ *      "effect": {"type": "poison|regen|strength|stun", "amount": A, "duration": R}}   (effect optional)
  *   ],
  *   "characters": [
  *     {"name": "Name", "type": "Type", "hp": X, "stamina": Y, "str": A, "def": B, "end": C}
  *   ]
  * }
  * 
+ * Each skill is loaded once as an immutable {@link SkillDefinition}; every
+ * character with it gets a {@link Skill} sharing that definition. The
+ * prerequisites are compiled into a {@link SkillTree}; a file whose
+ * prerequisites form a cycle fails to load with an IllegalArgumentException.
+ * 
+ * Playable characters and opponents are indexed by name, type and skill ID in
+ * a {@link TemplateIndex} each; names, types and IDs are kept as one string instance each.
+ * 
+ * {@link #loadWithSnapshot(Path)} reads a memory-mapped binary snapshot of the
+ * files instead of parsing them, as long as its checksum matches the JSON.
+ * 
+ * Once loaded, the shared {@link DamageTable} is widened to cover every
+ * strength and skill in the file.
+ * 
  * Uses org.json library for parsing (must be in classpath).
  * 
  * Access Control:
@@ -37,71 +61,152 @@ import java.util.*;
  * - Public methods for accessing loaded game data
  */
 public class GameDataLoader {
-    private final String path; // Path to the JSON data file
+    private final List<String> paths; // Paths to the JSON data files, loaded together
     private final List<CharacterClass> characters = new ArrayList<>(); // List of loaded character templates
-    private final Map<String, Skill> skillMap = new HashMap<>(); // Map of skill IDs to skill objects
+    private final List<CharacterClass> playable = new ArrayList<>(); // Those from "characters" arrays
+    private final List<CharacterClass> opponents = new ArrayList<>(); // Those from "opponents" arrays
+    private final Map<String, SkillDefinition> skillMap = new HashMap<>(); // Map of skill IDs to shared skill definitions
+    private DamageTable damageTable = DamageTable.shared(); // Damage lookup covering the loaded characters
+    private SkillTree skillTree = new SkillTree(Collections.emptyList()); // Compiled prerequisites of the loaded skills
+    private TemplateIndex playableIndex = new TemplateIndex(Collections.emptyList()); // Lookup over playable, rebuilt by load
+    private TemplateIndex opponentIndex = new TemplateIndex(Collections.emptyList()); // Lookup over opponents, rebuilt by load
+    private final Map<String, String> strings = new HashMap<>(); // One instance of every name, type and skill ID read
 
-    public GameDataLoader(String path) { // Constructor to set the data file path
-        this.path = path;
+    public GameDataLoader(String... paths) { // Constructor to set the data file paths; skills of any file serve characters of every file
+        this.paths = Arrays.asList(paths.clone());
     }
 
     public List<CharacterClass> getCharacters() {
         return Collections.unmodifiableList(characters); // Returns an unmodifiable view of the loaded characters
     }
 
-    public void load() throws Exception { // Loads and parses the JSON data file
-        try (InputStream is = new FileInputStream(path)) { // Opens the file input stream
-            JSONObject root = new JSONObject(new JSONTokener(is)); // Parses the JSON content
-            JSONArray skills = root.optJSONArray("skills"); // Retrieves the skills array
-            if (skills != null) {
-                loadSkills(skills);
-                loadPrerequisites(skills);
+    public List<CharacterClass> getPlayableCharacters() { return Collections.unmodifiableList(playable); }
+    public List<CharacterClass> getOpponents() { return Collections.unmodifiableList(opponents); }
+    public SkillDefinition getSkill(String id) { return skillMap.get(id); } // Null if no loaded file defines it
+    public TemplateIndex getPlayableIndex() { return playableIndex; } // Playable characters by name, type and skill
+    public TemplateIndex getOpponentIndex() { return opponentIndex; } // Opponents by name, type and skill
+
+    public DamageTable getDamageTable() { return damageTable; }
+    public SkillTree getSkillTree() { return skillTree; } // Empty until a file with skills is loaded
+
+    public void load() throws Exception { // Loads and parses the JSON data files
+        List<JSONObject> roots = new ArrayList<>();
+        for (String path : paths) {
+            try (InputStream is = new FileInputStream(path)) { // Opens the file input stream
+                roots.add(new JSONObject(new JSONTokener(is))); // Parses the JSON content
             }
+        }
+        JSONArray skills = new JSONArray(); // Skills of every file, so any file's characters can use them
+        for (JSONObject root : roots) {
+            JSONArray s = root.optJSONArray("skills"); // Retrieves the skills array
+            if (s != null) s.forEach(skills::put);
+        }
+        if (!skills.isEmpty()) {
+            loadSkills(skills);
+        }
+        for (JSONObject root : roots) {
             JSONArray chars = root.optJSONArray("characters"); // Retrieves the characters array
-            JSONArray opponents = root.optJSONArray("opponents"); // Retrieves the opponents array
+            JSONArray opps = root.optJSONArray("opponents"); // Retrieves the opponents array
             if (chars != null) {
-                loadCharacters(chars);
+                loadCharacters(chars, playable);
             }
-            if (opponents != null) {
-                loadCharacters(opponents);
+            if (opps != null) {
+                loadCharacters(opps, opponents);
             }
         }
+        finish();
+    }
+
+    /*
+     * Loads from a binary snapshot when it was compiled from the current JSON
+     * files, skipping the JSON parse; otherwise loads the JSON and rewrites the
+     * snapshot for the next start. See {@link ContentSnapshot}.
+     * @param snapshot Snapshot name, e.g. data/content.bin; the file is named after the JSON's checksum
+     */
+    public void loadWithSnapshot(Path snapshot) throws Exception {
+        long checksum = ContentSnapshot.checksum(paths); // Changes whenever the JSON does
+        if (ContentSnapshot.read(snapshot, checksum, this)) return;
+        load();
+        try {
+            ContentSnapshot.write(this, checksum, snapshot);
+        } catch (IOException e) { // The game still runs, it just parses the JSON again next time
+            System.err.println("Could not write content snapshot: " + e.getMessage());
+        }
+    }
+
+    Path compileSnapshot(Path snapshot) throws Exception { // Loads the JSON and writes its snapshot, for the build-time compiler; returns the file
+        long checksum = ContentSnapshot.checksum(paths);
+        load();
+        return ContentSnapshot.write(this, checksum, snapshot);
     }
 
-    private void loadSkills(JSONArray skills) { // Loads skill definitions into skillMap
+    void restore(SkillDefinition[] skills, List<CharacterClass> all, List<CharacterClass> playable, List<CharacterClass> opponents) { // Fills the loader from a snapshot
+        for (SkillDefinition d : skills) skillMap.put(d.getId(), d);
+        skillTree = new SkillTree(skillMap.values());
+        characters.addAll(all);
+        this.playable.addAll(playable);
+        this.opponents.addAll(opponents);
+        finish();
+    }
+
+    private void finish() { // Lookups built from whatever was just loaded
+        playableIndex = new TemplateIndex(playable);
+        opponentIndex = new TemplateIndex(opponents);
+        damageTable = DamageTable.cover(characters); // Precompute damage for everything just loaded
+    }
+
+    private void loadSkills(JSONArray skills) { // Builds an immutable definition for every skill into skillMap
+        Map<String, JSONObject> byId = new LinkedHashMap<>();
         for (int i = 0; i < skills.length(); i++) {
             JSONObject s = skills.getJSONObject(i); // Get skill JSON object
-            String id = s.optString("id", "unknown"); // Gets the skill ID
+            byId.put(intern(s.optString("id", "unknown")), s);
+        }
+        List<String> ids = new ArrayList<>(byId.keySet());
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) position.put(ids.get(i), i);
+        int[][] prerequisites = new int[ids.size()][];
+        for (int i = 0; i < ids.size(); i++) {
+            JSONArray pre = byId.get(ids.get(i)).optJSONArray("prerequisiteSkills"); // Gets the prerequisite skills array
+            List<Integer> known = new ArrayList<>();
+            for (int j = 0; pre != null && j < pre.length(); j++) {
+                Integer p = position.get(pre.getString(j));
+                if (p != null) known.add(p); // Unknown prerequisites are ignored
+            }
+            prerequisites[i] = known.stream().mapToInt(Integer::intValue).toArray();
+        }
+        for (int i : SkillTree.topologicalOrder(ids, prerequisites)) { // Definitions can't change, so prerequisites are built first
+            JSONObject s = byId.get(ids.get(i));
+            List<SkillDefinition> pre = new ArrayList<>();
+            for (int p : prerequisites[i]) pre.add(skillMap.get(ids.get(p)));
             String name = s.optString("name", "Unknown Skill"); // Gets the skill name
             int damage = s.optInt("damage", 0); // Gets the skill damage
             int staminaCost = s.optInt("staminaCost", 0); // Gets the skill stamina cost
             int cooldown = s.optInt("cooldown", 0); // Gets the skill cooldown
-            Skill sk = new Skill(id, name, damage, staminaCost, cooldown); // Creates the Skill object
-            skillMap.put(id, sk); // Stores the skill in the map
+            StatusEffect effect = loadEffect(s.optJSONObject("effect")); // Gets the status effect, if any
+            skillMap.put(ids.get(i), new SkillDefinition(ids.get(i), name, damage, staminaCost, cooldown, effect, pre)); // Stores the skill in the map
         }
+        skillTree = new SkillTree(skillMap.values());
     }
 
-    private void loadPrerequisites(JSONArray skills) { // Loads skill prerequisite relationships
-        for (int i = 0; i < skills.length(); i++) {
-            JSONObject s = skills.getJSONObject(i); // Get skill JSON object
-            String id = s.getString("id"); // Gets the skill ID
-            Skill sk = skillMap.get(id); // Retrieves the Skill object from the map
-            JSONArray pre = s.optJSONArray("prerequisiteSkills"); // Gets the prerequisite skills array
-            if (pre != null) { // If there are prerequisites
-                for (int j = 0; j < pre.length(); j++) { // For each prerequisite
-                    String pid = pre.getString(j); // Gets the prerequisite skill ID
-                    Skill p = skillMap.get(pid); // Retrieves the prerequisite Skill object
-                    if (p != null) sk.addPrerequisite(p); // Adds the prerequisite to the skill
-                }
-            }
+    private String intern(String s) { // Same instance for equal strings, so templates don't each keep a copy
+        return strings.computeIfAbsent(s, k -> k);
+    }
+
+    private StatusEffect loadEffect(JSONObject e) { // Parses a skill's status effect, null if absent or of an unknown type
+        if (e == null) return null;
+        StatusEffect.Kind kind = StatusEffect.Kind.parse(e.optString("type", ""));
+        if (kind == null) {
+            System.err.println("Unknown status effect type: " + e.optString("type", "")); // Skill still loads, without the effect
+            return null;
         }
+        return new StatusEffect(kind, e.optInt("amount", 0), e.optInt("duration", 1));
     }
 
-    private void loadCharacters(JSONArray chars) {// Loads character definitions into characters list
+    private void loadCharacters(JSONArray chars, List<CharacterClass> kind) {// Loads character definitions into characters list
         for (int i = 0; i < chars.length(); i++) {
             JSONObject c = chars.getJSONObject(i); // Get character JSON object
-            String name = c.optString("name", "Unknown Character"); // Gets the character name
-            String type = c.optString("type", "Unknown"); // Gets the character type
+            String name = intern(c.optString("name", "Unknown Character")); // Gets the character name
+            String type = intern(c.optString("type", "Unknown")); // Gets the character type
             int baseHP = c.optInt("baseHP", 50); // Gets the base HP
             int baseStamina = c.optInt("baseStamina", 50); // Gets the base Stamina
             int baseStrength = c.optInt("baseStrength", 5); // Gets the base Strength
@@ -112,11 +217,12 @@ public class GameDataLoader {
             if (skl != null) { // If there are skills
                 for (int j = 0; j < skl.length(); j++) {
                     String sid = skl.optString(j, ""); // Gets the skill ID
-                    Skill sref = skillMap.get(sid); // Retrieves the Skill object from the map
-                    if (sref != null) cc.addSkill(sref.clone()); // Adds a clone of the skill to the character
+                    SkillDefinition sref = skillMap.get(sid); // Retrieves the shared definition from the map
+                    if (sref != null) cc.addSkill(new Skill(sref)); // Gives the character its own cooldown for it
                 }
             }
             characters.add(cc); // Adds the character to the list
+            kind.add(cc);
         }
     }
 
@@ -0,0 +1,52 @@
+package mastersofmq.game;
+
+import mastersofmq.model.Team;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Decides what a character does on its turn.
+ * Implementations return an action code built with {@link Actions}, and make
+ * the same decision for a live {@link Team} and for the flat {@link BattleState}
+ * used in bulk simulation, so any policy works with every simulator.
+ *
+ * Access Control:
+ * - Public interface so the simulator and callers can plug in their own AI
+ */
+public interface ActionPolicy {
+    /*
+     * @param acting Team of the character taking the turn
+     * @param actorIndex Index of the (alive) acting character in its team
+     * @param opponent Opposing team
+     * @param rng Random source for the battle
+     * @return An action code from {@link Actions}
+     */
+    int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng);
+
+    /*
+     * Same decision made on the flat {@link BattleState} used for bulk simulation.
+     * Target indices in the returned code are team indices, as above.
+     * @param unit The (alive) acting unit
+     */
+    int chooseAction(BattleState state, int unit, RandomGenerator rng);
+
+    /*
+     * Same decisions, told the battle's turn order. Policies that search ahead
+     * override these to play later turns in the order the battle will; the
+     * rest ignore it.
+     * @param turns Turn order of the battle, having just given this turn; only read
+     */
+    default int chooseAction(Team acting, int actorIndex, Team opponent, TurnScheduler turns, RandomGenerator rng) {
+        return chooseAction(acting, actorIndex, opponent, rng);
+    }
+
+    default int chooseAction(BattleState state, int unit, TurnScheduler turns, RandomGenerator rng) {
+        return chooseAction(state, unit, rng);
+    }
+
+    /*
+     * Whether decisions draw from the random source. Policies that don't can be
+     * run ahead of time (see {@link SpeculativeSearch}) without changing the rolls.
+     */
+    default boolean usesRandom() { return true; }
+}
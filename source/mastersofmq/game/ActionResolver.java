@@ -0,0 +1,81 @@
+package mastersofmq.game;
+
+import mastersofmq.game.event.BattleEvent;
+import mastersofmq.game.event.BattleEventSink;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Carries out action codes from {@link Actions} and reports what happened.
+ * Shared by {@link GameEngine} and {@link BattleSimulator} so interactive and
+ * headless battles resolve turns identically.
+ *
+ * Access Control:
+ * - Package-private final class as only the engine and simulator resolve turns
+ */
+final class ActionResolver {
+    private ActionResolver() {}
+
+    /*
+     * Resolves one action. An attack that can't be afforded is treated as
+     * defending, and a skill that can't be used does nothing.
+     */
+    static void resolve(int action, CharacterClass actor, Team acting, Team opponent, RandomGenerator rng, BattleEventSink events) {
+        switch (Actions.kind(action)) {
+            case Actions.ATTACK:
+                if (actor.getCurrentStamina() < CombatRules.ATTACK_COST) {
+                    defend(actor, events);
+                    return;
+                }
+                CharacterClass target = opponent.getCharacters().get(Actions.target(action));
+                int roll = rng.nextInt(CombatRules.ROLL_SIDES); // 0..5
+                int dmg = actor.performAttack(target, roll); // costs 10 stamina, halved if defending
+                if (events.isEnabled()) {
+                    events.accept(new BattleEvent.AttackResolved(actor.getName(), target.getName(), actor.getAttackStrength(), roll,
+                            target.getDefence(), dmg, target.getCurrentHP(), target.getMaxHP()));
+                }
+                return;
+            case Actions.SKILL:
+                Skill skill = actor.getSkills().get(Actions.skillIndex(action));
+                Team targetTeam = Actions.targetsAlly(action) ? acting : opponent;
+                CharacterClass skillTarget = targetTeam.getCharacters().get(Actions.target(action));
+                int amount = actor.performSkill(skill, skillTarget, rng);
+                if (amount < 0 || !events.isEnabled()) return; // Skill could not be used, or nobody is listening
+                if (skill.getDamage() > 0) {
+                    events.accept(new BattleEvent.SkillUsed(actor.getName(), skill.getName(), skillTarget.getName(), amount,
+                            skillTarget.getCurrentHP(), skillTarget.getMaxHP()));
+                } else {
+                    events.accept(new BattleEvent.Healed(actor.getName(), skill.getName(), skillTarget.getName(), amount,
+                            skillTarget.getCurrentHP(), skillTarget.getMaxHP()));
+                }
+                return;
+            default:
+                defend(actor, events);
+        }
+    }
+
+    private static void defend(CharacterClass actor, BattleEventSink events) {
+        actor.defend();
+        if (events.isEnabled()) events.accept(new BattleEvent.Defended(actor.getName()));
+    }
+
+    /*
+     * Reports a stunned actor losing its turn, which uses up one turn of the stun.
+     * @return true if the actor is stunned and must not act
+     */
+    static boolean stunned(CharacterClass actor, BattleEventSink events) {
+        if (!actor.loseTurnToStun()) return false;
+        if (events.isEnabled()) events.accept(new BattleEvent.Stunned(actor.getName()));
+        return true;
+    }
+
+    static void turnStarted(int round, CharacterClass actor, Team acting, BattleEventSink events) { // Announces whose turn it is
+        if (!events.isEnabled()) return;
+        events.accept(new BattleEvent.TurnStarted(round, actor.getName(), acting.getName(),
+                CombatRules.staminaRegen(actor.getEndurance()), actor.getCurrentStamina(), actor.getMaxStamina()));
+    }
+}
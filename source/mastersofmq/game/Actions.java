@@ -0,0 +1,43 @@
+package mastersofmq.game;
+
+/**
+ * Encodes battle actions as plain ints so policies and the simulator can pass
+ * them around without allocating.
+ *
+ * Layout (low to high bits):
+ * - bits 0-1: action kind (ATTACK, DEFEND, SKILL)
+ * - bit 2: target is on the acting team (healing skills)
+ * - bits 3-10: skill index within the actor's skill list
+ * - bits 11+: target index within the targeted team
+ *
+ * Access Control:
+ * - Public final class with a private constructor as it only holds static helpers
+ */
+public final class Actions {
+    public static final int ATTACK = 0;
+    public static final int DEFEND = 1;
+    public static final int SKILL = 2;
+
+    private static final int ALLY_FLAG = 1 << 2;
+    private static final int SKILL_SHIFT = 3;
+    private static final int TARGET_SHIFT = 11;
+
+    private Actions() {}
+
+    public static int attack(int target) { // Basic attack on an opponent
+        return ATTACK | (target << TARGET_SHIFT);
+    }
+
+    public static int defend() { // Defensive stance, no target
+        return DEFEND;
+    }
+
+    public static int skill(int skillIndex, int target, boolean allyTarget) { // Skill on an opponent or, for heals, an ally
+        return SKILL | (allyTarget ? ALLY_FLAG : 0) | (skillIndex << SKILL_SHIFT) | (target << TARGET_SHIFT);
+    }
+
+    public static int kind(int code) { return code & 0x3; } // ATTACK, DEFEND or SKILL
+    public static boolean targetsAlly(int code) { return (code & ALLY_FLAG) != 0; } // True if target is on the acting team
+    public static int skillIndex(int code) { return (code >>> SKILL_SHIFT) & 0xFF; } // Index into the actor's skills
+    public static int target(int code) { return code >>> TARGET_SHIFT; } // Index into the targeted team
+}
@@ -0,0 +1,48 @@
+package mastersofmq.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Creates the random number streams battles draw from.
+ * Every battle owns one {@link SplittableRandom}: the engine, basic attacks,
+ * skills and the AI all draw from it, and nothing is shared between threads.
+ *
+ * Reproducibility:
+ * - A battle's stream depends only on (seed, battle number), so the same
+ *   battle plays out bit-for-bit the same alone or as one of millions run on
+ *   any number of threads
+ * - Workers that need their own stream for anything else take a
+ *   {@link SplittableRandom#split()} of a seeded root instead of sharing one
+ *
+ * Access Control:
+ * - Public final class with a private constructor as it only holds static helpers
+ */
+public final class BattleRandom {
+    private BattleRandom() {}
+
+    /*
+     * @param seed Seed for the whole run (or one matchup in it)
+     * @param battle Number of the battle within the run
+     * @return A fresh stream for that battle
+     */
+    public static SplittableRandom forBattle(long seed, long battle) {
+        return new SplittableRandom(seedFor(seed, battle));
+    }
+
+    /*
+     * @return A fresh stream for a single battle with an explicit seed
+     */
+    public static SplittableRandom seeded(long seed) {
+        return new SplittableRandom(mix(seed));
+    }
+
+    public static long seedFor(long seed, long battle) { // Seed of one battle within a run
+        return mix(mix(seed) + battle);
+    }
+
+    public static long mix(long z) { // SplitMix64 finaliser, spreads nearby seeds apart
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,46 @@
+package mastersofmq.game;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of one headless battle produced by {@link BattleSimulator}.
+ * Holds the winner, how many rounds were fought and the HP left on each character.
+ *
+ * Access Control:
+ * - Public immutable class; HP arrays are copied on the way in and out
+ */
+public class BattleResult {
+    public enum Winner { PLAYER, ENEMY, DRAW }
+
+    private final Winner winner;
+    private final int rounds;
+    private final int[] playerHP;
+    private final int[] enemyHP;
+
+    public BattleResult(Winner winner, int rounds, int[] playerHP, int[] enemyHP) {
+        this.winner = winner;
+        this.rounds = rounds;
+        this.playerHP = playerHP.clone();
+        this.enemyHP = enemyHP.clone();
+    }
+
+    public Winner getWinner() { return winner; } // PLAYER, ENEMY, or DRAW if the round limit was reached
+    public boolean isPlayerVictory() { return winner == Winner.PLAYER; }
+    public int getRounds() { return rounds; } // Rounds fought, including the one the battle ended in
+    public int[] getPlayerHP() { return playerHP.clone(); } // Remaining HP per player character, in team order
+    public int[] getEnemyHP() { return enemyHP.clone(); } // Remaining HP per enemy character, in team order
+
+    public int getPlayerHPTotal() { return sum(playerHP); }
+    public int getEnemyHPTotal() { return sum(enemyHP); }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int v : values) total += v;
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return winner + " after " + rounds + " rounds, player HP " + Arrays.toString(playerHP) + ", enemy HP " + Arrays.toString(enemyHP);
+    }
+}
@@ -0,0 +1,167 @@
+package mastersofmq.game;
+
+import mastersofmq.game.event.BattleEvent;
+import mastersofmq.game.event.BattleEventSink;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Team;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Headless battle runner for bulk simulation.
+ * Plays the same turn order as {@link GameEngine#run()} but with no console
+ * input or output, and lets both sides be driven by an {@link ActionPolicy}.
+ *
+ * Turn Order (per round), decided by a {@link TurnScheduler} so teams can be any size:
+ * 1. Player Character 1
+ * 2. Enemy Character 1
+ * 3. Player Character 2
+ * 4. Enemy Character 2
+ * (and so on), or by initiative when one is configured,
+ * then end-of-round effects for both teams.
+ *
+ * The teams passed to {@link #simulate(Team, Team, RandomGenerator)} are fought with
+ * directly, so callers should pass fresh copies for every battle.
+ * Events are only built when the configured {@link BattleEventSink} is enabled.
+ *
+ * Access Control:
+ * - Public class as it's the entry point for balance checks and simulations
+ * - Private fields as policies and limits are fixed at construction
+ * - Holds no per-battle state, so one instance can run battles on many threads
+ */
+public class BattleSimulator {
+    public static final int DEFAULT_MAX_ROUNDS = 1000; // Safety limit for policies that never attack
+
+    private final ActionPolicy playerPolicy;
+    private final ActionPolicy enemyPolicy;
+    private final int maxRounds;
+    private final BattleEventSink events;
+    private final TurnScheduler.Initiative initiative;
+
+    public BattleSimulator(ActionPolicy playerPolicy, ActionPolicy enemyPolicy) {
+        this(playerPolicy, enemyPolicy, DEFAULT_MAX_ROUNDS);
+    }
+
+    public BattleSimulator(ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxRounds) {
+        this(playerPolicy, enemyPolicy, maxRounds, BattleEventSink.NONE);
+    }
+
+    /*
+     * @param events Sink for battle events, e.g. a {@link mastersofmq.game.event.BattleLogWriter};
+     *               {@link BattleEventSink#NONE} skips building events entirely
+     */
+    public BattleSimulator(ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxRounds, BattleEventSink events) {
+        this(playerPolicy, enemyPolicy, maxRounds, events, TurnScheduler.Initiative.NONE);
+    }
+
+    /*
+     * @param initiative How turns are ordered within a round; NONE keeps the classic order
+     */
+    public BattleSimulator(ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxRounds, BattleEventSink events,
+                           TurnScheduler.Initiative initiative) {
+        if (maxRounds < 1) throw new IllegalArgumentException("maxRounds must be at least 1");
+        this.playerPolicy = playerPolicy;
+        this.enemyPolicy = enemyPolicy;
+        this.maxRounds = maxRounds;
+        this.events = events;
+        this.initiative = initiative;
+    }
+
+    /*
+     * Fights a battle to the end.
+     * @param playerTeam The player's team (modified in place)
+     * @param enemyTeam The enemy team (modified in place; {@link Team#reset()} it to fight again without cloning)
+     * @param rng Random source for the battle, seed it for reproducible results
+     * @return The winner, rounds fought and remaining HP
+     */
+    public BattleResult simulate(Team playerTeam, Team enemyTeam, RandomGenerator rng) {
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(playerTeam, enemyTeam), initiative);
+        int round = 0;
+        int fought = 0; // Rounds that reached their end, as GameEngine reports them
+        battle:
+        while (round < maxRounds && !playerTeam.isDefeated() && !enemyTeam.isDefeated()) { // Battle loop
+            round++;
+            if (events.isEnabled()) events.accept(new BattleEvent.RoundStarted(round));
+            turns.startRound();
+            for (int slot = turns.next(); slot >= 0; slot = turns.next()) { // Next living character
+                boolean won = TurnScheduler.side(slot) == BattleState.PLAYER
+                        ? takeTurn(playerPolicy, playerTeam, enemyTeam, TurnScheduler.index(slot), round, turns, rng)
+                        : takeTurn(enemyPolicy, enemyTeam, playerTeam, TurnScheduler.index(slot), round, turns, rng);
+                if (won) break battle;
+            }
+            playerTeam.endOfRound(); // End of round effects
+            enemyTeam.endOfRound(); // End of round effects
+            fought++;
+            if (events.isEnabled()) {
+                events.accept(new BattleEvent.RoundEnded(round, BattleEvent.TeamStatus.of(playerTeam), BattleEvent.TeamStatus.of(enemyTeam)));
+            }
+        }
+        BattleResult.Winner winner = winner(playerTeam, enemyTeam);
+        if (events.isEnabled()) {
+            events.accept(new BattleEvent.BattleConcluded(winner == BattleResult.Winner.PLAYER, fought,
+                    BattleEvent.TeamStatus.of(playerTeam), BattleEvent.TeamStatus.of(enemyTeam), null));
+        }
+        return new BattleResult(winner, round, hpOf(playerTeam), hpOf(enemyTeam));
+    }
+
+    /*
+     * Fights a battle on a flat {@link BattleState}, which is reset first.
+     * Plays exactly like {@link #simulate(Team, Team, RandomGenerator)} on the
+     * same teams and random stream, allocating only the turn scheduler and the result.
+     * No events are emitted on this path.
+     * @param state State built once from the template teams; reused battle after battle
+     * @param rng Random source for the battle
+     */
+    public BattleResult simulate(BattleState state, RandomGenerator rng) {
+        state.reset();
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(state), initiative);
+        int round = 0;
+        battle:
+        while (round < maxRounds && !state.isDefeated(BattleState.PLAYER) && !state.isDefeated(BattleState.ENEMY)) { // Battle loop
+            round++;
+            turns.startRound();
+            for (int slot = turns.next(); slot >= 0; slot = turns.next()) { // Next living character
+                if (takeTurn(state, TurnScheduler.side(slot), TurnScheduler.index(slot), turns, rng)) break battle;
+            }
+            state.endOfRound(); // End of round effects
+        }
+        BattleResult.Winner winner = state.isDefeated(BattleState.ENEMY) ? BattleResult.Winner.PLAYER
+                : state.isDefeated(BattleState.PLAYER) ? BattleResult.Winner.ENEMY : BattleResult.Winner.DRAW;
+        return new BattleResult(winner, round, state.hpOf(BattleState.PLAYER), state.hpOf(BattleState.ENEMY));
+    }
+
+    private boolean takeTurn(BattleState state, int side, int index, TurnScheduler turns, RandomGenerator rng) { // The scheduler only hands out living units
+        ActionPolicy policy = side == BattleState.PLAYER ? playerPolicy : enemyPolicy;
+        int actor = state.unit(side, index);
+        if (state.loseTurnToStun(actor)) return false; // Loses the turn
+        state.apply(policy.chooseAction(state, actor, turns, rng), actor, rng);
+        return state.isDefeated(1 - side);
+    }
+
+    /*
+     * Plays one character's turn.
+     * @return true if the opposing team has been defeated
+     */
+    private boolean takeTurn(ActionPolicy policy, Team acting, Team opponent, int index, int round, TurnScheduler turns, RandomGenerator rng) {
+        CharacterClass actor = acting.getAliveCharacter(index);
+        if (actor == null) return false; // If no alive character, skip turn
+        ActionResolver.turnStarted(round, actor, acting, events);
+        if (ActionResolver.stunned(actor, events)) return false; // Loses the turn
+        ActionResolver.resolve(policy.chooseAction(acting, index, opponent, turns, rng), actor, acting, opponent, rng, events);
+        return opponent.isDefeated();
+    }
+
+    private static BattleResult.Winner winner(Team playerTeam, Team enemyTeam) {
+        if (enemyTeam.isDefeated()) return BattleResult.Winner.PLAYER;
+        if (playerTeam.isDefeated()) return BattleResult.Winner.ENEMY;
+        return BattleResult.Winner.DRAW;
+    }
+
+    private static int[] hpOf(Team team) { // Remaining HP of every character, in team order
+        List<CharacterClass> characters = team.getCharacters();
+        int[] hp = new int[characters.size()];
+        for (int i = 0; i < hp.length; i++) hp[i] = characters.get(i).getCurrentHP();
+        return hp;
+    }
+}
@@ -0,0 +1,552 @@
+package mastersofmq.game;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.Skill;
+import mastersofmq.model.StatusEffect;
+import mastersofmq.model.Team;
+import mastersofmq.model.Zobrist;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Compact battle state for bulk simulation, stored as flat primitive arrays
+ * (struct-of-arrays) instead of a graph of CharacterClass and Skill objects.
+ *
+ * Layout:
+ * - Units are numbered with the player team first: 0..playerCount-1 are the
+ *   player's characters, playerCount..unitCount-1 the enemies, in team order
+ * - Per-unit arrays hold HP, stamina, the defending flag and the rounds the unit
+ *   has lived through (its clock, as in CharacterClass), plus the fixed stats
+ * - Skills of all units are packed into shared arrays; unit u owns the slots
+ *   skillStart[u]..skillStart[u]+skillCount[u]-1, in the same order as its skill list.
+ *   Cooldowns are kept as the round of the unit's clock the skill is ready again
+ * - Status effects take KINDS slots per unit (u * KINDS + kind) holding the
+ *   round they end (for a stun, the turns still to lose) and amount, plus a
+ *   bitmask of the active kinds so units with none cost a single check at the
+ *   end of a round
+ *
+ * The state is built once from the template teams and then {@link #reset()} in
+ * place before every battle, so running a battle allocates nothing.
+ * Rules match CharacterClass exactly, so a battle on the state replays the
+ * same as one on cloned teams with the same random stream.
+ * The state also keeps an incremental Zobrist hash (see {@link Zobrist}) equal to
+ * the XOR of the two teams' hashes in the same position.
+ *
+ * Access Control:
+ * - Public final class; mutable arrays are private and changed through the rule methods
+ * - Not thread-safe: give each worker its own state (see {@link #copy()})
+ */
+public final class BattleState {
+    public static final int PLAYER = 0;
+    public static final int ENEMY = 1;
+
+    private static final int KINDS = StatusEffect.KINDS;
+    private static final int POISON = StatusEffect.Kind.POISON.ordinal();
+    private static final int REGEN = StatusEffect.Kind.REGEN.ordinal();
+    private static final int STRENGTH = StatusEffect.Kind.STRENGTH.ordinal();
+    private static final int STUN = StatusEffect.Kind.STUN.ordinal();
+
+    private final String playerName;
+    private final String enemyName;
+    private final String[] names;
+    private final int playerCount;
+    private final int unitCount;
+
+    // Fixed per-unit stats
+    private final int[] maxHP;
+    private final int[] maxStamina;
+    private final int[] strength;
+    private final int[] defence;
+    private final int[] regen;
+    private final int[] endurance;
+    private final int[] initialHP;
+    private final int[] initialStamina;
+    private final boolean[] initialDefending;
+    private final int[] skillStart;
+    private final int[] skillCount;
+
+    // Fixed per-skill data
+    private final int[] skillDamage;
+    private final int[] skillCost;
+    private final int[] skillCooldownMax;
+    private final int[] initialReadyAt;
+    private final int[] skillEffect; // StatusEffect.Kind ordinal, -1 for none
+    private final int[] skillEffectAmount;
+    private final int[] skillEffectDuration;
+    private final long[] salt; // Zobrist salt of each unit
+    private final int[] initialRound;
+    private final int[] initialEffectDue;
+    private final int[] initialEffectAmount;
+    private final int[] initialEffectMask;
+    private final boolean effects; // Whether any effect is active or can be applied in this battle
+
+    // Mutable battle state
+    private final int[] hp;
+    private final int[] stamina;
+    private final boolean[] defending;
+    private final int[] round; // Rounds each unit has ended alive
+    private final int[] readyAt; // Round of its unit's clock each skill can be used again
+    private final int[] effectDue; // [unit * KINDS + kind] round of the unit's clock the effect ends on
+    private final int[] effectAmount;
+    private final int[] effectMask; // Bit kind set while that effect is active on the unit
+    private final int[] alive = new int[2]; // Living units per side, kept up to date by setHP
+    private long hash;
+
+    private BattleState(Team playerTeam, Team enemyTeam) {
+        List<CharacterClass> players = playerTeam.getCharacters();
+        List<CharacterClass> enemies = enemyTeam.getCharacters();
+        playerName = playerTeam.getName();
+        enemyName = enemyTeam.getName();
+        playerCount = players.size();
+        unitCount = playerCount + enemies.size();
+
+        names = new String[unitCount];
+        maxHP = new int[unitCount];
+        maxStamina = new int[unitCount];
+        strength = new int[unitCount];
+        defence = new int[unitCount];
+        regen = new int[unitCount];
+        endurance = new int[unitCount];
+        initialHP = new int[unitCount];
+        initialStamina = new int[unitCount];
+        initialDefending = new boolean[unitCount];
+        skillStart = new int[unitCount];
+        skillCount = new int[unitCount];
+        salt = new long[unitCount];
+
+        int totalSkills = 0;
+        for (int u = 0; u < unitCount; u++) totalSkills += character(players, enemies, u).getSkills().size();
+        skillDamage = new int[totalSkills];
+        skillCost = new int[totalSkills];
+        skillCooldownMax = new int[totalSkills];
+        initialReadyAt = new int[totalSkills];
+        skillEffect = new int[totalSkills];
+        skillEffectAmount = new int[totalSkills];
+        skillEffectDuration = new int[totalSkills];
+        initialRound = new int[unitCount];
+        initialEffectDue = new int[unitCount * KINDS];
+        initialEffectAmount = new int[unitCount * KINDS];
+        initialEffectMask = new int[unitCount];
+
+        boolean anyEffect = false;
+        int slot = 0;
+        for (int u = 0; u < unitCount; u++) {
+            CharacterClass c = character(players, enemies, u);
+            names[u] = c.getName();
+            salt[u] = u < playerCount ? Zobrist.salt(PLAYER, u) : Zobrist.salt(ENEMY, u - playerCount);
+            maxHP[u] = c.getMaxHP();
+            maxStamina[u] = c.getMaxStamina();
+            strength[u] = c.getStrength();
+            defence[u] = c.getDefence();
+            regen[u] = CombatRules.staminaRegen(c.getEndurance());
+            endurance[u] = c.getEndurance();
+            initialHP[u] = c.getCurrentHP();
+            initialStamina[u] = c.getCurrentStamina();
+            initialDefending[u] = c.isDefending();
+            initialRound[u] = c.getRound();
+            skillStart[u] = slot;
+            skillCount[u] = c.getSkills().size();
+            for (Skill s : c.getSkills()) {
+                skillDamage[slot] = s.getDamage();
+                skillCost[slot] = s.getStaminaCost();
+                skillCooldownMax[slot] = s.getCooldownMax();
+                initialReadyAt[slot] = s.getReadyAt();
+                StatusEffect effect = s.getEffect();
+                skillEffect[slot] = effect == null ? -1 : effect.getKind().ordinal();
+                if (effect != null) {
+                    skillEffectAmount[slot] = effect.getAmount();
+                    skillEffectDuration[slot] = effect.getDuration();
+                    anyEffect = true;
+                }
+                slot++;
+            }
+            for (StatusEffect.Kind kind : StatusEffect.Kind.values()) { // Effects already running on the character
+                if (!c.hasEffect(kind)) continue;
+                initialEffectDue[u * KINDS + kind.ordinal()] = kind == StatusEffect.Kind.STUN ? c.getEffectRounds(kind) : c.getRound() + c.getEffectRounds(kind);
+                initialEffectAmount[u * KINDS + kind.ordinal()] = c.getEffectAmount(kind);
+                initialEffectMask[u] |= 1 << kind.ordinal();
+                anyEffect = true;
+            }
+        }
+        effects = anyEffect;
+
+        hp = new int[unitCount];
+        stamina = new int[unitCount];
+        defending = new boolean[unitCount];
+        round = new int[unitCount];
+        readyAt = new int[totalSkills];
+        effectDue = new int[unitCount * KINDS];
+        effectAmount = new int[unitCount * KINDS];
+        effectMask = new int[unitCount];
+        reset();
+    }
+
+    private BattleState(BattleState other) { // Shares the fixed arrays, copies the mutable ones
+        playerName = other.playerName;
+        enemyName = other.enemyName;
+        names = other.names;
+        playerCount = other.playerCount;
+        unitCount = other.unitCount;
+        maxHP = other.maxHP;
+        maxStamina = other.maxStamina;
+        strength = other.strength;
+        defence = other.defence;
+        regen = other.regen;
+        endurance = other.endurance;
+        initialHP = other.initialHP;
+        initialStamina = other.initialStamina;
+        initialDefending = other.initialDefending;
+        skillStart = other.skillStart;
+        skillCount = other.skillCount;
+        skillDamage = other.skillDamage;
+        skillCost = other.skillCost;
+        skillCooldownMax = other.skillCooldownMax;
+        initialReadyAt = other.initialReadyAt;
+        skillEffect = other.skillEffect;
+        skillEffectAmount = other.skillEffectAmount;
+        skillEffectDuration = other.skillEffectDuration;
+        initialRound = other.initialRound;
+        initialEffectDue = other.initialEffectDue;
+        initialEffectAmount = other.initialEffectAmount;
+        initialEffectMask = other.initialEffectMask;
+        effects = other.effects;
+        salt = other.salt;
+        hash = other.hash;
+        alive[PLAYER] = other.alive[PLAYER];
+        alive[ENEMY] = other.alive[ENEMY];
+        hp = other.hp.clone();
+        stamina = other.stamina.clone();
+        defending = other.defending.clone();
+        round = other.round.clone();
+        readyAt = other.readyAt.clone();
+        effectDue = other.effectDue.clone();
+        effectAmount = other.effectAmount.clone();
+        effectMask = other.effectMask.clone();
+    }
+
+    private static CharacterClass character(List<CharacterClass> players, List<CharacterClass> enemies, int unit) {
+        return unit < players.size() ? players.get(unit) : enemies.get(unit - players.size());
+    }
+
+    /*
+     * Builds a state from two teams as they are now (normally fresh templates).
+     * The teams are only read, never modified.
+     */
+    public static BattleState of(Team playerTeam, Team enemyTeam) {
+        return new BattleState(playerTeam, enemyTeam);
+    }
+
+    /*
+     * @return An independent state sharing this one's fixed data, for another worker or a search
+     */
+    public BattleState copy() {
+        return new BattleState(this);
+    }
+
+    public void reset() { // Restores HP, stamina, clocks, cooldowns, stances and effects to how the teams were when the state was built
+        System.arraycopy(initialHP, 0, hp, 0, unitCount);
+        System.arraycopy(initialStamina, 0, stamina, 0, unitCount);
+        System.arraycopy(initialRound, 0, round, 0, unitCount);
+        System.arraycopy(initialReadyAt, 0, readyAt, 0, readyAt.length);
+        System.arraycopy(initialDefending, 0, defending, 0, unitCount);
+        if (effects) {
+            System.arraycopy(initialEffectDue, 0, effectDue, 0, effectDue.length);
+            System.arraycopy(initialEffectAmount, 0, effectAmount, 0, effectAmount.length);
+            System.arraycopy(initialEffectMask, 0, effectMask, 0, unitCount);
+        }
+        hash = computeHash();
+        countAlive();
+    }
+
+    public void copyFrom(BattleState other) { // Overwrites the mutable state with another state of the same battle
+        System.arraycopy(other.hp, 0, hp, 0, unitCount);
+        System.arraycopy(other.stamina, 0, stamina, 0, unitCount);
+        System.arraycopy(other.defending, 0, defending, 0, unitCount);
+        System.arraycopy(other.round, 0, round, 0, unitCount);
+        System.arraycopy(other.readyAt, 0, readyAt, 0, readyAt.length);
+        if (effects) {
+            System.arraycopy(other.effectDue, 0, effectDue, 0, effectDue.length);
+            System.arraycopy(other.effectAmount, 0, effectAmount, 0, effectAmount.length);
+            System.arraycopy(other.effectMask, 0, effectMask, 0, unitCount);
+        }
+        hash = other.hash;
+        alive[PLAYER] = other.alive[PLAYER];
+        alive[ENEMY] = other.alive[ENEMY];
+    }
+
+    /*
+     * Overwrites HP, stamina and cooldowns of every unit at once and clears every
+     * stance, for rounds resolved outside the state (see MassBattleSimulator).
+     * Clocks and status effects are left as they are.
+     * @param cooldown Cooldowns left on every unit's skills, unit by unit in skill order
+     */
+    public void load(int[] hp, int[] stamina, int[] cooldown) {
+        System.arraycopy(hp, 0, this.hp, 0, unitCount);
+        System.arraycopy(stamina, 0, this.stamina, 0, unitCount);
+        for (int u = 0; u < unitCount; u++) {
+            for (int slot = skillStart[u], end = slot + skillCount[u]; slot < end; slot++) readyAt[slot] = round[u] + cooldown[slot];
+        }
+        Arrays.fill(defending, false);
+        hash = computeHash();
+        countAlive();
+    }
+
+    private void countAlive() {
+        alive[PLAYER] = 0;
+        alive[ENEMY] = 0;
+        for (int u = 0; u < unitCount; u++) {
+            if (hp[u] > 0) alive[sideOf(u)]++;
+        }
+    }
+
+    public long hash() { return hash; } // Zobrist hash of the position; XOR in Zobrist.turn(slot) for whose turn it is
+
+    private long computeHash() {
+        long h = 0;
+        for (int u = 0; u < unitCount; u++) {
+            h ^= Zobrist.key(salt[u], Zobrist.HP, hp[u]) ^ Zobrist.key(salt[u], Zobrist.STAMINA, stamina[u]);
+            if (defending[u]) h ^= Zobrist.key(salt[u], Zobrist.DEFENDING, 1);
+            for (int k = 0; k < skillCount[u]; k++) h ^= Zobrist.key(salt[u], Zobrist.COOLDOWN + k, cooldown(u, k));
+            for (int e = 0; e < KINDS; e++) {
+                if ((effectMask[u] & 1 << e) != 0) h ^= effectKey(u, e);
+            }
+        }
+        return h;
+    }
+
+    // Layout
+
+    public int unitCount() { return unitCount; }
+    public int teamSize(int side) { return side == PLAYER ? playerCount : unitCount - playerCount; }
+    public int firstUnit(int side) { return side == PLAYER ? 0 : playerCount; }
+    public int unit(int side, int index) { return firstUnit(side) + index; } // Unit number of a team member
+    public int sideOf(int unit) { return unit < playerCount ? PLAYER : ENEMY; }
+    public int indexInTeam(int unit) { return unit < playerCount ? unit : unit - playerCount; }
+    public String teamName(int side) { return side == PLAYER ? playerName : enemyName; }
+    public String name(int unit) { return names[unit]; }
+
+    // Per-unit queries
+
+    public int hp(int unit) { return hp[unit]; }
+    public int maxHP(int unit) { return maxHP[unit]; }
+    public int stamina(int unit) { return stamina[unit]; }
+    public int maxStamina(int unit) { return maxStamina[unit]; }
+    public int strength(int unit) { return strength[unit] + effectAmount(unit, STRENGTH); } // Including buffs
+    public int defence(int unit) { return defence[unit]; }
+    public int regen(int unit) { return regen[unit]; }
+    public int endurance(int unit) { return endurance[unit]; }
+    public boolean isDefending(int unit) { return defending[unit]; }
+    public boolean isAlive(int unit) { return hp[unit] > 0; }
+    public int skillCount(int unit) { return skillCount[unit]; }
+    public int skillDamage(int unit, int k) { return skillDamage[skillStart[unit] + k]; }
+    public int skillCost(int unit, int k) { return skillCost[skillStart[unit] + k]; }
+    public int skillCooldownMax(int unit, int k) { return skillCooldownMax[skillStart[unit] + k]; }
+    public int skillEffect(int unit, int k) { return skillEffect[skillStart[unit] + k]; } // StatusEffect.Kind ordinal the skill applies, -1 for none
+    public int skillEffectAmount(int unit, int k) { return skillEffectAmount[skillStart[unit] + k]; }
+    public int skillEffectDuration(int unit, int k) { return skillEffectDuration[skillStart[unit] + k]; }
+    public int round(int unit) { return round[unit]; } // Rounds the unit has ended alive
+    public int readyAt(int unit, int k) { return readyAt[skillStart[unit] + k]; } // Round of the unit's clock the skill is ready again
+    public int cooldown(int unit, int k) { return Math.max(0, readyAt[skillStart[unit] + k] - round[unit]); } // Rounds left
+    public boolean hasEffects() { return effects; } // Whether any status effect is active or can be applied
+    public boolean hasEffect(int unit, StatusEffect.Kind kind) { return (effectMask[unit] & 1 << kind.ordinal()) != 0; }
+    public int effectRounds(int unit, StatusEffect.Kind kind) { // Round ends left (turns left for a stun), 0 if the effect is not active
+        if (!hasEffect(unit, kind)) return 0;
+        int due = effectDue[unit * KINDS + kind.ordinal()];
+        return kind == StatusEffect.Kind.STUN ? due : due - round[unit];
+    }
+    public int effectAmount(int unit, StatusEffect.Kind kind) { return effectAmount(unit, kind.ordinal()); } // 0 when inactive
+    public boolean isStunned(int unit) { return (effectMask[unit] & 1 << STUN) != 0; } // Loses its turns while set
+    private int effectAmount(int unit, int e) { return effectAmount[unit * KINDS + e]; } // 0 when inactive
+
+    public boolean canUseSkill(int unit, int k) { // Enough stamina and not on cooldown
+        int slot = skillStart[unit] + k;
+        return stamina[unit] >= skillCost[slot] && readyAt[slot] <= round[unit];
+    }
+
+    public int aliveCount(int side) { return alive[side]; }
+
+    public boolean isDefeated(int side) { return alive[side] == 0; }
+
+    public int totalHP(int side) {
+        int total = 0;
+        for (int u = firstUnit(side), end = u + teamSize(side); u < end; u++) total += hp[u];
+        return total;
+    }
+
+    public int[] hpOf(int side) { // Remaining HP of a team, in team order
+        int[] out = new int[teamSize(side)];
+        System.arraycopy(hp, firstUnit(side), out, 0, out.length);
+        return out;
+    }
+
+    // Rules, mirroring CharacterClass
+
+    private void takeDamage(int unit, int d) { // HP stays within 0..maxHP, negative damage heals
+        setHP(unit, Math.max(0, Math.min(maxHP[unit], hp[unit] - d)));
+    }
+
+    private void setHP(int unit, int value) {
+        hash ^= Zobrist.key(salt[unit], Zobrist.HP, hp[unit]) ^ Zobrist.key(salt[unit], Zobrist.HP, value);
+        if (hp[unit] > 0 != value > 0) alive[sideOf(unit)] += value > 0 ? 1 : -1; // Fell, or was healed back up
+        hp[unit] = value;
+        if (value <= 0 && effectMask[unit] != 0) { // Falling removes every effect
+            for (int e = 0; e < KINDS; e++) endEffect(unit, e);
+        }
+    }
+
+    private long effectKey(int unit, int e) { // Keys of an active effect, hashed by the rounds (or stunned turns) it has left
+        int i = unit * KINDS + e;
+        int left = e == STUN ? effectDue[i] : effectDue[i] - round[unit];
+        return Zobrist.key(salt[unit], Zobrist.EFFECT - 2 * e, left) ^ Zobrist.key(salt[unit], Zobrist.EFFECT - 2 * e - 1, effectAmount[i]);
+    }
+
+    private void startEffect(int unit, int e, int rounds, int amount) { // Replaces an effect of the same kind
+        endEffect(unit, e);
+        int i = unit * KINDS + e;
+        effectDue[i] = e == STUN ? rounds : round[unit] + rounds; // A stun counts the unit's turns
+        effectAmount[i] = amount;
+        effectMask[unit] |= 1 << e;
+        hash ^= effectKey(unit, e);
+    }
+
+    private void endEffect(int unit, int e) { // Nothing if the effect is not active
+        if ((effectMask[unit] & 1 << e) == 0) return;
+        int i = unit * KINDS + e;
+        hash ^= effectKey(unit, e);
+        effectMask[unit] &= ~(1 << e);
+        effectAmount[i] = 0;
+    }
+
+    /*
+     * Called when the unit's turn comes up, as CharacterClass.loseTurnToStun:
+     * a stunned unit uses up one of the turns it loses.
+     * @return true if the unit is stunned and must not act this turn
+     */
+    public boolean loseTurnToStun(int unit) {
+        if (!isStunned(unit)) return false;
+        int i = unit * KINDS + STUN;
+        if (effectDue[i] == 1) {
+            endEffect(unit, STUN);
+        } else {
+            hash ^= effectKey(unit, STUN);
+            effectDue[i]--;
+            hash ^= effectKey(unit, STUN);
+        }
+        return true;
+    }
+
+    private void setStamina(int unit, int value) {
+        hash ^= Zobrist.key(salt[unit], Zobrist.STAMINA, stamina[unit]) ^ Zobrist.key(salt[unit], Zobrist.STAMINA, value);
+        stamina[unit] = value;
+    }
+
+    private void setReadyAt(int unit, int k, int value) {
+        int slot = skillStart[unit] + k;
+        hash ^= Zobrist.key(salt[unit], Zobrist.COOLDOWN + k, Math.max(0, readyAt[slot] - round[unit]))
+                ^ Zobrist.key(salt[unit], Zobrist.COOLDOWN + k, Math.max(0, value - round[unit]));
+        readyAt[slot] = value;
+    }
+
+    public void defend(int unit) {
+        if (!defending[unit]) hash ^= Zobrist.key(salt[unit], Zobrist.DEFENDING, 1);
+        defending[unit] = true;
+    }
+
+    /*
+     * Basic attack: costs stamina and damages the target.
+     * @return damage dealt
+     */
+    public int attack(int actor, int target, int roll) {
+        setStamina(actor, Math.max(0, stamina[actor] - CombatRules.ATTACK_COST));
+        int dmg = CombatRules.attackDamage(strength(actor), roll, defence[target], defending[target]);
+        takeDamage(target, dmg);
+        return dmg;
+    }
+
+    /*
+     * Uses skill k of the actor on the target with the given roll.
+     * @return damage dealt (or HP restored for healing skills), -1 if the skill could not be used
+     */
+    public int useSkill(int actor, int k, int target, int roll) {
+        if (!canUseSkill(actor, k)) return -1;
+        int slot = skillStart[actor] + k;
+        setStamina(actor, stamina[actor] - skillCost[slot]);
+        int dmg = skillDamage[slot];
+        int amount;
+        if (dmg > 0) {
+            amount = CombatRules.skillDamage(dmg, roll, defence[target], defending[target]);
+            takeDamage(target, amount);
+        } else {
+            amount = Math.abs(dmg) + roll; // Reported heal, as in CharacterClass
+            takeDamage(target, dmg);
+        }
+        setReadyAt(actor, k, round[actor] + skillCooldownMax[slot]);
+        if (skillEffect[slot] >= 0 && hp[target] > 0) startEffect(target, skillEffect[slot], skillEffectDuration[slot], skillEffectAmount[slot]);
+        return amount;
+    }
+
+    /*
+     * Resolves an action code from {@link Actions} for a unit, drawing rolls from rng
+     * exactly like ActionResolver does for teams.
+     */
+    public void apply(int action, int actor, RandomGenerator rng) {
+        int actingSide = sideOf(actor);
+        switch (Actions.kind(action)) {
+            case Actions.ATTACK:
+                if (stamina[actor] < CombatRules.ATTACK_COST) {
+                    defend(actor);
+                    return;
+                }
+                attack(actor, unit(1 - actingSide, Actions.target(action)), rng.nextInt(CombatRules.ROLL_SIDES));
+                return;
+            case Actions.SKILL:
+                int k = Actions.skillIndex(action);
+                if (!canUseSkill(actor, k)) return; // Nothing happens, and no roll is drawn
+                int targetSide = Actions.targetsAlly(action) ? actingSide : 1 - actingSide;
+                useSkill(actor, k, unit(targetSide, Actions.target(action)), rng.nextInt(CombatRules.ROLL_SIDES));
+                return;
+            default:
+                defend(actor);
+        }
+    }
+
+    public void endOfRound() { // Stamina regen, clocks tick, stances clear and status effects run for living units
+        for (int u = 0; u < unitCount; u++) {
+            if (hp[u] <= 0) continue;
+            int st = Math.min(maxStamina[u], stamina[u] + regen[u]);
+            if (st != stamina[u]) setStamina(u, st);
+            hash ^= runDownKeys(u);
+            round[u]++; // Cooldowns and effects run down with it
+            if (defending[u]) {
+                hash ^= Zobrist.key(salt[u], Zobrist.DEFENDING, 1);
+                defending[u] = false;
+            }
+            if (effectMask[u] != 0) tickEffects(u);
+        }
+    }
+
+    private long runDownKeys(int u) { // Change to the hash as the unit's round ends: every running cooldown and effect loses a round
+        long delta = 0;
+        for (int k = 0; k < skillCount[u]; k++) {
+            int left = readyAt[skillStart[u] + k] - round[u];
+            if (left > 0) delta ^= Zobrist.key(salt[u], Zobrist.COOLDOWN + k, left) ^ Zobrist.key(salt[u], Zobrist.COOLDOWN + k, left - 1);
+        }
+        for (int e = 0; e < KINDS; e++) { // A stun runs down with the unit's turns instead
+            if (e == STUN || (effectMask[u] & 1 << e) == 0) continue;
+            int left = effectDue[u * KINDS + e] - round[u];
+            delta ^= Zobrist.key(salt[u], Zobrist.EFFECT - 2 * e, left) ^ Zobrist.key(salt[u], Zobrist.EFFECT - 2 * e, left - 1);
+        }
+        return delta;
+    }
+
+    private void tickEffects(int u) { // Poison, then regen, then effects due this round end; as Team.endOfRound
+        if ((effectMask[u] & 1 << POISON) != 0) takeDamage(u, effectAmount(u, POISON)); // May clear every effect
+        if ((effectMask[u] & 1 << REGEN) != 0) takeDamage(u, -effectAmount(u, REGEN));
+        for (int e = 0; e < KINDS; e++) {
+            if (e != STUN && effectDue[u * KINDS + e] <= round[u]) endEffect(u, e);
+        }
+    }
+}
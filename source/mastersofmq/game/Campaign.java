@@ -0,0 +1,228 @@
+package mastersofmq.game;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A campaign read from JSON: a graph of chapters, each a battle against an
+ * {@link Encounter} with story text around it.
+ *
+ * JSON Format (the index):
+ * {
+ *   "title": "Campaign title", "intro": ["line", ...], "victory": ["line", ...],
+ *   "start": "chapter_id",
+ *   "chapters": [
+ *     {"id": "chapter_id", "file": "campaign/chapter_id.json",
+ *      "next": "chapter_id"}   (no next: winning this chapter wins the campaign)
+ *   ]
+ * }
+ * Each chapter file, relative to the index's folder, holds:
+ * {
+ *   "title": "Chapter title", "intro": ["line", ...], "battle": "Battle name",
+ *   "encounter": {"team": "Enemy team", "opponents": ["Opponent name", ...],
+ *                 "victory": "line", "defeat": "line"},
+ *   "healBefore": false, "healAfter": false, "outro": ["line", ...], "pause": false
+ * }
+ * A chapter may instead be written out in the index entry itself, without "file".
+ *
+ * Lazy chapters:
+ * - Loading reads the index only, and checks that the start and every "next"
+ *   name a chapter and that no "next" leads back round
+ * - {@link #chapter(String)} reads and parses a chapter's file when it is about
+ *   to be played and doesn't keep it, so only the active chapter exists
+ * - Chapters written in the index are parsed with it and kept as parsed JSON
+ * - Opponents are looked up in the templates when the engine builds the team
+ *
+ * Access Control:
+ * - Public final class; immutable once loaded, so one campaign can serve every session
+ * - Chapter is a public immutable nested class
+ */
+public final class Campaign {
+    public static final Path STORY_PATH = Paths.get("data", "campaign.json"); // The main story, relative to the working directory
+
+    private static volatile Campaign story; // Set once the first load of the story succeeds
+
+    private final String title;
+    private final List<String> intro;
+    private final List<String> victory;
+    private final String start;
+    private final Map<String, Path> files; // Chapter files by ID, not yet read
+    private final Map<String, JSONObject> inline; // Chapters written in the index by ID; only read after loading
+    private final Map<String, String> links; // Chapter ID to the next one's, absent for the last
+
+    /*
+     * One step of the campaign. Built on demand by {@link Campaign#chapter(String)}.
+     */
+    public static final class Chapter {
+        private final String id;
+        private final String title;
+        private final List<String> intro;
+        private final String battleName;
+        private final Encounter encounter;
+        private final boolean healBefore;
+        private final boolean healAfter;
+        private final List<String> outro;
+        private final boolean pause;
+        private final String next;
+
+        private Chapter(String id, JSONObject c, String next) {
+            this.id = id;
+            this.title = c.optString("title", id);
+            this.intro = lines(c.optJSONArray("intro"));
+            this.battleName = c.optString("battle", title);
+            JSONObject e = c.getJSONObject("encounter");
+            List<String> opponents = new ArrayList<>();
+            JSONArray names = e.getJSONArray("opponents");
+            for (int i = 0; i < names.length(); i++) opponents.add(names.getString(i));
+            this.encounter = new Encounter(e.optString("team", "Enemies"), e.optString("victory", null), e.optString("defeat", null), opponents);
+            this.healBefore = c.optBoolean("healBefore", false);
+            this.healAfter = c.optBoolean("healAfter", false);
+            this.outro = lines(c.optJSONArray("outro"));
+            this.pause = c.optBoolean("pause", false);
+            this.next = next;
+        }
+
+        public String getId() { return id; }
+        public String getTitle() { return title; }
+        public List<String> getIntro() { return intro; } // Shown before the battle
+        public String getBattleName() { return battleName; }
+        public Encounter getEncounter() { return encounter; } // Enemy line-up and its victory/defeat text
+        public boolean healsBefore() { return healBefore; } // Team restored before the intro
+        public boolean healsAfter() { return healAfter; } // Team restored after a win
+        public List<String> getOutro() { return outro; } // Shown after a win
+        public boolean pausesAfter() { return pause; } // Waits for Enter after a win
+        public String getNext() { return next; } // Chapter after a win, null if this is the last
+    }
+
+    /*
+     * @param folder Folder chapter files are named relative to
+     */
+    private Campaign(JSONObject root, Path folder) {
+        this.title = root.optString("title", "Campaign");
+        this.intro = lines(root.optJSONArray("intro"));
+        this.victory = lines(root.optJSONArray("victory"));
+        Map<String, Path> byFile = new HashMap<>();
+        Map<String, JSONObject> written = new HashMap<>();
+        Map<String, String> next = new HashMap<>();
+        JSONArray list = root.getJSONArray("chapters");
+        for (int i = 0; i < list.length(); i++) {
+            JSONObject c = list.getJSONObject(i);
+            String id = c.getString("id");
+            if (byFile.containsKey(id) || written.containsKey(id)) throw new IllegalArgumentException("Chapter " + id + " is listed twice");
+            String file = c.optString("file", null);
+            if (file != null) byFile.put(id, folder.resolve(file));
+            else written.put(id, c);
+            if (c.optString("next", null) != null) next.put(id, c.getString("next"));
+        }
+        this.files = Collections.unmodifiableMap(byFile);
+        this.inline = Collections.unmodifiableMap(written);
+        this.links = Collections.unmodifiableMap(next);
+        this.start = root.optString("start", list.isEmpty() ? null : list.getJSONObject(0).getString("id"));
+        if (start == null || !has(start)) throw new IllegalArgumentException("Unknown start chapter: " + start);
+        for (Map.Entry<String, String> link : links.entrySet()) {
+            if (!has(link.getValue())) {
+                throw new IllegalArgumentException("Chapter " + link.getKey() + " leads to unknown chapter " + link.getValue());
+            }
+        }
+        Set<String> ends = new HashSet<>(); // Chapters whose "next" chain is known to end
+        for (String id : links.keySet()) {
+            Set<String> path = new HashSet<>();
+            for (String at = id; at != null && !ends.contains(at); at = links.get(at)) {
+                if (!path.add(at)) throw new IllegalArgumentException("Chapter " + at + " leads back to itself");
+            }
+            ends.addAll(path);
+        }
+    }
+
+    private static List<String> lines(JSONArray a) {
+        if (a == null) return Collections.emptyList();
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < a.length(); i++) out.add(a.getString(i));
+        return Collections.unmodifiableList(out);
+    }
+
+    private boolean has(String id) { return files.containsKey(id) || inline.containsKey(id); }
+
+    private static JSONObject read(Path path) throws IOException {
+        try (InputStream is = new FileInputStream(path.toFile())) {
+            return new JSONObject(new JSONTokener(is));
+        }
+    }
+
+    /*
+     * Reads the campaign's index; chapter files are only read when played.
+     * @throws Exception if the index can't be read, isn't valid JSON, or its chapters don't link up
+     */
+    public static Campaign load(Path path) throws Exception {
+        Path folder = path.toAbsolutePath().getParent();
+        return new Campaign(read(path), folder);
+    }
+
+    /*
+     * @return The main story campaign, loading it on first use
+     */
+    public static Campaign story() throws Exception {
+        Campaign c = story;
+        if (c != null) return c;
+        synchronized (Campaign.class) {
+            if (story == null) story = load(STORY_PATH);
+            return story;
+        }
+    }
+
+    public String getTitle() { return title; }
+    public List<String> getIntro() { return intro; } // Shown before the first chapter
+    public List<String> getVictory() { return victory; } // Shown when the last chapter is won
+    public String getStart() { return start; } // ID of the first chapter
+    public int size() { return files.size() + inline.size(); }
+
+    /*
+     * Reads and builds a chapter; call it when the chapter is about to be played.
+     * @throws IllegalArgumentException if there is no such chapter
+     * @throws UncheckedIOException if the chapter's file can't be read
+     * @throws org.json.JSONException if the chapter isn't valid JSON or has no valid encounter
+     */
+    public Chapter chapter(String id) {
+        JSONObject c = inline.get(id);
+        if (c == null) {
+            Path file = files.get(id);
+            if (file == null) throw new IllegalArgumentException("Unknown chapter: " + id);
+            try {
+                c = read(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't read chapter " + id + " from " + file, e);
+            }
+        }
+        return new Chapter(id, c, links.get(id));
+    }
+
+    /*
+     * Resolves every chapter from the start in play order; for tools that fight
+     * the story's battles without playing the chapters.
+     * @return The encounters of the chapters a winning run plays, in order
+     */
+    public List<Encounter> encounters() {
+        List<Encounter> out = new ArrayList<>();
+        for (String id = start; id != null; ) {
+            Chapter chapter = chapter(id);
+            out.add(chapter.getEncounter());
+            id = chapter.getNext();
+        }
+        return Collections.unmodifiableList(out);
+    }
+}
@@ -0,0 +1,34 @@
+package mastersofmq.game;
+
+/**
+ * Enemy AI difficulty tiers.
+ *
+ * Tiers:
+ * - EASY: random legal actions, as the enemy has always played
+ * - NORMAL: short expectimax search (10 ms, at most 4 turns ahead)
+ * - HARD: expectimax search with the full 50 ms budget and no depth cap
+ *
+ * Access Control:
+ * - Public enum so the game entry point can pick a tier
+ */
+public enum Difficulty {
+    EASY(0, 0),
+    NORMAL(10, 4),
+    HARD(50, TranspositionTable.MAX_DEPTH);
+
+    private final int budgetMillis; // Hard per-turn deadline of the search
+    private final int maxDepth; // Turns searched ahead at most
+
+    Difficulty(int budgetMillis, int maxDepth) {
+        this.budgetMillis = budgetMillis;
+        this.maxDepth = maxDepth;
+    }
+
+    public int getBudgetMillis() { return budgetMillis; }
+    public int getMaxDepth() { return maxDepth; }
+
+    public ActionPolicy createPolicy() { // A fresh policy for the enemy team
+        if (this == EASY) return new RandomActionPolicy();
+        return new ExpectimaxPolicy(budgetMillis, maxDepth, BattleState.ENEMY);
+    }
+}
@@ -0,0 +1,62 @@
+package mastersofmq.game;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatantPool;
+import mastersofmq.model.TemplateIndex;
+import mastersofmq.model.Team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An enemy line-up the player can face: the enemy team's name and the
+ * opponent templates (by name) that make it up.
+ * The story's encounters are read from data/campaign.json through {@link Campaign}.
+ *
+ * Access Control:
+ * - Public immutable class shared by the engine and simulation tools
+ */
+public class Encounter {
+    private final String teamName;
+    private final String victoryText;
+    private final String defeatText;
+    private final List<String> opponentNames;
+
+    public Encounter(String teamName, String... opponentNames) {
+        this(teamName, null, null, Arrays.asList(opponentNames));
+    }
+
+    public Encounter(String teamName, String victoryText, String defeatText, List<String> opponentNames) {
+        this.teamName = teamName;
+        this.victoryText = victoryText;
+        this.defeatText = defeatText;
+        this.opponentNames = Collections.unmodifiableList(new ArrayList<>(opponentNames));
+    }
+
+    public String getTeamName() { return teamName; } // Name of the enemy team
+    public String getVictoryText() { return victoryText; } // Story line shown when the player wins, may be null
+    public String getDefeatText() { return defeatText; } // Story line shown when the player loses, may be null
+    public List<String> getOpponentNames() { return opponentNames; } // Opponent template names, in turn order
+
+    /*
+     * Builds the enemy team from indexed templates, reusing characters where the pool has them.
+     * @param opponents Opponent templates, looked up by name
+     * @param pool Pool to take opponents from, or null to clone every one
+     * @return A new team of opponents as fresh as clones, or null if any opponent is missing
+     */
+    public Team build(TemplateIndex opponents, CombatantPool pool) {
+        Team team = new Team(teamName);
+        team.setSide(BattleState.ENEMY);
+        for (String name : opponentNames) {
+            CharacterClass template = opponents.byName(name);
+            if (template == null) return null;
+            team.addCharacter(pool == null ? template.clone() : pool.acquire(template));
+        }
+        return team;
+    }
+
+    @Override
+    public String toString() { return teamName; }
+}
@@ -0,0 +1,345 @@
+package mastersofmq.game;
+
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.DamageTable;
+import mastersofmq.model.Team;
+import mastersofmq.model.Zobrist;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Search-based AI: expectimax over the battle, run on a copy of the battle state.
+ *
+ * How it searches:
+ * - The acting side picks the action with the best value, the other side the
+ *   worst for us, and each damage roll (0-5) is a chance node weighted 1/6;
+ *   rolls that deal the same damage are searched once
+ * - Iterative deepening: depth 1 (one turn ahead), then 2, 3, ... until the
+ *   per-turn budget or maximum depth runs out, keeping the best action of the
+ *   deepest search that finished
+ * - The deadline is checked every 128 positions from depth 1 on and aborts the
+ *   running depth at once, so a turn never overruns its budget by more than a
+ *   fraction of a millisecond; if even depth 1 runs out, the best action it had
+ *   scored so far is played
+ * - Positions already searched deep enough are read from a transposition table
+ *   keyed by the state's Zobrist hash; values the depth limit never cut short
+ *   are stored as complete, so deepening stops only once nothing was cut short
+ * - Every legal action is searched, however many targets and skills there are
+ * - Turns follow the battle's {@link TurnScheduler} when given one: the rest of
+ *   the current round in its order, and each later round ordered by the same
+ *   initiative from the position it starts in; without one, the classic order
+ * - Leaves are scored on HP, characters alive and stamina of both sides
+ *
+ * Access Control:
+ * - Public class; create one through {@link Difficulty#createPolicy()} or directly
+ * - Safe to share between threads: each call searches on its own copies and the
+ *   transposition table is lock-free
+ */
+public class ExpectimaxPolicy implements ActionPolicy {
+    private static final double WIN_SCORE = 1000;
+    private static final long ENEMY_VIEW = 0x5bd1e9955bd1e995L; // Keeps the two sides' values apart in the table
+    private static final int CHECK_INTERVAL = 127; // Positions between deadline checks, minus one
+    private static final int COMPLETE = TranspositionTable.MAX_DEPTH; // Stored depth of a value searched to the battle's end
+
+    private final long budgetNanos;
+    private final int maxDepth;
+    private final int side;
+    private final TranspositionTable table = new TranspositionTable(1 << 16);
+
+    /*
+     * @param budgetMillis Hard deadline per turn
+     * @param maxDepth Turns searched ahead at most
+     * @param side Side this policy plays when given Teams (BattleState.PLAYER or ENEMY)
+     */
+    public ExpectimaxPolicy(int budgetMillis, int maxDepth, int side) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxDepth = Math.max(1, Math.min(maxDepth, COMPLETE - 1));
+        this.side = side;
+    }
+
+    @Override
+    public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) {
+        return chooseAction(acting, actorIndex, opponent, null, rng);
+    }
+
+    @Override
+    public int chooseAction(BattleState state, int unit, RandomGenerator rng) {
+        return new Search(state, unit, null).run();
+    }
+
+    @Override
+    public int chooseAction(Team acting, int actorIndex, Team opponent, TurnScheduler turns, RandomGenerator rng) {
+        BattleState state = side == BattleState.ENEMY ? BattleState.of(opponent, acting) : BattleState.of(acting, opponent);
+        return chooseAction(state, state.unit(side, actorIndex), turns, rng);
+    }
+
+    @Override
+    public int chooseAction(BattleState state, int unit, TurnScheduler turns, RandomGenerator rng) {
+        return new Search(state, unit, turns).run();
+    }
+
+    @Override
+    public boolean usesRandom() { return false; } // Rolls are averaged over, never drawn
+
+    private static final class Timeout extends RuntimeException { // Unwinds the search when the deadline passes
+        private static final long serialVersionUID = 1L;
+
+        Timeout() { super(null, null, false, false); }
+    }
+
+    private static final Timeout TIMEOUT = new Timeout();
+
+    private final class Search { // One turn's search, on its own copies of the state
+        private final BattleState root;
+        private final int actor;
+        private final int rootSide;
+        private final long viewKey;
+        private final long deadline;
+        private final int slots; // Turn slots per round in the classic order, see TurnScheduler
+        private final boolean ordersVary; // Whether rounds can come in different orders, so the order is hashed
+        private final BattleState[] stack = new BattleState[maxDepth + 2]; // Scratch state per ply
+        private final TurnScheduler[] schedulers; // Orders the rounds starting on each ply's state
+        private final int[][] actions; // Scratch action list per ply
+        private final int[][] orders; // Turn order of the round started on each ply; the root round's rest at 0
+        private final int[] orderLength;
+        private final long[] orderKey; // Hash of each order, or 0 when rounds always come in the same order
+        private long nodes;
+        private boolean cutoff; // Whether the subtree being searched stopped anywhere short of the battle's end
+
+        /*
+         * @param turns Turn order of the battle, having just given the actor's turn or
+         *              about to; null to assume the classic order
+         */
+        Search(BattleState state, int actor, TurnScheduler turns) {
+            this.deadline = System.nanoTime() + budgetNanos;
+            this.root = state.copy();
+            this.actor = actor;
+            this.rootSide = state.sideOf(actor);
+            this.viewKey = rootSide == BattleState.ENEMY ? ENEMY_VIEW : 0;
+            this.slots = 2 * Math.max(state.teamSize(BattleState.PLAYER), state.teamSize(BattleState.ENEMY));
+            TurnScheduler.Initiative initiative = turns == null ? TurnScheduler.Initiative.NONE : turns.getInitiative();
+            this.ordersVary = initiative == TurnScheduler.Initiative.STAMINA; // Endurance never changes, so neither does its order
+            this.schedulers = new TurnScheduler[stack.length];
+            for (int i = 0; i < stack.length; i++) {
+                stack[i] = state.copy();
+                schedulers[i] = new TurnScheduler(TurnScheduler.roster(stack[i]), initiative);
+            }
+            this.actions = new int[maxDepth + 2][maxActions(state)];
+            this.orders = new int[stack.length][slots];
+            this.orderLength = new int[stack.length];
+            this.orderKey = new long[stack.length];
+            rootOrder(turns);
+        }
+
+        private void rootOrder(TurnScheduler turns) { // The rest of the current round, after the actor
+            int rootSlot = root.indexInTeam(actor) << 1 | rootSide;
+            int[] order = orders[0];
+            int n = 0;
+            if (turns == null) {
+                for (int slot = rootSlot + 1; slot < slots; slot++) {
+                    if (TurnScheduler.index(slot) < root.teamSize(TurnScheduler.side(slot))) order[n++] = slot;
+                }
+            } else {
+                n = turns.remaining(order);
+                for (int i = 0; i < n; i++) {
+                    if (order[i] != rootSlot) continue;
+                    // Still queued (searched ahead of its turn): members before it were passed over as down
+                    System.arraycopy(order, i + 1, order, 0, n - i - 1);
+                    n -= i + 1;
+                    break;
+                }
+            }
+            orderLength[0] = n;
+            orderKey[0] = hashOrder(order, n);
+        }
+
+        private void startRound(int ply) { // Orders the round starting on stack[ply], whose previous round just ended
+            TurnScheduler turns = schedulers[ply];
+            turns.startRound();
+            orderLength[ply] = turns.remaining(orders[ply]);
+            orderKey[ply] = hashOrder(orders[ply], orderLength[ply]);
+        }
+
+        private long hashOrder(int[] order, int n) {
+            if (!ordersVary) return 0; // The slot alone tells what comes next
+            long h = 0;
+            for (int i = 0; i < n; i++) h = BattleRandom.mix(h + order[i] + 1);
+            return h;
+        }
+
+        int run() {
+            table.newSearch();
+            int[] rootActions = actions[0];
+            int count = generate(root, actor, rootActions);
+            int best = rootActions[0];
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                cutoff = false;
+                int bestThisDepth = best;
+                double bestValue = Double.NEGATIVE_INFINITY;
+                try {
+                    for (int i = -1; i < count; i++) { // Previous best first, then the rest in order
+                        int action = i < 0 ? best : rootActions[i];
+                        if (i >= 0 && action == best) continue;
+                        double v = expect(root, 0, actor, action, 0, 0, depth);
+                        if (v > bestValue) {
+                            bestValue = v;
+                            bestThisDepth = action;
+                        }
+                    }
+                } catch (Timeout t) {
+                    if (depth == 1 && bestValue > Double.NEGATIVE_INFINITY) best = bestThisDepth; // Nothing deeper finished
+                    break; // Keep the best action of the last depth that finished
+                }
+                best = bestThisDepth;
+                if (!cutoff || Math.abs(bestValue) >= WIN_SCORE) break; // Whole battle searched, or a forced result
+            }
+            return best;
+        }
+
+        // Expected value of one action, averaged over the distinct damage rolls
+        // next is the position in orders[round] of the turn after this one
+        private double expect(BattleState s, int ply, int unit, int action, int round, int next, int depth) {
+            BattleState child = stack[ply + 1];
+            int kind = Actions.kind(action);
+            if (kind == Actions.DEFEND) {
+                child.copyFrom(s);
+                child.defend(unit);
+                return value(child, ply + 1, round, next, depth - 1);
+            }
+            int unitSide = s.sideOf(unit);
+            int target = s.unit(Actions.targetsAlly(action) ? unitSide : 1 - unitSide, Actions.target(action));
+            int k = Actions.skillIndex(action);
+            if (kind == Actions.SKILL && s.skillDamage(unit, k) < 0) { // Heals ignore the roll
+                child.copyFrom(s);
+                child.useSkill(unit, k, target, 0);
+                return value(child, ply + 1, round, next, depth - 1);
+            }
+            int power = kind == Actions.ATTACK ? s.strength(unit) : s.skillDamage(unit, k);
+            DamageTable damage = DamageTable.shared(); // Attacks and skills share one formula
+            int defence = s.defence(target);
+            boolean defending = s.isDefending(target);
+            double total = 0;
+            int lastDamage = -1;
+            double lastValue = 0;
+            for (int roll = 0; roll < CombatRules.ROLL_SIDES; roll++) {
+                int dmg = damage.damage(power, defence, defending, roll);
+                if (dmg != lastDamage) { // Damage only grows with the roll, so equal outcomes are adjacent
+                    child.copyFrom(s);
+                    if (kind == Actions.ATTACK) child.attack(unit, target, roll);
+                    else child.useSkill(unit, k, target, roll);
+                    lastValue = value(child, ply + 1, round, next, depth - 1);
+                    lastDamage = dmg;
+                }
+                total += lastValue;
+            }
+            return total / CombatRules.ROLL_SIDES;
+        }
+
+        // Value of a position for the root side, with orders[round][pos] next to act; s is stack[ply]
+        private double value(BattleState s, int ply, int round, int pos, int depth) {
+            if ((++nodes & CHECK_INTERVAL) == 0 && System.nanoTime() > deadline) throw TIMEOUT;
+            if (s.isDefeated(1 - rootSide)) return WIN_SCORE + depth; // Sooner wins score higher
+            if (s.isDefeated(rootSide)) return -WIN_SCORE - depth;
+            if (depth == 0) {
+                cutoff = true;
+                return evaluate(s);
+            }
+
+            int unit = -1;
+            int slot = -1;
+            for (int steps = 0; unit < 0; steps++) { // Next character able to act
+                if (steps == 2 * slots) return evaluate(s); // Nobody in the turn order can act
+                if (pos == orderLength[round]) {
+                    s.endOfRound();
+                    startRound(ply); // Rounds started deeper use later plies, so the orders above stay intact
+                    return value(s, ply, ply, 0, depth); // Poison may have ended the battle
+                }
+                slot = orders[round][pos];
+                int u = s.unit(TurnScheduler.side(slot), TurnScheduler.index(slot));
+                if (s.isAlive(u) && !s.loseTurnToStun(u)) unit = u;
+                else pos++; // Fallen, or stunned and losing this turn
+            }
+
+            long key = s.hash() ^ Zobrist.turn(slot) ^ orderKey[round] ^ viewKey;
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+                if (TranspositionTable.depth(entry) < COMPLETE) cutoff = true; // The stored search was cut short too
+                return TranspositionTable.value(entry);
+            }
+
+            boolean outerCutoff = cutoff;
+            cutoff = false;
+            boolean maximise = s.sideOf(unit) == rootSide;
+            int[] list = actions[ply];
+            int count = generate(s, unit, list);
+            double best = maximise ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            int bestAction = list[0];
+            for (int i = 0; i < count; i++) {
+                double v = expect(s, ply, unit, list[i], round, pos + 1, depth);
+                if (maximise ? v > best : v < best) {
+                    best = v;
+                    bestAction = list[i];
+                }
+            }
+            table.store(key, best, cutoff ? depth : COMPLETE, TranspositionTable.EXACT, bestAction);
+            cutoff |= outerCutoff;
+            return best;
+        }
+
+        private double evaluate(BattleState s) { // Positive when the root side is ahead
+            return 100 * (share(s, rootSide, true) - share(s, 1 - rootSide, true))
+                    + 10 * (s.aliveCount(rootSide) - s.aliveCount(1 - rootSide))
+                    + 20 * (share(s, rootSide, false) - share(s, 1 - rootSide, false));
+        }
+    }
+
+    private static double share(BattleState s, int side, boolean hp) { // Mean HP (or stamina) fraction of a side
+        double total = 0;
+        for (int i = 0; i < s.teamSize(side); i++) {
+            int u = s.unit(side, i);
+            total += hp ? (double) s.hp(u) / s.maxHP(u) : (double) s.stamina(u) / Math.max(1, s.maxStamina(u));
+        }
+        return total / Math.max(1, s.teamSize(side));
+    }
+
+    /*
+     * @return The most actions {@link #generate} can list for any unit of the battle
+     */
+    static int maxActions(BattleState s) {
+        int most = 1;
+        for (int u = 0; u < s.unitCount(); u++) {
+            int side = s.sideOf(u);
+            int n = s.teamSize(1 - side) + 1; // Attacks and defending
+            for (int k = 0; k < s.skillCount(u); k++) n += s.teamSize(s.skillDamage(u, k) < 0 ? side : 1 - side);
+            most = Math.max(most, n);
+        }
+        return most;
+    }
+
+    /*
+     * Lists the legal actions of a unit as action codes: attacks and damaging skills on
+     * living opponents, heals on any ally, and defending.
+     * @param out Room for at least {@link #maxActions} codes
+     * @return number of actions written
+     */
+    static int generate(BattleState s, int unit, int[] out) {
+        int side = s.sideOf(unit);
+        int opp = 1 - side;
+        int n = 0;
+        if (s.stamina(unit) >= CombatRules.ATTACK_COST) {
+            for (int i = 0; i < s.teamSize(opp); i++) {
+                if (s.isAlive(s.unit(opp, i))) out[n++] = Actions.attack(i);
+            }
+        }
+        for (int k = 0; k < s.skillCount(unit); k++) {
+            if (!s.canUseSkill(unit, k)) continue;
+            boolean heal = s.skillDamage(unit, k) < 0;
+            int team = heal ? side : opp;
+            for (int i = 0; i < s.teamSize(team); i++) {
+                if (heal || s.isAlive(s.unit(team, i))) out[n++] = Actions.skill(k, i, heal);
+            }
+        }
+        out[n++] = Actions.defend();
+        return n;
+    }
+}
@@ -1,24 +1,31 @@
 package mastersofmq.game;
 
 import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatantPool;
+import mastersofmq.model.CombatRules;
 import mastersofmq.model.Skill;
 import mastersofmq.model.Team;
-import mastersofmq.fileio.GameDataLoader;
-
-import java.util.ArrayList;
+import mastersofmq.model.TemplateIndex;
+import mastersofmq.game.event.BattleEvent;
+import mastersofmq.game.event.BattleEventSink;
+import mastersofmq.game.event.ConsoleBattleRenderer;
+import mastersofmq.fileio.ContentRegistry;
+import org.json.JSONException;
+
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Random;
 import java.util.Scanner;
+import java.util.random.RandomGenerator;
 
 /**
  * Core game engine implementing turn-based combat system.
  * 
- * Turn Order:
+ * Turn Order (teams of any size, see {@link TurnScheduler}):
  * 1. Player Character 1
  * 2. Enemy Character 1
  * 3. Player Character 2
  * 4. Enemy Character 2
- * (and so on...)
+ * (and so on...), or by initiative if one is set
  * 
  * Available Actions:
  * - Basic Attack: 10 stamina, damage = max(1, strength + random(0-5) - defence)
@@ -30,6 +37,16 @@ import java.util.Scanner;
  * - Clear defensive stances
  * - Reduce skill cooldowns
  * 
+ * Enemy AI:
+ * - Any {@link ActionPolicy}, random by default
+ * - A policy that doesn't draw from the random source is also run ahead of time
+ *   while the player types (see {@link SpeculativeSearch}), so a deep search adds
+ *   no wait to the enemy turn that follows
+ * 
+ * Campaign:
+ * - Chapters, enemy line-ups and story text come from a {@link Campaign},
+ *   data/campaign.json for the main story, each read from its file just before it is played
+ * 
  * Access Control:
  * - Public class as it's the main interface for game mechanics
  * - Private fields to maintain game state integrity
@@ -40,90 +57,106 @@ public class GameEngine {
     private Team playerTeam;
     private Team enemyTeam;
     private final Scanner sc = new Scanner(System.in);
-    private final Random rng = new Random();
+    private final long seed; // Seed the random stream of every battle is derived from
+    private int battlesStarted = 0;
+    private RandomGenerator rng;
+    private ActionPolicy enemyPolicy = new RandomActionPolicy(); // Enemy AI, random by default
+    private SpeculativeSearch speculation; // Runs the enemy AI ahead while the player types, null if it can't
+    private TurnScheduler.Initiative initiative = TurnScheduler.Initiative.NONE; // Classic turn order by default
+    private BattleEventSink events = new ConsoleBattleRenderer(System.out); // Where battle events go, console text by default
+    private final CombatantPool enemyPool = new CombatantPool(); // Opponents of finished battles, reused by later ones
+    private Encounter encounter; // Campaign encounter being fought, for its story text; null outside a campaign
 
     public GameEngine(Team playerTeam) {
+        this(playerTeam, System.nanoTime());
+    }
+
+    public GameEngine(Team playerTeam, long seed) { // Fixed seed replays the same rolls and AI choices
         this.playerTeam = playerTeam;
+        this.seed = seed;
+        this.rng = BattleRandom.forBattle(seed, 0);
+    }
+
+    public void setEnemyPolicy(ActionPolicy enemyPolicy) { // Replaces the enemy AI
+        this.enemyPolicy = enemyPolicy;
+        if (speculation != null) speculation.close();
+        speculation = enemyPolicy.usesRandom() ? null : new SpeculativeSearch(enemyPolicy);
+    }
+
+    public void setInitiative(TurnScheduler.Initiative initiative) { // Orders turns by endurance or stamina instead
+        this.initiative = initiative;
     }
 
-    public void startNarrative() {
-        System.out.println("\n=== Masters of MQ: The Dark Rising ===");
-        System.out.println("Welcome, brave warriors of Macquarie University!");
-        System.out.println("A dark force has emerged from the shadows, threatening our peaceful halls of learning.");
-        System.out.println("You must face three challenges to save our university from the darkness.");
-        
-        String opponentsPath = java.nio.file.Paths.get("data", "opponents.json").toString();
-        GameDataLoader opponentsLoader = new GameDataLoader(opponentsPath); // Load opponents data
+    public void setEventSink(BattleEventSink events) { // Replaces the battle renderer, e.g. with a log writer
+        this.events = events;
+    }
+
+    public void startNarrative() { // Plays the main story, data/campaign.json
+        Campaign campaign;
         try {
-            opponentsLoader.load();
+            campaign = Campaign.story();
         } catch (Exception e) {
-            System.err.println("Failed to load opponent data: " + e.getMessage());
+            System.err.println("Failed to load campaign data: " + e.getMessage());
             return;
         }
-        List<CharacterClass> opponentsList = opponentsLoader.getCharacters(); // Get loaded opponents
+        startCampaign(campaign);
+    }
 
-        // First Battle
-        System.out.println("\nChapter 1: The Library Ambush");
-        System.out.println("As you study in the library, dark figures emerge from the shadows...");
-        Team enemies1 = new Team("Shadow Patrol"); // Create enemy team
-        // Find Dark Warrior and Shadow Mage in the opponents list
-        CharacterClass darkWarrior = findOpponentByName("Dark Warrior", opponentsList); // Find Dark Warrior
-        CharacterClass shadowMage = findOpponentByName("Shadow Mage", opponentsList); // Find Shadow Mage
-        if (darkWarrior != null && shadowMage != null) { // If both opponents found
-            enemies1.addCharacter(darkWarrior.clone()); // Add Dark Warrior to enemy team
-            enemies1.addCharacter(shadowMage.clone()); // Add Shadow Mage to enemy team
-            this.enemyTeam = enemies1; // Set current enemy team
-            
-            if (!runBattle("Library Battle")) { // Attempt to run the first battle, "Library Battle"
-                return;
-        } else {
-            System.err.println("Could not find required opponents for battle 1");
-            return;
+    /*
+     * Plays a campaign chapter by chapter until the player loses or wins the last one.
+     * Each chapter is resolved just before it is played. The speculative search
+     * thread, if any, is stopped when the campaign ends.
+     */
+    public void startCampaign(Campaign campaign) {
+        try {
+            playCampaign(campaign);
+        } finally {
+            if (speculation != null) speculation.close();
         }
+    }
 
-        healTeam(playerTeam); // Recovery and story progression
-        System.out.println("\nYou've survived the first encounter, but the danger is not over...");
-        pressEnterToContinue();
+    private void playCampaign(Campaign campaign) {
+        System.out.println("\n=== " + campaign.getTitle() + " ===");
+        for (String line : campaign.getIntro()) System.out.println(line);
 
-        // Second Battle
-        System.out.println("\nChapter 2: Courtyard Confrontation");
-        System.out.println("In Central Courtyard, more powerful enemies await...");
-        Team enemies2 = new Team("Dark Legion"); // Create enemy team
-        CharacterClass corruptedRogue = findOpponentByName("Corrupted Rogue", opponentsList); // Find Corrupted Rogue
-        CharacterClass darkPriest = findOpponentByName("Dark Priest", opponentsList); // Find Dark Priest
-        if (corruptedRogue != null && darkPriest != null) { // If both opponents found
-            enemies2.addCharacter(corruptedRogue.clone()); // Add Corrupted Rogue to enemy team
-            enemies2.addCharacter(darkPriest.clone()); // Add Dark Priest to enemy team
-            this.enemyTeam = enemies2; // Set current enemy team
-            if (!runBattle("Courtyard Battle")) return; // Attempt to run the second battle, "Courtyard Battle"
-        } else {
-            System.err.println("Could not find required opponents for battle 2");
+        TemplateIndex opponents; // Opponent templates by name, parsed once per process
+        try {
+            opponents = ContentRegistry.shared().getOpponentIndex();
+        } catch (Exception e) {
+            System.err.println("Failed to load opponent data: " + e.getMessage());
             return;
         }
 
-        healTeam(playerTeam); // Recovery and story progression
-        System.out.println("\nYou've survived the second encounter, but the danger is not over...");
-        pressEnterToContinue();
-
-        // Final Battle
-        healTeam(playerTeam); // Recovery and story progression
-        System.out.println("\nChapter 3: The Final Showdown"); // Final battle introduction
-        System.out.println("You've made it to 4RPD where the source of darkness resides...");
-        Team finalBoss = new Team("Overlord's Guard"); // Create enemy team
-        CharacterClass bossOverlord = findOpponentByName("Boss Overlord", opponentsList); // Find Boss Overlord
-        if (bossOverlord != null) { // If Boss Overlord found
-            finalBoss.addCharacter(bossOverlord.clone()); // Add Boss Overlord to enemy team
-            this.enemyTeam = finalBoss; // Set current enemy team
-            if (!runBattle("Final Battle")) return; // Attempt to run the final battle, "Final Battle"
-        } else {
-            System.err.println("Could not find required opponent for final battle");
-            return;
+        for (String id = campaign.getStart(); id != null; ) {
+            Campaign.Chapter chapter;
+            try {
+                chapter = campaign.chapter(id); // Read from its file now; only the chapter being played is kept
+            } catch (UncheckedIOException | JSONException e) {
+                System.err.println("Failed to load chapter " + id + ": " + e.getMessage());
+                return;
+            }
+            if (chapter.healsBefore()) healTeam(playerTeam); // Recovery before the chapter
+            System.out.println("\n" + chapter.getTitle());
+            for (String line : chapter.getIntro()) System.out.println(line);
+            Team enemies = chapter.getEncounter().build(opponents, enemyPool); // Create the enemy team
+            if (enemies == null) { // If any opponent is missing
+                System.err.println("Could not find required opponents for " + chapter.getBattleName());
+                return;
+            }
+            this.enemyTeam = enemies; // Set current enemy team
+            this.encounter = chapter.getEncounter();
+            if (!runBattle(chapter.getBattleName())) return; // Player lost the chapter
+
+            if (chapter.healsAfter()) healTeam(playerTeam); // Recovery and story progression
+            if (!chapter.getOutro().isEmpty()) System.out.println();
+            for (String line : chapter.getOutro()) System.out.println(line);
+            if (chapter.pausesAfter()) pressEnterToContinue();
+            id = chapter.getNext();
         }
 
         // Victory
         System.out.println("\n=== VICTORY ===");
-        System.out.println("Congratulations! You have saved Macquarie University from the dark forces!");
-        System.out.println("Your names will be remembered in the halls of MQ forever!");
+        for (String line : campaign.getVictory()) System.out.println(line);
     }
 
     private void healTeam(Team team) { // Heals and restores stamina for all alive characters in the team
@@ -143,128 +176,72 @@ public class GameEngine {
 
     private boolean runBattle(String battleName) { // Runs a battle and returns true if player wins
         System.out.println("\n=== " + battleName + " Begins! ===");
+        rng = BattleRandom.forBattle(seed, battlesStarted++); // Each battle gets its own reproducible stream
         run();
+        encounter = null;
+        enemyPool.release(enemyTeam); // Done with these opponents
         return !playerTeam.isDefeated();
     }
 
     public void run() {
-        int round = 1;
+        playerTeam.setSide(BattleState.PLAYER); // Team hashes line up with the states the searches build
+        enemyTeam.setSide(BattleState.ENEMY);
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(playerTeam, enemyTeam), initiative);
+        int round = 0;
+        int fought = 0; // Rounds that reached their end, as the battle summary has always counted them
+        battle:
         while (!playerTeam.isDefeated() && !enemyTeam.isDefeated()) { // Battle loop
-            System.out.println("\n--- Round " + round + " ---");
-            // fixed turn order
-            takeTurn(playerTeam, enemyTeam, 0); // Player Character 1
-            if (enemyTeam.isDefeated()) break; // Check for enemy defeat
-            takeAITurn(enemyTeam, playerTeam, 0); // Enemy Character 1
-            if (playerTeam.isDefeated()) break; // Check for player defeat
-            takeTurn(playerTeam, enemyTeam, 1); // Player Character 2
-            if (enemyTeam.isDefeated()) break; // Check for enemy defeat
-            takeAITurn(enemyTeam, playerTeam, 1); // Enemy Character 2
-            playerTeam.endOfRound(); // End of round effects
-            enemyTeam.endOfRound(); // End of round effects
-            printStatus();
             round++;
-        }
-        System.out.println("\n=== BATTLE CONCLUDED ===");
-        if (playerTeam.isDefeated()) { // Defeat messages
-            System.out.println("Team " + playerTeam.getName() + " has fallen in battle!");
-            if (enemyTeam.getName().equals("Shadow Patrol")) {
-                System.out.println("The library falls silent as darkness consumes the halls of knowledge...");
-            } else if (enemyTeam.getName().equals("Dark Legion")) {
-                System.out.println("The courtyard is overtaken as students flee in terror...");
-            } else if (enemyTeam.getName().equals("Overlord's Guard")) {
-                System.out.println("The last hope of Macquarie University fades as the Overlord's power grows stronger...");
+            if (events.isEnabled()) events.accept(new BattleEvent.RoundStarted(round));
+            turns.startRound();
+            for (int slot = turns.next(); slot >= 0; slot = turns.next()) { // Next living character
+                int index = TurnScheduler.index(slot);
+                if (TurnScheduler.side(slot) == BattleState.PLAYER) {
+                    takeTurn(playerTeam, enemyTeam, index, round, turns);
+                    if (enemyTeam.isDefeated()) break battle; // Check for enemy defeat
+                } else {
+                    takeAITurn(enemyTeam, playerTeam, index, round, turns);
+                    if (playerTeam.isDefeated()) break battle; // Check for player defeat
+                }
             }
-            System.out.println("Macquarie University needs heroes... Will others rise to face the darkness?");
-        } else { // Victory messages
-            System.out.println("Team " + playerTeam.getName() + " emerges victorious!");
-            if (enemyTeam.getName().equals("Shadow Patrol")) {
-                System.out.println("The library is secured! Knowledge shall remain free and accessible!");
-            } else if (enemyTeam.getName().equals("Dark Legion")) {
-                System.out.println("The courtyard is safe once more! Students can again walk without fear!");
-            } else if (enemyTeam.getName().equals("Overlord's Guard")) {
-                System.out.println("The Overlord's forces are defeated! Light returns to Macquarie University!");
+            playerTeam.endOfRound(); // End of round effects
+            enemyTeam.endOfRound(); // End of round effects
+            fought++;
+            if (events.isEnabled()) {
+                events.accept(new BattleEvent.RoundEnded(round, BattleEvent.TeamStatus.of(playerTeam), BattleEvent.TeamStatus.of(enemyTeam)));
             }
         }
-        System.out.println("\nThe battle raged for " + (round - 1) + " intense rounds.\n");
-        System.out.println("Final Status:");
-        playerTeam.printStatus(); // Print final status of player team
-        enemyTeam.printStatus(); // Print final status of enemy team
+        if (speculation != null) speculation.cancel(); // Nothing left to reply to
+        boolean playerWon = !playerTeam.isDefeated();
+        if (events.isEnabled()) {
+            String storyText = encounter == null ? null : playerWon ? encounter.getVictoryText() : encounter.getDefeatText();
+            events.accept(new BattleEvent.BattleConcluded(playerWon, fought, BattleEvent.TeamStatus.of(playerTeam),
+                    BattleEvent.TeamStatus.of(enemyTeam), storyText));
+        }
     }
 
-    private void takeAITurn(Team acting, Team opponent, int index) {
+    private void takeAITurn(Team acting, Team opponent, int index, int round, TurnScheduler turns) {
         CharacterClass actor = acting.getAliveCharacter(index); // Get the acting character
         if (actor == null) return; // If no alive character, skip turn
 
-        int regen = Math.max(1, actor.getEndurance() / 2); // Calculate stamina regeneration
-        System.out.printf("\n--- %s's Turn (%s) ---\n", actor.getName(), acting.getName());
-        System.out.printf("Stamina regenerated +%d (Endurance). ST: %d/%d.\n", regen, actor.getCurrentStamina(), actor.getMaxStamina());
-
-        List<String> possibleActions = new ArrayList<>(); // Get all available actions
-        
-
-        if (actor.getCurrentStamina() >= 10) { // If enough stamina for attack, add to possible actions
-            possibleActions.add("attack");
-        }
-        
-        possibleActions.add("defend"); // Add defend action to possible actions
-        
-        for (Skill s : actor.getSkills()) { // Add available skills
-            if (actor.canUseSkill(s)) { // If skill can be used
-                possibleActions.add("skill:" + actor.getSkills().indexOf(s)); // Add skill to possible actions
-            }
-        }
-
-        String action = possibleActions.get(rng.nextInt(possibleActions.size())); // Randomly select an action
-        
-        CharacterClass target;
-        if (action.contains("heal")) { // If it's a healing skill, target own team
-            List<CharacterClass> aliveAllies = new ArrayList<>(); // Find alive allies
-            for (CharacterClass c : acting.getCharacters()) { // For each character in acting team
-                if (c.isAlive()) { // If character is alive
-                    aliveAllies.add(c); // Add to alive allies list
-                }
-            }
-            target = aliveAllies.get(rng.nextInt(aliveAllies.size())); // Randomly select an ally target
-        } else {
-
-            List<CharacterClass> aliveEnemies = new ArrayList<>(); // Find alive enemies
-            for (CharacterClass c : opponent.getCharacters()) { // For each character in opponent team
-                if (c.isAlive()) { // If character is alive
-                    aliveEnemies.add(c); // Add to alive enemies list
-                }
-            }
-            target = aliveEnemies.get(rng.nextInt(aliveEnemies.size())); // Randomly select an enemy target
-        }
-
-
-        if (action.equals("attack")) { // Execute basic attack
-            basicAttack(actor, target);
-        } else if (action.equals("defend")) { // Execute defend
-            actor.defend();
-            System.out.println(actor.getName() + " takes a defensive stance!");
-        } else if (action.startsWith("skill:")) { // Execute skill
-            int skillIndex = Integer.parseInt(action.split(":")[1]); // Get skill index
-            Skill selectedSkill = actor.getSkills().get(skillIndex); // Get selected skill
-            if (selectedSkill.getDamage() < 0) {
-                target = acting.getCharacters().get(rng.nextInt(acting.getCharacters().size())); // Randomly select an ally target
-            }
-            actor.useSkill(selectedSkill, target, rng); // Use the skill
-        }
+        ActionResolver.turnStarted(round, actor, acting, events);
+        if (ActionResolver.stunned(actor, events)) return; // Loses the turn
+        int action = speculation == null ? -1 : speculation.take(opponent.getHash() ^ acting.getHash(), index); // Searched while the player typed
+        if (action < 0) action = enemyPolicy.chooseAction(acting, index, opponent, turns, rng); // Pick an action code, allocation free
+        ActionResolver.resolve(action, actor, acting, opponent, rng, events); // Execute attack, defend or skill
     }
 
-
-
-    private void takeTurn(Team acting, Team opponent, int index) { //Taking turn system
+    private void takeTurn(Team acting, Team opponent, int index, int round, TurnScheduler turns) { //Taking turn system
         CharacterClass actor = acting.getAliveCharacter(index); // Get the acting character
         if (actor == null) return; // If no alive character, skip turn
 
-
-        int regen = Math.max(1, actor.getEndurance() / 2); // Calculate stamina regeneration
-        System.out.printf("\n--- %s's Turn (%s) ---\n", actor.getName(), acting.getName());
-        System.out.printf("Stamina regenerated +%d (Endurance). ST: %d/%d.\n", regen, actor.getCurrentStamina(), actor.getMaxStamina());
+        ActionResolver.turnStarted(round, actor, acting, events);
+        if (ActionResolver.stunned(actor, events)) return; // Loses the turn
+        events.flush(); // Show the turn header before the menu
+        if (speculation != null) speculation.start(BattleState.of(acting, opponent), index, turns); // Search the enemy's replies while we wait
 
         // Action menu
-        System.out.println("1. Attack (Cost: 10 ST, Base Dmg: Str=" + actor.getStrength() + ")");
+        System.out.println("1. Attack (Cost: 10 ST, Base Dmg: Str=" + actor.getAttackStrength() + ")");
         System.out.println("2. Defend (Cost: 0 ST)");
         System.out.println("3. Skills");
         for (int i = 0; i < actor.getSkills().size(); i++) {
@@ -273,41 +250,34 @@ public class GameEngine {
             System.out.printf("  3.%d %s (Cost: %d ST, Dmg: %d, CD: %d/%d) %s\n", i + 1, s.getName(), s.getStaminaCost(), s.getDamage(), s.getCooldownRemaining(), s.getCooldownMax(), status);
         }
 
-        while (true) {
+        int action = -1; // Action code chosen by the player
+        while (action < 0) {
             System.out.print("Choose an action: ");
             String input = sc.nextLine().trim();
             if (input.equals("1")) { // Basic attack
-                if (actor.getCurrentStamina() >= 10) { // If enough stamina for attack
-                    CharacterClass target = selectTarget(opponent); // Select target
-                    if (target != null) { // If target selected
-                        basicAttack(actor, target); // Execute basic attack
-                        break;
-                    }
+                if (actor.getCurrentStamina() >= CombatRules.ATTACK_COST) { // If enough stamina for attack
+                    int target = selectTarget(opponent); // Select target
+                    if (target >= 0) action = Actions.attack(target); // If target selected
                 } else { // Not enough stamina
                     System.out.println("Not enough stamina for attack.");
                 }
             } else if (input.equals("2")) { // Defend
-                actor.defend();
-                System.out.println(actor.getName() + " takes a defensive stance.");
-                break;
+                action = Actions.defend();
             } else if (input.equals("3")) { // Skill
-                if (handleSkillSelection(actor, opponent, acting)) { // Handle skill selection
-                    break;
-                }
+                action = handleSkillSelection(actor, opponent, acting); // Handle skill selection
             } else if (input.matches("3\\.\\d+")) { // Direct skill selection
-                if (handleDirectSkillSelection(actor, opponent, acting, input)) { // Handle direct skill selection
-                    break;
-                }
+                action = handleDirectSkillSelection(actor, opponent, acting, input); // Handle direct skill selection
             } else {
                 System.out.println("Invalid choice. Please choose 1, 2, 3, or 3.1, 3.2, etc."); // Error handling
             }
         }
+        ActionResolver.resolve(action, actor, acting, opponent, rng, events); // Execute the chosen action
     }
 
-    private boolean handleSkillSelection(CharacterClass actor, Team opponent, Team acting) { // Skill selection handling
+    private int handleSkillSelection(CharacterClass actor, Team opponent, Team acting) { // Skill selection handling, returns an action code or -1
         if (actor.getSkills().isEmpty()) { // If no skills available
             System.out.println("No skills available.");
-            return false;
+            return -1;
         }
         while (true) { // Skill selection loop
             System.out.print("Choose a skill (3.1, 3.2, etc.): "); 
@@ -317,11 +287,10 @@ public class GameEngine {
                 if (skillIndex >= 0 && skillIndex < actor.getSkills().size()) { // If valid skill index
                     Skill s = actor.getSkills().get(skillIndex); // Get selected skill
                     if (actor.canUseSkill(s)) { // If skill can be used
-                        Team targetTeam = s.getDamage() < 0 ? acting : opponent; // Determine target team based on skill type
-                        CharacterClass target = selectTarget(targetTeam); // Select target
-                        if (target != null) { // If target selected
-                            actor.useSkill(s, target, rng); // Use the skill
-                            return true; // success
+                        boolean healing = s.getDamage() < 0; // Determine target team based on skill type
+                        int target = selectTarget(healing ? acting : opponent); // Select target
+                        if (target >= 0) { // If target selected
+                            return Actions.skill(skillIndex, target, healing); // success
                         }
                     } else { // Invalid input
                         System.out.println("Cannot use " + s.getName() + " - check cooldown or stamina");
@@ -336,25 +305,15 @@ public class GameEngine {
     }
 
 
-    private CharacterClass findOpponentByName(String name, List<CharacterClass> opponents) { // Helper method to find an opponent by name in the list of opponents
-        for (CharacterClass opponent : opponents) { // For each opponent
-            if (opponent.getName().equals(name)) { // If names match
-                return opponent;
-            }
-        }
-        return null;
-    }
-
-    private boolean handleDirectSkillSelection(CharacterClass actor, Team opponent, Team acting, String input) { // Direct skill selection handling
+    private int handleDirectSkillSelection(CharacterClass actor, Team opponent, Team acting, String input) { // Direct skill selection handling, returns an action code or -1
         int skillIndex = Integer.parseInt(input.substring(2)) - 1; // Get skill index
         if (skillIndex >= 0 && skillIndex < actor.getSkills().size()) { // If valid skill index
             Skill s = actor.getSkills().get(skillIndex); // Get selected skill
             if (actor.canUseSkill(s)) { // If skill can be used 
-                Team targetTeam = s.getDamage() < 0 ? acting : opponent; // Determine target team based on skill type
-                CharacterClass target = selectTarget(targetTeam); // Select target
-                if (target != null) { // If target selected
-                    actor.useSkill(s, target, rng); // Use the skill
-                    return true; // success
+                boolean healing = s.getDamage() < 0; // Determine target team based on skill type
+                int target = selectTarget(healing ? acting : opponent); // Select target
+                if (target >= 0) { // If target selected
+                    return Actions.skill(skillIndex, target, healing); // success
                 }
             } else { // If skill cannot be used
                 System.out.println("Cannot use " + s.getName() + " - check cooldown or stamina");
@@ -362,54 +321,31 @@ public class GameEngine {
         } else { // If invalid skill index
             System.out.println("Invalid skill number. Please choose 3.1 or 3.2.");
         }
-        return false;
+        return -1;
     }
 
-    private CharacterClass selectTarget(Team opponent) { // Target selection system
-        List<CharacterClass> alive = new ArrayList<>(); // List of alive opponents
-        for (int i = 0; i < opponent.getCharacters().size(); i++) { // For each character in opponent team
-            CharacterClass c = opponent.getCharacters().get(i); // Get character
-            if (c.isAlive()) {
-                alive.add(c);
-            }
-        }
-        if (alive.isEmpty()) return null; // No alive targets
+    private int selectTarget(Team opponent) { // Target selection system, returns the target's index in its team or -1
+        int alive = opponent.getAliveCount(); // Number of alive opponents, kept by the team
+        if (alive == 0) return -1; // No alive targets
 
         System.out.println("Choose a target:"); // Display alive targets
-        for (int i = 0; i < alive.size(); i++) { // For each alive character
-            CharacterClass c = alive.get(i); // Get character
-            System.out.printf("%d. %s (%s) HP: %d/%d, ST: %d/%d\n", i + 1, c.getName(), c.getType(), c.getCurrentHP(), c.getMaxHP(), c.getCurrentStamina(), c.getMaxStamina());
+        for (int n = 1, i = opponent.nextAlive(0); i >= 0; i = opponent.nextAlive(i + 1), n++) { // For each alive character
+            CharacterClass c = opponent.getCharacters().get(i); // Get character
+            System.out.printf("%d. %s (%s) HP: %d/%d, ST: %d/%d\n", n, c.getName(), c.getType(), c.getCurrentHP(), c.getMaxHP(), c.getCurrentStamina(), c.getMaxStamina());
         }
         while (true) {
             System.out.print("> "); // Prompt for target selection
             String input = sc.nextLine().trim(); // Get user input
             try {
                 int num = Integer.parseInt(input) - 1; // Convert to zero-based index
-                if (num >= 0 && num < alive.size()) { // If valid selection
-                    return alive.get(num);
+                if (num >= 0 && num < alive) { // If valid selection
+                    return opponent.nthAlive(num);
                 } else { // If invalid selection
-                    System.out.println("Invalid target selection. Please choose 1 or 2.");
+                    System.out.println("Invalid target selection. Please choose " + (alive == 1 ? "1" : alive == 2 ? "1 or 2" : "1 to " + alive) + ".");
                 }
             } catch (NumberFormatException e) {
                 System.out.println("Invalid input. Please enter a number.");
             }
         }
     }
-
-    private void basicAttack(CharacterClass actor, CharacterClass target) { // Basic attack implementation
-        if (target == null) return; // If no target, return
-        actor.deductStamina(10); // cost 10 stamina
-        int rand = rng.nextInt(6); // 0..5
-        int dmg = Math.max(1, actor.getStrength() + rand - target.getDefence()); // base damage
-        if (target.isDefending()) dmg = Math.max(1, dmg/2); // halve damage if defending
-        target.takeDamage(dmg); // apply damage
-        System.out.printf("%s attacks %s!\nStrength (%d) + Roll (%d) - Defence (%d) = %d damage.\n%s takes %d damage! (HP: %d/%d)\n", actor.getName(), target.getName(), actor.getStrength(), rand, target.getDefence(), dmg, target.getName(), dmg, target.getCurrentHP(), target.getMaxHP());
-    }
-
-    private void printStatus() { // Print status of both teams
-        System.out.println("\n--- Status ---");
-        playerTeam.printStatus();
-        enemyTeam.printStatus();
-        System.out.println("---------------\n");
-    }
 }
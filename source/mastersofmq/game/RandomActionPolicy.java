@@ -0,0 +1,95 @@
+package mastersofmq.game;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * The enemy AI used by {@link GameEngine}: picks uniformly between the legal
+ * actions (attack, defend, usable skills) and then a random alive opponent.
+ * Healing skills instead pick any member of the acting team.
+ *
+ * The random numbers are drawn in the same order as the interactive engine,
+ * so a seeded simulation replays exactly like a seeded interactive battle.
+ *
+ * Access Control:
+ * - Public class so simulations can use it for either side
+ * - Stateless, so one instance can be shared between battles
+ */
+public class RandomActionPolicy implements ActionPolicy {
+
+    @Override
+    public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) {
+        List<CharacterClass> allies = acting.getCharacters();
+        CharacterClass actor = allies.get(actorIndex);
+        List<Skill> skills = actor.getSkills();
+
+        boolean canAttack = actor.getCurrentStamina() >= CombatRules.ATTACK_COST;
+        int count = canAttack ? 2 : 1; // Attack (if affordable) and defend
+        for (int i = 0; i < skills.size(); i++) { // Count usable skills
+            if (actor.canUseSkill(skills.get(i))) count++;
+        }
+        int pick = rng.nextInt(count); // Randomly select an action
+        int target = opponent.nthAlive(rng.nextInt(opponent.getAliveCount())); // Randomly select an enemy target
+
+        if (canAttack) {
+            if (pick == 0) return Actions.attack(target);
+            pick--;
+        }
+        if (pick == 0) return Actions.defend();
+        pick--;
+        for (int i = 0; i < skills.size(); i++) { // Find the picked usable skill
+            Skill s = skills.get(i);
+            if (!actor.canUseSkill(s)) continue;
+            if (pick-- > 0) continue;
+            if (s.getDamage() < 0) {
+                return Actions.skill(i, rng.nextInt(allies.size()), true); // Randomly select an ally target
+            }
+            return Actions.skill(i, target, false);
+        }
+        return Actions.defend(); // Unreachable: pick is always within count
+    }
+
+    @Override
+    public int chooseAction(BattleState state, int unit, RandomGenerator rng) {
+        int side = state.sideOf(unit);
+        int opponentSide = 1 - side;
+
+        boolean canAttack = state.stamina(unit) >= CombatRules.ATTACK_COST;
+        int skills = state.skillCount(unit);
+        int count = canAttack ? 2 : 1; // Attack (if affordable) and defend
+        for (int k = 0; k < skills; k++) { // Count usable skills
+            if (state.canUseSkill(unit, k)) count++;
+        }
+        int pick = rng.nextInt(count); // Randomly select an action
+        int target = nthAlive(state, opponentSide, rng.nextInt(state.aliveCount(opponentSide))); // Randomly select an enemy target
+
+        if (canAttack) {
+            if (pick == 0) return Actions.attack(target);
+            pick--;
+        }
+        if (pick == 0) return Actions.defend();
+        pick--;
+        for (int k = 0; k < skills; k++) { // Find the picked usable skill
+            if (!state.canUseSkill(unit, k)) continue;
+            if (pick-- > 0) continue;
+            if (state.skillDamage(unit, k) < 0) {
+                return Actions.skill(k, rng.nextInt(state.teamSize(side)), true); // Randomly select an ally target
+            }
+            return Actions.skill(k, target, false);
+        }
+        return Actions.defend(); // Unreachable: pick is always within count
+    }
+
+    static int nthAlive(BattleState state, int side, int n) { // Team index of the n-th living unit of a side
+        int first = state.firstUnit(side);
+        for (int i = 0; i < state.teamSize(side); i++) {
+            if (state.isAlive(first + i) && n-- == 0) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,171 @@
+package mastersofmq.game;
+
+import mastersofmq.model.CombatRules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Searches the enemy's next move while the player is still choosing theirs.
+ *
+ * How it works:
+ * - When a player character's turn starts, every action the player could pick
+ *   is applied to a copy of the battle with each damage roll, giving the
+ *   positions the next enemy could face; the battle's {@link TurnScheduler}
+ *   says which enemy that is in each of them, under any initiative
+ * - The enemy policy is run on each of those positions on a background thread,
+ *   in the order the actions are listed, while the engine waits for input
+ * - When the enemy's turn comes, the position actually reached is looked up by
+ *   its Zobrist hash: a finished search is used at once, one still running is
+ *   waited for, and anything else is cancelled
+ * - Only policies that never draw from the random source are run ahead, so the
+ *   battle's rolls come out the same with or without speculation
+ *
+ * Access Control:
+ * - Public class so the engine (and tests) can drive it
+ * - start/take/cancel/close are called from the engine thread only; the worker
+ *   is a single daemon thread, shut down by {@link #close()}
+ */
+public class SpeculativeSearch {
+
+    private final ActionPolicy policy;
+    private final List<Job> jobs = new ArrayList<>(); // Pending and finished searches for the current player turn
+    private int[] actions = new int[0]; // Player actions of the current turn, grown to fit the battle
+    private ExecutorService worker;
+    private int hits = 0;
+    private int misses = 0;
+
+    /*
+     * @param policy Enemy policy to run ahead; must support BattleState and not use the random source
+     */
+    public SpeculativeSearch(ActionPolicy policy) {
+        if (policy.usesRandom()) {
+            throw new IllegalArgumentException(policy.getClass().getSimpleName() + " draws from the random source and cannot be run ahead");
+        }
+        this.policy = policy;
+    }
+
+    public int getHits() { return hits; } // Enemy turns answered by a speculative search
+    public int getMisses() { return misses; } // Enemy turns that had to be searched on the spot
+
+    /*
+     * Starts searching the replies to every action of a player character.
+     * Searches left over from an earlier turn are cancelled.
+     * Nothing is searched for positions where a player character or the end of
+     * the round comes next.
+     * @param state Position at the start of the player character's turn; copied
+     * @param playerIndex Index of the acting character in the player team
+     * @param turns Turn order of the battle, having just given this turn; only read
+     */
+    public void start(BattleState state, int playerIndex, TurnScheduler turns) {
+        cancel();
+        int actor = state.unit(BattleState.PLAYER, playerIndex);
+        int most = ExpectimaxPolicy.maxActions(state);
+        if (actions.length < most) actions = new int[most];
+        int count = ExpectimaxPolicy.generate(state, actor, actions);
+        TurnScheduler order = turns.copy(); // Read by the worker while the battle moves on
+        for (int i = 0; i < count; i++) {
+            int action = actions[i];
+            int kind = Actions.kind(action);
+            int target = kind == Actions.DEFEND ? -1 : state.unit(Actions.targetsAlly(action) ? BattleState.PLAYER : BattleState.ENEMY, Actions.target(action));
+            if (target >= 0 && !state.isAlive(target)) continue; // The menu only offers living targets
+            for (int roll = 0; roll < (kind == Actions.DEFEND ? 1 : CombatRules.ROLL_SIDES); roll++) {
+                BattleState next = state.copy();
+                if (kind == Actions.DEFEND) next.defend(actor);
+                else if (kind == Actions.ATTACK) next.attack(actor, target, roll);
+                else next.useSkill(actor, Actions.skillIndex(action), target, roll);
+                if (next.isDefeated(BattleState.ENEMY)) continue;
+                int slot = turns.peek(TurnScheduler.roster(next)); // Who acts after this outcome
+                if (slot < 0 || TurnScheduler.side(slot) != BattleState.ENEMY) continue; // No enemy turn follows
+                int enemyIndex = TurnScheduler.index(slot);
+                int enemy = next.unit(BattleState.ENEMY, enemyIndex);
+                if (next.isStunned(enemy)) continue; // Loses the turn
+                submit(next, enemy, enemyIndex, order);
+            }
+        }
+    }
+
+    /*
+     * Commits the search for the position the battle actually reached.
+     * Every other search of this turn is cancelled.
+     * @param positionKey Zobrist hash of the position (player team hash XOR enemy team hash)
+     * @param enemyIndex Index of the acting character in the enemy team
+     * @return The action found ahead of time, or -1 if the position was not searched
+     */
+    public int take(long positionKey, int enemyIndex) {
+        Job match = null;
+        for (Job job : jobs) {
+            if (match == null && job.key == positionKey && job.enemyIndex == enemyIndex && (job.started || job.isDone())) match = job;
+            else job.cancel(false);
+        }
+        jobs.clear();
+        if (match == null) {
+            misses++;
+            return -1;
+        }
+        try {
+            int action = match.get(); // Already running or done, so this waits at most one search budget
+            hits++;
+            return action;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) { // Treat a failed search as a miss
+        }
+        misses++;
+        return -1;
+    }
+
+    public void cancel() { // Drops every search of the current turn
+        for (Job job : jobs) job.cancel(false);
+        jobs.clear();
+    }
+
+    public void close() { // Drops every search and stops the worker thread; a later start brings up a new one
+        cancel();
+        if (worker != null) worker.shutdownNow();
+        worker = null;
+    }
+
+    private void submit(BattleState position, int enemy, int enemyIndex, TurnScheduler order) {
+        long key = position.hash();
+        for (Job job : jobs) {
+            if (job.key == key && job.enemyIndex == enemyIndex) return; // Same position from another roll or action
+        }
+        Job job = new Job(key, enemyIndex, position, enemy, order);
+        jobs.add(job);
+        worker().execute(job);
+    }
+
+    private ExecutorService worker() {
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "speculative-search");
+                t.setDaemon(true); // Never keeps the game running
+                return t;
+            });
+        }
+        return worker;
+    }
+
+    private final class Job extends FutureTask<Integer> { // One position's enemy search
+        private final long key;
+        private final int enemyIndex;
+        private volatile boolean started = false;
+
+        Job(long key, int enemyIndex, BattleState position, int enemy, TurnScheduler order) {
+            super(() -> policy.chooseAction(position, enemy, order, null));
+            this.key = key;
+            this.enemyIndex = enemyIndex;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            super.run();
+        }
+    }
+}
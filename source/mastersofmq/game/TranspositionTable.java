@@ -0,0 +1,110 @@
+package mastersofmq.game;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free cache of search results keyed by Zobrist hash, so a
+ * position reached again (by another move order, or in a later turn) costs a
+ * lookup instead of another search.
+ *
+ * Layout:
+ * - One entry per slot, three longs each: the key XOR the other two, the data
+ *   and the best action
+ * - Readers check that all three still match, so an entry torn by two threads
+ *   writing at once reads as a miss instead of as wrong data (no locks needed)
+ * - Data packs the value (float), search depth, bound type and the search
+ *   generation into one long; the action is kept whole, so any target fits
+ *
+ * Replacement policy: a slot is overwritten when it is empty, holds the same
+ * position, was written by an earlier search ({@link #newSearch()}), or holds
+ * a shallower search than the new result. Deep results from the current search
+ * are kept.
+ *
+ * Access Control:
+ * - Public final class shared by any number of search threads
+ * - Static accessors decode the packed entries returned by {@link #probe(long)};
+ *   {@link #bestAction(long)} reads the action stored with one
+ */
+public final class TranspositionTable {
+    public static final long MISS = 0L;
+    public static final int EXACT = 0; // Bound types of a stored value
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    public static final int MAX_DEPTH = 63; // Deeper results are stored as this depth
+
+    private static final long VALID = 1L << 63; // Set in every stored entry so data is never MISS
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private volatile int generation;
+
+    /*
+     * @param entries Requested capacity, rounded up to a power of two
+     */
+    public TranspositionTable(int entries) {
+        int capacity = Integer.highestOneBit(Math.max(2, entries - 1)) << 1;
+        slots = new AtomicLongArray(capacity * 3);
+        mask = capacity - 1;
+    }
+
+    public int capacity() { return mask + 1; }
+
+    public void newSearch() { // Ages every stored entry so fresh results may replace them
+        generation = (generation + 1) & 0x3f;
+    }
+
+    /*
+     * @return The packed entry stored for the key, or MISS
+     */
+    public long probe(long key) {
+        int i = index(key);
+        long check = slots.get(i);
+        long data = slots.get(i + 1);
+        long action = slots.get(i + 2);
+        if (data == MISS || (check ^ data ^ action) != key) return MISS; // Empty, another position, or torn by a concurrent store
+        return data;
+    }
+
+    /*
+     * @return The best action code stored for the key (see Actions), or -1 if none is stored
+     */
+    public int bestAction(long key) {
+        int i = index(key);
+        long check = slots.get(i);
+        long data = slots.get(i + 1);
+        long action = slots.get(i + 2);
+        if (data == MISS || (check ^ data ^ action) != key) return -1;
+        return (int) action;
+    }
+
+    public void store(long key, double value, int depth, int bound, int action) {
+        int i = index(key);
+        long old = slots.get(i + 1);
+        if (old != MISS && (slots.get(i) ^ old ^ slots.get(i + 2)) != key && generation(old) == generation && depth(old) > depth) {
+            return; // Keep the deeper result of this search
+        }
+        long data = pack(value, depth, bound, generation);
+        long code = action & 0xffffffffL;
+        slots.set(i + 1, data);
+        slots.set(i + 2, code);
+        slots.set(i, key ^ data ^ code);
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) * 3;
+    }
+
+    private static long pack(double value, int depth, int bound, int generation) {
+        return VALID
+                | (long) (generation & 0x3f) << 57
+                | (long) (bound & 0x3) << 55
+                | (long) (Math.min(depth, MAX_DEPTH) & 0x3f) << 49
+                | (Float.floatToRawIntBits((float) value) & 0xffffffffL);
+    }
+
+    public static double value(long entry) { return Float.intBitsToFloat((int) entry); }
+    public static int depth(long entry) { return (int) (entry >>> 49) & 0x3f; }
+    public static int bound(long entry) { return (int) (entry >>> 55) & 0x3; }
+    private static int generation(long entry) { return (int) (entry >>> 57) & 0x3f; }
+}
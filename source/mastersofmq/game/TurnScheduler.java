@@ -0,0 +1,208 @@
+package mastersofmq.game;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Team;
+
+import java.util.Arrays;
+
+/**
+ * Decides who acts next in a round, for teams of any size.
+ *
+ * How it works:
+ * - At the start of each round every member of both teams is put in a binary
+ *   heap (built in O(n)), keyed by initiative and then by turn slot
+ * - {@link #next()} pops the lowest key in O(log n), skipping members that are
+ *   down when their turn comes; someone healed back up before their turn
+ *   still acts, as in the original fixed order
+ * - {@link #peek(Roster)} tells who would act next from a position the battle
+ *   may reach, without taking the turn, so the enemy's reply can be searched ahead
+ * - {@link #remaining(int[])} lists the rest of the round's order, so a search
+ *   can play the round out in the order the battle will
+ * - Turns are reported as slots: slot = index * 2 + side, so equal initiative
+ *   gives player 1, enemy 1, player 2, enemy 2, ... (the classic order)
+ *
+ * Initiative:
+ * - NONE: the classic order for any team size; slots are simply walked in
+ *   order, so no heap is needed
+ * - ENDURANCE: higher endurance acts first
+ * - STAMINA: higher stamina at the start of the round acts first
+ * Ties always fall back to the slot, so the order is fully deterministic.
+ *
+ * Access Control:
+ * - Public final class used by the engine and the simulator
+ * - Not thread-safe: one scheduler per battle; {@link #copy()} one to read it on another thread
+ */
+public final class TurnScheduler {
+    public enum Initiative { NONE, ENDURANCE, STAMINA }
+
+    /*
+     * What the scheduler needs to know about the two teams.
+     */
+    public interface Roster {
+        int teamSize(int side);
+        boolean isAlive(int side, int index);
+        int endurance(int side, int index);
+        int stamina(int side, int index);
+    }
+
+    private final Roster roster;
+    private final Initiative initiative;
+    private long[] heap = new long[0]; // Keys: -initiative in the high half, slot in the low half
+    private long[] sorted = new long[0]; // Scratch copy of the heap for remaining()
+    private int size = 0;
+    private int players; // Team sizes at the start of the round
+    private int enemies;
+    private int cursor; // Next slot to try when there is no initiative
+
+    public TurnScheduler(Roster roster, Initiative initiative) {
+        this.roster = roster;
+        this.initiative = initiative;
+    }
+
+    public static Roster roster(Team playerTeam, Team enemyTeam) { // Reads the live teams
+        return new Roster() {
+            private CharacterClass member(int side, int index) {
+                return (side == BattleState.PLAYER ? playerTeam : enemyTeam).getCharacters().get(index);
+            }
+            @Override
+            public int teamSize(int side) { return (side == BattleState.PLAYER ? playerTeam : enemyTeam).getCharacters().size(); }
+            @Override
+            public boolean isAlive(int side, int index) { return (side == BattleState.PLAYER ? playerTeam : enemyTeam).isAlive(index); }
+            @Override
+            public int endurance(int side, int index) { return member(side, index).getEndurance(); }
+            @Override
+            public int stamina(int side, int index) { return member(side, index).getCurrentStamina(); }
+        };
+    }
+
+    public static Roster roster(BattleState state) { // Reads the flat state
+        return new Roster() {
+            @Override
+            public int teamSize(int side) { return state.teamSize(side); }
+            @Override
+            public boolean isAlive(int side, int index) { return state.isAlive(state.unit(side, index)); }
+            @Override
+            public int endurance(int side, int index) { return state.endurance(state.unit(side, index)); }
+            @Override
+            public int stamina(int side, int index) { return state.stamina(state.unit(side, index)); }
+        };
+    }
+
+    public Initiative getInitiative() { return initiative; }
+
+    /*
+     * @return A scheduler at the same point of the same round, reading the same roster
+     */
+    public TurnScheduler copy() {
+        TurnScheduler t = new TurnScheduler(roster, initiative);
+        t.heap = heap.clone();
+        t.size = size;
+        t.players = players;
+        t.enemies = enemies;
+        t.cursor = cursor;
+        return t;
+    }
+
+    public static int side(int slot) { return slot & 1; } // BattleState.PLAYER or ENEMY
+    public static int index(int slot) { return slot >>> 1; } // Index in that side's team
+
+    public void startRound() { // Queues every member of both teams
+        players = roster.teamSize(BattleState.PLAYER);
+        enemies = roster.teamSize(BattleState.ENEMY);
+        if (initiative == Initiative.NONE) {
+            cursor = 0;
+            return;
+        }
+        if (heap.length < players + enemies) heap = new long[players + enemies];
+        size = 0;
+        for (int side = BattleState.PLAYER; side <= BattleState.ENEMY; side++) {
+            for (int i = 0, n = side == BattleState.PLAYER ? players : enemies; i < n; i++) {
+                heap[size++] = (long) -initiative(side, i) << 32 | (i << 1 | side);
+            }
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) siftDown(i); // Heapify
+    }
+
+    /*
+     * @return Slot of the next living member to act this round, or -1 when the round is over
+     */
+    public int next() {
+        if (initiative == Initiative.NONE) {
+            for (int end = 2 * Math.max(players, enemies); cursor < end; ) {
+                int slot = cursor++;
+                if (index(slot) < (side(slot) == BattleState.PLAYER ? players : enemies) && roster.isAlive(side(slot), index(slot))) return slot;
+            }
+            return -1;
+        }
+        while (size > 0) {
+            int slot = (int) heap[0]; // Low half of the key
+            heap[0] = heap[--size];
+            siftDown(0);
+            if (roster.isAlive(side(slot), index(slot))) return slot;
+        }
+        return -1;
+    }
+
+    /*
+     * Tells which slot next() would return if the teams looked like view, without taking it.
+     * @param view Teams as they may be by then, e.g. after the current turn's action
+     * @return Slot of the next member alive in view this round, or -1 if the round would be over
+     */
+    public int peek(Roster view) {
+        if (initiative == Initiative.NONE) {
+            for (int slot = cursor, end = 2 * Math.max(players, enemies); slot < end; slot++) {
+                if (index(slot) < (side(slot) == BattleState.PLAYER ? players : enemies) && view.isAlive(side(slot), index(slot))) return slot;
+            }
+            return -1;
+        }
+        long first = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) { // Lowest key among the living; the heap is only ordered at its root
+            int slot = (int) heap[i];
+            if (heap[i] < first && view.isAlive(side(slot), index(slot))) first = heap[i];
+        }
+        return first == Long.MAX_VALUE ? -1 : (int) first;
+    }
+
+    /*
+     * Lists the slots still queued this round, in the order next() would hand
+     * them out; members that are down are listed too, as they may be healed
+     * back up before their turn.
+     * @param out Room for at least 2 * the larger team size
+     * @return number of slots written
+     */
+    public int remaining(int[] out) {
+        int n = 0;
+        if (initiative == Initiative.NONE) {
+            for (int slot = cursor, end = 2 * Math.max(players, enemies); slot < end; slot++) {
+                if (index(slot) < (side(slot) == BattleState.PLAYER ? players : enemies)) out[n++] = slot;
+            }
+            return n;
+        }
+        if (sorted.length < size) sorted = new long[heap.length];
+        System.arraycopy(heap, 0, sorted, 0, size);
+        Arrays.sort(sorted, 0, size);
+        for (; n < size; n++) out[n] = (int) sorted[n];
+        return n;
+    }
+
+    private int initiative(int side, int index) {
+        switch (initiative) {
+            case ENDURANCE: return roster.endurance(side, index);
+            case STAMINA: return roster.stamina(side, index);
+            default: return 0;
+        }
+    }
+
+    private void siftDown(int i) {
+        long key = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= key) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+}
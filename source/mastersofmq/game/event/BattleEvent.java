@@ -0,0 +1,55 @@
+package mastersofmq.game.event;
+
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Team;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything that happens in a battle, as typed immutable records.
+ * The engine and simulator emit these to a {@link BattleEventSink}; turning
+ * them into text is the job of a renderer such as {@link ConsoleBattleRenderer}.
+ *
+ * Access Control:
+ * - Public sealed interface so sinks can rely on the full set of event types
+ * - Records hold only names and numbers, so events stay valid after the battle moves on
+ */
+public sealed interface BattleEvent {
+
+    record RoundStarted(int round) implements BattleEvent {}
+
+    record TurnStarted(int round, String actor, String team, int regen, int stamina, int maxStamina) implements BattleEvent {}
+
+    record AttackResolved(String attacker, String target, int strength, int roll, int defence, int damage,
+                          int targetHP, int targetMaxHP) implements BattleEvent {}
+
+    record SkillUsed(String user, String skill, String target, int damage, int targetHP, int targetMaxHP) implements BattleEvent {}
+
+    record Healed(String user, String skill, String target, int amount, int targetHP, int targetMaxHP) implements BattleEvent {}
+
+    record Defended(String actor) implements BattleEvent {}
+
+    record Stunned(String actor) implements BattleEvent {} // Turn lost to a stun
+
+    record RoundEnded(int round, TeamStatus player, TeamStatus enemy) implements BattleEvent {}
+
+    record BattleConcluded(boolean playerWon, int rounds, TeamStatus player, TeamStatus enemy, String storyText) implements BattleEvent {}
+
+    /** HP and stamina of one character at the moment the event was emitted. */
+    record CharacterStatus(String name, String type, int hp, int maxHP, int stamina, int maxStamina) {
+        public boolean isAlive() { return hp > 0; }
+    }
+
+    /** Snapshot of a whole team at the moment the event was emitted. */
+    record TeamStatus(String name, List<CharacterStatus> characters) {
+        public static TeamStatus of(Team team) {
+            List<CharacterStatus> list = new ArrayList<>(team.getCharacters().size());
+            for (CharacterClass c : team.getCharacters()) {
+                list.add(new CharacterStatus(c.getName(), c.getType(), c.getCurrentHP(), c.getMaxHP(), c.getCurrentStamina(), c.getMaxStamina()));
+            }
+            return new TeamStatus(team.getName(), Collections.unmodifiableList(list));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package mastersofmq.game.event;
+
+/**
+ * Receives the events of a battle as they happen.
+ * Emitters check {@link #isEnabled()} before building an event, so a disabled
+ * sink such as {@link #NONE} costs no allocation or formatting at all.
+ *
+ * Access Control:
+ * - Public interface so callers can plug in renderers, logs or their own collectors
+ */
+public interface BattleEventSink {
+    /** Discards everything; the default for headless simulation. */
+    BattleEventSink NONE = new BattleEventSink() {
+        @Override
+        public void accept(BattleEvent event) {}
+
+        @Override
+        public boolean isEnabled() { return false; }
+    };
+
+    void accept(BattleEvent event);
+
+    default boolean isEnabled() { return true; } // False if events would be thrown away anyway
+
+    default void flush() {} // Pushes out anything buffered, called before the game prompts the player
+}
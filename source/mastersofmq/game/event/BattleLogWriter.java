@@ -0,0 +1,54 @@
+package mastersofmq.game.event;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sink that stores a full battle log, one event per line, through a buffered writer.
+ * Lines use the record form of each event, e.g.
+ * {@code AttackResolved[attacker=Warrior, target=Dark Warrior, ...]}.
+ *
+ * Access Control:
+ * - Public class; close it (or use try-with-resources) to flush the log
+ */
+public class BattleLogWriter implements BattleEventSink, Closeable {
+    private final Writer out;
+
+    public BattleLogWriter(Path file) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    public BattleLogWriter(Writer out) {
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    @Override
+    public void accept(BattleEvent event) {
+        try {
+            out.write(event.toString());
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write battle log", e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write battle log", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
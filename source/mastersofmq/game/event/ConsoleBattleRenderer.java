@@ -0,0 +1,165 @@
+package mastersofmq.game.event;
+
+import mastersofmq.model.Team;
+
+import java.io.PrintStream;
+
+/**
+ * Renders battle events as console text.
+ * Text is built in one reusable buffer and written to the stream in a single
+ * call once an action (or round) is complete, instead of one printf per line.
+ * Formats are plain appends, so nothing is parsed at runtime.
+ *
+ * Verbosity levels:
+ * - FULL: the game's full narrative, line for line as it has always read
+ * - COMPACT: an "R<round> <actor>" line per turn, then one line per action and per round
+ * - SILENT: nothing; the renderer reports itself disabled so no events are built
+ *
+ * Access Control:
+ * - Public class so the game entry point can choose where output goes
+ * - Private helpers for each format
+ * - Not thread-safe: use one renderer per battle
+ */
+public class ConsoleBattleRenderer implements BattleEventSink {
+    public enum Verbosity { FULL, COMPACT, SILENT }
+
+    private final PrintStream out;
+    private final Verbosity verbosity;
+    private final StringBuilder buffer = new StringBuilder(512); // Reused for every turn
+
+    public ConsoleBattleRenderer(PrintStream out) {
+        this(out, Verbosity.FULL);
+    }
+
+    public ConsoleBattleRenderer(PrintStream out, Verbosity verbosity) {
+        this.out = out;
+        this.verbosity = verbosity;
+    }
+
+    public Verbosity getVerbosity() { return verbosity; }
+
+    @Override
+    public boolean isEnabled() { return verbosity != Verbosity.SILENT; }
+
+    @Override
+    public void accept(BattleEvent event) {
+        if (verbosity == Verbosity.FULL) {
+            appendFull(event);
+        } else if (verbosity == Verbosity.COMPACT) {
+            appendCompact(event);
+        }
+        if (!(event instanceof BattleEvent.RoundStarted) && !(event instanceof BattleEvent.TurnStarted)) {
+            flush(); // An action, round or battle is complete
+        }
+    }
+
+    @Override
+    public void flush() { // Writes everything buffered so far in one call
+        if (buffer.length() == 0) return;
+        out.append(buffer);
+        out.flush();
+        buffer.setLength(0);
+    }
+
+    private void appendFull(BattleEvent event) {
+        StringBuilder b = buffer;
+        if (event instanceof BattleEvent.RoundStarted e) {
+            b.append("\n--- Round ").append(e.round()).append(" ---\n");
+        } else if (event instanceof BattleEvent.TurnStarted e) {
+            b.append("\n--- ").append(e.actor()).append("'s Turn (").append(e.team()).append(") ---\n");
+            b.append("Stamina regenerated +").append(e.regen()).append(" (Endurance). ST: ")
+                    .append(e.stamina()).append('/').append(e.maxStamina()).append(".\n");
+        } else if (event instanceof BattleEvent.AttackResolved e) {
+            b.append(e.attacker()).append(" attacks ").append(e.target()).append("!\n");
+            b.append("Strength (").append(e.strength()).append(") + Roll (").append(e.roll()).append(") - Defence (")
+                    .append(e.defence()).append(") = ").append(e.damage()).append(" damage.\n");
+            appendTakes(e.target(), e.damage(), e.targetHP(), e.targetMaxHP());
+        } else if (event instanceof BattleEvent.SkillUsed e) {
+            b.append(e.user()).append(" uses ").append(e.skill()).append(" on ").append(e.target()).append("!\n");
+            b.append(e.skill()).append(" deals ").append(e.damage()).append(" damage!\n");
+            appendTakes(e.target(), e.damage(), e.targetHP(), e.targetMaxHP());
+        } else if (event instanceof BattleEvent.Healed e) {
+            b.append(e.user()).append(" uses ").append(e.skill()).append(" on ").append(e.target()).append("!\n");
+            b.append(e.skill()).append(" restores ").append(e.amount()).append(" HP!\n");
+            b.append(e.target()).append(" is healed for ").append(e.amount()).append(" HP. (HP: ")
+                    .append(e.targetHP()).append('/').append(e.targetMaxHP()).append(")\n");
+        } else if (event instanceof BattleEvent.Defended e) {
+            b.append(e.actor()).append(" takes a defensive stance!\n");
+        } else if (event instanceof BattleEvent.Stunned e) {
+            b.append(e.actor()).append(" is stunned and cannot act!\n");
+        } else if (event instanceof BattleEvent.RoundEnded e) {
+            b.append("\n--- Status ---\n");
+            appendStatus(e.player());
+            appendStatus(e.enemy());
+            b.append("---------------\n\n");
+        } else if (event instanceof BattleEvent.BattleConcluded e) {
+            b.append("\n=== BATTLE CONCLUDED ===\n");
+            if (e.playerWon()) { // Victory messages
+                b.append("Team ").append(e.player().name()).append(" emerges victorious!\n");
+                if (e.storyText() != null) b.append(e.storyText()).append('\n');
+            } else { // Defeat messages
+                b.append("Team ").append(e.player().name()).append(" has fallen in battle!\n");
+                if (e.storyText() != null) b.append(e.storyText()).append('\n');
+                b.append("Macquarie University needs heroes... Will others rise to face the darkness?\n");
+            }
+            b.append("\nThe battle raged for ").append(e.rounds()).append(" intense rounds.\n\n");
+            b.append("Final Status:\n");
+            appendStatus(e.player()); // Final status of player team
+            appendStatus(e.enemy()); // Final status of enemy team
+        }
+    }
+
+    private void appendCompact(BattleEvent event) {
+        StringBuilder b = buffer;
+        if (event instanceof BattleEvent.TurnStarted e) { // Says whose turn it is before the player's menu
+            b.append('R').append(e.round()).append(' ').append(e.actor()).append('\n');
+        } else if (event instanceof BattleEvent.AttackResolved e) {
+            b.append(e.attacker()).append(" -> ").append(e.target()).append(": ").append(e.damage()).append(" dmg");
+            appendHP(e.targetHP(), e.targetMaxHP());
+        } else if (event instanceof BattleEvent.SkillUsed e) {
+            b.append(e.user()).append(" [").append(e.skill()).append("] -> ").append(e.target()).append(": ")
+                    .append(e.damage()).append(" dmg");
+            appendHP(e.targetHP(), e.targetMaxHP());
+        } else if (event instanceof BattleEvent.Healed e) {
+            b.append(e.user()).append(" [").append(e.skill()).append("] -> ").append(e.target()).append(": +")
+                    .append(e.amount()).append(" HP");
+            appendHP(e.targetHP(), e.targetMaxHP());
+        } else if (event instanceof BattleEvent.Defended e) {
+            b.append(e.actor()).append(" defends\n");
+        } else if (event instanceof BattleEvent.Stunned e) {
+            b.append(e.actor()).append(" is stunned\n");
+        } else if (event instanceof BattleEvent.RoundEnded e) {
+            b.append("Round ").append(e.round()).append(": ");
+            appendCompactStatus(e.player());
+            b.append(" | ");
+            appendCompactStatus(e.enemy());
+            b.append('\n');
+        } else if (event instanceof BattleEvent.BattleConcluded e) {
+            b.append(e.player().name()).append(e.playerWon() ? " wins" : " is defeated").append(" after ")
+                    .append(e.rounds()).append(" rounds\n");
+        }
+    }
+
+    private void appendTakes(String target, int damage, int hp, int maxHP) {
+        buffer.append(target).append(" takes ").append(damage).append(" damage! (HP: ").append(hp).append('/').append(maxHP).append(")\n");
+    }
+
+    private void appendHP(int hp, int maxHP) {
+        buffer.append(" (").append(hp).append('/').append(maxHP).append(")\n");
+    }
+
+    private void appendStatus(BattleEvent.TeamStatus team) {
+        buffer.append(team.name()).append(":\n"); // Team or player name
+        for (BattleEvent.CharacterStatus c : team.characters()) {
+            Team.appendStatusLine(buffer, c.name(), c.hp(), c.maxHP(), c.stamina(), c.maxStamina());
+        }
+    }
+
+    private void appendCompactStatus(BattleEvent.TeamStatus team) {
+        for (int i = 0; i < team.characters().size(); i++) {
+            BattleEvent.CharacterStatus c = team.characters().get(i);
+            if (i > 0) buffer.append(", ");
+            buffer.append(c.name()).append(' ').append(c.hp()).append('/').append(c.maxHP());
+        }
+    }
+}
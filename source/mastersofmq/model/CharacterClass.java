@@ -2,7 +2,7 @@ package mastersofmq.model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a playable or enemy character in the game.
@@ -10,6 +10,17 @@ import java.util.Random;
  * - Basic stats (HP, Stamina, Strength, Defence, Endurance)
  * - Combat state (current HP/Stamina, defending status)
  * - List of usable skills
+ * - Zobrist hash of the combat state, updated in O(1) by every change made
+ *   through this class (see {@link Zobrist}) and passed on to the team, so
+ *   reading it is a field load; cooldowns and effects are hashed by the rounds
+ *   they have left, so the end of a round rehashes the ones still running
+ * - A {@link RoundClock} its skills' cooldowns are read against, so the end of
+ *   a round never writes to a skill
+ * - Active status effects (see {@link StatusEffect}), whose expiry is scheduled
+ *   on the team's timing wheel, except a stun, which runs down as the character's
+ *   turns come up; nothing is allocated until the first one lands
+ * - The team it belongs to is told when it falls or is healed back up, so
+ *   the team's alive count never needs a scan
  * 
  * Key formulas:
  * - Stamina regeneration per turn = max(1, endurance/2)
@@ -20,7 +31,8 @@ import java.util.Random;
  * - Public class to allow creation of characters throughout the game
  * - Private fields to protect character state integrity
  * - Public methods for controlled interaction with character stats and abilities
- * - Implements Cloneable for creating copies of character templates
+ * - Implements Cloneable for creating copies of character templates; a copy can
+ *   be {@link #reset()} in place and reused instead of cloning again (see {@link CombatantPool})
  */
 public class CharacterClass implements Cloneable { // Represents a character class (playable or enemy)
     private final String name;
@@ -34,6 +46,16 @@ public class CharacterClass implements Cloneable { // Represents a character cla
     private final int endurance;
     private final List<Skill> skills = new ArrayList<>();
     private boolean defending = false;
+    private long zobristSalt; // Set by the team the character joins
+    private long hash; // Zobrist hash of the whole combat state
+    private final RoundClock clock = new RoundClock(); // Rounds lived through, ticked by endTurn
+    private Team team; // Team the character joined, null until then
+    private int teamIndex; // Place in that team
+    private int[] effectAmount; // Per StatusEffect.Kind, null until the first effect lands
+    private int[] effectDue; // Round of the clock each active effect ends on; for a stun, the turns still to lose
+    private TimingWheel.Timer<Runnable>[] effectTimers; // Expiry of each active effect, null entries for inactive kinds
+    boolean ticking = false; // On the team's list of members that may have poison or regen running
+    private static final int STUN = StatusEffect.Kind.STUN.ordinal(); // Counted in turns, not on the wheel
 
     public CharacterClass(String name, String type, int hp, int stamina, int strength, int defence, int endurance) { // Constructor to initialize character stats
         this.name = name;
@@ -45,6 +67,7 @@ public class CharacterClass implements Cloneable { // Represents a character cla
         this.strength = strength;
         this.defence = defence;
         this.endurance = endurance;
+        this.hash = computeHash();
     }
 
 
@@ -85,62 +108,262 @@ public class CharacterClass implements Cloneable { // Represents a character cla
     }
 
     public void addSkill(Skill s) { // Adds a skill to the character's skill list
-        skills.add(s); }
+        int k = skills.size();
+        skills.add(s);
+        s.useClock(clock, this, k);
+        changeHash(Zobrist.key(zobristSalt, Zobrist.COOLDOWN + k, s.getCooldownRemaining()));
+    }
+
+    public long getHash() { return hash; } // Zobrist hash of the current combat state
+
+    public int getRound() { return clock.now(); } // Rounds this character has ended alive
+
+    void joinTeam(Team team, int index, long salt) { // Called by Team when the character joins it
+        this.team = team;
+        this.teamIndex = index;
+        zobristSalt = salt;
+        hash = computeHash();
+    }
+
+    private long computeHash() { // Full recomputation; changes afterwards are applied incrementally
+        long h = Zobrist.key(zobristSalt, Zobrist.HP, currentHP) ^ Zobrist.key(zobristSalt, Zobrist.STAMINA, currentStamina);
+        if (defending) h ^= Zobrist.key(zobristSalt, Zobrist.DEFENDING, 1);
+        for (int k = 0; k < skills.size(); k++) h ^= Zobrist.key(zobristSalt, Zobrist.COOLDOWN + k, skills.get(k).getCooldownRemaining());
+        if (effectTimers != null) {
+            for (int e = 0; e < StatusEffect.KINDS; e++) {
+                if (isActive(e)) h ^= effectKey(e);
+            }
+        }
+        return h;
+    }
+
+    private void changeHash(long delta) { // XORs keys in or out, here and in the team's hash
+        hash ^= delta;
+        if (team != null) team.hashChanged(delta);
+    }
+
+    void cooldownMoved(int k, int from, int to) { // Called by skill k when the round it is ready again changes
+        int now = clock.now();
+        changeHash(Zobrist.key(zobristSalt, Zobrist.COOLDOWN + k, Math.max(0, from - now))
+                ^ Zobrist.key(zobristSalt, Zobrist.COOLDOWN + k, Math.max(0, to - now)));
+    }
+
+    private long effectKey(int e) { // Keys of an active effect, hashed by the rounds (or stunned turns) it has left
+        int left = e == STUN ? effectDue[e] : effectDue[e] - clock.now();
+        return Zobrist.key(zobristSalt, Zobrist.EFFECT - 2 * e, left) ^ Zobrist.key(zobristSalt, Zobrist.EFFECT - 2 * e - 1, effectAmount[e]);
+    }
+
+    private long runDownKeys() { // Change to the hash as the clock ticks: every running cooldown and effect loses a round
+        long delta = 0;
+        for (int k = 0; k < skills.size(); k++) {
+            int left = skills.get(k).getCooldownRemaining();
+            if (left > 0) delta ^= Zobrist.key(zobristSalt, Zobrist.COOLDOWN + k, left) ^ Zobrist.key(zobristSalt, Zobrist.COOLDOWN + k, left - 1);
+        }
+        if (effectTimers == null) return delta;
+        for (int e = 0; e < StatusEffect.KINDS; e++) {
+            if (e == STUN || !isActive(e)) continue; // A stun runs down with the character's turns instead
+            int left = effectDue[e] - clock.now();
+            delta ^= Zobrist.key(zobristSalt, Zobrist.EFFECT - 2 * e, left) ^ Zobrist.key(zobristSalt, Zobrist.EFFECT - 2 * e, left - 1);
+        }
+        return delta;
+    }
+
+    private void setHP(int hp) {
+        changeHash(Zobrist.key(zobristSalt, Zobrist.HP, currentHP) ^ Zobrist.key(zobristSalt, Zobrist.HP, hp));
+        boolean wasAlive = currentHP > 0;
+        currentHP = hp;
+        if (team != null && wasAlive != hp > 0) team.aliveChanged(teamIndex, hp > 0); // Fell, or was healed back up
+        if (wasAlive && hp <= 0) clearEffects(); // Falling removes every effect
+    }
+
+    private void setStamina(int stamina) {
+        changeHash(Zobrist.key(zobristSalt, Zobrist.STAMINA, currentStamina) ^ Zobrist.key(zobristSalt, Zobrist.STAMINA, stamina));
+        currentStamina = stamina;
+    }
+
+    private void setDefending(boolean d) {
+        if (d != defending) changeHash(Zobrist.key(zobristSalt, Zobrist.DEFENDING, 1));
+        defending = d;
+    }
 
     public void takeDamage(int d) { // Reduces current HP by damage amount, not going below 0
-        currentHP = Math.max(0, Math.min(maxHP, currentHP - d));
+        setHP(Math.max(0, Math.min(maxHP, currentHP - d)));
     }
 
     public void heal(int amount) { // Heals the character by a specified amount, not exceeding max HP
-        currentHP = Math.min(maxHP, currentHP + amount);
+        setHP(Math.min(maxHP, currentHP + amount));
     }
 
     public void restoreStamina(int amount) { // Restores stamina by a specified amount, not exceeding max Stamina
-        currentStamina = Math.min(maxStamina, currentStamina + amount);
+        setStamina(Math.min(maxStamina, currentStamina + amount));
     }
 
     public void deductStamina(int amount) { // Deducts stamina by a specified amount, not going below 0
-        currentStamina = Math.max(0, currentStamina - amount);
+        setStamina(Math.max(0, currentStamina - amount));
     }
 
     public void defend() { // Sets the character to defending state
-        this.defending = true;
+        setDefending(true);
     }
 
     public void endTurn() {
         // regen stamina based on endurance (simple flat rule)
-        int regen = Math.max(1, endurance/2);
-        currentStamina = Math.min(maxStamina, currentStamina + regen);
-        // reduce skill cooldowns
-        for (Skill s : skills) s.reduceCooldown();
+        int regen = CombatRules.staminaRegen(endurance);
+        setStamina(Math.min(maxStamina, currentStamina + regen));
+        // skill cooldowns and effects run down with the clock
+        changeHash(runDownKeys());
+        clock.tick();
         // stop defending at end of round
-        defending = false;
+        setDefending(false);
     }
 
     public boolean isAlive() { // Checks if the character is alive (current HP > 0)
         return currentHP > 0;
     }
 
+    /*
+     * Puts a status effect on the character, replacing one of the same kind.
+     * A stun is counted in this character's turns rather than on the team's wheel.
+     * Ignored if the character is down or not in a team, as the team runs the effects.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array: every slot holds a Timer<Runnable>
+    public void applyEffect(StatusEffect effect) {
+        if (team == null || !isAlive()) return;
+        int e = effect.getKind().ordinal();
+        if (effectTimers == null) {
+            effectAmount = new int[StatusEffect.KINDS];
+            effectDue = new int[StatusEffect.KINDS];
+            effectTimers = new TimingWheel.Timer[StatusEffect.KINDS];
+        }
+        cancelEffect(e);
+        effectAmount[e] = effect.getAmount();
+        if (e == STUN) {
+            effectDue[e] = effect.getDuration(); // Turns to lose, see loseTurnToStun
+        } else {
+            effectDue[e] = clock.now() + effect.getDuration(); // The clock ticks with the team's wheel while the effect runs
+            effectTimers[e] = team.scheduleEffect(() -> endEffect(e), effect.getDuration());
+        }
+        changeHash(effectKey(e));
+        if (effect.getKind().ticks()) team.startTicking(this);
+    }
+
+    public boolean hasEffect(StatusEffect.Kind kind) {
+        return effectTimers != null && isActive(kind.ordinal());
+    }
+
+    private boolean isActive(int e) { // Effect arrays must exist
+        return e == STUN ? effectDue[e] > 0 : effectTimers[e] != null;
+    }
+
+    public int getEffectAmount(StatusEffect.Kind kind) { // 0 if the effect is not active
+        return hasEffect(kind) ? effectAmount[kind.ordinal()] : 0;
+    }
+
+    public int getEffectRounds(StatusEffect.Kind kind) { // Round ends left (turns left for a stun), 0 if the effect is not active
+        if (!hasEffect(kind)) return 0;
+        return kind == StatusEffect.Kind.STUN ? effectDue[STUN] : effectDue[kind.ordinal()] - clock.now();
+    }
+
+    public boolean isStunned() { return hasEffect(StatusEffect.Kind.STUN); } // Loses its turns while set
+
+    /*
+     * Called when the character's turn comes up. A stunned character uses up
+     * one of the turns it loses, and the stun ends with the last of them.
+     * @return true if the character is stunned and must not act this turn
+     */
+    public boolean loseTurnToStun() {
+        if (!isStunned()) return false;
+        changeHash(effectKey(STUN));
+        if (--effectDue[STUN] > 0) changeHash(effectKey(STUN));
+        else effectAmount[STUN] = 0;
+        return true;
+    }
+
+    public int getAttackStrength() { return strength + getEffectAmount(StatusEffect.Kind.STRENGTH); } // Strength including buffs
+
+    boolean hasTickingEffect() { // Poison or regen running
+        return hasEffect(StatusEffect.Kind.POISON) || hasEffect(StatusEffect.Kind.REGEN);
+    }
+
+    void tickEffects() { // End-of-round poison then regen, called by the team
+        if (hasEffect(StatusEffect.Kind.POISON)) takeDamage(getEffectAmount(StatusEffect.Kind.POISON)); // May clear every effect
+        if (hasEffect(StatusEffect.Kind.REGEN)) heal(getEffectAmount(StatusEffect.Kind.REGEN));
+    }
+
+    private void endEffect(int e) { // Expiry fired by the team's wheel
+        changeHash(effectKey(e));
+        effectTimers[e] = null;
+        effectAmount[e] = 0;
+        effectDue[e] = 0;
+    }
+
+    private void cancelEffect(int e) { // Ends an effect before its expiry fires (or its stunned turns are used up)
+        if (!isActive(e)) return;
+        if (effectTimers[e] != null) effectTimers[e].cancel();
+        endEffect(e);
+    }
+
+    private void clearEffects() {
+        if (effectTimers == null) return;
+        for (int e = 0; e < StatusEffect.KINDS; e++) cancelEffect(e);
+    }
+
     public boolean canUseSkill(Skill s) { // Checks if the character can use a given skill
         return currentStamina >= s.getStaminaCost() && !s.isOnCooldown();
     }
 
-    public void useSkill(Skill s, CharacterClass target, Random rng) { // Uses a skill on a target character
-        if (!canUseSkill(s)) return;
-        currentStamina -= s.getStaminaCost();
-        int rand = rng.nextInt(6); // random factor between 0-5
+    /*
+     * Applies a basic attack: costs stamina and damages the target.
+     * Nothing is printed; the engine reports the result as a battle event.
+     * @param roll The random factor (0-5) rolled for this attack
+     * @return damage dealt
+     */
+    public int performAttack(CharacterClass target, int roll) {
+        deductStamina(CombatRules.ATTACK_COST); // cost 10 stamina
+        int dmg = CombatRules.attackDamage(getAttackStrength(), roll, target.getDefence(), target.isDefending()); // halved if defending
+        target.takeDamage(dmg); // apply damage
+        return dmg;
+    }
+
+    public void useSkill(Skill s, CharacterClass target, RandomGenerator rng) { // Uses a skill on a target character, see performSkill
+        performSkill(s, target, rng);
+    }
+
+    /*
+     * Applies a skill. Nothing is printed; the engine reports the result as a battle event.
+     * @return damage dealt (or HP restored for healing skills), -1 if the skill could not be used
+     */
+    public int performSkill(Skill s, CharacterClass target, RandomGenerator rng) {
+        if (!canUseSkill(s)) return -1;
+        setStamina(currentStamina - s.getStaminaCost());
+        int rand = rng.nextInt(CombatRules.ROLL_SIDES); // random factor between 0-5
         int dmg = s.getDamage();
+        int amount;
         if (dmg > 0) {
-            dmg = Math.max(1, dmg + rand - target.getDefence()); // basic damage formula
-            if (target.isDefending()) dmg = Math.max(1, dmg/2); // reduce damage if target is defending
-            target.takeDamage(dmg); // deal damage to target
-            System.out.printf("%s uses %s on %s!\n%s deals %d damage!\n%s takes %d damage! (HP: %d/%d)\n", name, s.getName(), target.getName(), s.getName(), dmg, target.getName(), dmg, target.getCurrentHP(), target.getMaxHP());
+            amount = CombatRules.skillDamage(dmg, rand, target.getDefence(), target.isDefending()); // basic damage formula, halved if defending
+            target.takeDamage(amount); // deal damage to target
         } else {
-            int heal = Math.abs(dmg) + rand; // negative damage heals
+            amount = Math.abs(dmg) + rand; // negative damage heals
             target.takeDamage(dmg); // negative damage heals
-            System.out.printf("%s uses %s on %s!\n%s restores %d HP!\n%s is healed for %d HP. (HP: %d/%d)\n", name, s.getName(), target.getName(), s.getName(), heal, target.getName(), heal, target.getCurrentHP(), target.getMaxHP());
         }
         s.triggerCooldown();
+        if (s.getEffect() != null) target.applyEffect(s.getEffect()); // Only lands if the target is still up
+        return amount;
+    }
+
+    /*
+     * Restores the character in place to how a fresh clone starts: full HP and
+     * stamina, every skill ready, no stance and no status effects.
+     */
+    public void reset() {
+        if (ticking) team.stopTicking(this); // Still listed if it went down with poison or regen running
+        clearEffects();
+        setHP(maxHP); // Tells the team if this brings the character back up
+        currentStamina = maxStamina;
+        defending = false;
+        clock.reset();
+        for (Skill s : skills) s.resetCooldown();
+        changeHash(hash ^ computeHash()); // Stamina, stance and clock were set directly
     }
 
     public int getMaxHP() { return maxHP; }
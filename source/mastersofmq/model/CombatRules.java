@@ -0,0 +1,43 @@
+package mastersofmq.model;
+
+/**
+ * Central home for the combat formulas shared by the interactive engine
+ * and the headless simulator.
+ *
+ * Formulas:
+ * - Basic attack damage = max(1, strength + roll - defence)
+ * - Skill damage = max(1, skillDamage + roll - defence)
+ * - Defending halves damage, never below 1
+ * - Stamina regeneration per round = max(1, endurance/2)
+ * - Hit damage is read from the precomputed {@link DamageTable}
+ *
+ * Access Control:
+ * - Public final class with a private constructor as it only holds static helpers
+ * - Public constants so every caller uses the same costs and dice size
+ */
+public final class CombatRules {
+    public static final int ATTACK_COST = 10; // Stamina cost of a basic attack
+    public static final int ROLL_SIDES = 6; // Random factor is 0..5
+
+    private CombatRules() {}
+
+    public static int attackDamage(int strength, int roll, int defence, boolean defending) { // Damage of a basic attack
+        return DamageTable.shared().damage(strength, defence, defending, roll);
+    }
+
+    public static int skillDamage(int damage, int roll, int defence, boolean defending) { // Damage of an offensive skill
+        return DamageTable.shared().damage(damage, defence, defending, roll);
+    }
+
+    static int computeDamage(int gap, int roll, boolean defending) { // The formula itself, for power - defence = gap
+        return applyDefending(Math.max(1, gap + roll), defending);
+    }
+
+    public static int applyDefending(int dmg, boolean defending) { // Halve damage if target is defending
+        return defending ? Math.max(1, dmg / 2) : dmg;
+    }
+
+    public static int staminaRegen(int endurance) { // Stamina regenerated at the end of each round
+        return Math.max(1, endurance / 2);
+    }
+}
@@ -0,0 +1,54 @@
+package mastersofmq.model;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Pool of reusable character instances, so battles don't deep-clone a
+ * template (and its skills) for every unit they put on the field.
+ *
+ * How it works:
+ * - {@link #acquire(CharacterClass)} hands out a released instance of the same
+ *   template after {@link CharacterClass#reset()}, and only clones the template
+ *   when none is free
+ * - {@link #release(Team)} returns a finished team's members; they can still be
+ *   read until they are acquired again
+ * - Templates are matched by identity, so two loads of the same data don't share instances
+ *
+ * Access Control:
+ * - Public final class; not thread-safe, so use one pool per engine or worker
+ * - Release each instance once, and only after its battle is over
+ */
+public final class CombatantPool {
+    private final Map<CharacterClass, ArrayDeque<CharacterClass>> free = new IdentityHashMap<>(); // Released instances by template
+    private final Map<CharacterClass, CharacterClass> templates = new IdentityHashMap<>(); // Template of every instance handed out
+    private int created = 0;
+
+    /*
+     * @return A character equal to a fresh clone of the template
+     */
+    public CharacterClass acquire(CharacterClass template) {
+        ArrayDeque<CharacterClass> ready = free.get(template);
+        CharacterClass c = ready == null ? null : ready.poll();
+        if (c == null) {
+            c = template.clone();
+            templates.put(c, template);
+            created++;
+        } else {
+            c.reset();
+        }
+        return c;
+    }
+
+    public void release(CharacterClass c) { // Instances not from this pool are ignored
+        CharacterClass template = templates.get(c);
+        if (template != null) free.computeIfAbsent(template, t -> new ArrayDeque<>()).add(c);
+    }
+
+    public void release(Team team) { // Every member of a team that has finished its battle
+        for (CharacterClass c : team.getCharacters()) release(c);
+    }
+
+    public int getCreated() { return created; } // Instances cloned so far
+}
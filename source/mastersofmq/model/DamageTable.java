@@ -0,0 +1,99 @@
+package mastersofmq.model;
+
+import java.util.List;
+
+/**
+ * Immutable lookup table of hit damage for every roll, built once from the
+ * loaded game data so damage is read instead of recomputed.
+ *
+ * Layout:
+ * - The damage formula only depends on (power - defence), the defending flag
+ *   and the roll, so rows are indexed by that difference: one row covers every
+ *   attacker stat or skill against every defence with the same gap
+ * - Each row holds the six roll outcomes, plain and defending, plus their mean
+ * - Gaps of 1 - ROLL_SIDES or less always deal 1, so they share the first row;
+ *   gaps above the table fall back to {@link CombatRules}
+ *
+ * A process-wide table is kept in {@link #shared()}. It is append-only:
+ * {@link #cover(List)} swaps in a wider table when data with stronger
+ * attackers is loaded and never a narrower one, and every table holds the
+ * CombatRules values, so loading data never changes a result already given.
+ * That is why registries and simulators can share it instead of each keeping
+ * their own, and why a caller still holding an older table reads the same
+ * damage as the current one.
+ *
+ * Access Control:
+ * - Public final class; instances cannot change once built
+ */
+public final class DamageTable {
+    private static final int MIN_GAP = 1 - CombatRules.ROLL_SIDES; // Any lower gap deals the same as this one
+    private static final int DEFAULT_MAX_GAP = 64;
+
+    private static volatile DamageTable shared = new DamageTable(DEFAULT_MAX_GAP);
+
+    private final int maxGap;
+    private final int[] damage; // [gap][defending][roll]
+    private final double[] expected; // [gap][defending]
+
+    private DamageTable(int maxGap) {
+        this.maxGap = maxGap;
+        int rows = maxGap - MIN_GAP + 1;
+        damage = new int[rows * 2 * CombatRules.ROLL_SIDES];
+        expected = new double[rows * 2];
+        for (int row = 0; row < rows; row++) {
+            for (int defending = 0; defending < 2; defending++) {
+                double total = 0;
+                for (int roll = 0; roll < CombatRules.ROLL_SIDES; roll++) {
+                    int d = CombatRules.computeDamage(row + MIN_GAP, roll, defending != 0);
+                    damage[(row * 2 + defending) * CombatRules.ROLL_SIDES + roll] = d;
+                    total += d;
+                }
+                expected[row * 2 + defending] = total / CombatRules.ROLL_SIDES;
+            }
+        }
+    }
+
+    public static DamageTable shared() { return shared; } // Table used by the combat rules; only ever replaced by a wider one
+
+    /*
+     * Widens the shared table so every strength and damaging skill in the given
+     * characters is covered against any defence. Called by GameDataLoader.
+     * @return The shared table after the update
+     */
+    public static synchronized DamageTable cover(List<CharacterClass> characters) {
+        int maxGap = shared.maxGap;
+        for (CharacterClass c : characters) {
+            maxGap = Math.max(maxGap, c.getStrength());
+            for (Skill s : c.getSkills()) maxGap = Math.max(maxGap, s.getDamage());
+        }
+        if (maxGap > shared.maxGap) shared = new DamageTable(maxGap); // Defence is never negative, so power bounds the gap
+        return shared;
+    }
+
+    public int getMaxGap() { return maxGap; }
+
+    /*
+     * Damage of one hit.
+     * @param power Attacker strength or skill damage
+     * @param roll Random factor, 0 to ROLL_SIDES - 1
+     */
+    public int damage(int power, int defence, boolean defending, int roll) {
+        int gap = power - defence;
+        if (gap > maxGap) return CombatRules.computeDamage(gap, roll, defending); // Beyond the loaded data
+        return damage[(row(gap) * 2 + (defending ? 1 : 0)) * CombatRules.ROLL_SIDES + roll];
+    }
+
+    public double expectedDamage(int power, int defence, boolean defending) { // Mean damage over the rolls
+        int gap = power - defence;
+        if (gap > maxGap) {
+            double total = 0;
+            for (int roll = 0; roll < CombatRules.ROLL_SIDES; roll++) total += CombatRules.computeDamage(gap, roll, defending);
+            return total / CombatRules.ROLL_SIDES;
+        }
+        return expected[row(gap) * 2 + (defending ? 1 : 0)];
+    }
+
+    private static int row(int gap) {
+        return Math.max(gap, MIN_GAP) - MIN_GAP;
+    }
+}
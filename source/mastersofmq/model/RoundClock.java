@@ -0,0 +1,24 @@
+package mastersofmq.model;
+
+/**
+ * Counts the rounds a character has lived through, so timed state can be kept
+ * as "ready at round R" and read with one comparison instead of being counted
+ * down every round.
+ *
+ * Each character owns one and ticks it in {@link CharacterClass#endTurn()}; its
+ * skills read it to tell whether they are on cooldown. A character that is down
+ * skips end-of-round effects, so its clock (and its cooldowns) stand still until
+ * it is healed back up, as they always have.
+ *
+ * Access Control:
+ * - Public final class so skills outside a character can still be given a clock
+ */
+public final class RoundClock {
+    private int now = 0; // Rounds ticked so far
+
+    public int now() { return now; }
+
+    public void tick() { now++; } // End of one round
+
+    public void reset() { now = 0; } // Back to the start, for a character reused in a new battle
+}
@@ -1,130 +1,185 @@
 package mastersofmq.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
- * Represents a combat ability that characters can use.
+ * A character's copy of a combat ability: the shared {@link SkillDefinition}
+ * plus the one thing that differs per character, its cooldown.
  * Features:
  * - Unique identification
  * - Damage/healing values
  * - Resource cost (stamina)
  * - Cooldown system
  * - Prerequisite skill tree system
+ * - Optional status effect left on the target (see {@link StatusEffect})
  * 
  * Key concepts:
  * - Negative damage values represent healing
  * - Skills can't be used while on cooldown
  * - Skills require sufficient stamina AND all prerequisites unlocked
- * - Cooldown decreases by 1 each turn
+ * - Cooldowns are stored as the round the skill is ready again, read against
+ *   the owner's {@link RoundClock}, so nothing has to count them down; the
+ *   owner is told when that round moves, to keep its hash up to date
+ * - The definition is never copied: cloning a skill shares it, so a character
+ *   costs a few fields per skill however deep its prerequisite tree is
+ * - Prerequisites added to a copy with {@link #addPrerequisite(Skill)} are kept
+ *   as links to those skills; the definition including them is built on first
+ *   use and rebuilt after a prerequisite is added here or to any skill linked
+ *   below, so one gained later is seen as well; cycles are refused
+ * - {@link #getPrerequisites()} returns definitions in an unmodifiable list
  * 
  * Access Control:
  * - Public class to allow skill creation across the game
- * - Private fields for immutable skill properties
+ * - Skill data lives in the immutable definition, safe to share between threads
  * - Public methods for skill usage and prerequisite checking
- * - Implements Cloneable to support skill template copying
+ * - Implements Cloneable to give another character the same skill
  */
 public class Skill implements Cloneable {
-    private final String id; // Unique identifier for the skill
-    private final String name; // Display name of the skill
-    private final int damage; // Damage value (negative = healing)
-    private final int staminaCost; // Stamina points required to use
-    private final int cooldownMax; // Maximum cooldown duration
-    private int cooldownRemaining = 0; // Current cooldown counter
-    private final List<Skill> prerequisiteSkills = new ArrayList<>(); // Skills required before this one can be used
+    private final SkillDefinition definition; // Shared skill data
+    private List<Skill> linked; // Prerequisites added to this copy, null until the first
+    private SkillDefinition resolved; // Definition including the linked prerequisites, null until used or after a change
+    private Set<Skill> dependents; // Skills that link this one, weakly held; null until the first
+    private RoundClock clock = new RoundClock(); // Owner's round count; a standalone skill has its own
+    private int readyAt = 0; // Round from which the skill can be used again
+    private CharacterClass owner; // Character whose hash holds readyAt, null for a standalone skill
+    private int slot; // Place in the owner's skill list
 
     public Skill(String id, String name, int damage, int staminaCost, int cooldown) { // Constructor to initialize skill properties
-        this.id = id;
-        this.name = name;
-        this.damage = damage;
-        this.staminaCost = staminaCost;
-        this.cooldownMax = cooldown;
+        this(id, name, damage, staminaCost, cooldown, null);
     }
 
-    public String getId() { return id; } // Getter for skill ID
-    public String getName() { return name; } // Getter for skill name
-    public int getDamage() { return damage; } // Getter for skill damage
-    public int getStaminaCost() { return staminaCost; } // Getter for stamina cost
+    public Skill(String id, String name, int damage, int staminaCost, int cooldown, StatusEffect effect) { // Skill that leaves an effect
+        this(new SkillDefinition(id, name, damage, staminaCost, cooldown, effect));
+    }
 
-    public void addPrerequisite(Skill s) { prerequisiteSkills.add(s); } // Adds a prerequisite skill
-    public List<Skill> getPrerequisites() { return prerequisiteSkills; } // Getter for prerequisite skills
-    
-    public boolean checkPrerequisitesRecursively(List<String> unlockedSkills) {
-        
-        if (unlockedSkills.contains(this.id)) { // Base case: if this skill is already unlocked
-            return true;
+    public Skill(SkillDefinition definition) { // A character's slot for a shared definition
+        this.definition = definition;
+    }
+
+    /*
+     * @return The shared definition, or for a skill given prerequisites of its own, a
+     * definition that also requires those skills as they currently are
+     */
+    public SkillDefinition getDefinition() {
+        if (linked == null) return definition;
+        SkillDefinition d = resolved;
+        if (d == null) { // Immutable once built, so a racing thread at worst builds an equal one
+            List<SkillDefinition> prerequisites = new ArrayList<>(definition.getPrerequisites());
+            for (Skill s : linked) prerequisites.add(s.getDefinition());
+            d = new SkillDefinition(definition.getId(), definition.getName(), definition.getDamage(),
+                    definition.getStaminaCost(), definition.getCooldownMax(), definition.getEffect(), prerequisites);
+            resolved = d;
         }
-        
-        if (prerequisiteSkills.isEmpty()) { // Base case: if no prerequisites, skill is available
-            return true;
+        return d;
+    }
+
+    public String getId() { return definition.getId(); } // Getter for skill ID
+    public String getName() { return definition.getName(); } // Getter for skill name
+    public int getDamage() { return definition.getDamage(); } // Getter for skill damage
+    public int getStaminaCost() { return definition.getStaminaCost(); } // Getter for stamina cost
+    public StatusEffect getEffect() { return definition.getEffect(); } // Getter for the status effect, null for none
+
+    /*
+     * Adds a prerequisite skill to this copy. It stays linked, so prerequisites
+     * added to s afterwards are required by this skill too.
+     * @throws IllegalArgumentException if s is this skill or already requires it
+     */
+    public void addPrerequisite(Skill s) {
+        if (s == this || s.requires(this)) {
+            throw new IllegalArgumentException(s.getId() + " already requires " + getId() + ", so it can't be its prerequisite");
         }
-        
-        for (Skill prereq : prerequisiteSkills) { // Recursive case: check all prerequisites
-            if (!prereq.checkPrerequisitesRecursively(unlockedSkills)) { // If any prerequisite is not met
-                return false;
-            }
+        if (linked == null) linked = new ArrayList<>();
+        linked.add(s);
+        s.linkedBy(this);
+        prerequisitesChanged();
+    }
+
+    private void linkedBy(Skill dependent) {
+        if (dependents == null) dependents = Collections.newSetFromMap(new WeakHashMap<>()); // Skill keeps identity equality
+        dependents.add(dependent);
+    }
+
+    private void prerequisitesChanged() { // Drops this skill's built definition and those of every skill linking it
+        resolved = null;
+        if (dependents == null) return;
+        for (Skill d : dependents) d.prerequisitesChanged(); // Cycles are refused, so this ends
+    }
+
+    private boolean requires(Skill other) { // Through prerequisites added to copies; definitions can't link to skills
+        if (linked == null) return false;
+        for (Skill s : linked) {
+            if (s == other || s.requires(other)) return true;
         }
-        unlockedSkills.add(this.id); // If we get here, all prerequisites are met
-        return true;
+        return false;
+    }
+
+    public List<SkillDefinition> getPrerequisites() { return getDefinition().getPrerequisites(); } // Direct prerequisites as they are now; unmodifiable
+
+    public boolean checkPrerequisitesRecursively(List<String> unlockedSkills) {
+        return getDefinition().checkPrerequisitesRecursively(unlockedSkills);
     }
-    
+
     public int calculateTotalStaminaCostRecursively() {
-        if (prerequisiteSkills.isEmpty()) { // Base case: if no prerequisites, return only this skill's cost
-            return this.staminaCost;
-        }
-        
-        int totalCost = this.staminaCost;
-        for (Skill prereq : prerequisiteSkills) { // Recursive case: sum this skill's cost with all prerequisites
-            totalCost += prereq.calculateTotalStaminaCostRecursively();
-        }
-        return totalCost;
+        return getDefinition().calculateTotalStaminaCostRecursively();
     }
-    
+
     public int getPrerequisiteDepthRecursively() {
-        if (prerequisiteSkills.isEmpty()) { // Base case: if no prerequisites, depth is 0
-            return 0;
-        }
-        
-        int maxDepth = 0;
-        for (Skill prereq : prerequisiteSkills) { // Recursive case: find max depth among prerequisites and add 1
-            int depth = prereq.getPrerequisiteDepthRecursively(); // Get depth of this prerequisite
-            if (depth > maxDepth) {
-                maxDepth = depth;
-            }
-        }
-        return maxDepth + 1;
+        return getDefinition().getPrerequisiteDepthRecursively();
+    }
+
+    void useClock(RoundClock clock, CharacterClass owner, int slot) { // Called by the character the skill is added to; keeps any cooldown running
+        int remaining = getCooldownRemaining();
+        this.clock = clock;
+        this.owner = owner;
+        this.slot = slot;
+        readyAt = clock.now() + remaining; // The owner hashes it once added
+    }
+
+    private void setReadyAt(int round) {
+        if (owner != null) owner.cooldownMoved(slot, readyAt, round);
+        readyAt = round;
+    }
+
+    void resetCooldown() { // Ready again; called when the owner is reset
+        setReadyAt(0);
     }
 
+    public int getReadyAt() { return readyAt; } // Round of the owner's clock from which the skill can be used again
+
     public boolean isOnCooldown() { // Checks if the skill is currently on cooldown
-        return cooldownRemaining > 0;
+        return readyAt > clock.now();
     }
 
     public int getCooldownRemaining() { // Gets the remaining cooldown
-        return cooldownRemaining;
+        return Math.max(0, readyAt - clock.now());
     }
 
     public int getCooldownMax() { // Gets the maximum cooldown
-        return cooldownMax;
+        return definition.getCooldownMax();
     }
 
     public void triggerCooldown() { // Sets the cooldown to maximum
-        cooldownRemaining = cooldownMax;
+        setReadyAt(clock.now() + definition.getCooldownMax());
     }
 
-    public void reduceCooldown() { // Decreases the cooldown by 1 if it's greater than 0
-        if (cooldownRemaining > 0) {
-            cooldownRemaining--;
+    public void reduceCooldown() { // Decreases the cooldown by 1 if it's greater than 0; the clock does this every round
+        if (isOnCooldown()) {
+            setReadyAt(readyAt - 1);
         }
     }
 
     @Override
-    public Skill clone() {
-        Skill s = new Skill(id, name, damage, staminaCost, cooldownMax); // Create a new Skill with the same basic properties
-
-        for (Skill p : prerequisiteSkills) { // Clone and add each prerequisite skill to the new Skill
-            s.addPrerequisite(p.clone());
+    public Skill clone() { // Same definition and prerequisite links, fresh cooldown
+        Skill s = new Skill(definition);
+        if (linked != null) {
+            s.linked = new ArrayList<>(linked);
+            for (Skill l : linked) l.linkedBy(s);
+            s.resolved = resolved;
         }
-
-        return s; // Return the fully cloned Skill
+        return s;
     }
 }
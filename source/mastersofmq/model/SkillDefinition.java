@@ -0,0 +1,83 @@
+package mastersofmq.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The fixed data of a skill as defined in the game data: what it does, what it
+ * costs and which skills it requires.
+ *
+ * One definition is shared by every character that has the skill, in every
+ * battle and on every thread; the only state a character keeps per skill is its
+ * cooldown, in a {@link Skill}.
+ *
+ * Prerequisites:
+ * - Given when the definition is built and never changed afterwards, so a
+ *   definition can only require skills defined before it and the graph has no cycles
+ * - A skill given extra prerequisites builds a new definition that includes
+ *   them rather than changing this one (see {@link Skill#getDefinition()})
+ * - The *Recursively methods walk the tree on every call; loaded content is
+ *   compiled into a {@link SkillTree}, which answers the same questions from arrays
+ *
+ * Access Control:
+ * - Public final immutable class
+ */
+public final class SkillDefinition {
+    private final String id; // Unique identifier for the skill
+    private final String name; // Display name of the skill
+    private final int damage; // Damage value (negative = healing)
+    private final int staminaCost; // Stamina points required to use
+    private final int cooldownMax; // Rounds the skill waits after use
+    private final StatusEffect effect; // Left on the target after use, null for none
+    private final List<SkillDefinition> prerequisites; // Skills required before this one can be used
+
+    public SkillDefinition(String id, String name, int damage, int staminaCost, int cooldown, StatusEffect effect) {
+        this(id, name, damage, staminaCost, cooldown, effect, Collections.emptyList());
+    }
+
+    public SkillDefinition(String id, String name, int damage, int staminaCost, int cooldown, StatusEffect effect,
+                           List<SkillDefinition> prerequisites) {
+        this.id = id;
+        this.name = name;
+        this.damage = damage;
+        this.staminaCost = staminaCost;
+        this.cooldownMax = cooldown;
+        this.effect = effect;
+        this.prerequisites = prerequisites.isEmpty() ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(prerequisites));
+    }
+
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public int getDamage() { return damage; }
+    public int getStaminaCost() { return staminaCost; }
+    public int getCooldownMax() { return cooldownMax; }
+    public StatusEffect getEffect() { return effect; } // Null for none
+    public List<SkillDefinition> getPrerequisites() { return prerequisites; } // Unmodifiable
+
+    public boolean checkPrerequisitesRecursively(List<String> unlockedSkills) {
+        if (unlockedSkills.contains(id)) return true; // Base case: already unlocked
+        if (prerequisites.isEmpty()) return true; // Base case: no prerequisites, skill is available
+        for (SkillDefinition p : prerequisites) { // Recursive case: check all prerequisites
+            if (!p.checkPrerequisitesRecursively(unlockedSkills)) return false;
+        }
+        unlockedSkills.add(id); // All prerequisites are met
+        return true;
+    }
+
+    public int calculateTotalStaminaCostRecursively() { // This skill's cost plus that of every prerequisite path
+        int totalCost = staminaCost;
+        for (SkillDefinition p : prerequisites) totalCost += p.calculateTotalStaminaCostRecursively();
+        return totalCost;
+    }
+
+    public int getPrerequisiteDepthRecursively() { // Longest chain of prerequisites below this skill
+        int maxDepth = -1;
+        for (SkillDefinition p : prerequisites) maxDepth = Math.max(maxDepth, p.getPrerequisiteDepthRecursively());
+        return maxDepth + 1;
+    }
+
+    @Override
+    public String toString() { return id; }
+}
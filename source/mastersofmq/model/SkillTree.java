@@ -0,0 +1,220 @@
+package mastersofmq.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Skill prerequisites compiled once into an indexed DAG, so questions about the
+ * tree are answered from arrays instead of walking it.
+ *
+ * Layout:
+ * - Skills are numbered in topological order: every skill comes after all of
+ *   its prerequisites, so one pass in index order sees prerequisites first
+ * - Direct prerequisites and dependents are kept as index arrays
+ * - Every skill has a bitset of all the skills it needs, directly or not; a
+ *   prerequisite reached along several paths is in it once
+ * - Total stamina cost and depth are computed from those in one pass, without
+ *   recursion, so trees thousands of skills deep are fine
+ *
+ * Unlocking is tracked per character (or save) in an {@link Unlocks}: it counts
+ * each skill's missing direct prerequisites, so whether a skill can be unlocked
+ * is a single bit test.
+ *
+ * Access Control:
+ * - Public final immutable class; one tree is shared by everything using the content
+ * - Unlocks is a mutable, not thread-safe view owned by its user
+ */
+public final class SkillTree {
+    private final SkillDefinition[] skills; // In topological order
+    private final Map<String, Integer> index = new HashMap<>(); // Skill ID to index
+    private final int[][] prerequisites; // Direct prerequisites of each skill
+    private final int[][] dependents; // Skills that directly require each skill
+    private final long[][] required; // All prerequisites of each skill, as a bitset
+    private final int[] totalCost; // Own cost plus that of every prerequisite, each counted once
+    private final int[] depth; // Longest prerequisite chain below each skill
+    private final long[] roots; // Skills with no prerequisites
+
+    /*
+     * Compiles the tree of the given definitions. Prerequisites that aren't in
+     * the collection are ignored; a later definition with the same ID replaces an earlier one.
+     * @throws IllegalArgumentException if the prerequisites form a cycle
+     */
+    public SkillTree(Collection<SkillDefinition> definitions) {
+        Map<String, SkillDefinition> byId = new LinkedHashMap<>();
+        for (SkillDefinition d : definitions) byId.put(d.getId(), d);
+        List<String> ids = new ArrayList<>(byId.keySet());
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) position.put(ids.get(i), i);
+        int[][] edges = new int[ids.size()][];
+        for (int i = 0; i < ids.size(); i++) edges[i] = indices(byId.get(ids.get(i)).getPrerequisites(), position);
+        int[] order = topologicalOrder(ids, edges);
+
+        int n = order.length;
+        int[] rank = new int[n]; // Old position to index in the tree
+        for (int i = 0; i < n; i++) rank[order[i]] = i;
+        skills = new SkillDefinition[n];
+        prerequisites = new int[n][];
+        for (int i = 0; i < n; i++) {
+            skills[i] = byId.get(ids.get(order[i]));
+            index.put(skills[i].getId(), i);
+            int[] pre = edges[order[i]];
+            prerequisites[i] = new int[pre.length];
+            for (int j = 0; j < pre.length; j++) prerequisites[i][j] = rank[pre[j]];
+        }
+
+        int words = (n + 63) >>> 6;
+        int[] fanOut = new int[n];
+        for (int[] pre : prerequisites) for (int p : pre) fanOut[p]++;
+        dependents = new int[n][];
+        for (int i = 0; i < n; i++) dependents[i] = new int[fanOut[i]];
+        required = new long[n][];
+        totalCost = new int[n];
+        depth = new int[n];
+        roots = new long[words];
+        for (int i = 0; i < n; i++) { // Prerequisites come first, so theirs are already done
+            long[] bits = new long[words];
+            int d = 0;
+            for (int p : prerequisites[i]) {
+                dependents[p][--fanOut[p]] = i;
+                long[] sub = required[p];
+                for (int w = 0; w < words; w++) bits[w] |= sub[w];
+                bits[p >>> 6] |= 1L << p;
+                d = Math.max(d, depth[p] + 1);
+            }
+            if (prerequisites[i].length == 0) roots[i >>> 6] |= 1L << i;
+            int cost = skills[i].getStaminaCost();
+            for (int w = 0; w < words; w++) {
+                for (long b = bits[w]; b != 0; b &= b - 1) cost += skills[(w << 6) + Long.numberOfTrailingZeros(b)].getStaminaCost();
+            }
+            required[i] = bits;
+            totalCost[i] = cost;
+            depth[i] = d;
+        }
+    }
+
+    private static int[] indices(List<SkillDefinition> pre, Map<String, Integer> position) { // Known skills only, without repeats
+        int[] out = new int[0];
+        for (SkillDefinition d : pre) {
+            Integer p = position.get(d.getId());
+            if (p == null) continue;
+            boolean seen = false;
+            for (int q : out) seen |= q == p;
+            if (seen) continue;
+            out = Arrays.copyOf(out, out.length + 1);
+            out[out.length - 1] = p;
+        }
+        return out;
+    }
+
+    /*
+     * Orders a prerequisite graph so every node comes after its prerequisites
+     * (Kahn's algorithm, keeping the given order among independent nodes).
+     * @param ids Name of each node, for the error message
+     * @param prerequisites Direct prerequisites of each node, as indices into ids
+     * @return Node indices in topological order
+     * @throws IllegalArgumentException naming one cycle, if there is any
+     */
+    public static int[] topologicalOrder(List<String> ids, int[][] prerequisites) {
+        int n = prerequisites.length;
+        int[] missing = new int[n];
+        int[][] dependents = new int[n][];
+        int[] fanOut = new int[n];
+        for (int i = 0; i < n; i++) {
+            missing[i] = prerequisites[i].length;
+            for (int p : prerequisites[i]) fanOut[p]++;
+        }
+        for (int i = 0; i < n; i++) dependents[i] = new int[fanOut[i]];
+        for (int i = n - 1; i >= 0; i--) {
+            for (int p : prerequisites[i]) dependents[p][--fanOut[p]] = i;
+        }
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (missing[i] == 0) order[tail++] = i;
+        }
+        while (head < tail) {
+            for (int d : dependents[order[head++]]) {
+                if (--missing[d] == 0) order[tail++] = d;
+            }
+        }
+        if (tail < n) throw new IllegalArgumentException("Skill prerequisites form a cycle: " + cycle(ids, prerequisites, missing));
+        return order;
+    }
+
+    private static String cycle(List<String> ids, int[][] prerequisites, int[] missing) { // Walks unordered nodes until one repeats
+        int node = 0;
+        while (missing[node] == 0) node++;
+        int[] seenAt = new int[missing.length];
+        Arrays.fill(seenAt, -1);
+        List<Integer> path = new ArrayList<>();
+        while (seenAt[node] < 0) {
+            seenAt[node] = path.size();
+            path.add(node);
+            for (int p : prerequisites[node]) {
+                if (missing[p] > 0) { // Still unordered, so it leads back into a cycle
+                    node = p;
+                    break;
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = seenAt[node]; i < path.size(); i++) sb.append(ids.get(path.get(i))).append(" -> ");
+        return sb.append(ids.get(node)).toString();
+    }
+
+    public int size() { return skills.length; }
+    public SkillDefinition get(int skill) { return skills[skill]; }
+    public int indexOf(String id) { Integer i = index.get(id); return i == null ? -1 : i; } // -1 if unknown
+    public List<SkillDefinition> inOrder() { return Collections.unmodifiableList(Arrays.asList(skills)); } // Prerequisites first
+
+    public int[] getPrerequisites(int skill) { return prerequisites[skill].clone(); } // Direct ones, as indices
+    public int getTotalStaminaCost(int skill) { return totalCost[skill]; } // Each prerequisite counted once
+    public int getDepth(int skill) { return depth[skill]; } // 0 for a skill with no prerequisites
+
+    public boolean requires(int skill, int other) { // Whether other is a direct or indirect prerequisite of skill
+        return (required[skill][other >>> 6] & 1L << other) != 0;
+    }
+
+    public Unlocks newUnlocks() { return new Unlocks(); }
+
+    /*
+     * Which skills one character has unlocked. A skill can be unlocked once all
+     * of its direct prerequisites are.
+     */
+    public final class Unlocks {
+        private final long[] unlocked = new long[roots.length];
+        private final long[] available = roots.clone(); // Skills whose prerequisites are all unlocked
+        private final int[] missing = new int[skills.length]; // Direct prerequisites not unlocked yet
+
+        private Unlocks() {
+            for (int i = 0; i < skills.length; i++) missing[i] = prerequisites[i].length;
+        }
+
+        public boolean isUnlocked(int skill) { return (unlocked[skill >>> 6] & 1L << skill) != 0; }
+        public boolean canUnlock(int skill) { return (available[skill >>> 6] & 1L << skill) != 0; }
+        public boolean isUnlocked(String id) { int i = indexOf(id); return i >= 0 && isUnlocked(i); }
+        public boolean canUnlock(String id) { int i = indexOf(id); return i >= 0 && canUnlock(i); }
+
+        /*
+         * @return false, changing nothing, if a prerequisite is still locked
+         */
+        public boolean unlock(int skill) {
+            if (!canUnlock(skill)) return false;
+            if (isUnlocked(skill)) return true;
+            unlocked[skill >>> 6] |= 1L << skill;
+            for (int d : dependents[skill]) {
+                if (--missing[d] == 0) available[d >>> 6] |= 1L << d;
+            }
+            return true;
+        }
+
+        public boolean unlock(String id) { int i = indexOf(id); return i >= 0 && unlock(i); }
+    }
+}
@@ -0,0 +1,60 @@
+package mastersofmq.model;
+
+/**
+ * A timed effect a skill leaves on its target, as defined in the skill data:
+ *   "effect": {"type": "poison", "amount": 5, "duration": 3}
+ *
+ * Kinds:
+ * - POISON: the target loses amount HP at the end of each round
+ * - REGEN: the target regains amount HP at the end of each round
+ * - STRENGTH: the target's basic attacks hit with amount more strength
+ * - STUN: the target loses its next duration turns (amount is unused)
+ *
+ * Rules:
+ * - Duration counts round ends: an effect applied during a round lasts for the
+ *   rest of that round and duration - 1 more, and poison/regen tick duration times;
+ *   a stun instead counts the target's own turns, so it costs a turn wherever in
+ *   the round it lands
+ * - A character holds one effect of each kind; applying it again replaces it
+ * - Effects only land on living targets and are removed when the target falls
+ * - End-of-round ticks come after stamina regen, poison before regen
+ *
+ * Access Control:
+ * - Public final immutable class shared by every copy of a skill
+ */
+public final class StatusEffect {
+    public enum Kind {
+        POISON, REGEN, STRENGTH, STUN;
+
+        public static Kind parse(String type) { // JSON "type" value, null if unknown
+            for (Kind k : values()) {
+                if (k.name().equalsIgnoreCase(type)) return k;
+            }
+            return null;
+        }
+
+        public boolean ticks() { return this == POISON || this == REGEN; } // Acts at every round end
+    }
+
+    public static final int KINDS = Kind.values().length;
+
+    private final Kind kind;
+    private final int amount;
+    private final int duration;
+
+    public StatusEffect(Kind kind, int amount, int duration) {
+        this.kind = kind;
+        this.amount = amount;
+        this.duration = Math.max(1, duration);
+    }
+
+    public Kind getKind() { return kind; }
+    public int getAmount() { return amount; } // HP per round, or strength bonus
+    public int getDuration() { return duration; } // Round ends the effect lasts, or turns lost to a stun
+
+    @Override
+    public String toString() {
+        if (kind == Kind.STUN) return "stun for " + duration + (duration == 1 ? " turn" : " turns");
+        return kind.name().toLowerCase() + " " + amount + " for " + duration + (duration == 1 ? " round" : " rounds");
+    }
+}
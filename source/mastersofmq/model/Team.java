@@ -1,48 +1,143 @@
 package mastersofmq.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Represents a team of characters in the game.
  * Uses composition to contain an ArrayList of CharacterClass instances.
  * Manages team-wide operations like checking defeat conditions and end-of-round effects.
+ * Members are given their Zobrist salt (see {@link Zobrist}) from the team's
+ * side of the battle when they join, and pass every change to their hash on,
+ * so the team's hash is a field load.
+ * Keeps a count and bitmask of living members, updated by the members
+ * themselves as HP crosses zero, so alive queries are O(1) and allocation free.
+ * Runs its members' status effects at the end of each round: poison and regen
+ * tick for the members that have them, and expiries come off a {@link TimingWheel}.
+ * A team no effect has ever landed on skips all of this.
  * 
  * Access Control:
  * - Public class as teams need to be instantiated by GameEngine and other classes
  * - Private fields to ensure data encapsulation
  * - Public methods for controlled access to team functionality
+ * - Implements Cloneable so simulations can fight with fresh copies of a team,
+ *   or {@link #reset()} one in place to fight again without allocating
  */
-public class Team {
+public class Team implements Cloneable {
     private final String name;
-    private final List<CharacterClass> characters = new ArrayList<>(); // List of characters in the team
+    private List<CharacterClass> characters = new ArrayList<>(); // List of characters in the team; replaced only by clone
+    private long[] alive = new long[1]; // Bit i set while member i is alive
+    private int aliveCount = 0;
+    private int side = 0; // Side of the battle the team fights on, as in BattleState; the player's until set
+    private long hash = 0; // XOR of the members' hashes
+    private TimingWheel<Runnable> effectTimers; // Expiry of members' status effects, null until the first lands
+    private List<CharacterClass> ticking = new ArrayList<>(); // Members that may have poison or regen running; replaced only by clone
     public Team(String name) { this.name = name; } // Constructor to set team name
     public String getName() { return name; } // Getter for team name
-    public void addCharacter(CharacterClass c) { characters.add(c); } // Adds a character to the team
+    public void addCharacter(CharacterClass c) { // Adds a character to the team
+        int index = characters.size();
+        c.joinTeam(this, index, Zobrist.salt(side, index));
+        characters.add(c);
+        hash ^= c.getHash();
+        if (index >> 6 >= alive.length) alive = Arrays.copyOf(alive, alive.length * 2);
+        if (c.isAlive()) aliveChanged(index, true);
+    }
+
+    /*
+     * Puts the team on one side of a battle, re-salting every member so its
+     * hash lines up with a BattleState built with the team on that side.
+     * @param side BattleState.PLAYER or BattleState.ENEMY
+     */
+    public void setSide(int side) {
+        if (side == this.side) return;
+        this.side = side;
+        hash = 0;
+        for (int i = 0; i < characters.size(); i++) {
+            CharacterClass c = characters.get(i);
+            c.joinTeam(this, i, Zobrist.salt(side, i));
+            hash ^= c.getHash();
+        }
+    }
+
+    public int getSide() { return side; }
+
+    void aliveChanged(int index, boolean nowAlive) { // Called by a member whose HP crossed zero
+        alive[index >> 6] ^= 1L << index; // Bit always flips: the member reports real changes only
+        aliveCount += nowAlive ? 1 : -1;
+    }
+
+    void hashChanged(long delta) { hash ^= delta; } // Called by a member whose hash changed by delta
+
+    TimingWheel.Timer<Runnable> scheduleEffect(Runnable expiry, int rounds) { // Called by a member an effect lands on
+        if (effectTimers == null) effectTimers = new TimingWheel<>();
+        return effectTimers.schedule(expiry, rounds);
+    }
+
+    void startTicking(CharacterClass c) { // Called by a member that gained poison or regen
+        if (c.ticking) return;
+        c.ticking = true;
+        ticking.add(c);
+    }
+
+    void stopTicking(CharacterClass c) { // Called by a member being reset, which may still be listed
+        if (!c.ticking) return;
+        c.ticking = false;
+        ticking.remove(c);
+    }
+
+    public boolean isAlive(int idx) { // Whether member idx is alive
+        return idx >= 0 && idx < characters.size() && (alive[idx >> 6] & 1L << idx) != 0;
+    }
+
     public CharacterClass getAliveCharacter(int idx) { // Retrieves a living character by index
-        if (idx < 0 || idx >= characters.size()) return null; // Error handeling for invalid index
-        CharacterClass c = characters.get(idx); // Get character at index
-        return c.isAlive() ? c : null; // Return character if alive, else null
+        return isAlive(idx) ? characters.get(idx) : null; // Null for an invalid index or a fallen character
     }
 
-    public CharacterClass getAnyAlive() {
-        for (CharacterClass c : characters) {
-            if (c.isAlive()) {
-                return c; // Return the first alive character
-            }
+    public int getAliveCount() { return aliveCount; }
+
+    /*
+     * @return Index of the first living member at or after from, or -1 if none
+     */
+    public int nextAlive(int from) {
+        if (from < 0) from = 0;
+        int w = from >> 6;
+        if (w >= alive.length) return -1;
+        long word = alive[w] & (-1L << from);
+        while (true) {
+            if (word != 0) return (w << 6) + Long.numberOfTrailingZeros(word);
+            if (++w == alive.length) return -1;
+            word = alive[w];
         }
-        return null; // No alive characters found
     }
 
-    public boolean isDefeated() {
-        for (CharacterClass c : characters) {
-            if (c.isAlive()) {
-                return false; // Returns false if found a living character, not defeated
+    /*
+     * @return Index of the n-th (from 0) living member, or -1 if fewer are alive
+     */
+    public int nthAlive(int n) {
+        if (n < 0 || n >= aliveCount) return -1;
+        for (int w = 0; ; w++) {
+            long word = alive[w];
+            int bits = Long.bitCount(word);
+            if (n < bits) {
+                for (; n > 0; n--) word &= word - 1; // Drop the lowest n set bits
+                return (w << 6) + Long.numberOfTrailingZeros(word);
             }
+            n -= bits;
         }
-        return true; // No living characters found, team is defeated
     }
 
+    public CharacterClass getAnyAlive() {
+        int i = nextAlive(0);
+        return i < 0 ? null : characters.get(i); // The first alive character, or null if none
+    }
+
+    public boolean isDefeated() {
+        return aliveCount == 0; // No living characters, team is defeated
+    }
+
+    public long getHash() { return hash; } // Zobrist hash of every member's combat state
+
     public List<CharacterClass> getCharacters() {
         return characters;
     }
@@ -53,6 +148,24 @@ public class Team {
                 c.endTurn(); // Execute end-of-turn logic for this character
             }
         }
+        if (effectTimers == null) return; // No status effect has ever landed on this team
+        int kept = 0;
+        for (int i = 0; i < ticking.size(); i++) { // Poison and regen, dropping members whose effects ended
+            CharacterClass c = ticking.get(i);
+            if (!c.hasTickingEffect()) {
+                c.ticking = false;
+                continue;
+            }
+            c.tickEffects();
+            ticking.set(kept++, c);
+        }
+        ticking.subList(kept, ticking.size()).clear();
+        effectTimers.advance(Runnable::run); // Effects whose last round just ended
+    }
+
+    public void reset() { // Restores every member in place (see CharacterClass.reset) and drops all status effects
+        for (CharacterClass c : characters) c.reset(); // Each also leaves the ticking list
+        effectTimers = null;
     }
 
     public String getTeamSummary() {
@@ -75,21 +188,46 @@ public class Team {
         return sb.toString();
     }
 
-    public void printStatus() {
-        System.out.println(name + ":"); // Print team or player name
-
+    public String getStatus() { // Team name, then each member's HP and stamina, one per line
+        StringBuilder sb = new StringBuilder();
+        sb.append(name).append(":\n");
         for (CharacterClass c : characters) {
-            String status = c.isAlive() ? "" : " [DEFEATED]"; // Determine if character is defeated
-
-            System.out.printf( // Print character stats
-                " - %s: HP:%d/%d, ST:%d/%d%s%n", 
-                c.getName(), // Name
-                c.getCurrentHP(), // Current HP
-                c.getMaxHP(), // Max HP
-                c.getCurrentStamina(), // Current Stamina
-                c.getMaxStamina(), // Max Stamina
-                status
-            );
+            appendStatusLine(sb, c.getName(), c.getCurrentHP(), c.getMaxHP(), c.getCurrentStamina(), c.getMaxStamina());
+        }
+        return sb.toString();
+    }
+
+    public void printStatus() { // Prints getStatus() to the console
+        System.out.print(getStatus());
+        System.out.flush();
+    }
+
+    /*
+     * Appends one member's line of a status block; shared with renderers that
+     * show status from snapshots rather than live teams.
+     */
+    public static void appendStatusLine(StringBuilder sb, String name, int hp, int maxHP, int stamina, int maxStamina) {
+        sb.append(" - ").append(name).append(": HP:").append(hp).append('/').append(maxHP)
+                .append(", ST:").append(stamina).append('/').append(maxStamina);
+        if (hp <= 0) sb.append(" [DEFEATED]"); // Same test as CharacterClass.isAlive
+        sb.append('\n');
+    }
+
+    @Override
+    public Team clone() { // Creates a deep copy of the team and its characters, with no status effects running
+        Team t;
+        try {
+            t = (Team) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Team is Cloneable
         }
+        t.characters = new ArrayList<>(characters.size());
+        t.alive = new long[1];
+        t.aliveCount = 0;
+        t.hash = 0;
+        t.effectTimers = null;
+        t.ticking = new ArrayList<>();
+        for (CharacterClass c : characters) t.addCharacter(c.clone());
+        return t;
     }
 }
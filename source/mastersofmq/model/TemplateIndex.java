@@ -0,0 +1,52 @@
+package mastersofmq.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index over a list of character templates, so a template can be found by
+ * name, type or skill without scanning the list.
+ *
+ * Lookups:
+ * - {@link #byName(String)}: the first template with that name, as a scan would find
+ * - {@link #byType(String)}: every template of a type (e.g. every "Caster"), in list order
+ * - {@link #bySkill(String)}: every template that has the skill with that ID, in list order
+ * All are one hash lookup; names, types and skill IDs match exactly.
+ *
+ * Access Control:
+ * - Public final immutable class; built once per load and shared like the templates
+ */
+public final class TemplateIndex {
+    private final List<CharacterClass> templates;
+    private final Map<String, CharacterClass> byName = new HashMap<>();
+    private final Map<String, List<CharacterClass>> byType = new HashMap<>();
+    private final Map<String, List<CharacterClass>> bySkill = new HashMap<>();
+
+    public TemplateIndex(List<CharacterClass> templates) {
+        this.templates = Collections.unmodifiableList(new ArrayList<>(templates));
+        for (CharacterClass c : this.templates) {
+            byName.putIfAbsent(c.getName(), c);
+            byType.computeIfAbsent(c.getType(), k -> new ArrayList<>()).add(c);
+            for (Skill s : c.getSkills()) {
+                List<CharacterClass> users = bySkill.computeIfAbsent(s.getId(), k -> new ArrayList<>());
+                if (users.isEmpty() || users.get(users.size() - 1) != c) users.add(c); // A skill listed twice counts once
+            }
+        }
+        freeze(byType);
+        freeze(bySkill);
+    }
+
+    private static void freeze(Map<String, List<CharacterClass>> map) {
+        map.replaceAll((k, v) -> Collections.unmodifiableList(v));
+    }
+
+    public List<CharacterClass> getTemplates() { return templates; } // Unmodifiable, in the order given
+    public int size() { return templates.size(); }
+
+    public CharacterClass byName(String name) { return byName.get(name); } // Null if there is none
+    public List<CharacterClass> byType(String type) { return byType.getOrDefault(type, Collections.emptyList()); }
+    public List<CharacterClass> bySkill(String skillId) { return bySkill.getOrDefault(skillId, Collections.emptyList()); }
+}
@@ -0,0 +1,126 @@
+package mastersofmq.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel that tells when timed effects run out, measured in rounds.
+ *
+ * Layout:
+ * - LEVELS wheels of 64 slots; level l holds timers due within 64^(l+1) rounds,
+ *   in the slot of their round's l-th base-64 digit
+ * - A timer is filed on the lowest level whose range reaches its round, so
+ *   scheduling is O(1) however far ahead it is due
+ * - When the rounds below a level's digit roll over, that level's next slot is
+ *   emptied into the levels below ("cascading"); each timer moves down at most
+ *   LEVELS - 1 times before it fires
+ * - Timers further out than the top level wait in an overflow list until it wraps
+ *
+ * Timers due in the same round fire in the order they were scheduled.
+ * Cancelled timers are dropped, unfired, when their slot comes up.
+ *
+ * Access Control:
+ * - Public final class; one wheel per battle (or per character), not thread-safe
+ */
+public final class TimingWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4; // 64^4 = about 16.7 million rounds before the overflow list
+
+    /*
+     * One scheduled expiry; cancel it to stop it from firing.
+     */
+    public static final class Timer<T> {
+        private final T item;
+        private final int due;
+        private boolean cancelled = false;
+        private TimingWheel<T> wheel; // Set while the timer is pending
+
+        private Timer(T item, int due, TimingWheel<T> wheel) {
+            this.item = item;
+            this.due = due;
+            this.wheel = wheel;
+        }
+
+        public T getItem() { return item; }
+        public int getDue() { return due; } // Round the timer fires on
+        public boolean isPending() { return wheel != null; }
+
+        public void cancel() {
+            if (wheel == null) return;
+            cancelled = true;
+            wheel.size--;
+            wheel = null;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Java can't create generic arrays; every slot only ever holds Timer<T>
+    private final List<Timer<T>>[][] wheels = new List[LEVELS][SLOTS]; // Slot lists, created when first used
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private int now = 0;
+    private int size = 0;
+
+    public int now() { return now; } // Rounds advanced so far
+    public int size() { return size; } // Timers still pending
+    public boolean isEmpty() { return size == 0; }
+
+    /*
+     * @param delay Rounds from now; the timer fires on the advance that reaches now + delay (at least 1)
+     * @return Handle that can cancel the timer
+     */
+    public Timer<T> schedule(T item, int delay) {
+        Timer<T> timer = new Timer<>(item, now + Math.max(1, delay), this);
+        file(timer);
+        size++;
+        return timer;
+    }
+
+    /*
+     * Moves on by one round and hands every timer due in it to expired.
+     * Timers scheduled by expired itself are due in later rounds.
+     */
+    public void advance(Consumer<? super T> expired) {
+        now++;
+        if ((now & ((1 << (BITS * LEVELS)) - 1)) == 0) { // Top level wrapped: bring overflow timers into range
+            List<Timer<T>> waiting = new ArrayList<>(overflow);
+            overflow.clear();
+            for (Timer<T> t : waiting) file(t);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) { // Cascade from the top so timers can drop several levels at once
+            if ((now & ((1 << (BITS * level)) - 1)) != 0) continue; // Lower digits haven't rolled over
+            List<Timer<T>> slot = wheels[level][(now >>> (BITS * level)) & MASK];
+            if (slot == null || slot.isEmpty()) continue;
+            List<Timer<T>> moving = new ArrayList<>(slot);
+            slot.clear();
+            for (Timer<T> t : moving) {
+                if (!t.cancelled) file(t);
+            }
+        }
+        List<Timer<T>> due = wheels[0][now & MASK];
+        if (due == null || due.isEmpty()) return;
+        List<Timer<T>> firing = new ArrayList<>(due);
+        due.clear();
+        for (Timer<T> t : firing) {
+            if (t.cancelled) continue;
+            t.wheel = null;
+            size--;
+            expired.accept(t.item);
+        }
+    }
+
+    private void file(Timer<T> timer) { // Puts a timer on the lowest level that reaches its round
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = BITS * (level + 1);
+            if ((timer.due >>> shift) == (now >>> shift)) { // Same block above this level as now
+                int index = (timer.due >>> (BITS * level)) & MASK;
+                List<Timer<T>> slot = wheels[level][index];
+                if (slot == null) slot = wheels[level][index] = new ArrayList<>();
+                slot.add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+}
@@ -0,0 +1,48 @@
+package mastersofmq.model;
+
+import mastersofmq.game.BattleRandom;
+
+/**
+ * Zobrist keys for hashing battle positions.
+ * A position's hash is the XOR of one key per (character, field, value), so a
+ * change to one field updates the hash in O(1): XOR out the old value's key
+ * and XOR in the new one.
+ *
+ * Keys:
+ * - Each character gets a salt from its side of the battle and place in the
+ *   team, so the same character in the same slot hashes the same in a Team
+ *   and in a BattleState built from it, whatever the teams are called
+ * - Keys are derived by mixing (salt, field, value) rather than read from
+ *   tables, so HP and stamina need no upper bound
+ * - Cooldowns and status effects are hashed by the rounds they have left, so
+ *   positions that differ only in how many rounds have gone by hash the same;
+ *   ending a round rehashes each cooldown and effect still running
+ * - Whose turn it is is hashed separately with {@link #turn(int)}
+ *
+ * Access Control:
+ * - Public final class with a private constructor as it only holds static helpers
+ */
+public final class Zobrist {
+    public static final int HP = 1;
+    public static final int STAMINA = 2;
+    public static final int DEFENDING = 3;
+    public static final int COOLDOWN = 4; // Skill k uses field COOLDOWN + k, holding the rounds until it is ready again
+    public static final int EFFECT = -1; // Status effect kind e uses EFFECT - 2e (rounds left, turns for a stun) and EFFECT - 2e - 1 (amount), only while active
+
+    private static final long SLOT_SALT = 0x3f84d5b5b5470917L;
+    private static final long TURN_SALT = 0x7a3c1f5e9b2d4867L;
+
+    private Zobrist() {}
+
+    public static long salt(int side, int index) { // Identity of one character slot in a battle; side as in BattleState
+        return BattleRandom.mix(SLOT_SALT + side * 0x9e3779b97f4a7c15L + index);
+    }
+
+    public static long key(long salt, int field, int value) { // Key of one field holding one value
+        return BattleRandom.mix(salt + field * 0xc2b2ae3d27d4eb4fL + value * 0x165667b19e3779f9L);
+    }
+
+    public static long turn(int slot) { // Key of the turn pointer; XOR it into a state hash
+        return BattleRandom.mix(TURN_SALT + slot);
+    }
+}
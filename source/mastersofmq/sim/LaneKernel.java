@@ -0,0 +1,80 @@
+package mastersofmq.sim;
+
+import mastersofmq.model.DamageTable;
+
+/**
+ * The per-lane integer loops of a {@link LockstepSimulator} turn, written as
+ * plain scalar loops over [from, to) of the lane arrays.
+ *
+ * Every method works on whole lanes at once and never branches on another
+ * lane, so {@link VectorLaneKernel} can run the same loops with the
+ * jdk.incubator.vector API and hand only the tail back to this class.
+ * {@link #best()} picks the vector kernel when the module is available.
+ *
+ * Access Control:
+ * - Package-private: only the lockstep simulator drives it
+ * - Stateless, so one instance can serve every simulator
+ */
+class LaneKernel {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /*
+     * @return The vector kernel if the JVM was started with --add-modules jdk.incubator.vector,
+     *         otherwise this scalar kernel
+     */
+    static LaneKernel best() {
+        if (!ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) return new LaneKernel();
+        try {
+            return new VectorLaneKernel();
+        } catch (LinkageError e) { // Module present but the API could not be linked
+            return new LaneKernel();
+        }
+    }
+
+    boolean isVectorised() { return false; }
+
+    /*
+     * HP removed from each lane's target: the CombatRules damage for hits,
+     * the skill's own (negative) value for heals.
+     */
+    void damage(int from, int to, int[] power, int[] roll, int[] defence, int[] defending, int[] hits, int[] delta) {
+        DamageTable table = DamageTable.shared();
+        for (int l = from; l < to; l++) {
+            delta[l] = hits[l] != 0 ? table.damage(power[l], defence[l], defending[l] != 0, roll[l]) : power[l];
+        }
+    }
+
+    void hit(int from, int to, int unit, int[] target, int[] delta, int[] hp, int maxHP) { // Applies delta to lanes targeting unit, HP kept within 0..maxHP
+        for (int l = from; l < to; l++) {
+            if (target[l] == unit) hp[l] = Math.max(0, Math.min(maxHP, hp[l] - delta[l]));
+        }
+    }
+
+    void spend(int from, int to, int[] stamina, int[] cost, int[] defending, int[] defends) { // Actor's stamina cost and stance
+        for (int l = from; l < to; l++) {
+            stamina[l] = Math.max(0, stamina[l] - cost[l]);
+            defending[l] |= defends[l];
+        }
+    }
+
+    void startCooldown(int from, int to, int[] skill, int k, int[] cooldown, int max) { // Lanes that used skill k
+        for (int l = from; l < to; l++) {
+            if (skill[l] == k) cooldown[l] = max;
+        }
+    }
+
+    void regen(int from, int to, int[] running, int[] hp, int[] stamina, int[] defending, int maxStamina, int regen) { // Living units of running lanes
+        for (int l = from; l < to; l++) {
+            if (running[l] != 0 && hp[l] > 0) {
+                stamina[l] = Math.min(maxStamina, stamina[l] + regen);
+                defending[l] = 0;
+            }
+        }
+    }
+
+    void tick(int from, int to, int[] running, int[] hp, int[] counter) { // Counts a cooldown down for living units of running lanes
+        for (int l = from; l < to; l++) {
+            if (running[l] != 0 && hp[l] > 0 && counter[l] > 0) counter[l]--;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package mastersofmq.sim;
+
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.StatusEffect;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Steps a batch of independent battles of the same matchup in lockstep,
+ * with both sides played by the random AI ({@link mastersofmq.game.RandomActionPolicy})
+ * in the classic turn order (player 1, enemy 1, player 2, enemy 2, ...).
+ *
+ * Each battle is a lane. State is stored per unit as one array across all lanes,
+ * and every turn runs in three passes:
+ * - Decide: each lane draws its action, target and roll from its own stream, in
+ *   the same order as the scalar simulator; a stunned actor loses the turn here
+ * - Damage: the combat formulas run over all lanes at once
+ * - Apply: HP, stamina, cooldowns and stances are updated unit by unit over all
+ *   lanes, then effects land on the lanes whose target is still up
+ * The damage, apply and end-of-round loops run on a {@link LaneKernel}: the
+ * jdk.incubator.vector one when the JVM has the module (--add-modules
+ * jdk.incubator.vector), the scalar one otherwise. Status effects are rare
+ * per lane, so they are handled lane by lane behind a bitmask check.
+ * Finished battles are compacted out of the lanes at the end of each round, so
+ * long battles don't keep the whole batch busy.
+ *
+ * Battle i of a batch uses BattleRandom.forBattle(seed, first + i), so every lane
+ * ends exactly like BattleSimulator.simulate on the same battle number.
+ *
+ * Access Control:
+ * - Public final class usable from the estimator or on its own
+ * - Not thread-safe: lane arrays are reused by every call to run
+ */
+public final class LockstepSimulator {
+    private static final int ACTIVE = -1; // Winner code of a lane still fighting
+    private static final int DRAW = 2;
+    private static final int KINDS = StatusEffect.KINDS;
+    private static final int POISON = StatusEffect.Kind.POISON.ordinal();
+    private static final int REGEN = StatusEffect.Kind.REGEN.ordinal();
+    private static final int STRENGTH = StatusEffect.Kind.STRENGTH.ordinal();
+    private static final int STUN = StatusEffect.Kind.STUN.ordinal();
+
+    private final BattleState template;
+    private final LaneKernel kernel;
+    private final int lanes;
+    private final int maxRounds;
+    private final int units;
+    private final boolean effects; // Whether any effect is running or can be applied
+
+    // Per-unit lane arrays: [unit][lane]
+    private final int[][] hp;
+    private final int[][] stamina;
+    private final int[][] defending; // 0 or 1, kept as int so the lane loops stay branch-free
+    private final int[][] cooldown; // [skill slot][lane] rounds left
+    private final int[][] effectLeft; // [unit * KINDS + kind][lane] round ends left, or turns left for a stun
+    private final int[][] effectAmount; // [unit * KINDS + kind][lane], 0 when inactive
+    private final int[][] effectMask; // [unit][lane] bit kind set while that effect is active
+    private final int[] skillStart; // First skill slot of each unit
+
+    // Per-lane battle bookkeeping
+    private final SplittableRandom[] rngs;
+    private final int[] battle; // Battle number (within the batch) running in each lane
+    private final int[] winner; // ACTIVE until the lane's battle ends
+    private final int[] running; // 1 while the lane's battle runs, for the kernel's masks
+
+    // Results by battle number
+    private final int[] outcome;
+    private final int[] rounds;
+    private final int[][] finalHP; // [unit][battle]
+
+    // Per-lane scratch for the current turn
+    private final int[] target; // Unit hit or healed, -1 for none
+    private final int[] skill; // Skill used, -1 for none
+    private final int[] power; // Strength or skill damage
+    private final int[] roll;
+    private final int[] targetDefence;
+    private final int[] targetDefending;
+    private final int[] hits; // 1 if the action deals damage, 0 if it heals
+    private final int[] delta; // HP removed from the target (negative heals)
+    private final int[] cost; // Stamina spent
+    private final int[] defends; // 1 if the actor takes a defensive stance
+
+    /*
+     * @param template State of the matchup to fight; only read, never modified
+     * @param lanes Battles stepped together, typically 256 to 4096
+     */
+    public LockstepSimulator(BattleState template, int lanes) {
+        this(template, lanes, BattleSimulator.DEFAULT_MAX_ROUNDS, true);
+    }
+
+    /*
+     * @param vector Use the jdk.incubator.vector kernel when the module is available;
+     *               false always runs the scalar loops
+     */
+    public LockstepSimulator(BattleState template, int lanes, int maxRounds, boolean vector) {
+        this.template = template.copy();
+        this.template.reset();
+        this.kernel = vector ? LaneKernel.best() : new LaneKernel();
+        this.lanes = lanes;
+        this.maxRounds = maxRounds;
+        this.units = template.unitCount();
+        this.effects = template.hasEffects();
+
+        skillStart = new int[units];
+        int slots = 0;
+        for (int u = 0; u < units; u++) {
+            if (template.skillCount(u) > 31) throw new IllegalArgumentException(template.name(u) + " has too many skills");
+            skillStart[u] = slots;
+            slots += template.skillCount(u);
+        }
+        hp = new int[units][lanes];
+        stamina = new int[units][lanes];
+        defending = new int[units][lanes];
+        cooldown = new int[slots][lanes];
+        effectLeft = new int[effects ? units * KINDS : 0][lanes];
+        effectAmount = new int[effects ? units * KINDS : 0][lanes];
+        effectMask = new int[effects ? units : 0][lanes];
+
+        rngs = new SplittableRandom[lanes];
+        battle = new int[lanes];
+        winner = new int[lanes];
+        running = new int[lanes];
+        outcome = new int[lanes];
+        rounds = new int[lanes];
+        finalHP = new int[units][lanes];
+        target = new int[lanes];
+        skill = new int[lanes];
+        power = new int[lanes];
+        roll = new int[lanes];
+        targetDefence = new int[lanes];
+        targetDefending = new int[lanes];
+        hits = new int[lanes];
+        delta = new int[lanes];
+        cost = new int[lanes];
+        defends = new int[lanes];
+    }
+
+    public int getLanes() { return lanes; }
+    public boolean isVectorised() { return kernel.isVectorised(); } // Whether the jdk.incubator.vector kernel is in use
+
+    /*
+     * Fights battles first..first+count-1 of a matchup seed.
+     * Results are read back by battle number within the batch (0..count-1) with
+     * {@link #winner(int)}, {@link #rounds(int)} and {@link #result(int)}.
+     * @param count Battles to fight, at most the number of lanes
+     */
+    public void run(long seed, long first, int count) {
+        if (count > lanes) throw new IllegalArgumentException("count " + count + " exceeds " + lanes + " lanes");
+        BattleState t = template;
+        for (int u = 0; u < units; u++) {
+            Arrays.fill(hp[u], 0, count, t.hp(u));
+            Arrays.fill(stamina[u], 0, count, t.stamina(u));
+            Arrays.fill(defending[u], 0, count, t.isDefending(u) ? 1 : 0);
+            for (int k = 0; k < t.skillCount(u); k++) Arrays.fill(cooldown[skillStart[u] + k], 0, count, t.cooldown(u, k));
+            if (!effects) continue;
+            int mask = 0;
+            for (StatusEffect.Kind kind : StatusEffect.Kind.values()) { // Effects already running on the template
+                int e = kind.ordinal();
+                Arrays.fill(effectLeft[u * KINDS + e], 0, count, t.effectRounds(u, kind));
+                Arrays.fill(effectAmount[u * KINDS + e], 0, count, t.effectAmount(u, kind));
+                if (t.hasEffect(u, kind)) mask |= 1 << e;
+            }
+            Arrays.fill(effectMask[u], 0, count, mask);
+        }
+        for (int l = 0; l < count; l++) {
+            rngs[l] = BattleRandom.forBattle(seed, first + l);
+            battle[l] = l;
+            winner[l] = ACTIVE;
+            running[l] = 1;
+        }
+        int live = count; // Lanes in use; battles still running occupy 0..live-1 after each compaction
+        int active = live - finishDefeated(live, 0);
+        int slots = 2 * Math.max(t.teamSize(BattleState.PLAYER), t.teamSize(BattleState.ENEMY));
+
+        int round = 0;
+        while (active > 0 && round < maxRounds) { // Battle loop, one round for every lane still fighting
+            if (active < live) live = compact(live);
+            round++;
+            for (int slot = 0; slot < slots && active > 0; slot++) { // Player 1, enemy 1, player 2, enemy 2, ...
+                int side = slot & 1;
+                int index = slot >>> 1;
+                if (index >= t.teamSize(side)) continue; // No such character
+                int actor = t.unit(side, index);
+                decide(actor, live);
+                kernel.damage(0, live, power, roll, targetDefence, targetDefending, hits, delta);
+                apply(actor, live);
+                active -= finishDefeated(live, round);
+            }
+            endOfRound(live);
+            active -= finishDefeated(live, round); // Poison may end a battle
+        }
+        for (int l = 0; l < live; l++) {
+            if (winner[l] == ACTIVE) finish(l, DRAW, round); // Round limit reached
+        }
+    }
+
+    private int compact(int live) { // Moves running lanes to the front, keeping their order
+        int n = 0;
+        for (int l = 0; l < live; l++) {
+            if (winner[l] != ACTIVE) continue;
+            if (n != l) {
+                for (int u = 0; u < units; u++) {
+                    hp[u][n] = hp[u][l];
+                    stamina[u][n] = stamina[u][l];
+                    defending[u][n] = defending[u][l];
+                }
+                for (int[] cd : cooldown) cd[n] = cd[l];
+                for (int[] left : effectLeft) left[n] = left[l];
+                for (int[] amount : effectAmount) amount[n] = amount[l];
+                for (int[] mask : effectMask) mask[n] = mask[l];
+                rngs[n] = rngs[l];
+                battle[n] = battle[l];
+                winner[n] = ACTIVE;
+                running[n] = 1;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    // Pass 1: per-lane decisions, drawn exactly like RandomActionPolicy and BattleState.apply
+    private void decide(int actor, int count) {
+        BattleState t = template;
+        int side = t.sideOf(actor);
+        int allies = t.teamSize(side);
+        int allyFirst = t.firstUnit(side);
+        int oppFirst = t.firstUnit(1 - side);
+        int oppSize = t.teamSize(1 - side);
+        int skills = t.skillCount(actor);
+        int strength = t.strength(actor) - t.effectAmount(actor, StatusEffect.Kind.STRENGTH); // Buffs are per lane
+        int[] st = stamina[actor];
+        int[] h = hp[actor];
+        int[] costs = new int[skills]; // Tiny per-turn copies so the lane loop reads locals, not the template
+        int[] damages = new int[skills];
+        int[][] cds = new int[skills][];
+        for (int k = 0; k < skills; k++) {
+            costs[k] = t.skillCost(actor, k);
+            damages[k] = t.skillDamage(actor, k);
+            cds[k] = cooldown[skillStart[actor] + k];
+        }
+
+        for (int l = 0; l < count; l++) {
+            target[l] = -1;
+            skill[l] = -1;
+            cost[l] = 0;
+            defends[l] = 0;
+            if (winner[l] != ACTIVE || h[l] <= 0) continue; // Lane finished, or actor is down
+            if (effects && loseTurnToStun(actor, l)) continue; // No draws for a lost turn
+
+            SplittableRandom rng = rngs[l];
+            int stam = st[l];
+            boolean canAttack = stam >= CombatRules.ATTACK_COST;
+            int usable = 0; // Bit k set if skill k can be used
+            for (int k = 0; k < skills; k++) {
+                if (stam >= costs[k] && cds[k][l] <= 0) usable |= 1 << k;
+            }
+            int pick = rng.nextInt((canAttack ? 2 : 1) + Integer.bitCount(usable)); // Attack (if affordable), defend, usable skills
+            int alive = 0;
+            for (int i = 0; i < oppSize; i++) {
+                if (hp[oppFirst + i][l] > 0) alive++;
+            }
+            int n = rng.nextInt(alive);
+            int foe = oppFirst;
+            for (int i = 0; i < oppSize; i++) { // n-th living opponent
+                if (hp[oppFirst + i][l] > 0 && n-- == 0) {
+                    foe = oppFirst + i;
+                    break;
+                }
+            }
+
+            if (canAttack) {
+                if (pick == 0) {
+                    aim(l, foe, strength + (effects ? effectAmount[actor * KINDS + STRENGTH][l] : 0), 1, rng);
+                    cost[l] = CombatRules.ATTACK_COST;
+                    continue;
+                }
+                pick--;
+            }
+            if (pick == 0) {
+                defends[l] = 1;
+                continue;
+            }
+            pick--;
+            int k = Integer.numberOfTrailingZeros(usable);
+            for (; pick > 0; pick--) { // Skip to the picked usable skill
+                usable &= usable - 1;
+                k = Integer.numberOfTrailingZeros(usable);
+            }
+            if (damages[k] < 0) {
+                aim(l, allyFirst + rng.nextInt(allies), damages[k], 0, rng); // Heals apply the skill's value, the roll is only reported
+            } else {
+                aim(l, foe, damages[k], 1, rng);
+            }
+            skill[l] = k;
+            cost[l] = costs[k];
+        }
+    }
+
+    private void aim(int lane, int unit, int value, int hit, SplittableRandom rng) {
+        target[lane] = unit;
+        power[lane] = value;
+        hits[lane] = hit;
+        roll[lane] = rng.nextInt(CombatRules.ROLL_SIDES);
+        targetDefence[lane] = template.defence(unit);
+        targetDefending[lane] = defending[unit][lane];
+    }
+
+    // Pass 3: write the turn back unit by unit
+    private void apply(int actor, int count) {
+        for (int u = 0; u < units; u++) kernel.hit(0, count, u, target, delta, hp[u], template.maxHP(u));
+        kernel.spend(0, count, stamina[actor], cost, defending[actor], defends);
+        for (int k = 0; k < template.skillCount(actor); k++) {
+            kernel.startCooldown(0, count, skill, k, cooldown[skillStart[actor] + k], template.skillCooldownMax(actor, k));
+        }
+        if (!effects) return;
+        for (int l = 0; l < count; l++) { // Falling clears effects, then the skill's effect lands on a living target
+            int u = target[l];
+            if (u < 0) continue;
+            if (hp[u][l] <= 0) clearEffects(u, l);
+            else if (skill[l] >= 0 && template.skillEffect(actor, skill[l]) >= 0) {
+                startEffect(u, l, template.skillEffect(actor, skill[l]),
+                        template.skillEffectDuration(actor, skill[l]), template.skillEffectAmount(actor, skill[l]));
+            }
+        }
+    }
+
+    private void endOfRound(int count) { // Stamina regen, cooldowns, stances, then effects for living units of running lanes
+        for (int u = 0; u < units; u++) {
+            kernel.regen(0, count, running, hp[u], stamina[u], defending[u], template.maxStamina(u), template.regen(u));
+            for (int k = 0; k < template.skillCount(u); k++) kernel.tick(0, count, running, hp[u], cooldown[skillStart[u] + k]);
+            if (!effects) continue;
+            int[] mask = effectMask[u];
+            for (int l = 0; l < count; l++) {
+                if (mask[l] != 0 && running[l] != 0 && hp[u][l] > 0) tickEffects(u, l);
+            }
+        }
+    }
+
+    // Status effects of one unit in one lane, as BattleState keeps them
+
+    private void tickEffects(int u, int l) { // Poison, then regen, then effects due this round end
+        int max = template.maxHP(u);
+        if ((effectMask[u][l] & 1 << POISON) != 0) {
+            hp[u][l] = Math.max(0, hp[u][l] - effectAmount[u * KINDS + POISON][l]);
+            if (hp[u][l] == 0) {
+                clearEffects(u, l);
+                return;
+            }
+        }
+        if ((effectMask[u][l] & 1 << REGEN) != 0) hp[u][l] = Math.min(max, hp[u][l] + effectAmount[u * KINDS + REGEN][l]);
+        for (int e = 0; e < KINDS; e++) {
+            if (e != STUN && (effectMask[u][l] & 1 << e) != 0 && --effectLeft[u * KINDS + e][l] <= 0) endEffect(u, l, e);
+        }
+    }
+
+    private boolean loseTurnToStun(int u, int l) {
+        if ((effectMask[u][l] & 1 << STUN) == 0) return false;
+        if (--effectLeft[u * KINDS + STUN][l] <= 0) endEffect(u, l, STUN);
+        return true;
+    }
+
+    private void startEffect(int u, int l, int e, int duration, int amount) { // Replaces an effect of the same kind
+        effectLeft[u * KINDS + e][l] = duration;
+        effectAmount[u * KINDS + e][l] = amount;
+        effectMask[u][l] |= 1 << e;
+    }
+
+    private void endEffect(int u, int l, int e) {
+        effectAmount[u * KINDS + e][l] = 0;
+        effectMask[u][l] &= ~(1 << e);
+    }
+
+    private void clearEffects(int u, int l) {
+        for (int e = 0; e < KINDS; e++) endEffect(u, l, e);
+    }
+
+    private int finishDefeated(int count, int round) { // Marks lanes where a side has fallen; returns how many finished
+        int finished = 0;
+        for (int l = 0; l < count; l++) {
+            if (winner[l] != ACTIVE) continue;
+            if (defeated(BattleState.ENEMY, l)) finish(l, BattleState.PLAYER, round);
+            else if (defeated(BattleState.PLAYER, l)) finish(l, BattleState.ENEMY, round);
+            else continue;
+            finished++;
+        }
+        return finished;
+    }
+
+    private void finish(int lane, int result, int round) { // Records the outcome under the lane's battle number
+        int b = battle[lane];
+        winner[lane] = result;
+        running[lane] = 0;
+        outcome[b] = result;
+        rounds[b] = round;
+        for (int u = 0; u < units; u++) finalHP[u][b] = hp[u][lane];
+    }
+
+    private boolean defeated(int side, int lane) {
+        for (int u = template.firstUnit(side), end = u + template.teamSize(side); u < end; u++) {
+            if (hp[u][lane] > 0) return false;
+        }
+        return true;
+    }
+
+    // Results of the last run, by battle number within the batch
+
+    public boolean isPlayerVictory(int battle) { return outcome[battle] == BattleState.PLAYER; }
+    public boolean isDraw(int battle) { return outcome[battle] == DRAW; }
+    public int rounds(int battle) { return rounds[battle]; }
+
+    public BattleResult.Winner winner(int battle) {
+        return outcome[battle] == BattleState.PLAYER ? BattleResult.Winner.PLAYER
+                : outcome[battle] == BattleState.ENEMY ? BattleResult.Winner.ENEMY : BattleResult.Winner.DRAW;
+    }
+
+    public BattleResult result(int battle) { // Full result of one battle; allocates, so meant for tests and spot checks
+        int[] playerHP = new int[template.teamSize(BattleState.PLAYER)];
+        int[] enemyHP = new int[template.teamSize(BattleState.ENEMY)];
+        for (int i = 0; i < playerHP.length; i++) playerHP[i] = finalHP[template.unit(BattleState.PLAYER, i)][battle];
+        for (int i = 0; i < enemyHP.length; i++) enemyHP[i] = finalHP[template.unit(BattleState.ENEMY, i)][battle];
+        return new BattleResult(winner(battle), rounds[battle], playerHP, enemyHP);
+    }
+}
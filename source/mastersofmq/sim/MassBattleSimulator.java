@@ -0,0 +1,220 @@
+package mastersofmq.sim;
+
+import mastersofmq.game.ActionPolicy;
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.DamageTable;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Runs one huge battle (thousands of units per side) with simultaneous
+ * resolution, spreading every round over a fork/join pool.
+ *
+ * Each round runs in three passes over fixed chunks of units:
+ * - Decide: every unit alive at the start of the round picks its action against
+ *   the same frozen snapshot, draws its roll from its own stream and pays for it
+ * - Damage: each action's damage (or heal) is added to its target's accumulator
+ * - Merge: each unit's net HP change is applied once, clamped to 0..maxHP, then
+ *   stamina regen, cooldowns and stances are handled as at the end of any round
+ *
+ * Rules that differ from the sequential simulators:
+ * - A unit downed this round still acts this round, as everyone acts at once
+ * - A defensive stance taken this round already protects against this round's hits
+ * - Damage and heals on one unit are netted before clamping, so a heal can
+ *   save a unit that would die to the same round's damage alone
+ * - If both sides fall in the same round the battle is a DRAW
+ * - Status effects are not modelled: skills only deal their damage or heal,
+ *   and a warning is printed the first time a battle with effects is fought
+ *
+ * Reproducibility:
+ * - Unit u draws from BattleRandom.forBattle(seed of the round, u), never from a
+ *   shared stream, and the chunks don't depend on the pool size
+ * - Accumulators only add ints, which gives the same sum in any order
+ * So a seed always gives the same battle, on one thread or many.
+ *
+ * Access Control:
+ * - Public final class; policies must be safe to call from several threads
+ * - Not thread-safe itself: per-round arrays are reused by every call to simulate
+ */
+public final class MassBattleSimulator {
+    private static final int CHUNK = 256; // Units handled by one task
+    private static final int DECIDE = 0;
+    private static final int DAMAGE = 1;
+    private static final int MERGE = 2;
+
+    private final ActionPolicy playerPolicy;
+    private final ActionPolicy enemyPolicy;
+    private final int maxRounds;
+    private final ForkJoinPool pool;
+
+    // Per-battle arrays, sized on the first battle and reused while the unit count stays the same
+    private BattleState state;
+    private int[] hp;
+    private int[] stamina;
+    private int[] cooldown; // Packed unit by unit in skill order, as BattleState.load expects
+    private int[] skillStart;
+    private boolean[] defending; // Stances taken this round
+    private int[] target; // Unit hit or healed this round, -1 for none
+    private int[] skill; // Skill used this round, -1 for a basic attack
+    private int[] amount; // HP removed from the target (negative heals)
+    private AtomicIntegerArray incoming; // Net HP removed from each unit this round
+    private long roundSeed;
+    private boolean warnedEffects = false; // Effects skipped warning already printed
+
+    public MassBattleSimulator(ActionPolicy playerPolicy, ActionPolicy enemyPolicy, ForkJoinPool pool) {
+        this(playerPolicy, enemyPolicy, BattleSimulator.DEFAULT_MAX_ROUNDS, pool);
+    }
+
+    public MassBattleSimulator(ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxRounds, ForkJoinPool pool) {
+        this.playerPolicy = playerPolicy;
+        this.enemyPolicy = enemyPolicy;
+        this.maxRounds = maxRounds;
+        this.pool = pool;
+    }
+
+    /*
+     * Fights a battle on a flat {@link BattleState}, which is reset first and
+     * holds the final position afterwards.
+     * @param seed Seed of the battle; the result depends only on it and the state
+     */
+    public BattleResult simulate(BattleState state, long seed) {
+        if (state.hasEffects() && !warnedEffects) {
+            System.err.println("Massive battles do not model status effects; skill effects are skipped");
+            warnedEffects = true;
+        }
+        state.reset();
+        prepare(state);
+        int units = state.unitCount();
+        int chunks = (units + CHUNK - 1) / CHUNK;
+        int round = 0;
+        while (round < maxRounds && !state.isDefeated(BattleState.PLAYER) && !state.isDefeated(BattleState.ENEMY)) { // Battle loop
+            round++;
+            roundSeed = BattleRandom.seedFor(seed, round);
+            pool.invoke(new Pass(DECIDE, 0, chunks));
+            pool.invoke(new Pass(DAMAGE, 0, chunks));
+            pool.invoke(new Pass(MERGE, 0, chunks));
+            state.load(hp, stamina, cooldown); // Next round's snapshot
+        }
+        this.state = null;
+        boolean playersDown = state.isDefeated(BattleState.PLAYER);
+        boolean enemiesDown = state.isDefeated(BattleState.ENEMY);
+        BattleResult.Winner winner = enemiesDown && !playersDown ? BattleResult.Winner.PLAYER
+                : playersDown && !enemiesDown ? BattleResult.Winner.ENEMY : BattleResult.Winner.DRAW;
+        return new BattleResult(winner, round, state.hpOf(BattleState.PLAYER), state.hpOf(BattleState.ENEMY));
+    }
+
+    private void prepare(BattleState state) { // Copies the starting position into the working arrays
+        this.state = state;
+        int units = state.unitCount();
+        if (hp == null || hp.length != units) {
+            hp = new int[units];
+            stamina = new int[units];
+            skillStart = new int[units + 1];
+            defending = new boolean[units];
+            target = new int[units];
+            skill = new int[units];
+            amount = new int[units];
+            incoming = new AtomicIntegerArray(units);
+        }
+        for (int u = 0; u < units; u++) skillStart[u + 1] = skillStart[u] + state.skillCount(u);
+        if (cooldown == null || cooldown.length != skillStart[units]) cooldown = new int[skillStart[units]];
+        for (int u = 0; u < units; u++) {
+            hp[u] = state.hp(u);
+            stamina[u] = state.stamina(u);
+            for (int k = 0; k < state.skillCount(u); k++) cooldown[skillStart[u] + k] = state.cooldown(u, k);
+        }
+    }
+
+    // Decide pass for one unit: reads only the snapshot, writes only the unit's own slots
+    private void decide(int u) {
+        defending[u] = false;
+        target[u] = -1;
+        if (!state.isAlive(u)) return;
+        SplittableRandom rng = BattleRandom.forBattle(roundSeed, u);
+        int side = state.sideOf(u);
+        int action = (side == BattleState.PLAYER ? playerPolicy : enemyPolicy).chooseAction(state, u, rng);
+        switch (Actions.kind(action)) {
+            case Actions.ATTACK:
+                if (stamina[u] < CombatRules.ATTACK_COST) {
+                    defending[u] = true;
+                    return;
+                }
+                stamina[u] -= CombatRules.ATTACK_COST;
+                target[u] = state.unit(1 - side, Actions.target(action));
+                skill[u] = -1;
+                amount[u] = rng.nextInt(CombatRules.ROLL_SIDES); // Roll for now; damage needs this round's stances
+                return;
+            case Actions.SKILL:
+                int k = Actions.skillIndex(action);
+                if (!state.canUseSkill(u, k)) return; // Nothing happens, and no roll is drawn
+                stamina[u] -= state.skillCost(u, k);
+                cooldown[skillStart[u] + k] = state.skillCooldownMax(u, k);
+                target[u] = state.unit(Actions.targetsAlly(action) ? side : 1 - side, Actions.target(action));
+                skill[u] = k;
+                amount[u] = rng.nextInt(CombatRules.ROLL_SIDES);
+                return;
+            default:
+                defending[u] = true;
+        }
+    }
+
+    // Damage pass for one actor: turns its roll into HP removed from the target
+    private void damage(int u) {
+        int t = target[u];
+        if (t < 0) return;
+        int roll = amount[u];
+        int power = skill[u] < 0 ? state.strength(u) : state.skillDamage(u, skill[u]);
+        if (power < 0) amount[u] = power; // Heals ignore the roll and the target's defence
+        else amount[u] = DamageTable.shared().damage(power, state.defence(t), defending[t], roll);
+        incoming.getAndAdd(t, amount[u]);
+    }
+
+    // Merge pass for one unit: net HP change, then end-of-round effects if it is still up
+    private void merge(int u) {
+        int net = incoming.getAndSet(u, 0);
+        hp[u] = Math.max(0, Math.min(state.maxHP(u), hp[u] - net));
+        if (hp[u] <= 0) return;
+        stamina[u] = Math.min(state.maxStamina(u), stamina[u] + state.regen(u));
+        for (int s = skillStart[u]; s < skillStart[u + 1]; s++) {
+            if (cooldown[s] > 0) cooldown[s]--;
+        }
+    }
+
+    private final class Pass extends RecursiveAction { // One pass over a range of chunks
+        private static final long serialVersionUID = 1L;
+        private final int kind;
+        private final int from;
+        private final int to;
+
+        Pass(int kind, int from, int to) {
+            this.kind = kind;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) { // Split in half and run both sides in parallel
+                int mid = (from + to) >>> 1;
+                invokeAll(new Pass(kind, from, mid), new Pass(kind, mid, to));
+                return;
+            }
+            int end = Math.min(state.unitCount(), (from + 1) * CHUNK);
+            for (int u = from * CHUNK; u < end; u++) {
+                switch (kind) {
+                    case DECIDE: decide(u); break;
+                    case DAMAGE: damage(u); break;
+                    default: merge(u);
+                }
+            }
+        }
+    }
+}
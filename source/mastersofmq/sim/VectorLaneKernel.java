@@ -0,0 +1,103 @@
+package mastersofmq.sim;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LaneKernel} written with the jdk.incubator.vector API: each loop
+ * handles SPECIES_PREFERRED lanes per step (8 ints with AVX2, 16 with
+ * AVX-512) with masks and blends instead of branches, and leaves the tail
+ * of the lane arrays to the scalar loops.
+ *
+ * Damage is the CombatRules formula, max(1, power + roll - defence), halved
+ * but at least 1 when defending; the lockstep tests check it against the
+ * DamageTable the scalar kernel reads.
+ *
+ * Needs --add-modules jdk.incubator.vector at compile and run time; without
+ * it at run time {@link LaneKernel#best()} never loads this class.
+ *
+ * Access Control:
+ * - Package-private final class, created only by LaneKernel.best
+ */
+final class VectorLaneKernel extends LaneKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int STEP = SPECIES.length();
+
+    @Override
+    boolean isVectorised() { return true; }
+
+    @Override
+    void damage(int from, int to, int[] power, int[] roll, int[] defence, int[] defending, int[] hits, int[] delta) {
+        int l = from;
+        for (int bound = from + SPECIES.loopBound(to - from); l < bound; l += STEP) {
+            IntVector p = IntVector.fromArray(SPECIES, power, l);
+            IntVector d = p.add(IntVector.fromArray(SPECIES, roll, l)).sub(IntVector.fromArray(SPECIES, defence, l)).max(1);
+            IntVector halved = d.lanewise(VectorOperators.ASHR, 1).max(1); // d >= 1, so the shift equals d / 2
+            d = d.blend(halved, IntVector.fromArray(SPECIES, defending, l).compare(VectorOperators.NE, 0));
+            p.blend(d, IntVector.fromArray(SPECIES, hits, l).compare(VectorOperators.NE, 0)).intoArray(delta, l);
+        }
+        super.damage(l, to, power, roll, defence, defending, hits, delta);
+    }
+
+    @Override
+    void hit(int from, int to, int unit, int[] target, int[] delta, int[] hp, int maxHP) {
+        int l = from;
+        for (int bound = from + SPECIES.loopBound(to - from); l < bound; l += STEP) {
+            VectorMask<Integer> aimed = IntVector.fromArray(SPECIES, target, l).compare(VectorOperators.EQ, unit);
+            if (!aimed.anyTrue()) continue;
+            IntVector h = IntVector.fromArray(SPECIES, hp, l);
+            h.blend(h.sub(IntVector.fromArray(SPECIES, delta, l)).max(0).min(maxHP), aimed).intoArray(hp, l);
+        }
+        super.hit(l, to, unit, target, delta, hp, maxHP);
+    }
+
+    @Override
+    void spend(int from, int to, int[] stamina, int[] cost, int[] defending, int[] defends) {
+        int l = from;
+        for (int bound = from + SPECIES.loopBound(to - from); l < bound; l += STEP) {
+            IntVector.fromArray(SPECIES, stamina, l).sub(IntVector.fromArray(SPECIES, cost, l)).max(0).intoArray(stamina, l);
+            IntVector.fromArray(SPECIES, defending, l).or(IntVector.fromArray(SPECIES, defends, l)).intoArray(defending, l);
+        }
+        super.spend(l, to, stamina, cost, defending, defends);
+    }
+
+    @Override
+    void startCooldown(int from, int to, int[] skill, int k, int[] cooldown, int max) {
+        int l = from;
+        for (int bound = from + SPECIES.loopBound(to - from); l < bound; l += STEP) {
+            VectorMask<Integer> used = IntVector.fromArray(SPECIES, skill, l).compare(VectorOperators.EQ, k);
+            IntVector.fromArray(SPECIES, cooldown, l).blend(max, used).intoArray(cooldown, l);
+        }
+        super.startCooldown(l, to, skill, k, cooldown, max);
+    }
+
+    @Override
+    void regen(int from, int to, int[] running, int[] hp, int[] stamina, int[] defending, int maxStamina, int regen) {
+        int l = from;
+        for (int bound = from + SPECIES.loopBound(to - from); l < bound; l += STEP) {
+            VectorMask<Integer> live = living(running, hp, l);
+            IntVector st = IntVector.fromArray(SPECIES, stamina, l);
+            st.blend(st.add(regen).min(maxStamina), live).intoArray(stamina, l);
+            IntVector.fromArray(SPECIES, defending, l).blend(0, live).intoArray(defending, l);
+        }
+        super.regen(l, to, running, hp, stamina, defending, maxStamina, regen);
+    }
+
+    @Override
+    void tick(int from, int to, int[] running, int[] hp, int[] counter) {
+        int l = from;
+        for (int bound = from + SPECIES.loopBound(to - from); l < bound; l += STEP) {
+            IntVector c = IntVector.fromArray(SPECIES, counter, l);
+            VectorMask<Integer> due = living(running, hp, l).and(c.compare(VectorOperators.GT, 0));
+            c.blend(c.sub(1), due).intoArray(counter, l);
+        }
+        super.tick(l, to, running, hp, counter);
+    }
+
+    private static VectorMask<Integer> living(int[] running, int[] hp, int l) { // Living units of running lanes
+        return IntVector.fromArray(SPECIES, running, l).compare(VectorOperators.NE, 0)
+                .and(IntVector.fromArray(SPECIES, hp, l).compare(VectorOperators.GT, 0));
+    }
+}
@@ -0,0 +1,38 @@
+package mastersofmq.sim;
+
+/**
+ * Exact outcome of a battle position under fixed AI policies, as computed by
+ * {@link WinProbabilitySolver}. Unlike {@link WinRateEstimate} there is no
+ * sampling noise, so no confidence interval.
+ *
+ * Access Control:
+ * - Public immutable class returned by {@link WinProbabilitySolver}
+ */
+public class WinProbability {
+    private final String teamName;
+    private final String encounterName;
+    private final double win;
+    private final double loss;
+    private final double expectedRounds;
+
+    public WinProbability(String teamName, String encounterName, double win, double loss, double expectedRounds) {
+        this.teamName = teamName;
+        this.encounterName = encounterName;
+        this.win = win;
+        this.loss = loss;
+        this.expectedRounds = expectedRounds;
+    }
+
+    public String getTeamName() { return teamName; }
+    public String getEncounterName() { return encounterName; }
+    public double getWinProbability() { return win; } // Chance the player team wins
+    public double getLossProbability() { return loss; } // Chance the enemy team wins
+    public double getExpectedRounds() { return expectedRounds; } // Mean rounds fought, counted like BattleResult; infinite if the battle may never end
+    public double getDrawProbability() { return Math.max(0, 1 - win - loss); } // Chance nobody wins, including battles that never end
+
+    @Override
+    public String toString() {
+        return String.format("%-18s vs %-17s %9.5f%% win, %9.5f%% loss, rounds=%.3f",
+                teamName, encounterName, 100 * win, 100 * loss, expectedRounds);
+    }
+}
@@ -0,0 +1,565 @@
+package mastersofmq.sim;
+
+import mastersofmq.game.ActionPolicy;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.TurnScheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Exact win probabilities and expected battle length for one small skirmish,
+ * found by dynamic programming over every battle position the policies can reach.
+ * It is a checking tool for hand-made matchups of a few dozen HP, not for the
+ * story encounters (see Limits).
+ *
+ * How it works:
+ * - A position is the full battle state plus whose turn it is, packed into a key
+ * - Each turn is expanded by replaying the acting policy and the action with a
+ *   scripted random source that walks through every possible sequence of
+ *   bounded draws (action, target, roll); each draw with n outcomes branches n
+ *   ways with probability 1/n each
+ * - Positions can repeat (both sides defending, heals). The positions reached
+ *   are split into strongly connected components, and each component is solved
+ *   directly by Gaussian elimination once everything it leads to is known, so
+ *   values are exact up to floating-point rounding; nothing is iterated
+ * - Positions from which the battle can never end (e.g. both sides only defend)
+ *   count as draws, as the simulator's round limit would end them; their
+ *   expected rounds, and those of any position that can lead to them, are infinite
+ * - Solved positions stay in a memo for the life of the solver, so asking again
+ *   about any position already reached is a single hash lookup
+ *
+ * Limits:
+ * - Teams of any size, fought in the classic turn order only (no initiative)
+ * - No status effects: positions don't record them, so matchups with any are
+ *   rejected. The shipped Backstab and Ice Spike carry effects, so most teams
+ *   built from the shipped characters can't be solved
+ * - Policies may draw with nextInt(bound), nextInt(origin, bound), nextLong(bound),
+ *   nextLong(origin, bound) or nextBoolean(); a draw with no finite set of
+ *   outcomes (nextLong(), nextDouble(), ...) can't be enumerated and is rejected
+ *   with an IllegalArgumentException
+ * - The number of positions is the product of every HP, stamina and cooldown
+ *   value in play. Two units a side with 100 HP and stamina each already have
+ *   about 10^16 combinations, so the story encounters are far out of reach and
+ *   {@link WinRateEstimator} is the tool for them. The solver stops with an
+ *   IllegalStateException once maxStates would be exceeded, or if more than
+ *   2048 positions form one cycle (one dense system)
+ *
+ * Access Control:
+ * - Public final class usable as a library
+ * - Not thread-safe: the memo is updated by every solve
+ */
+public final class WinProbabilitySolver {
+    public static final int DEFAULT_MAX_STATES = 500_000;
+
+    private static final int WIN = -1; // Edge targets for battles that end on the turn
+    private static final int LOSS = -2;
+    private static final int MAX_COMPONENT = 2048; // Largest cycle of positions solved as one dense system
+    private static final int DRAW = -3; // Nobody in the turn order can act
+
+    private final BattleState template;
+    private final ActionPolicy playerPolicy;
+    private final ActionPolicy enemyPolicy;
+    private final int maxStates;
+    private final int slotCount; // Turn slots per round, as TurnScheduler numbers them
+    private final int slotBits;
+
+    // Key layout
+    private final int[] hpBits;
+    private final int[] staminaBits;
+    private final int[][] cooldownBits;
+    private final int words;
+
+    // Memo of solved positions
+    private final HashMap<StateKey, Integer> index = new HashMap<>();
+    private double[] win = new double[1024];
+    private double[] loss = new double[1024];
+    private double[] rounds = new double[1024]; // Expected round starts still to come, infinite if the battle may never end
+    private final BitSet canEnd = new BitSet(); // Positions from which the battle can end at all
+    private final IntList slots = new IntList(); // Turn slot of each position
+    private int size;
+
+    // Scratch for one solve
+    private final ScriptedRandom script = new ScriptedRandom();
+    private final List<BattleState> pending = new ArrayList<>();
+    private int[] edgeStart = new int[1024];
+    private int[] edgeTo = new int[4096];
+    private double[] edgeP = new double[4096];
+    private byte[] edgeRounds = new byte[4096];
+    private int edges;
+
+    public WinProbabilitySolver(BattleState template, ActionPolicy playerPolicy, ActionPolicy enemyPolicy) {
+        this(template, playerPolicy, enemyPolicy, DEFAULT_MAX_STATES);
+    }
+
+    /*
+     * @param template Starting state of the matchup; later queries must be states of the same matchup
+     * @param maxStates Most positions the memo may hold
+     */
+    public WinProbabilitySolver(BattleState template, ActionPolicy playerPolicy, ActionPolicy enemyPolicy, int maxStates) {
+        if (template.hasEffects()) throw new IllegalArgumentException("The solver does not model status effects");
+        this.template = template.copy();
+        this.playerPolicy = playerPolicy;
+        this.enemyPolicy = enemyPolicy;
+        this.maxStates = maxStates;
+        slotCount = 2 * Math.max(template.teamSize(BattleState.PLAYER), template.teamSize(BattleState.ENEMY));
+        slotBits = bitsFor(slotCount - 1);
+
+        int units = template.unitCount();
+        hpBits = new int[units];
+        staminaBits = new int[units];
+        cooldownBits = new int[units][];
+        int bits = slotBits; // Turn slot
+        for (int u = 0; u < units; u++) {
+            hpBits[u] = bitsFor(template.maxHP(u));
+            staminaBits[u] = bitsFor(template.maxStamina(u));
+            cooldownBits[u] = new int[template.skillCount(u)];
+            bits += hpBits[u] + staminaBits[u] + 1;
+            for (int k = 0; k < template.skillCount(u); k++) {
+                cooldownBits[u][k] = bitsFor(Math.max(template.skillCooldownMax(u, k), template.cooldown(u, k)));
+                bits += cooldownBits[u][k];
+            }
+        }
+        words = (bits + 63) / 64;
+    }
+
+    private static int bitsFor(int max) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(1, max));
+    }
+
+    public int getStates() { return size; } // Positions held in the memo
+
+    public WinProbability solve() { // From the template's starting state
+        return solve(template);
+    }
+
+    /*
+     * Solves a battle from the start of a round in the given state.
+     * @param from State of this solver's matchup; only read
+     * @throws IllegalStateException if the positions reached exceed maxStates, or too many form one cycle
+     */
+    public WinProbability solve(BattleState from) {
+        String player = template.teamName(BattleState.PLAYER);
+        String enemy = template.teamName(BattleState.ENEMY);
+        if (from.isDefeated(BattleState.ENEMY)) return new WinProbability(player, enemy, 1, 0, 0);
+        if (from.isDefeated(BattleState.PLAYER)) return new WinProbability(player, enemy, 0, 1, 0);
+
+        BattleState start = from.copy();
+        int settled = settle(start, 0);
+        if (settled == DRAW) return new WinProbability(player, enemy, 0, 0, 0);
+        int first = size;
+        int node = nodeFor(start, settledSlot(settled));
+        if (node >= first) explore(first);
+        return new WinProbability(player, enemy, win[node], loss[node], 1 + settledRounds(settled) + rounds[node]);
+    }
+
+    private void explore(int first) { // Expands every new position, then solves them together
+        edges = 0;
+        BattleState work = template.copy();
+        try {
+            for (int n = first; n < size; n++) {
+                BattleState state = pending.get(n - first);
+                pending.set(n - first, null);
+                if (n - first + 1 >= edgeStart.length) edgeStart = Arrays.copyOf(edgeStart, edgeStart.length * 2);
+                edgeStart[n - first] = edges;
+                expand(state, slotOf(n), work);
+            }
+            edgeStart[size - first] = edges;
+            solveNew(first);
+        } catch (RuntimeException e) { // Budget exceeded or unsupported policy: forget this solve
+            rollback(first);
+            throw e;
+        } finally {
+            pending.clear();
+        }
+    }
+
+    private void expand(BattleState state, int slot, BattleState work) {
+        int side = TurnScheduler.side(slot);
+        int actor = state.unit(side, TurnScheduler.index(slot));
+        ActionPolicy policy = side == BattleState.PLAYER ? playerPolicy : enemyPolicy;
+        int from = edges;
+        script.reset();
+        do { // Every sequence of draws the policy and the action can make
+            work.copyFrom(state);
+            script.begin();
+            work.apply(policy.chooseAction(work, actor, script), actor, script);
+            double p = script.probability();
+            int to;
+            int added = 0;
+            if (work.isDefeated(1 - side)) {
+                to = side == BattleState.PLAYER ? WIN : LOSS;
+            } else {
+                int settled = settle(work, slot + 1);
+                if (settled == DRAW) {
+                    to = DRAW;
+                } else {
+                    added = settledRounds(settled);
+                    to = nodeFor(work, settledSlot(settled));
+                }
+            }
+            addEdge(from, to, added, p);
+        } while (script.advance());
+    }
+
+    private void addEdge(int from, int to, int added, double p) { // Merges outcomes that lead to the same position
+        for (int e = from; e < edges; e++) {
+            if (edgeTo[e] == to && edgeRounds[e] == added) {
+                edgeP[e] += p;
+                return;
+            }
+        }
+        if (edges == edgeTo.length) {
+            edgeTo = Arrays.copyOf(edgeTo, edges * 2);
+            edgeP = Arrays.copyOf(edgeP, edges * 2);
+            edgeRounds = Arrays.copyOf(edgeRounds, edges * 2);
+        }
+        edgeTo[edges] = to;
+        edgeP[edges] = p;
+        edgeRounds[edges] = (byte) added;
+        edges++;
+    }
+
+    /*
+     * Values the new positions one strongly connected component at a time, in the
+     * order Tarjan's algorithm finds them: every position a component leads out to
+     * is already valued by then, so each component is a small linear system.
+     */
+    private void solveNew(int first) {
+        int n = size - first;
+        int[] order = new int[n]; // Tarjan discovery number, -1 until visited
+        int[] low = new int[n];
+        int[] comp = new int[n]; // Component of each position, -1 while still open
+        int[] stack = new int[n]; // Positions of open components
+        int[] call = new int[n]; // Depth-first path
+        int[] next = new int[n]; // Next edge to follow from each position on the path
+        int[] row = new int[n]; // Row of each position in its component's system
+        Arrays.fill(order, -1);
+        Arrays.fill(comp, -1);
+        int counter = 0;
+        int components = 0;
+        int top = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] >= 0) continue;
+            int depth = 0;
+            call[depth++] = root;
+            order[root] = low[root] = counter++;
+            next[root] = edgeStart[root];
+            stack[top++] = root;
+            while (depth > 0) {
+                int v = call[depth - 1];
+                if (next[v] < edgeStart[v + 1]) {
+                    int to = edgeTo[next[v]++] - first;
+                    if (to < 0) continue; // Battle over, or a position solved earlier
+                    if (order[to] < 0) {
+                        order[to] = low[to] = counter++;
+                        next[to] = edgeStart[to];
+                        stack[top++] = to;
+                        call[depth++] = to;
+                    } else if (comp[to] < 0) {
+                        low[v] = Math.min(low[v], order[to]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) low[call[depth - 1]] = Math.min(low[call[depth - 1]], low[v]);
+                if (low[v] != order[v]) continue;
+                int start = top;
+                do comp[stack[--start]] = components; while (stack[start] != v);
+                solveComponent(first, stack, start, top, comp, components++, row);
+                top = start;
+            }
+        }
+    }
+
+    private void solveComponent(int first, int[] members, int from, int to, int[] comp, int id, int[] row) {
+        int k = to - from;
+        if (k > MAX_COMPONENT) {
+            throw new IllegalStateException(k + " positions lead back to each other, more than " + MAX_COMPONENT + " can be solved together");
+        }
+        boolean ends = false; // Some way out of the component ends the battle
+        boolean stalls = false; // Some way out leads where the battle may never end
+        for (int m = from; m < to; m++) {
+            int v = members[m];
+            row[v] = m - from;
+            for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+                int t = edgeTo[e];
+                if (t < 0) {
+                    ends = true;
+                } else if (t < first || comp[t - first] != id) {
+                    ends |= canEnd.get(t);
+                    stalls |= rounds[t] == Double.POSITIVE_INFINITY;
+                }
+            }
+        }
+        if (!ends) { // Nothing ever leaves: only the round limit ends these battles, in a draw
+            for (int m = from; m < to; m++) {
+                int node = first + members[m];
+                win[node] = 0;
+                loss[node] = 0;
+                rounds[node] = Double.POSITIVE_INFINITY;
+            }
+            return;
+        }
+
+        double[][] a = new double[k][k]; // I - P, over moves that stay in the component
+        double[][] b = new double[k][3]; // Win, loss and rounds brought in by moves that leave it
+        for (int m = from; m < to; m++) {
+            int v = members[m];
+            int r = m - from;
+            a[r][r] += 1;
+            for (int e = edgeStart[v]; e < edgeStart[v + 1]; e++) {
+                int t = edgeTo[e];
+                double p = edgeP[e];
+                b[r][2] += p * edgeRounds[e];
+                if (t == WIN) {
+                    b[r][0] += p;
+                } else if (t == LOSS) {
+                    b[r][1] += p;
+                } else if (t >= first && comp[t - first] == id) {
+                    a[r][row[t - first]] -= p;
+                } else if (t >= 0) {
+                    b[r][0] += p * win[t];
+                    b[r][1] += p * loss[t];
+                    b[r][2] += p * rounds[t];
+                }
+            }
+        }
+        eliminate(a, b);
+        for (int m = from; m < to; m++) {
+            int node = first + members[m];
+            int r = m - from;
+            canEnd.set(node);
+            win[node] = b[r][0];
+            loss[node] = b[r][1];
+            rounds[node] = stalls ? Double.POSITIVE_INFINITY : b[r][2];
+        }
+    }
+
+    /*
+     * Solves a x = b in place by Gaussian elimination with partial pivoting,
+     * leaving x in b. The matrix is I - P for a component the battle can leave,
+     * so it is never singular.
+     */
+    private static void eliminate(double[][] a, double[][] b) {
+        int k = a.length;
+        for (int c = 0; c < k; c++) {
+            int pivot = c;
+            for (int r = c + 1; r < k; r++) if (Math.abs(a[r][c]) > Math.abs(a[pivot][c])) pivot = r;
+            double[] t = a[c]; a[c] = a[pivot]; a[pivot] = t;
+            t = b[c]; b[c] = b[pivot]; b[pivot] = t;
+            for (int r = c + 1; r < k; r++) {
+                double f = a[r][c] / a[c][c];
+                if (f == 0) continue;
+                for (int j = c; j < k; j++) a[r][j] -= f * a[c][j];
+                for (int j = 0; j < 3; j++) b[r][j] -= f * b[c][j];
+            }
+        }
+        for (int c = k - 1; c >= 0; c--) {
+            for (int j = 0; j < 3; j++) {
+                double x = b[c][j];
+                for (int r = c + 1; r < k; r++) x -= a[c][r] * b[r][j];
+                b[c][j] = x / a[c][c];
+            }
+        }
+    }
+
+    private void rollback(int first) { // Drops every position added since first
+        index.values().removeIf(i -> i >= first);
+        size = first;
+        slots.truncate(first);
+        canEnd.clear(first, Math.max(first, canEnd.length()));
+    }
+
+    /*
+     * Moves to the next character able to act, ending rounds on the way.
+     * @return slot | (rounds started << slotBits), or DRAW if nobody in the turn order can act
+     */
+    private int settle(BattleState state, int slot) {
+        int added = 0;
+        for (int steps = 0; steps < 2 * slotCount; steps++) {
+            if (slot == slotCount) {
+                state.endOfRound();
+                slot = 0;
+                added++;
+            }
+            int side = TurnScheduler.side(slot);
+            int i = TurnScheduler.index(slot);
+            if (i < state.teamSize(side) && state.isAlive(state.unit(side, i))) return slot | added << slotBits;
+            slot++;
+        }
+        return DRAW;
+    }
+
+    private int settledSlot(int settled) { return settled & ((1 << slotBits) - 1); }
+    private int settledRounds(int settled) { return settled >> slotBits; }
+
+    private int nodeFor(BattleState state, int slot) { // Index of a position, adding it if it is new
+        StateKey key = key(state, slot);
+        Integer known = index.get(key);
+        if (known != null) return known;
+        if (size >= maxStates) {
+            throw new IllegalStateException("Battle needs more than " + maxStates + " positions to solve exactly");
+        }
+        if (size == win.length) {
+            win = Arrays.copyOf(win, size * 2);
+            loss = Arrays.copyOf(loss, size * 2);
+            rounds = Arrays.copyOf(rounds, size * 2);
+        }
+        win[size] = 0;
+        loss[size] = 0;
+        rounds[size] = 0;
+        index.put(key, size);
+        pending.add(state.copy());
+        slots.add(slot);
+        return size++;
+    }
+
+    private int slotOf(int node) { return slots.get(node); }
+
+    private StateKey key(BattleState state, int slot) { // Packs every field that can change during a battle
+        long[] w = new long[words];
+        int bit = 0;
+        bit = put(w, bit, slot, slotBits);
+        for (int u = 0; u < state.unitCount(); u++) {
+            bit = put(w, bit, state.hp(u), hpBits[u]);
+            bit = put(w, bit, state.stamina(u), staminaBits[u]);
+            bit = put(w, bit, state.isDefending(u) ? 1 : 0, 1);
+            for (int k = 0; k < cooldownBits[u].length; k++) bit = put(w, bit, Math.max(0, state.cooldown(u, k)), cooldownBits[u][k]);
+        }
+        return new StateKey(w);
+    }
+
+    private static int put(long[] w, int bit, int value, int bits) {
+        long v = value & ((1L << bits) - 1);
+        w[bit >>> 6] |= v << (bit & 63);
+        if ((bit & 63) + bits > 64) w[(bit >>> 6) + 1] |= v >>> (64 - (bit & 63)); // Spills into the next word
+        return bit + bits;
+    }
+
+    private static final class StateKey { // Packed position, compared by value
+        private final long[] words;
+        private final int hash;
+
+        StateKey(long[] words) {
+            this.words = words;
+            this.hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateKey other && hash == other.hash && Arrays.equals(words, other.words);
+        }
+    }
+
+    private static final class IntList { // Growable int array
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        int get(int i) { return values[i]; }
+
+        void truncate(int n) { size = Math.min(size, n); }
+    }
+
+    /*
+     * Random source that enumerates draw sequences depth-first instead of drawing.
+     * Each run replays the current sequence and extends it with zeros; advance()
+     * then moves to the next sequence like an odometer.
+     * Every bounded draw is a branch; nextLong(), which all the unbounded draws of
+     * RandomGenerator go through, has no finite set of outcomes to branch over.
+     */
+    private static final class ScriptedRandom implements RandomGenerator {
+        private int[] choice = new int[16];
+        private int[] bound = new int[16];
+        private int length; // Draws in the current sequence
+        private int depth; // Draws made so far in this run
+
+        void reset() { length = 0; }
+
+        void begin() { depth = 0; }
+
+        @Override
+        public int nextInt(int n) {
+            if (n <= 0) throw new IllegalArgumentException("bound must be positive");
+            return branch(n);
+        }
+
+        @Override
+        public int nextInt(int origin, int bound) {
+            return origin + branch(range(origin, bound));
+        }
+
+        @Override
+        public long nextLong(long bound) {
+            return branch(range(0, bound));
+        }
+
+        @Override
+        public long nextLong(long origin, long bound) {
+            return origin + branch(range(origin, bound));
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return branch(2) == 1;
+        }
+
+        @Override
+        public long nextLong() { // Also reached by nextInt(), nextDouble(), nextFloat() and nextGaussian()
+            throw new IllegalArgumentException("The policy draws an unbounded random value, which exact solving can't enumerate");
+        }
+
+        private static int range(long origin, long bound) { // Outcomes of a bounded draw
+            if (origin >= bound) throw new IllegalArgumentException("bound must be greater than origin");
+            if (bound - origin > Integer.MAX_VALUE || bound - origin < 0) {
+                throw new IllegalArgumentException("A draw over " + origin + ".." + bound + " has too many outcomes to enumerate");
+            }
+            return (int) (bound - origin);
+        }
+
+        private int branch(int n) { // Outcome of the current sequence for a draw with n outcomes
+            if (depth < length) {
+                if (bound[depth] != n) throw new IllegalStateException("Policy draws depend on something other than the state");
+                return choice[depth++];
+            }
+            if (depth == choice.length) {
+                choice = Arrays.copyOf(choice, depth * 2);
+                bound = Arrays.copyOf(bound, depth * 2);
+            }
+            choice[depth] = 0;
+            bound[depth] = n;
+            length = ++depth;
+            return 0;
+        }
+
+        double probability() { // Chance of the sequence just replayed
+            length = depth;
+            double p = 1;
+            for (int i = 0; i < depth; i++) p /= bound[i];
+            return p;
+        }
+
+        boolean advance() { // Next sequence, or false once all have been visited
+            for (int i = length - 1; i >= 0; i--) {
+                if (choice[i] + 1 < bound[i]) {
+                    choice[i]++;
+                    length = i + 1;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package mastersofmq.sim;
+
+/**
+ * Monte Carlo estimate of how often a player team beats an encounter.
+ * The confidence interval is the Wilson score interval, which stays sensible
+ * for win rates close to 0% or 100% (e.g. against the Boss Overlord).
+ *
+ * Access Control:
+ * - Public immutable class returned by {@link WinRateEstimator}
+ */
+public class WinRateEstimate {
+    public static final double Z_95 = 1.959963984540054; // Normal quantile for a 95% interval
+
+    private final String teamName;
+    private final String encounterName;
+    private final long battles;
+    private final long wins;
+    private final long draws;
+    private final long totalRounds;
+
+    public WinRateEstimate(String teamName, String encounterName, long battles, long wins, long draws, long totalRounds) {
+        this.teamName = teamName;
+        this.encounterName = encounterName;
+        this.battles = battles;
+        this.wins = wins;
+        this.draws = draws;
+        this.totalRounds = totalRounds;
+    }
+
+    public String getTeamName() { return teamName; }
+    public String getEncounterName() { return encounterName; }
+    public long getBattles() { return battles; }
+    public long getWins() { return wins; }
+    public long getDraws() { return draws; } // Battles stopped by the simulator's round limit
+    public double getWinRate() { return battles == 0 ? 0 : (double) wins / battles; }
+    public double getMeanRounds() { return battles == 0 ? 0 : (double) totalRounds / battles; }
+
+    public double getLowerBound() { return wilson(-1); } // Lower end of the 95% interval
+    public double getUpperBound() { return wilson(1); } // Upper end of the 95% interval
+
+    private double wilson(int sign) { // Wilson score interval bound at 95%
+        if (battles == 0) return sign < 0 ? 0 : 1;
+        double n = battles;
+        double p = getWinRate();
+        double z2 = Z_95 * Z_95;
+        double centre = p + z2 / (2 * n);
+        double spread = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n));
+        double bound = (centre + sign * spread) / (1 + z2 / n);
+        return Math.max(0, Math.min(1, bound));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-18s vs %-17s %7.3f%% [%7.3f%%, %7.3f%%] n=%d rounds=%.2f",
+                teamName, encounterName, 100 * getWinRate(), 100 * getLowerBound(), 100 * getUpperBound(), battles, getMeanRounds());
+    }
+}
@@ -0,0 +1,197 @@
+package mastersofmq.sim;
+
+import mastersofmq.fileio.ContentRegistry;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.Campaign;
+import mastersofmq.game.Encounter;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Team;
+import mastersofmq.model.TemplateIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel Monte Carlo driver that estimates win rates by running many
+ * seeded headless battles on a fork/join pool.
+ *
+ * How the work is split:
+ * - Each matchup's battles are numbered 0..n-1 and split in halves until a
+ *   chunk is small enough, so every core in the pool gets work
+ * - Every battle gets its own seed derived from (seed, matchup, battle number)
+ * - Each chunk builds one flat {@link BattleState} from the template teams and
+ *   resets it between battles, so workers share nothing mutable and no teams
+ *   are cloned per battle
+ * - A {@link #lockstep} estimator runs each chunk as one {@link LockstepSimulator}
+ *   batch instead; results are identical either way
+ * - Results therefore don't depend on how many threads ran them
+ *
+ * Run from the project root with:
+ *   java -cp "source:lib/*" mastersofmq.sim.WinRateEstimator [battlesPerMatchup] [seed] [lockstep]
+ * (add --add-modules jdk.incubator.vector to let lockstep batches use the Vector API)
+ *
+ * Access Control:
+ * - Public class usable as a library or from the command line
+ * - Private fields as the simulator and pool are fixed at construction
+ */
+public class WinRateEstimator {
+    private static final int CHUNK = 1024; // Battles run sequentially by one task
+
+    private final BattleSimulator simulator; // null runs the random AI on a LockstepSimulator
+    private final ForkJoinPool pool;
+
+    public WinRateEstimator() {
+        this(new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy()), ForkJoinPool.commonPool());
+    }
+
+    public static WinRateEstimator lockstep(ForkJoinPool pool) { // Random AI on both sides, battles stepped in lockstep batches
+        return new WinRateEstimator(null, pool);
+    }
+
+    public WinRateEstimator(BattleSimulator simulator, ForkJoinPool pool) { // Any policies, one battle at a time
+        this.simulator = simulator;
+        this.pool = pool;
+    }
+
+    /*
+     * Estimates how often a player team beats an enemy team.
+     * @param playerTeam Template player team, never modified
+     * @param enemyTeam Template enemy team, never modified
+     * @param battles Number of battles to run
+     * @param seed Seed for this matchup; the same seed always gives the same estimate
+     */
+    public WinRateEstimate estimate(Team playerTeam, Team enemyTeam, int battles, long seed) {
+        Tally tally = pool.invoke(new BattleTask(playerTeam, enemyTeam, seed, 0, battles));
+        return new WinRateEstimate(playerTeam.getName(), enemyTeam.getName(), battles, tally.wins, tally.draws, tally.rounds);
+    }
+
+    /*
+     * Estimates every player team that can be built from the characters against every encounter.
+     * @return One estimate per (team, encounter) pair, teams in selection order
+     */
+    public List<WinRateEstimate> estimateAll(List<CharacterClass> characters, List<CharacterClass> opponents,
+                                             List<Encounter> encounters, int battlesPerMatchup, long seed) {
+        List<WinRateEstimate> results = new ArrayList<>();
+        List<Team> teams = allTeams(characters);
+        TemplateIndex index = new TemplateIndex(opponents);
+        for (int t = 0; t < teams.size(); t++) {
+            for (int e = 0; e < encounters.size(); e++) {
+                Team enemies = encounters.get(e).build(index, null);
+                if (enemies == null) throw new IllegalArgumentException("Missing opponents for " + encounters.get(e));
+                long matchupSeed = BattleRandom.seedFor(seed, t * (long) encounters.size() + e);
+                results.add(estimate(teams.get(t), enemies, battlesPerMatchup, matchupSeed));
+            }
+        }
+        return results;
+    }
+
+    /*
+     * Builds every 2-character team a player can pick in MastersOfMQ.selectTeam.
+     * Order matters because the first pick always acts first.
+     */
+    public static List<Team> allTeams(List<CharacterClass> characters) {
+        List<Team> teams = new ArrayList<>();
+        for (CharacterClass first : characters) {
+            for (CharacterClass second : characters) {
+                if (first == second) continue; // Can't pick the same character twice
+                Team team = new Team(first.getName() + " + " + second.getName());
+                team.addCharacter(first.clone());
+                team.addCharacter(second.clone());
+                teams.add(team);
+            }
+        }
+        return teams;
+    }
+
+    private static final class Tally { // Counts merged up the fork/join tree
+        long wins;
+        long draws;
+        long rounds;
+
+        Tally add(Tally other) {
+            wins += other.wins;
+            draws += other.draws;
+            rounds += other.rounds;
+            return this;
+        }
+    }
+
+    private final class BattleTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final Team playerTeam;
+        private final Team enemyTeam;
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        BattleTask(Team playerTeam, Team enemyTeam, long seed, int from, int to) {
+            this.playerTeam = playerTeam;
+            this.enemyTeam = enemyTeam;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from > CHUNK) { // Split in half and run both sides in parallel
+                int mid = (from + to) >>> 1;
+                BattleTask left = new BattleTask(playerTeam, enemyTeam, seed, from, mid);
+                left.fork();
+                Tally right = new BattleTask(playerTeam, enemyTeam, seed, mid, to).compute();
+                return left.join().add(right);
+            }
+            Tally tally = new Tally();
+            BattleState state = BattleState.of(playerTeam, enemyTeam); // Reset in place by every battle
+            if (simulator == null) { // Whole chunk as one lockstep batch
+                LockstepSimulator batch = new LockstepSimulator(state, to - from);
+                batch.run(seed, from, to - from);
+                for (int l = 0; l < to - from; l++) {
+                    if (batch.isPlayerVictory(l)) tally.wins++;
+                    else if (batch.isDraw(l)) tally.draws++;
+                    tally.rounds += batch.rounds(l);
+                }
+                return tally;
+            }
+            for (int i = from; i < to; i++) {
+                BattleResult result = simulator.simulate(state,
+                        BattleRandom.forBattle(seed, i)); // Per-battle stream, independent of the thread running it
+                if (result.isPlayerVictory()) tally.wins++;
+                else if (result.getWinner() == BattleResult.Winner.DRAW) tally.draws++;
+                tally.rounds += result.getRounds();
+            }
+            return tally;
+        }
+    }
+
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000; // Battles per matchup
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 2024L;
+
+        ContentRegistry content;
+        List<Encounter> story;
+        try {
+            content = ContentRegistry.shared();
+            story = Campaign.story().encounters(); // Every chapter's battle, in play order
+        } catch (Exception e) {
+            System.err.println("Failed to load game data: " + e.getMessage());
+            return;
+        }
+
+        boolean lockstep = args.length > 2 && args[2].equals("lockstep");
+        WinRateEstimator estimator = lockstep ? lockstep(ForkJoinPool.commonPool()) : new WinRateEstimator();
+        System.out.printf("Running %d battles per matchup on %d threads...%n", battles, estimator.pool.getParallelism());
+        long start = System.nanoTime();
+        List<WinRateEstimate> results = estimator.estimateAll(content.getCharacters(), content.getOpponents(),
+                story, battles, seed);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (WinRateEstimate r : results) System.out.println(r);
+        System.out.printf("%d battles in %.2fs (%.0f battles/s)%n", (long) battles * results.size(), seconds, battles * results.size() / seconds);
+    }
+}
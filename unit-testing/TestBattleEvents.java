@@ -0,0 +1,142 @@
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.game.event.BattleEvent;
+import mastersofmq.game.event.BattleEventSink;
+import mastersofmq.game.event.BattleLogWriter;
+import mastersofmq.game.event.ConsoleBattleRenderer;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the battle event stream and its sinks
+ */
+public class TestBattleEvents {
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 70, 70, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(warrior);
+        team.addCharacter(cleric);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Shadow Patrol");
+        team.addCharacter(new CharacterClass("Dark Warrior", "Fighter", 120, 90, 18, 12, 10));
+        team.addCharacter(new CharacterClass("Shadow Mage", "Caster", 85, 100, 8, 8, 12));
+        return team;
+    }
+
+    @Test
+    public void testSimulatorEmitsBattleInOrder() {
+        List<BattleEvent> events = new ArrayList<>();
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy(), 1000, events::add);
+        BattleResult result = sim.simulate(heroes(), enemies(), BattleRandom.seeded(8));
+
+        assertTrue(events.get(0) instanceof BattleEvent.RoundStarted);
+        assertTrue(events.get(1) instanceof BattleEvent.TurnStarted);
+        BattleEvent last = events.get(events.size() - 1);
+        assertTrue(last instanceof BattleEvent.BattleConcluded);
+        BattleEvent.BattleConcluded concluded = (BattleEvent.BattleConcluded) last;
+        assertEquals(result.isPlayerVictory(), concluded.playerWon());
+
+        long roundsEnded = events.stream().filter(e -> e instanceof BattleEvent.RoundEnded).count();
+        assertEquals(roundsEnded, concluded.rounds()); // Completed rounds, as the game reports them
+        assertTrue(roundsEnded == result.getRounds() || roundsEnded == result.getRounds() - 1);
+    }
+
+    @Test
+    public void testEventsDoNotChangeOutcome() {
+        BattleSimulator quiet = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        BattleSimulator logged = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy(), 1000, e -> {});
+        for (long seed = 0; seed < 20; seed++) {
+            assertEquals(quiet.simulate(heroes(), enemies(), BattleRandom.seeded(seed)).toString(),
+                    logged.simulate(heroes(), enemies(), BattleRandom.seeded(seed)).toString());
+        }
+    }
+
+    @Test
+    public void testConsoleRendererText() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleBattleRenderer renderer = new ConsoleBattleRenderer(new PrintStream(bytes));
+        renderer.accept(new BattleEvent.AttackResolved("Warrior", "Dark Warrior", 15, 3, 12, 6, 114, 120));
+        renderer.accept(new BattleEvent.Defended("Shadow Mage"));
+        String text = bytes.toString().replace("\r\n", "\n");
+        assertEquals("Warrior attacks Dark Warrior!\nStrength (15) + Roll (3) - Defence (12) = 6 damage.\n"
+                + "Dark Warrior takes 6 damage! (HP: 114/120)\nShadow Mage takes a defensive stance!\n", text);
+    }
+
+    @Test
+    public void testLogWriterOneLinePerEvent() throws Exception {
+        StringWriter out = new StringWriter();
+        try (BattleLogWriter log = new BattleLogWriter(out)) {
+            log.accept(new BattleEvent.RoundStarted(1));
+            log.accept(new BattleEvent.Healed("Cleric", "Heal", "Warrior", 22, 100, 100));
+        }
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("RoundStarted[round=1]", lines[0]);
+        assertTrue(lines[1].startsWith("Healed[user=Cleric"));
+    }
+
+    @Test
+    public void testNoneSinkIsDisabled() {
+        assertFalse(BattleEventSink.NONE.isEnabled());
+        BattleEventSink.NONE.accept(new BattleEvent.RoundStarted(1)); // Ignored without error
+    }
+
+    @Test
+    public void testCompactRendererOneLinePerTurnAndAction() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleBattleRenderer renderer = new ConsoleBattleRenderer(new PrintStream(bytes), ConsoleBattleRenderer.Verbosity.COMPACT);
+        renderer.accept(new BattleEvent.RoundStarted(1));
+        renderer.accept(new BattleEvent.TurnStarted(1, "Warrior", "Heroes", 6, 100, 100));
+        renderer.accept(new BattleEvent.SkillUsed("Warrior", "Power Strike", "Dark Warrior", 16, 104, 120));
+        renderer.accept(new BattleEvent.TurnStarted(1, "Cleric", "Heroes", 7, 70, 70));
+        renderer.flush(); // As the engine does before the player's menu
+        assertTrue(bytes.toString().endsWith("R1 Cleric\n"));
+        renderer.accept(new BattleEvent.Healed("Cleric", "Heal", "Warrior", 22, 100, 100));
+        assertEquals("R1 Warrior\nWarrior [Power Strike] -> Dark Warrior: 16 dmg (104/120)\n"
+                + "R1 Cleric\nCleric [Heal] -> Warrior: +22 HP (100/100)\n", bytes.toString());
+    }
+
+    @Test
+    public void testRendererWritesEachTurnInOneCall() {
+        int[] writes = new int[1];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream counting = new PrintStream(bytes) {
+            @Override
+            public void write(byte[] buf, int off, int len) {
+                writes[0]++;
+                super.write(buf, off, len);
+            }
+        };
+        ConsoleBattleRenderer renderer = new ConsoleBattleRenderer(counting);
+        renderer.accept(new BattleEvent.TurnStarted(1, "Dark Warrior", "Shadow Patrol", 5, 90, 90));
+        assertEquals(0, bytes.size()); // Held until the action resolves
+        renderer.accept(new BattleEvent.AttackResolved("Dark Warrior", "Warrior", 18, 2, 15, 5, 95, 100));
+        assertEquals(1, writes[0]);
+        assertTrue(bytes.toString().startsWith("\n--- Dark Warrior's Turn (Shadow Patrol) ---\n"));
+    }
+
+    @Test
+    public void testSilentRendererIsDisabled() {
+        ConsoleBattleRenderer renderer = new ConsoleBattleRenderer(System.out, ConsoleBattleRenderer.Verbosity.SILENT);
+        assertFalse(renderer.isEnabled());
+    }
+}
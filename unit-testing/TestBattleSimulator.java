@@ -0,0 +1,125 @@
+import mastersofmq.game.ActionPolicy;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * Unit tests for the headless battle simulator
+ */
+public class TestBattleSimulator {
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 70, 70, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(warrior);
+        team.addCharacter(cleric);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Shadow Patrol");
+        CharacterClass darkWarrior = new CharacterClass("Dark Warrior", "Fighter", 120, 90, 18, 12, 10);
+        darkWarrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass shadowMage = new CharacterClass("Shadow Mage", "Caster", 85, 100, 8, 8, 12);
+        shadowMage.addSkill(new Skill("fireball", "Fireball", 35, 25, 3));
+        team.addCharacter(darkWarrior);
+        team.addCharacter(shadowMage);
+        return team;
+    }
+
+    @Test
+    public void testBattleRunsToCompletion() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        Team player = heroes();
+        Team enemy = enemies();
+        BattleResult result = sim.simulate(player, enemy, new Random(7));
+
+        assertNotEquals(BattleResult.Winner.DRAW, result.getWinner());
+        assertTrue(result.getRounds() > 0);
+        if (result.isPlayerVictory()) {
+            assertTrue(enemy.isDefeated());
+            assertEquals(0, result.getEnemyHPTotal());
+        } else {
+            assertTrue(player.isDefeated());
+            assertEquals(0, result.getPlayerHPTotal());
+        }
+    }
+
+    @Test
+    public void testSameSeedSameResult() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        for (long seed = 0; seed < 50; seed++) {
+            BattleResult a = sim.simulate(heroes(), enemies(), new Random(seed));
+            BattleResult b = sim.simulate(heroes(), enemies(), new Random(seed));
+            assertEquals(a.getWinner(), b.getWinner());
+            assertEquals(a.getRounds(), b.getRounds());
+            assertArrayEquals(a.getPlayerHP(), b.getPlayerHP());
+            assertArrayEquals(a.getEnemyHP(), b.getEnemyHP());
+        }
+    }
+
+    @Test
+    public void testRoundLimitGivesDraw() {
+        ActionPolicy alwaysDefend = new ActionPolicy() {
+            @Override
+            public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) { return Actions.defend(); }
+            @Override
+            public int chooseAction(BattleState state, int unit, RandomGenerator rng) { return Actions.defend(); }
+        };
+        BattleSimulator sim = new BattleSimulator(alwaysDefend, alwaysDefend, 25);
+        BattleResult result = sim.simulate(heroes(), enemies(), new Random(1));
+
+        assertEquals(BattleResult.Winner.DRAW, result.getWinner());
+        assertEquals(25, result.getRounds());
+        assertArrayEquals(new int[] {100, 70}, result.getPlayerHP());
+        BattleResult viaState = sim.simulate(BattleState.of(heroes(), enemies()), new Random(1));
+        assertEquals(BattleResult.Winner.DRAW, viaState.getWinner());
+        assertEquals(25, viaState.getRounds());
+    }
+
+    @Test
+    public void testSimulationPrintsNothing() {
+        PrintStream original = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+            for (long seed = 0; seed < 20; seed++) sim.simulate(heroes(), enemies(), new Random(seed));
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals(0, captured.size());
+    }
+
+    @Test
+    public void testBattleStreamsIndependentOfThreads() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        String[] sequential = new String[500];
+        for (int i = 0; i < sequential.length; i++) {
+            sequential[i] = sim.simulate(heroes(), enemies(), BattleRandom.forBattle(42L, i)).toString();
+        }
+        String[] parallel = IntStream.range(0, sequential.length).parallel()
+                .mapToObj(i -> sim.simulate(heroes(), enemies(), BattleRandom.forBattle(42L, i)).toString())
+                .toArray(String[]::new);
+        assertArrayEquals(sequential, parallel);
+        assertNotEquals(sequential[0], sequential[1]); // Different battles get different streams
+    }
+}
@@ -0,0 +1,132 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.Campaign;
+import mastersofmq.game.Encounter;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+import mastersofmq.sim.WinRateEstimator;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Unit tests for the flat struct-of-arrays battle state
+ */
+public class TestBattleState {
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 70, 70, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(warrior);
+        team.addCharacter(cleric);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Shadow Patrol");
+        CharacterClass darkWarrior = new CharacterClass("Dark Warrior", "Fighter", 120, 90, 18, 12, 10);
+        darkWarrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass shadowMage = new CharacterClass("Shadow Mage", "Caster", 85, 100, 8, 8, 12);
+        shadowMage.addSkill(new Skill("fireball", "Fireball", 35, 25, 3));
+        team.addCharacter(darkWarrior);
+        team.addCharacter(shadowMage);
+        return team;
+    }
+
+    private static void assertSameResult(BattleResult expected, BattleResult actual) {
+        assertEquals(expected.getWinner(), actual.getWinner());
+        assertEquals(expected.getRounds(), actual.getRounds());
+        assertArrayEquals(expected.getPlayerHP(), actual.getPlayerHP());
+        assertArrayEquals(expected.getEnemyHP(), actual.getEnemyHP());
+    }
+
+    @Test
+    public void testLayout() {
+        BattleState state = BattleState.of(heroes(), enemies());
+        assertEquals(4, state.unitCount());
+        assertEquals(2, state.teamSize(BattleState.ENEMY));
+        assertEquals("Dark Warrior", state.name(state.unit(BattleState.ENEMY, 0)));
+        assertEquals(BattleState.ENEMY, state.sideOf(3));
+        assertEquals(1, state.indexInTeam(3));
+        assertEquals(-20, state.skillDamage(1, 0));
+        assertEquals(7, state.regen(1)); // Endurance 15 / 2
+    }
+
+    @Test
+    public void testMatchesTeamBattles() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        Team player = heroes();
+        Team enemy = enemies();
+        BattleState state = BattleState.of(player, enemy);
+        for (int i = 0; i < 2000; i++) { // Same stream must give the same battle on both paths
+            BattleResult viaTeams = sim.simulate(player.clone(), enemy.clone(), BattleRandom.forBattle(5L, i));
+            BattleResult viaState = sim.simulate(state, BattleRandom.forBattle(5L, i));
+            assertSameResult(viaTeams, viaState);
+        }
+    }
+
+    @Test
+    public void testMatchesTeamBattlesOnGameData() throws Exception {
+        GameDataLoader characters = new GameDataLoader("../data/characters.json");
+        GameDataLoader opponents = new GameDataLoader("../data/opponents.json");
+        characters.load();
+        opponents.load();
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        List<Team> teams = WinRateEstimator.allTeams(characters.getCharacters());
+        List<Encounter> story = Campaign.load(Paths.get("../data/campaign.json")).encounters();
+        for (Team player : teams) {
+            for (Encounter encounter : story) {
+                Team enemy = encounter.build(opponents.getOpponentIndex(), null);
+                BattleState state = BattleState.of(player, enemy);
+                for (int i = 0; i < 50; i++) {
+                    assertSameResult(sim.simulate(player.clone(), enemy.clone(), BattleRandom.forBattle(11L, i)),
+                            sim.simulate(state, BattleRandom.forBattle(11L, i)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResetRestoresStartingState() {
+        Team player = heroes();
+        BattleState state = BattleState.of(player, enemies());
+        state.attack(0, 2, 5);
+        state.useSkill(1, 0, 0, 3);
+        state.defend(3);
+        assertTrue(state.hp(2) < 120);
+        assertEquals(3, state.cooldown(1, 0));
+
+        state.reset();
+        for (int u = 0; u < state.unitCount(); u++) {
+            assertEquals(state.maxHP(u), state.hp(u));
+            assertEquals(state.maxStamina(u), state.stamina(u));
+            assertFalse(state.isDefending(u));
+        }
+        assertEquals(0, state.cooldown(1, 0));
+        assertEquals(100, player.getCharacters().get(0).getCurrentHP()); // Template team untouched
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        BattleState state = BattleState.of(heroes(), enemies());
+        BattleState copy = state.copy();
+        copy.attack(0, 2, 5);
+        assertEquals(120, state.hp(2));
+        assertTrue(copy.hp(2) < 120);
+
+        state.copyFrom(copy);
+        assertEquals(copy.hp(2), state.hp(2));
+        assertEquals(copy.stamina(0), state.stamina(0));
+    }
+}
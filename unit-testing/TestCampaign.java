@@ -0,0 +1,138 @@
+import mastersofmq.game.Campaign;
+import mastersofmq.game.Encounter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for loading campaigns and resolving their chapters
+ */
+public class TestCampaign {
+
+    private static Campaign write(String json) throws Exception {
+        File file = File.createTempFile("campaign", ".json");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write(json);
+        }
+        return Campaign.load(file.toPath());
+    }
+
+    @Test
+    public void testStoryEncountersInPlayOrder() throws Exception {
+        Campaign story = Campaign.load(Paths.get("../data/campaign.json"));
+        assertEquals("Masters of MQ: The Dark Rising", story.getTitle());
+        assertEquals(3, story.size());
+        List<Encounter> encounters = story.encounters(); // Follows the chapter graph
+        assertEquals(3, encounters.size());
+        assertEquals("Shadow Patrol", encounters.get(0).getTeamName());
+        assertEquals(Arrays.asList("Dark Warrior", "Shadow Mage"), encounters.get(0).getOpponentNames());
+        assertEquals("The library is secured! Knowledge shall remain free and accessible!", encounters.get(0).getVictoryText());
+        assertEquals("Dark Legion", encounters.get(1).getTeamName());
+        assertEquals(Arrays.asList("Boss Overlord"), encounters.get(2).getOpponentNames());
+        assertEquals("The last hope of Macquarie University fades as the Overlord's power grows stronger...", encounters.get(2).getDefeatText());
+        assertTrue(story.chapter("showdown").healsBefore());
+        assertFalse(story.chapter("showdown").healsAfter());
+    }
+
+    @Test
+    public void testChaptersResolvedOnDemand() throws Exception {
+        Campaign campaign = write("{\"start\": \"a\", \"chapters\": ["
+                + "{\"id\": \"a\", \"encounter\": {\"team\": \"Pack\", \"opponents\": [\"Wolf\"]}, \"next\": \"b\"},"
+                + "{\"id\": \"b\", \"encounter\": \"not an encounter\"}]}");
+        assertEquals("Pack", campaign.chapter("a").getEncounter().getTeamName()); // Chapter b isn't resolved by loading
+        assertNotSame(campaign.chapter("a"), campaign.chapter("a")); // Nothing kept between plays
+        try {
+            campaign.chapter("b");
+            fail("Expected the broken chapter to fail when played");
+        } catch (RuntimeException expected) {
+        }
+    }
+
+    @Test
+    public void testChapterFilesReadWhenPlayed() throws Exception {
+        Path folder = Files.createTempDirectory("campaign");
+        folder.toFile().deleteOnExit();
+        Path index = folder.resolve("index.json");
+        Path first = folder.resolve("a.json");
+        Files.writeString(index, "{\"start\": \"a\", \"chapters\": ["
+                + "{\"id\": \"a\", \"file\": \"a.json\", \"next\": \"b\"},"
+                + "{\"id\": \"b\", \"file\": \"missing.json\"}]}");
+        index.toFile().deleteOnExit();
+        first.toFile().deleteOnExit();
+        Campaign campaign = Campaign.load(index); // No chapter file exists yet
+        assertEquals(2, campaign.size());
+
+        Files.writeString(first, "{\"title\": \"First\", \"encounter\": {\"team\": \"Pack\", \"opponents\": [\"Wolf\"]}}");
+        Campaign.Chapter chapter = campaign.chapter("a");
+        assertEquals("First", chapter.getTitle());
+        assertEquals("b", chapter.getNext()); // Links come from the index
+        Files.writeString(first, "{\"title\": \"Rewritten\", \"encounter\": {\"opponents\": []}}");
+        assertEquals("Rewritten", campaign.chapter("a").getTitle()); // Read again on every play
+        try {
+            campaign.chapter("b");
+            fail("Expected the missing chapter file to fail when played");
+        } catch (UncheckedIOException expected) {
+        }
+    }
+
+    @Test
+    public void testUnknownChapterLinksRejected() throws Exception {
+        try {
+            write("{\"start\": \"a\", \"chapters\": [{\"id\": \"a\", \"encounter\": {\"opponents\": []}, \"next\": \"nowhere\"}]}");
+            fail("Expected the broken link to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("nowhere"));
+        }
+        try {
+            write("{\"start\": \"missing\", \"chapters\": []}");
+            fail("Expected the unknown start to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            write("{\"chapters\": [{\"id\": \"a\", \"file\": \"a.json\"}, {\"id\": \"a\", \"file\": \"b.json\"}]}");
+            fail("Expected the repeated chapter to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("twice"));
+        }
+    }
+
+    @Test
+    public void testNextCyclesRejected() throws Exception {
+        try {
+            write("{\"start\": \"a\", \"chapters\": ["
+                    + "{\"id\": \"a\", \"encounter\": {\"opponents\": []}, \"next\": \"b\"},"
+                    + "{\"id\": \"b\", \"encounter\": {\"opponents\": []}, \"next\": \"a\"}]}");
+            fail("Expected the loop to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            write("{\"start\": \"a\", \"chapters\": ["
+                    + "{\"id\": \"a\", \"encounter\": {\"opponents\": []}},"
+                    + "{\"id\": \"c\", \"encounter\": {\"opponents\": []}, \"next\": \"c\"}]}");
+            fail("Expected a loop off the main path to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("c"));
+        }
+    }
+
+    @Test
+    public void testDefaults() throws Exception {
+        Campaign campaign = write("{\"chapters\": [{\"id\": \"only\", \"encounter\": {\"team\": \"Pack\", \"opponents\": [\"Wolf\"]}}]}");
+        assertEquals("only", campaign.getStart()); // First chapter when no start is given
+        Campaign.Chapter chapter = campaign.chapter("only");
+        assertNull(chapter.getNext());
+        assertNull(chapter.getEncounter().getVictoryText());
+        assertTrue(chapter.getOutro().isEmpty());
+        assertFalse(chapter.pausesAfter());
+    }
+}
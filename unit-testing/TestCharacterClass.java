@@ -2,6 +2,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import mastersofmq.model.CharacterClass;
 import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
 import java.util.Random;
 
 public class TestCharacterClass {
@@ -122,4 +123,43 @@ public class TestCharacterClass {
         assertNotSame(skill, cloned.getSkills().get(0));
         assertEquals(skill.getId(), cloned.getSkills().get(0).getId());
     }
+
+    @Test
+    public void testCooldownsRunOnTheRoundClock() {
+        CharacterClass character = new CharacterClass("TestChar", "Fighter", 100, 100, 15, 10, 12);
+        Skill quick = new Skill("quick", "Quick", 10, 5, 1);
+        Skill slow = new Skill("slow", "Slow", 30, 5, 3);
+        slow.triggerCooldown(); // Already running before it is added
+        character.addSkill(quick);
+        character.addSkill(slow);
+        assertEquals(3, slow.getCooldownRemaining());
+
+        Random rng = new Random(1);
+        CharacterClass target = new CharacterClass("Target", "Fighter", 1000, 100, 10, 10, 10);
+        character.useSkill(quick, target, rng);
+        long hashBefore = character.getHash();
+        character.endTurn();
+        assertEquals(1, character.getRound());
+        assertFalse(quick.isOnCooldown());
+        assertEquals(2, slow.getCooldownRemaining());
+        assertNotEquals(hashBefore, character.getHash()); // Cooldowns ran down, so the position changed
+    }
+
+    @Test
+    public void testCooldownsWaitWhileDown() {
+        Team team = new Team("Solo");
+        CharacterClass character = new CharacterClass("TestChar", "Fighter", 100, 100, 15, 10, 12);
+        Skill skill = new Skill("skill_id", "Test Skill", 10, 5, 3);
+        character.addSkill(skill);
+        team.addCharacter(character);
+        skill.triggerCooldown();
+        team.endOfRound();
+        character.takeDamage(100);
+        team.endOfRound(); // Down: no end-of-round effects
+        team.endOfRound();
+        assertEquals(2, skill.getCooldownRemaining());
+        character.heal(50);
+        team.endOfRound();
+        assertEquals(1, skill.getCooldownRemaining());
+    }
 }
@@ -0,0 +1,154 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.Campaign;
+import mastersofmq.game.Encounter;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatantPool;
+import mastersofmq.model.Skill;
+import mastersofmq.model.StatusEffect;
+import mastersofmq.model.Team;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for resetting characters and teams in place, and the CombatantPool
+ */
+public class TestCombatantPool {
+
+    private CharacterClass rogue() {
+        CharacterClass rogue = new CharacterClass("Rogue", "Assassin", 90, 90, 15, 8, 14);
+        rogue.addSkill(new Skill("backstab", "Backstab", 30, 25, 3, new StatusEffect(StatusEffect.Kind.POISON, 6, 3)));
+        return rogue;
+    }
+
+    private CharacterClass cleric() {
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 80, 90, 10, 8, 15);
+        cleric.addSkill(new Skill("renew", "Renew", -10, 20, 3, new StatusEffect(StatusEffect.Kind.REGEN, 5, 3)));
+        return cleric;
+    }
+
+    private CharacterClass brute() {
+        CharacterClass brute = new CharacterClass("Brute", "Fighter", 110, 90, 16, 10, 10);
+        brute.addSkill(new Skill("freeze", "Freeze", 20, 20, 2, new StatusEffect(StatusEffect.Kind.STUN, 0, 1)));
+        return brute;
+    }
+
+    private Team team(String name, CharacterClass... members) {
+        Team team = new Team(name);
+        for (CharacterClass c : members) team.addCharacter(c);
+        return team;
+    }
+
+    private BattleResult fight(Team players, Team enemies, int battle) {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        return sim.simulate(players, enemies, BattleRandom.forBattle(7L, battle));
+    }
+
+    @Test
+    public void testResetRestoresStartingState() {
+        Team team = team("Heroes", rogue(), cleric());
+        long start = team.getHash();
+        CharacterClass rogue = team.getCharacters().get(0);
+        rogue.useSkill(rogue.getSkills().get(0), team.getCharacters().get(1), new Random(1));
+        rogue.defend();
+        team.endOfRound();
+        team.getCharacters().get(1).takeDamage(500);
+        assertEquals(1, team.getAliveCount());
+
+        team.reset();
+        assertEquals(2, team.getAliveCount());
+        assertEquals(90, rogue.getCurrentHP());
+        assertEquals(90, rogue.getCurrentStamina());
+        assertFalse(rogue.isDefending());
+        assertEquals(0, rogue.getRound());
+        assertFalse(rogue.getSkills().get(0).isOnCooldown());
+        assertEquals(start, team.getHash());
+    }
+
+    @Test
+    public void testResetTeamsReplayLikeFreshClones() {
+        Team players = team("Heroes", rogue(), cleric());
+        Team enemies = team("Brutes", brute(), brute());
+        for (int battle = 0; battle < 200; battle++) {
+            BattleResult fresh = fight(players.clone(), enemies.clone(), battle);
+            BattleResult reused = fight(players, enemies, battle);
+            assertEquals(fresh.getWinner(), reused.getWinner());
+            assertEquals(fresh.getRounds(), reused.getRounds());
+            assertArrayEquals(fresh.getPlayerHP(), reused.getPlayerHP());
+            assertArrayEquals(fresh.getEnemyHP(), reused.getEnemyHP());
+            players.reset();
+            enemies.reset();
+        }
+    }
+
+    @Test
+    public void testPoolReusesReleasedInstances() {
+        CharacterClass template = rogue();
+        CombatantPool pool = new CombatantPool();
+        CharacterClass first = pool.acquire(template);
+        assertNotSame(template, first);
+        first.takeDamage(40);
+        pool.release(first);
+
+        CharacterClass second = pool.acquire(template);
+        assertSame(first, second);
+        assertEquals(90, second.getCurrentHP());
+        assertNotSame(first, pool.acquire(template)); // Nothing free left, so a new clone
+        assertEquals(2, pool.getCreated());
+    }
+
+    @Test
+    public void testReusedInstanceStillTicksAfterDyingPoisoned() {
+        CharacterClass template = rogue();
+        CombatantPool pool = new CombatantPool();
+        CharacterClass rogue = pool.acquire(template);
+        Team first = team("Heroes", rogue);
+        rogue.applyEffect(new StatusEffect(StatusEffect.Kind.POISON, 6, 3));
+        rogue.takeDamage(500); // Down on the last turn, before the team's end of round
+        pool.release(first);
+
+        CharacterClass again = pool.acquire(template);
+        assertSame(rogue, again);
+        Team second = team("Heroes", again);
+        again.applyEffect(new StatusEffect(StatusEffect.Kind.POISON, 6, 3));
+        second.endOfRound();
+        assertEquals(84, again.getCurrentHP());
+        again.applyEffect(new StatusEffect(StatusEffect.Kind.REGEN, 5, 3));
+        second.endOfRound();
+        assertEquals(83, again.getCurrentHP()); // Poison then regen, each once
+    }
+
+    @Test
+    public void testPoolIgnoresForeignInstances() {
+        CombatantPool pool = new CombatantPool();
+        CharacterClass template = rogue();
+        pool.release(template.clone());
+        pool.acquire(template);
+        assertEquals(1, pool.getCreated());
+    }
+
+    @Test
+    public void testEncountersReuseOpponents() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/opponents.json");
+        loader.load();
+        List<Encounter> story = Campaign.load(Paths.get("../data/campaign.json")).encounters();
+        Encounter first = story.get(0), second = story.get(1);
+        CombatantPool pool = new CombatantPool();
+        for (Encounter encounter : Arrays.asList(first, first, second, first)) {
+            Team enemies = encounter.build(loader.getOpponentIndex(), pool);
+            assertNotNull(enemies);
+            enemies.getCharacters().get(0).takeDamage(1000);
+            pool.release(enemies);
+        }
+        assertEquals(first.getOpponentNames().size() + second.getOpponentNames().size(), pool.getCreated());
+    }
+}
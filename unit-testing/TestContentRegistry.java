@@ -0,0 +1,60 @@
+import mastersofmq.fileio.ContentRegistry;
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.model.CharacterClass;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for loading every data file together into a ContentRegistry
+ */
+public class TestContentRegistry {
+
+    private static CharacterClass named(List<CharacterClass> list, String name) {
+        return list.stream().filter(c -> c.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    @Test
+    public void testOpponentsUseSkillsFromCharacterFile() throws Exception {
+        ContentRegistry content = ContentRegistry.load(Paths.get("../data"));
+        assertEquals(4, content.getCharacters().size());
+        assertEquals(5, content.getOpponents().size());
+
+        CharacterClass darkWarrior = named(content.getOpponents(), "Dark Warrior");
+        assertNotNull(darkWarrior);
+        assertEquals(2, darkWarrior.getSkills().size()); // power_strike and cleave, defined in characters.json
+        CharacterClass boss = named(content.getOpponents(), "Boss Overlord");
+        assertEquals(3, boss.getSkills().size());
+
+        CharacterClass warrior = named(content.getCharacters(), "Warrior");
+        assertSame(warrior.getSkills().get(0).getDefinition(), darkWarrior.getSkills().get(0).getDefinition()); // One definition for both files
+        assertSame(content.getSkill("power_strike"), warrior.getSkills().get(0).getDefinition());
+        assertNull(content.getSkill("no_such_skill"));
+        assertTrue(content.getSkillTree().indexOf("cleave") >= 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testTemplatesAreUnmodifiable() throws Exception {
+        ContentRegistry.load(Paths.get("../data")).getOpponents().clear();
+    }
+
+    @Test
+    public void testSeparateLoadsOnlyResolveTheirOwnSkills() throws Exception {
+        GameDataLoader opponents = new GameDataLoader("../data/opponents.json");
+        opponents.load();
+        assertTrue(named(opponents.getOpponents(), "Dark Warrior").getSkills().isEmpty()); // No skills section of its own
+        assertTrue(opponents.getPlayableCharacters().isEmpty());
+    }
+
+    @Test
+    public void testMissingDirectoryFails() {
+        try {
+            ContentRegistry.load(Paths.get("no-such-dir"));
+            fail("Expected the load to fail");
+        } catch (Exception expected) {
+        }
+    }
+}
@@ -0,0 +1,162 @@
+import mastersofmq.fileio.ContentRegistry;
+import mastersofmq.fileio.ContentSnapshot;
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for compiling game data into a binary snapshot and loading it back
+ */
+public class TestContentSnapshot {
+    private Path dir;
+    private Path snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("content");
+        dir.toFile().deleteOnExit();
+        for (String name : Arrays.asList("characters.json", "opponents.json")) {
+            Files.copy(Paths.get("../data", name), dir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            dir.resolve(name).toFile().deleteOnExit();
+        }
+        snapshot = dir.resolve(ContentSnapshot.FILE_NAME);
+    }
+
+    private Path file() throws Exception { // Snapshot file for the JSON as it is now
+        Path file = ContentSnapshot.versioned(snapshot, ContentSnapshot.checksum(
+                Arrays.asList(dir.resolve("characters.json").toString(), dir.resolve("opponents.json").toString())));
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private GameDataLoader loader() {
+        return new GameDataLoader(dir.resolve("characters.json").toString(), dir.resolve("opponents.json").toString());
+    }
+
+    private static String describe(List<CharacterClass> characters) { // Everything a template holds, as text
+        StringBuilder sb = new StringBuilder();
+        for (CharacterClass c : characters) {
+            sb.append(c.getName()).append('/').append(c.getType()).append(' ').append(c.getMaxHP()).append(' ')
+                    .append(c.getMaxStamina()).append(' ').append(c.getStrength()).append(' ').append(c.getDefence())
+                    .append(' ').append(c.getEndurance());
+            for (Skill s : c.getSkills()) {
+                sb.append(" [").append(s.getId()).append(' ').append(s.getName()).append(' ').append(s.getDamage())
+                        .append(' ').append(s.getStaminaCost()).append(' ').append(s.getCooldownMax()).append(' ')
+                        .append(s.getEffect()).append(' ').append(s.getPrerequisites()).append(']');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSnapshotLoadsTheSameContent() throws Exception {
+        GameDataLoader json = loader();
+        json.load();
+        GameDataLoader first = loader();
+        first.loadWithSnapshot(snapshot); // Compiles the snapshot
+        assertTrue(Files.exists(file()));
+        GameDataLoader mapped = loader();
+        mapped.loadWithSnapshot(snapshot); // Reads it back
+
+        assertEquals(describe(json.getCharacters()), describe(mapped.getCharacters()));
+        assertEquals(describe(json.getOpponents()), describe(mapped.getOpponents()));
+        assertEquals(json.getPlayableCharacters().size(), mapped.getPlayableCharacters().size());
+        assertEquals(json.getSkillTree().size(), mapped.getSkillTree().size());
+        assertNotNull(mapped.getOpponentIndex().byName("Boss Overlord"));
+        assertSame(mapped.getSkill("power_strike"), mapped.getSkill("cleave").getPrerequisites().get(0));
+        assertEquals(5, mapped.getSkill("backstab").getEffect().getAmount());
+    }
+
+    @Test
+    public void testSnapshotIsReadInsteadOfJson() throws Exception {
+        loader().loadWithSnapshot(snapshot);
+        byte[] bytes = Files.readAllBytes(file());
+        String warrior = new String(bytes, "UTF-8");
+        int at = warrior.indexOf("Warrior"); // Rename the first Warrior in the string table only
+        assertTrue(at > 0);
+        bytes[at] = 'B';
+        Files.write(file(), bytes);
+
+        GameDataLoader mapped = loader();
+        mapped.loadWithSnapshot(snapshot);
+        assertEquals("Barrior", mapped.getCharacters().get(0).getName());
+    }
+
+    @Test
+    public void testChangedJsonRecompiles() throws Exception {
+        loader().loadWithSnapshot(snapshot);
+        Path old = file();
+        Path characters = dir.resolve("characters.json");
+        String json = new String(Files.readAllBytes(characters), "UTF-8");
+        Files.write(characters, json.replace("\"baseHP\": 100", "\"baseHP\": 111").getBytes("UTF-8"));
+
+        GameDataLoader changed = loader();
+        changed.loadWithSnapshot(snapshot);
+        assertEquals(111, changed.getCharacters().get(0).getMaxHP());
+        GameDataLoader again = loader();
+        again.loadWithSnapshot(snapshot); // From the recompiled snapshot
+        assertEquals(111, again.getCharacters().get(0).getMaxHP());
+        assertNotEquals(old, file());
+        assertFalse(Files.exists(old)); // Never mapped, so removed
+    }
+
+    @Test
+    public void testMappedSnapshotNeverWrittenOver() throws Exception {
+        loader().loadWithSnapshot(snapshot);
+        Path mapped = file();
+        GameDataLoader loaded = loader();
+        loaded.loadWithSnapshot(snapshot); // Maps the file
+        try {
+            ContentSnapshot.write(loaded, ContentSnapshot.checksum(Arrays.asList(
+                    dir.resolve("characters.json").toString(), dir.resolve("opponents.json").toString())), snapshot);
+            fail("Expected the mapped file to be left alone");
+        } catch (IOException expected) {
+        }
+
+        Path characters = dir.resolve("characters.json");
+        String json = new String(Files.readAllBytes(characters), "UTF-8");
+        Files.write(characters, json.replace("\"baseHP\": 100", "\"baseHP\": 111").getBytes("UTF-8"));
+        GameDataLoader changed = loader();
+        changed.loadWithSnapshot(snapshot);
+        assertEquals(111, changed.getCharacters().get(0).getMaxHP());
+        assertTrue(Files.exists(file())); // Written under the new checksum
+        assertTrue(Files.exists(mapped)); // Still mapped, so kept
+        mapped.toFile().deleteOnExit();
+    }
+
+    @Test
+    public void testDamagedSnapshotFallsBackToJson() throws Exception {
+        loader().loadWithSnapshot(snapshot);
+        byte[] bytes = Files.readAllBytes(file());
+        Files.write(file(), Arrays.copyOf(bytes, bytes.length / 2));
+
+        GameDataLoader loaded = loader();
+        loaded.loadWithSnapshot(snapshot);
+        assertEquals(9, loaded.getCharacters().size());
+        assertEquals(bytes.length, Files.size(file())); // Rewritten whole
+    }
+
+    @Test
+    public void testCompilerAndRegistry() throws Exception {
+        ContentSnapshot.main(new String[] { dir.toString() });
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file()));
+        assertEquals(0x4D514353, header.getInt());
+        ContentRegistry content = ContentRegistry.load(dir, snapshot);
+        assertEquals(4, content.getCharacters().size());
+        assertEquals(2, content.getOpponentIndex().byName("Dark Warrior").getSkills().size());
+    }
+}
@@ -0,0 +1,97 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.CombatRules;
+import mastersofmq.model.DamageTable;
+import mastersofmq.model.Skill;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for the precomputed damage table
+ */
+public class TestDamageTable {
+
+    private static int formula(int power, int roll, int defence, boolean defending) { // The rule as written in the docs
+        int d = Math.max(1, power + roll - defence);
+        return defending ? Math.max(1, d / 2) : d;
+    }
+
+    @Test
+    public void testMatchesFormula() {
+        DamageTable table = DamageTable.shared();
+        for (int power = 0; power <= table.getMaxGap() + 20; power++) { // Runs past the table into the fallback
+            for (int defence = 0; defence <= 30; defence++) {
+                for (int roll = 0; roll < CombatRules.ROLL_SIDES; roll++) {
+                    assertEquals(formula(power, roll, defence, false), table.damage(power, defence, false, roll));
+                    assertEquals(formula(power, roll, defence, true), table.damage(power, defence, true, roll));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testExpectedDamage() {
+        DamageTable table = DamageTable.shared();
+        assertEquals(1.0, table.expectedDamage(5, 40, false), 1e-12); // Always the minimum
+        assertEquals((10 + 11 + 12 + 13 + 14 + 15) / 6.0, table.expectedDamage(25, 15, false), 1e-12);
+        assertEquals((5 + 5 + 6 + 6 + 7 + 7) / 6.0, table.expectedDamage(25, 15, true), 1e-12);
+        assertEquals((200 + 201 + 202 + 203 + 204 + 205) / 6.0, table.expectedDamage(200, 0, false), 1e-12); // Beyond the table
+    }
+
+    @Test
+    public void testLoaderCoversData() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/opponents.json");
+        loader.load();
+        DamageTable table = loader.getDamageTable();
+        assertSame(DamageTable.shared(), table);
+        for (CharacterClass c : loader.getCharacters()) {
+            assertTrue(c.getStrength() <= table.getMaxGap());
+            for (Skill s : c.getSkills()) assertTrue(s.getDamage() <= table.getMaxGap());
+        }
+    }
+
+    @Test
+    public void testLoadingNeverChangesResults() throws Exception {
+        DamageTable before = DamageTable.shared();
+        int range = before.getMaxGap() + 10;
+        int[] seen = new int[(range + 1) * 31 * 2 * CombatRules.ROLL_SIDES];
+        int i = 0;
+        for (int power = 0; power <= range; power++) {
+            for (int defence = 0; defence <= 30; defence++) {
+                for (int roll = 0; roll < CombatRules.ROLL_SIDES; roll++) {
+                    seen[i++] = before.damage(power, defence, false, roll);
+                    seen[i++] = before.damage(power, defence, true, roll);
+                }
+            }
+        }
+
+        DamageTable.cover(List.of(new CharacterClass("Titan", "Fighter", 900, 100, range + 50, 10, 10))); // Wider
+        new GameDataLoader("../data/characters.json").load(); // Weaker than the titan: must not narrow it back
+        DamageTable after = DamageTable.shared();
+        assertTrue(after.getMaxGap() >= range + 50);
+
+        i = 0;
+        for (int power = 0; power <= range; power++) {
+            for (int defence = 0; defence <= 30; defence++) {
+                for (int roll = 0; roll < CombatRules.ROLL_SIDES; roll++) {
+                    for (boolean defending : new boolean[] {false, true}) {
+                        assertEquals(seen[i], after.damage(power, defence, defending, roll));
+                        assertEquals(seen[i++], before.damage(power, defence, defending, roll)); // Old table still agrees
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCoverWidensSharedTable() {
+        CharacterClass giant = new CharacterClass("Giant", "Fighter", 500, 100, 300, 10, 10);
+        DamageTable table = DamageTable.cover(List.of(giant));
+        assertTrue(table.getMaxGap() >= 300);
+        assertSame(table, DamageTable.shared());
+        assertEquals(formula(300, 5, 10, true), CombatRules.attackDamage(300, 5, 10, true));
+    }
+}
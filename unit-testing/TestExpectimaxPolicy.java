@@ -0,0 +1,145 @@
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.Difficulty;
+import mastersofmq.game.ExpectimaxPolicy;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.game.TurnScheduler;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.StatusEffect;
+import mastersofmq.model.Team;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the search-based enemy AI and the difficulty tiers
+ */
+public class TestExpectimaxPolicy {
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 20, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 80, 90, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(warrior);
+        team.addCharacter(cleric);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Dark Legion");
+        CharacterClass rogue = new CharacterClass("Corrupted Rogue", "Assassin", 95, 95, 16, 6, 14);
+        rogue.addSkill(new Skill("backstab", "Backstab", 45, 35, 4));
+        CharacterClass priest = new CharacterClass("Dark Priest", "Healer", 75, 85, 9, 10, 16);
+        priest.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(rogue);
+        team.addCharacter(priest);
+        return team;
+    }
+
+    @Test
+    public void testFinishesWoundedTarget() {
+        Team player = heroes();
+        Team enemy = enemies();
+        player.getCharacters().get(1).takeDamage(78); // Cleric on 2 HP: any hit kills
+        ExpectimaxPolicy policy = new ExpectimaxPolicy(50, 4, BattleState.ENEMY);
+        int action = policy.chooseAction(enemy, 0, player, BattleRandom.seeded(1));
+        assertNotEquals(Actions.DEFEND, Actions.kind(action));
+        assertFalse(Actions.targetsAlly(action));
+        assertEquals(1, Actions.target(action));
+    }
+
+    @Test
+    public void testOnlyLegalActions() {
+        Team player = heroes();
+        Team enemy = enemies();
+        player.getCharacters().get(0).takeDamage(100); // Warrior is down
+        CharacterClass rogue = enemy.getCharacters().get(0);
+        rogue.deductStamina(90); // 5 stamina left: only defending is possible
+        ExpectimaxPolicy policy = new ExpectimaxPolicy(20, 3, BattleState.ENEMY);
+        assertEquals(Actions.DEFEND, Actions.kind(policy.chooseAction(enemy, 0, player, BattleRandom.seeded(2))));
+
+        rogue.restoreStamina(100);
+        int action = policy.chooseAction(enemy, 0, player, BattleRandom.seeded(3));
+        if (Actions.kind(action) != Actions.DEFEND) {
+            assertEquals(1, Actions.target(action)); // Only the Cleric is alive to target
+        }
+    }
+
+    @Test
+    public void testDeadlineRespected() {
+        ExpectimaxPolicy policy = new ExpectimaxPolicy(50, 63, BattleState.ENEMY);
+        Team player = heroes();
+        Team enemy = enemies();
+        policy.chooseAction(enemy, 0, player, BattleRandom.seeded(4)); // Warm up
+        long start = System.nanoTime();
+        policy.chooseAction(enemy, 1, player, BattleRandom.seeded(5));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("Search took " + elapsedMillis + " ms", elapsedMillis < 250);
+    }
+
+    @Test
+    public void testBeatsRandomPlay() {
+        BattleState state = BattleState.of(heroes(), enemies());
+        BattleSimulator random = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        BattleSimulator searching = new BattleSimulator(new RandomActionPolicy(), new ExpectimaxPolicy(2, 2, BattleState.ENEMY));
+        int battles = 100;
+        int randomLosses = 0;
+        int searchingLosses = 0;
+        for (int i = 0; i < battles; i++) {
+            if (!random.simulate(state, BattleRandom.forBattle(6L, i)).isPlayerVictory()) randomLosses++;
+            BattleResult r = searching.simulate(state, BattleRandom.forBattle(6L, i));
+            if (!r.isPlayerVictory()) searchingLosses++;
+        }
+        assertTrue("Random enemies won " + randomLosses + ", searching enemies won " + searchingLosses,
+                searchingLosses > randomLosses);
+    }
+
+    @Test
+    public void testSearchesEveryTarget() {
+        Team player = new Team("Heroes");
+        for (int i = 0; i < 70; i++) player.addCharacter(new CharacterClass("Recruit " + i, "Fighter", 60, 60, 10, 10, 10));
+        player.getCharacters().get(69).takeDamage(59); // Last recruit on 1 HP, past the first 64 actions
+        ExpectimaxPolicy policy = new ExpectimaxPolicy(1000, 1, BattleState.ENEMY);
+        int action = policy.chooseAction(enemies(), 0, player, BattleRandom.seeded(9));
+        assertNotEquals(Actions.DEFEND, Actions.kind(action));
+        assertFalse(Actions.targetsAlly(action));
+        assertEquals(69, Actions.target(action));
+    }
+
+    @Test
+    public void testFollowsInitiativeOrder() {
+        Team player = new Team("Heroes");
+        player.addCharacter(new CharacterClass("Squire", "Fighter", 50, 100, 20, 0, 30)); // Cannot kill the brute in one hit
+        player.addCharacter(new CharacterClass("Assassin", "Rogue", 50, 100, 200, 0, 20)); // Kills it with any hit
+        Team enemy = new Team("Horde");
+        enemy.setSide(BattleState.ENEMY);
+        enemy.addCharacter(new CharacterClass("Brute", "Fighter", 100, 100, 100, 0, 10)); // Kills anyone with any hit
+        player.getCharacters().get(1).applyEffect(new StatusEffect(StatusEffect.Kind.POISON, 60, 3)); // Dies at the end of the round
+
+        // By endurance the brute acts last, so the round ends before the assassin can act again:
+        // killing the squire wins at once, while the assassin would act first next round
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(player, enemy), TurnScheduler.Initiative.ENDURANCE);
+        turns.startRound();
+        while (TurnScheduler.side(turns.next()) != BattleState.ENEMY) { } // The heroes have acted
+        ExpectimaxPolicy policy = new ExpectimaxPolicy(1000, 6, BattleState.ENEMY);
+        assertEquals(Actions.attack(0), policy.chooseAction(enemy, 0, player, turns, null));
+
+        // In the classic order the assassin acts before the round ends, so it has to go first
+        assertEquals(Actions.attack(1), new ExpectimaxPolicy(1000, 6, BattleState.ENEMY).chooseAction(enemy, 0, player, null));
+    }
+
+    @Test
+    public void testDifficultyTiers() {
+        assertTrue(Difficulty.EASY.createPolicy() instanceof RandomActionPolicy);
+        assertTrue(Difficulty.NORMAL.createPolicy() instanceof ExpectimaxPolicy);
+        assertTrue(Difficulty.HARD.createPolicy() instanceof ExpectimaxPolicy);
+        assertTrue(Difficulty.HARD.getBudgetMillis() <= 50);
+        assertTrue(Difficulty.NORMAL.getMaxDepth() < Difficulty.HARD.getMaxDepth());
+    }
+}
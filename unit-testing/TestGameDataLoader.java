@@ -57,6 +57,20 @@ public class TestGameDataLoader {
         assertEquals("power_strike", cleave.getPrerequisites().get(0).getId());
     }
 
+    @Test
+    public void testSkillDefinitionsAreShared() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/characters.json");
+        loader.load();
+        CharacterClass warrior = loader.getCharacters().get(0);
+        Skill powerStrike = warrior.getSkills().get(0);
+        Skill cleave = warrior.getSkills().get(1);
+        assertSame(powerStrike.getDefinition(), cleave.getPrerequisites().get(0)); // Linked, not copied
+
+        CharacterClass copy = warrior.clone();
+        assertSame(powerStrike.getDefinition(), copy.getSkills().get(0).getDefinition());
+        assertNotSame(powerStrike, copy.getSkills().get(0)); // Each copy keeps its own cooldown
+    }
+
     @Test
     public void testDataValidation() {
         // Test with invalid path
@@ -1,8 +1,11 @@
+import mastersofmq.fileio.ContentRegistry;
 import mastersofmq.game.GameEngine;
 import mastersofmq.model.CharacterClass;
 import mastersofmq.model.Skill;
 import mastersofmq.model.Team;
+import mastersofmq.model.TemplateIndex;
 
+import java.nio.file.Paths;
 import java.util.Random;
 import org.junit.Test;
 import org.junit.Before;
@@ -21,7 +24,7 @@ public class TestGameEngine {
     private CharacterClass shadowMage;
 
     @Before
-    public void setup() {
+    public void setup() throws Exception {
         // Create player team
         warrior = new CharacterClass("Warrior", "Fighter", 100, 80, 15, 10, 8);
         mage = new CharacterClass("Mage", "Caster", 70, 120, 6, 5, 15);
@@ -42,8 +45,9 @@ public class TestGameEngine {
         playerTeam.addCharacter(mage);
 
         // Create enemy team
-        darkWarrior = CharacterClass.createOpponent("Dark Warrior");
-        shadowMage = CharacterClass.createOpponent("Shadow Mage");
+        TemplateIndex opponents = ContentRegistry.load(Paths.get("../data")).getOpponentIndex();
+        darkWarrior = opponents.byName("Dark Warrior").clone();
+        shadowMage = opponents.byName("Shadow Mage").clone();
         enemyTeam = new Team("Shadow Patrol");
         enemyTeam.addCharacter(darkWarrior);
         enemyTeam.addCharacter(shadowMage);
@@ -0,0 +1,116 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.Campaign;
+import mastersofmq.game.Encounter;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.StatusEffect;
+import mastersofmq.model.Team;
+import mastersofmq.model.TemplateIndex;
+import mastersofmq.sim.LockstepSimulator;
+import mastersofmq.sim.WinRateEstimator;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+
+/**
+ * Unit tests for the lockstep batched simulator, on both the Vector API and the scalar kernel
+ */
+public class TestLockstepSimulator {
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 70, 70, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        cleric.addSkill(new Skill("smite", "Smite", 18, 20, 1));
+        CharacterClass rogue = new CharacterClass("Rogue", "Assassin", 90, 90, 15, 8, 14);
+        rogue.addSkill(new Skill("backstab", "Backstab", 30, 25, 3, new StatusEffect(StatusEffect.Kind.POISON, 6, 3)));
+        team.addCharacter(warrior);
+        team.addCharacter(cleric);
+        team.addCharacter(rogue);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Frost Patrol");
+        CharacterClass darkWarrior = new CharacterClass("Dark Warrior", "Fighter", 120, 90, 18, 12, 10);
+        darkWarrior.addSkill(new Skill("rage", "Rage", -1, 15, 4, new StatusEffect(StatusEffect.Kind.STRENGTH, 6, 2)));
+        darkWarrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass frostMage = new CharacterClass("Frost Mage", "Caster", 85, 100, 8, 8, 12);
+        frostMage.addSkill(new Skill("freeze", "Freeze", 20, 20, 2, new StatusEffect(StatusEffect.Kind.STUN, 0, 1)));
+        frostMage.addSkill(new Skill("renew", "Renew", -5, 20, 3, new StatusEffect(StatusEffect.Kind.REGEN, 4, 3)));
+        team.addCharacter(darkWarrior);
+        team.addCharacter(frostMage);
+        return team;
+    }
+
+    private static void assertLanesMatch(BattleSimulator sim, LockstepSimulator batch, BattleState state,
+                                         long seed, long first, int count) {
+        batch.run(seed, first, count);
+        for (int l = 0; l < count; l++) {
+            BattleResult expected = sim.simulate(state, BattleRandom.forBattle(seed, first + l));
+            BattleResult actual = batch.result(l);
+            assertEquals("lane " + l, expected.getWinner(), actual.getWinner());
+            assertEquals("lane " + l, expected.getRounds(), actual.getRounds());
+            assertArrayEquals("lane " + l, expected.getPlayerHP(), actual.getPlayerHP());
+            assertArrayEquals("lane " + l, expected.getEnemyHP(), actual.getEnemyHP());
+        }
+    }
+
+    @Test
+    public void testLanesMatchBattleSimulator() { // Uneven teams and every kind of effect
+        BattleState state = BattleState.of(heroes(), enemies());
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        for (boolean vector : new boolean[] {true, false}) {
+            LockstepSimulator batch = new LockstepSimulator(state, 512, BattleSimulator.DEFAULT_MAX_ROUNDS, vector);
+            assertLanesMatch(sim, batch, state, 3L, 0, 512);
+            assertLanesMatch(sim, batch, state, 3L, 512, 301); // Partial batch reuses the lanes and leaves a vector tail
+        }
+    }
+
+    @Test
+    public void testShippedStoryMatchesBattleSimulator() throws Exception {
+        GameDataLoader characters = new GameDataLoader("../data/characters.json");
+        characters.load();
+        GameDataLoader opponents = new GameDataLoader("../data/opponents.json");
+        opponents.load();
+        TemplateIndex index = new TemplateIndex(opponents.getCharacters());
+        Team player = WinRateEstimator.allTeams(characters.getCharacters()).get(5);
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        for (Encounter encounter : Campaign.load(Paths.get("../data/campaign.json")).encounters()) {
+            BattleState state = BattleState.of(player, encounter.build(index, null));
+            assertLanesMatch(sim, new LockstepSimulator(state, 256), state, 11L, 0, 256);
+        }
+    }
+
+    @Test
+    public void testRoundLimitDraws() {
+        BattleState state = BattleState.of(heroes(), enemies());
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy(), 3);
+        LockstepSimulator batch = new LockstepSimulator(state, 256, 3, true);
+        assertLanesMatch(sim, batch, state, 8L, 0, 256);
+        int draws = 0;
+        for (int l = 0; l < 256; l++) {
+            if (batch.isDraw(l)) draws++;
+        }
+        assertTrue(draws > 0);
+    }
+
+    @Test
+    public void testScalarKernelOnRequest() {
+        assertFalse(new LockstepSimulator(BattleState.of(heroes(), enemies()), 16, 10, false).isVectorised());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCountLimitedToLanes() {
+        new LockstepSimulator(BattleState.of(heroes(), enemies()), 16).run(1L, 0, 17);
+    }
+}
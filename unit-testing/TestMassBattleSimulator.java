@@ -0,0 +1,104 @@
+import mastersofmq.game.ActionPolicy;
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+import mastersofmq.sim.MassBattleSimulator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for simultaneous resolution of massive battles
+ */
+public class TestMassBattleSimulator {
+
+    private Team army(String name, int size, int strength) {
+        Team team = new Team(name);
+        for (int i = 0; i < size; i++) {
+            CharacterClass c;
+            if (i % 3 == 2) {
+                c = new CharacterClass("Cleric " + i, "Healer", 80, 90, 10, 8, 15);
+                c.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+            } else {
+                c = new CharacterClass("Soldier " + i, "Fighter", 100, 100, strength, 12, 12);
+                c.addSkill(new Skill("power_strike", "Power Strike", 25, 20, 2));
+            }
+            team.addCharacter(c);
+        }
+        return team;
+    }
+
+    private MassBattleSimulator simulator(ForkJoinPool pool) {
+        return new MassBattleSimulator(new RandomActionPolicy(), new RandomActionPolicy(), pool);
+    }
+
+    @Test
+    public void testSameResultOnAnyThreadCount() {
+        BattleState state = BattleState.of(army("Alliance", 1500, 15), army("Horde", 1500, 15));
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            BattleResult a = simulator(one).simulate(state, 42L);
+            BattleResult b = simulator(four).simulate(state, 42L);
+            assertEquals(a.getWinner(), b.getWinner());
+            assertEquals(a.getRounds(), b.getRounds());
+            assertArrayEquals(a.getPlayerHP(), b.getPlayerHP());
+            assertArrayEquals(a.getEnemyHP(), b.getEnemyHP());
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
+
+    @Test
+    public void testSeedChangesTheBattle() {
+        BattleState state = BattleState.of(army("Alliance", 300, 15), army("Horde", 300, 15));
+        MassBattleSimulator sim = simulator(ForkJoinPool.commonPool());
+        BattleResult a = sim.simulate(state, 1L);
+        BattleResult b = sim.simulate(state, 1L);
+        BattleResult c = sim.simulate(state, 2L);
+        assertArrayEquals(a.getPlayerHP(), b.getPlayerHP()); // Reusing the simulator and state changes nothing
+        assertEquals(a.getRounds(), b.getRounds());
+        assertFalse(Arrays.equals(a.getPlayerHP(), c.getPlayerHP()));
+    }
+
+    @Test
+    public void testThousandsOfUnitsFinish() {
+        BattleState state = BattleState.of(army("Alliance", 2500, 22), army("Horde", 2500, 12));
+        long start = System.nanoTime();
+        BattleResult result = simulator(ForkJoinPool.commonPool()).simulate(state, 7L);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue("Battle took " + elapsedMillis + " ms", elapsedMillis < 10_000);
+        assertEquals(BattleResult.Winner.PLAYER, result.getWinner()); // Stronger army wins
+        assertEquals(0, result.getEnemyHPTotal());
+        assertTrue(result.getPlayerHPTotal() > 0);
+        assertEquals(result.getPlayerHP().length, state.teamSize(BattleState.PLAYER));
+    }
+
+    @Test
+    public void testSimultaneousHits() {
+        Team left = new Team("Left");
+        left.addCharacter(new CharacterClass("A", "Fighter", 1, 100, 50, 0, 0));
+        Team right = new Team("Right");
+        right.addCharacter(new CharacterClass("B", "Fighter", 1, 100, 50, 0, 0));
+        ActionPolicy attackFirst = new ActionPolicy() {
+            @Override
+            public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) { return Actions.attack(0); }
+            @Override
+            public int chooseAction(BattleState state, int unit, RandomGenerator rng) { return Actions.attack(0); }
+        };
+        BattleResult result = new MassBattleSimulator(attackFirst, attackFirst, ForkJoinPool.commonPool())
+                .simulate(BattleState.of(left, right), 3L);
+        assertEquals(BattleResult.Winner.DRAW, result.getWinner()); // Both blows land in the same round
+        assertEquals(1, result.getRounds());
+        assertEquals(0, result.getPlayerHPTotal() + result.getEnemyHPTotal());
+    }
+}
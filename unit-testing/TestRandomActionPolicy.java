@@ -0,0 +1,96 @@
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+
+/**
+ * Unit tests for the enemy AI's action selection
+ */
+public class TestRandomActionPolicy {
+
+    private Team enemies() {
+        Team team = new Team("Dark Legion");
+        CharacterClass rogue = new CharacterClass("Corrupted Rogue", "Assassin", 95, 95, 16, 6, 14);
+        rogue.addSkill(new Skill("backstab", "Backstab", 45, 35, 4));
+        CharacterClass priest = new CharacterClass("Dark Priest", "Healer", 75, 85, 9, 10, 16);
+        priest.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(rogue);
+        team.addCharacter(priest);
+        return team;
+    }
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        team.addCharacter(new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12));
+        team.addCharacter(new CharacterClass("Mage", "Caster", 80, 80, 10, 10, 10));
+        return team;
+    }
+
+    @Test
+    public void testOnlyLegalActions() {
+        Team acting = enemies();
+        Team opponent = heroes();
+        opponent.getCharacters().get(0).takeDamage(100); // Warrior is down
+        CharacterClass rogue = acting.getCharacters().get(0);
+        rogue.deductStamina(90); // 5 stamina left: no attack, no backstab
+        RandomActionPolicy policy = new RandomActionPolicy();
+        SplittableRandom rng = BattleRandom.seeded(3);
+        for (int i = 0; i < 1000; i++) {
+            int action = policy.chooseAction(acting, 0, opponent, rng);
+            assertEquals(Actions.DEFEND, Actions.kind(action));
+        }
+        rogue.restoreStamina(100);
+        for (int i = 0; i < 1000; i++) {
+            int action = policy.chooseAction(acting, 0, opponent, rng);
+            if (Actions.kind(action) != Actions.DEFEND) {
+                assertEquals("Only the Mage is alive", 1, Actions.target(action));
+                assertFalse(Actions.targetsAlly(action));
+            }
+        }
+    }
+
+    @Test
+    public void testHealTargetsAllies() {
+        Team acting = enemies();
+        Team opponent = heroes();
+        RandomActionPolicy policy = new RandomActionPolicy();
+        SplittableRandom rng = BattleRandom.seeded(5);
+        boolean healed = false;
+        for (int i = 0; i < 1000; i++) {
+            int action = policy.chooseAction(acting, 1, opponent, rng);
+            if (Actions.kind(action) == Actions.SKILL) {
+                assertTrue(Actions.targetsAlly(action));
+                assertEquals(0, Actions.skillIndex(action));
+                healed = true;
+            }
+        }
+        assertTrue(healed);
+    }
+
+    @Test
+    public void testChooseActionAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Team acting = enemies();
+        Team opponent = heroes();
+        RandomActionPolicy policy = new RandomActionPolicy();
+        SplittableRandom rng = BattleRandom.seeded(11);
+        int sink = 0;
+        for (int i = 0; i < 200_000; i++) sink += policy.chooseAction(acting, i & 1, opponent, rng); // Warm up the JIT
+
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 100_000; i++) sink += policy.chooseAction(acting, i & 1, opponent, rng);
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+
+        assertTrue(sink != 1); // Keep the loop from being optimised away
+        assertTrue("AI allocated " + allocated + " bytes", allocated < 1024); // Only the measurement itself may allocate
+    }
+}
@@ -1,6 +1,7 @@
 import org.junit.Test;
 import static org.junit.Assert.*;
 import mastersofmq.model.Skill;
+import mastersofmq.model.SkillDefinition;
 
 public class TestSkill {
 
@@ -22,7 +23,7 @@ public class TestSkill {
         Skill prereq = new Skill("prereq_id", "Prerequisite", 5, 2, 1);
         skill.addPrerequisite(prereq);
         assertEquals(1, skill.getPrerequisites().size());
-        assertEquals(prereq, skill.getPrerequisites().get(0));
+        assertSame(prereq.getDefinition(), skill.getPrerequisites().get(0));
     }
 
     @Test
@@ -55,12 +56,17 @@ public class TestSkill {
         assertEquals(original.getStaminaCost(), cloned.getStaminaCost());
         assertEquals(original.getCooldownMax(), cloned.getCooldownMax());
 
-        // Check prerequisites are cloned (not same reference)
+        // Check the prerequisites are shared, not copied
         assertNotSame(original, cloned);
+        assertEquals(original.getPrerequisites(), cloned.getPrerequisites());
         assertEquals(1, cloned.getPrerequisites().size());
-        Skill clonedPrereq = cloned.getPrerequisites().get(0);
-        assertNotSame(prereq, clonedPrereq);
+        SkillDefinition clonedPrereq = cloned.getPrerequisites().get(0);
+        assertSame(prereq.getDefinition(), clonedPrereq);
         assertEquals(prereq.getId(), clonedPrereq.getId());
+
+        // Cooldowns stay per copy
+        original.triggerCooldown();
+        assertFalse(cloned.isOnCooldown());
     }
 
     @Test
@@ -75,11 +81,65 @@ public class TestSkill {
 
         // Verify structure
         assertEquals(1, clonedRoot.getPrerequisites().size());
-        Skill clonedMid = clonedRoot.getPrerequisites().get(0);
-        assertNotSame(mid, clonedMid);
+        SkillDefinition clonedMid = clonedRoot.getPrerequisites().get(0);
+        assertEquals("mid", clonedMid.getId());
         assertEquals(1, clonedMid.getPrerequisites().size());
-        Skill clonedLeaf = clonedMid.getPrerequisites().get(0);
-        assertNotSame(leaf, clonedLeaf);
+        SkillDefinition clonedLeaf = clonedMid.getPrerequisites().get(0);
+        assertSame(leaf.getDefinition(), clonedLeaf);
         assertEquals("leaf", clonedLeaf.getId());
+        assertEquals(2, clonedRoot.getPrerequisiteDepthRecursively());
+        assertEquals(12, clonedRoot.calculateTotalStaminaCostRecursively());
+    }
+
+    @Test
+    public void testDefinitionIsImmutable() {
+        Skill skill = new Skill("test_id", "Test Skill", 10, 5, 3);
+        SkillDefinition before = skill.getDefinition();
+        skill.addPrerequisite(new Skill("prereq_id", "Prerequisite", 5, 2, 1));
+        assertTrue(before.getPrerequisites().isEmpty()); // The shared definition is left as it was
+        assertNotSame(before, skill.getDefinition());
+        try {
+            skill.getDefinition().getPrerequisites().clear();
+            fail("Prerequisites should be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void testPrerequisitesAddedLaterAreSeen() {
+        Skill root = new Skill("root", "Root Skill", 10, 5, 3);
+        Skill mid = new Skill("mid", "Mid Skill", 8, 4, 2);
+        root.addPrerequisite(mid);
+        mid.addPrerequisite(new Skill("leaf", "Leaf Skill", 6, 3, 1)); // After root already requires mid
+        assertEquals(2, root.getPrerequisiteDepthRecursively());
+        assertEquals(12, root.calculateTotalStaminaCostRecursively());
+        assertEquals("leaf", root.getPrerequisites().get(0).getPrerequisites().get(0).getId());
+    }
+
+    @Test
+    public void testLinkedDefinitionBuiltOnce() {
+        Skill root = new Skill("root", "Root Skill", 10, 5, 3);
+        Skill mid = new Skill("mid", "Mid Skill", 8, 4, 2);
+        Skill leaf = new Skill("leaf", "Leaf Skill", 6, 3, 1);
+        root.addPrerequisite(mid);
+        mid.addPrerequisite(leaf);
+        SkillDefinition built = root.getDefinition();
+        assertSame(built, root.getDefinition());
+        Skill copy = root.clone();
+        assertSame(built, copy.getDefinition());
+
+        leaf.addPrerequisite(new Skill("seed", "Seed Skill", 4, 2, 1)); // Two links below root
+        assertNotSame(built, root.getDefinition());
+        assertEquals(3, root.getPrerequisiteDepthRecursively());
+        assertEquals(3, copy.getPrerequisiteDepthRecursively()); // The copy links the same skills
+        assertEquals(14, copy.calculateTotalStaminaCostRecursively());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPrerequisiteCycleRejected() {
+        Skill a = new Skill("a", "A", 10, 5, 1);
+        Skill b = new Skill("b", "B", 10, 5, 1);
+        a.addPrerequisite(b);
+        b.addPrerequisite(a);
     }
 }
@@ -0,0 +1,129 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.model.SkillDefinition;
+import mastersofmq.model.SkillTree;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the compiled skill prerequisite tree
+ */
+public class TestSkillTree {
+
+    private static SkillDefinition skill(String id, int cost, SkillDefinition... prerequisites) {
+        return new SkillDefinition(id, id, 10, cost, 1, null, Arrays.asList(prerequisites));
+    }
+
+    // root needs left and right, which both need base
+    private SkillTree diamond() {
+        SkillDefinition base = skill("base", 1);
+        SkillDefinition left = skill("left", 10, base);
+        SkillDefinition right = skill("right", 100, base);
+        SkillDefinition root = skill("root", 1000, left, right);
+        return new SkillTree(Arrays.asList(root, right, left, base)); // Any order in
+    }
+
+    @Test
+    public void testTopologicalOrder() {
+        SkillTree tree = diamond();
+        for (int i = 0; i < tree.size(); i++) {
+            for (int p : tree.getPrerequisites(i)) assertTrue(p < i);
+        }
+        assertEquals("base", tree.get(0).getId());
+        assertEquals(tree.size() - 1, tree.indexOf("root"));
+        assertEquals(-1, tree.indexOf("missing"));
+    }
+
+    @Test
+    public void testSharedPrerequisitesCountedOnce() {
+        SkillTree tree = diamond();
+        int root = tree.indexOf("root");
+        assertEquals(1111, tree.getTotalStaminaCost(root));
+        assertEquals(2, tree.getDepth(root));
+        assertEquals(0, tree.getDepth(tree.indexOf("base")));
+        assertTrue(tree.requires(root, tree.indexOf("base")));
+        assertFalse(tree.requires(tree.indexOf("left"), tree.indexOf("right")));
+    }
+
+    @Test
+    public void testUnlocks() {
+        SkillTree tree = diamond();
+        SkillTree.Unlocks unlocks = tree.newUnlocks();
+        assertTrue(unlocks.canUnlock("base"));
+        assertFalse(unlocks.canUnlock("left"));
+        assertFalse(unlocks.unlock("root"));
+        assertFalse(unlocks.isUnlocked("root"));
+
+        assertTrue(unlocks.unlock("base"));
+        assertTrue(unlocks.unlock("left"));
+        assertFalse(unlocks.canUnlock("root")); // Still needs right
+        assertTrue(unlocks.unlock("right"));
+        assertTrue(unlocks.canUnlock("root"));
+        assertTrue(unlocks.unlock("root"));
+        assertTrue(unlocks.isUnlocked("root"));
+        assertFalse(tree.newUnlocks().isUnlocked("base")); // Each Unlocks is separate
+    }
+
+    @Test
+    public void testCycleIsReported() {
+        List<String> ids = Arrays.asList("a", "b", "c", "d");
+        int[][] prerequisites = {{}, {0, 3}, {1}, {2}}; // b -> d -> c -> b
+        try {
+            SkillTree.topologicalOrder(ids, prerequisites);
+            fail("Expected the cycle to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("b -> d -> c -> b"));
+        }
+    }
+
+    @Test
+    public void testLoaderRejectsCycles() throws Exception {
+        File file = File.createTempFile("skills", ".json");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("{\"skills\": [{\"id\": \"a\", \"prerequisiteSkills\": [\"b\"]}, {\"id\": \"b\", \"prerequisiteSkills\": [\"a\"]}]}");
+        }
+        try {
+            new GameDataLoader(file.getPath()).load();
+            fail("Expected the cycle to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("cycle"));
+        }
+    }
+
+    @Test
+    public void testLoadedTree() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/characters.json");
+        loader.load();
+        SkillTree tree = loader.getSkillTree();
+        int cleave = tree.indexOf("cleave");
+        assertTrue(tree.requires(cleave, tree.indexOf("power_strike")));
+        assertEquals(1, tree.getDepth(cleave));
+        assertEquals(tree.get(cleave).getStaminaCost() + tree.get(tree.indexOf("power_strike")).getStaminaCost(),
+                tree.getTotalStaminaCost(cleave));
+    }
+
+    @Test
+    public void testDeepChainCompiles() {
+        List<SkillDefinition> chain = new ArrayList<>();
+        SkillDefinition last = skill("s0", 1);
+        chain.add(last);
+        for (int i = 1; i < 5000; i++) {
+            last = skill("s" + i, 1, last);
+            chain.add(last);
+        }
+        Collections.reverse(chain);
+        SkillTree tree = new SkillTree(chain); // Far deeper than a recursive walk could go
+        int top = tree.indexOf("s4999");
+        assertEquals(4999, tree.getDepth(top));
+        assertEquals(5000, tree.getTotalStaminaCost(top));
+        assertTrue(tree.requires(top, tree.indexOf("s0")));
+    }
+}
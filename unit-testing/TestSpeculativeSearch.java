@@ -0,0 +1,138 @@
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.ExpectimaxPolicy;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.game.SpeculativeSearch;
+import mastersofmq.game.TurnScheduler;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for running the enemy AI ahead while the player chooses
+ */
+public class TestSpeculativeSearch {
+
+    private BattleState battle() {
+        Team heroes = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 20, 2));
+        heroes.addCharacter(warrior);
+        heroes.addCharacter(new CharacterClass("Mage", "Caster", 80, 80, 10, 10, 10));
+        Team enemies = new Team("Shadow Patrol");
+        enemies.addCharacter(new CharacterClass("Dark Warrior", "Fighter", 110, 90, 17, 14, 10));
+        enemies.addCharacter(new CharacterClass("Shadow Mage", "Caster", 75, 100, 12, 8, 12));
+        return BattleState.of(heroes, enemies);
+    }
+
+    private static TurnScheduler turnOf(BattleState state, int slot, TurnScheduler.Initiative initiative) { // Order having just given slot its turn
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(state), initiative);
+        turns.startRound();
+        while (turns.next() != slot) { }
+        return turns;
+    }
+
+    private ExpectimaxPolicy policy() { // Depth-capped so every search finishes well inside its budget
+        return new ExpectimaxPolicy(1000, 2, BattleState.ENEMY);
+    }
+
+    @Test
+    public void testHitMatchesSearchOnTheSpot() throws InterruptedException {
+        BattleState state = battle();
+        ExpectimaxPolicy policy = policy();
+        SpeculativeSearch speculation = new SpeculativeSearch(policy);
+        speculation.start(state, 0, turnOf(state, 0, TurnScheduler.Initiative.NONE));
+        Thread.sleep(500); // Let the worker get through the replies
+
+        BattleState reached = state.copy();
+        reached.useSkill(reached.unit(BattleState.PLAYER, 0), 0, reached.unit(BattleState.ENEMY, 1), 4); // Power Strike on the Shadow Mage
+        int action = speculation.take(reached.hash(), 0);
+        assertEquals(1, speculation.getHits());
+        assertEquals(policy.chooseAction(reached, reached.unit(BattleState.ENEMY, 0), null), action);
+    }
+
+    @Test
+    public void testUnforeseenPositionMisses() {
+        BattleState state = battle();
+        SpeculativeSearch speculation = new SpeculativeSearch(policy());
+        speculation.start(state, 0, turnOf(state, 0, TurnScheduler.Initiative.NONE));
+        BattleState other = state.copy();
+        other.attack(other.unit(BattleState.PLAYER, 1), other.unit(BattleState.ENEMY, 0), 0); // The Mage can't act on the Warrior's turn
+        assertEquals(-1, speculation.take(other.hash(), 0));
+        assertEquals(0, speculation.getHits());
+        assertEquals(1, speculation.getMisses());
+        assertEquals(-1, speculation.take(state.hash(), 0)); // Everything was dropped by the first take
+    }
+
+    @Test
+    public void testNothingSpeculatedWhenNoEnemyFollows() {
+        BattleState state = battle();
+        while (state.isAlive(state.unit(BattleState.ENEMY, 1))) {
+            state.attack(state.unit(BattleState.PLAYER, 0), state.unit(BattleState.ENEMY, 1), 5);
+            state.endOfRound();
+        } // Shadow Mage is down, so nobody replies to the Mage
+        SpeculativeSearch speculation = new SpeculativeSearch(policy());
+        speculation.start(state, 1, turnOf(state, 2, TurnScheduler.Initiative.NONE));
+        BattleState reached = state.copy();
+        reached.defend(reached.unit(BattleState.PLAYER, 1));
+        assertEquals(-1, speculation.take(reached.hash(), 1));
+    }
+
+    @Test
+    public void testNextEnemyComesFromTheTurnOrder() throws InterruptedException {
+        BattleState state = battle();
+        ExpectimaxPolicy policy = policy();
+        SpeculativeSearch speculation = new SpeculativeSearch(policy);
+        // By endurance: Warrior (12), Shadow Mage (12), Dark Warrior (10), Mage (10)
+        speculation.start(state, 0, turnOf(state, 0, TurnScheduler.Initiative.ENDURANCE));
+        Thread.sleep(500);
+
+        BattleState reached = state.copy();
+        reached.attack(reached.unit(BattleState.PLAYER, 0), reached.unit(BattleState.ENEMY, 0), 2);
+        int action = speculation.take(reached.hash(), 1); // The Shadow Mage replies, not the Dark Warrior
+        assertEquals(1, speculation.getHits());
+        assertEquals(policy.chooseAction(reached, reached.unit(BattleState.ENEMY, 1), null), action);
+        speculation.close();
+    }
+
+    private static int workers() { // Live speculative search threads, from any test
+        int n = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("speculative-search") && t.isAlive()) n++;
+        }
+        return n;
+    }
+
+    @Test
+    public void testCloseStopsTheWorker() throws InterruptedException {
+        BattleState state = battle();
+        int before = workers();
+        SpeculativeSearch speculation = new SpeculativeSearch(policy());
+        speculation.start(state, 0, turnOf(state, 0, TurnScheduler.Initiative.NONE));
+        assertEquals(before + 1, workers());
+        speculation.close();
+        Thread.sleep(200);
+        assertEquals(before, workers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRandomPolicyRejected() {
+        new SpeculativeSearch(new RandomActionPolicy()); // Running it ahead would shift the battle's rolls
+    }
+
+    @Test
+    public void testActionIsLegal() throws InterruptedException {
+        BattleState state = battle();
+        SpeculativeSearch speculation = new SpeculativeSearch(policy());
+        speculation.start(state, 1, turnOf(state, 2, TurnScheduler.Initiative.NONE));
+        Thread.sleep(500);
+        BattleState reached = state.copy();
+        reached.defend(reached.unit(BattleState.PLAYER, 1));
+        int action = speculation.take(reached.hash(), 1);
+        assertEquals(1, speculation.getHits());
+        assertFalse(Actions.targetsAlly(action));
+    }
+}
@@ -0,0 +1,214 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.StatusEffect;
+import mastersofmq.model.Team;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for status effects on characters, teams and the flat battle state
+ */
+public class TestStatusEffects {
+
+    private static StatusEffect effect(StatusEffect.Kind kind, int amount, int duration) {
+        return new StatusEffect(kind, amount, duration);
+    }
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass rogue = new CharacterClass("Rogue", "Assassin", 90, 90, 15, 8, 14);
+        rogue.addSkill(new Skill("backstab", "Backstab", 30, 25, 3, effect(StatusEffect.Kind.POISON, 6, 3)));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 80, 90, 10, 8, 15);
+        cleric.addSkill(new Skill("renew", "Renew", -10, 20, 3, effect(StatusEffect.Kind.REGEN, 5, 3)));
+        cleric.addSkill(new Skill("bless", "Bless", -1, 15, 4, effect(StatusEffect.Kind.STRENGTH, 8, 2)));
+        team.addCharacter(rogue);
+        team.addCharacter(cleric);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Frost Legion");
+        team.setSide(BattleState.ENEMY);
+        CharacterClass mage = new CharacterClass("Frost Mage", "Caster", 85, 100, 9, 6, 12);
+        mage.addSkill(new Skill("freeze", "Freeze", 20, 20, 2, effect(StatusEffect.Kind.STUN, 0, 1)));
+        CharacterClass brute = new CharacterClass("Brute", "Fighter", 110, 90, 16, 10, 10);
+        brute.addSkill(new Skill("venom", "Venom Blade", 15, 20, 3, effect(StatusEffect.Kind.POISON, 4, 4)));
+        team.addCharacter(mage);
+        team.addCharacter(brute);
+        return team;
+    }
+
+    @Test
+    public void testPoisonTicksThenExpires() {
+        Team team = heroes();
+        CharacterClass rogue = team.getCharacters().get(0);
+        rogue.applyEffect(effect(StatusEffect.Kind.POISON, 6, 3));
+        assertEquals(3, rogue.getEffectRounds(StatusEffect.Kind.POISON));
+        for (int round = 1; round <= 3; round++) {
+            team.endOfRound();
+            assertEquals(90 - 6 * round, rogue.getCurrentHP());
+        }
+        assertFalse(rogue.hasEffect(StatusEffect.Kind.POISON));
+        team.endOfRound();
+        assertEquals(72, rogue.getCurrentHP());
+    }
+
+    @Test
+    public void testReapplyingReplaces() {
+        Team team = heroes();
+        CharacterClass rogue = team.getCharacters().get(0);
+        rogue.applyEffect(effect(StatusEffect.Kind.STRENGTH, 5, 1));
+        rogue.applyEffect(effect(StatusEffect.Kind.STRENGTH, 8, 2));
+        assertEquals(23, rogue.getAttackStrength());
+        team.endOfRound();
+        assertEquals(23, rogue.getAttackStrength()); // The first buff's expiry was cancelled
+        team.endOfRound();
+        assertEquals(15, rogue.getAttackStrength());
+    }
+
+    @Test
+    public void testFallingClearsEffects() {
+        Team team = heroes();
+        CharacterClass rogue = team.getCharacters().get(0);
+        rogue.applyEffect(effect(StatusEffect.Kind.REGEN, 5, 3));
+        rogue.applyEffect(effect(StatusEffect.Kind.POISON, 100, 3));
+        team.endOfRound(); // Poison kills before regen can tick
+        assertFalse(rogue.isAlive());
+        assertFalse(rogue.hasEffect(StatusEffect.Kind.REGEN));
+        team.endOfRound();
+        assertEquals(0, rogue.getCurrentHP()); // Regen never brings anyone back
+        rogue.applyEffect(effect(StatusEffect.Kind.REGEN, 5, 3));
+        assertFalse(rogue.hasEffect(StatusEffect.Kind.REGEN)); // Effects don't land on the fallen
+    }
+
+    @Test
+    public void testSkillAppliesEffectToTarget() {
+        Team player = heroes();
+        Team enemy = enemies();
+        CharacterClass rogue = player.getCharacters().get(0);
+        CharacterClass brute = enemy.getCharacters().get(1);
+        rogue.performSkill(rogue.getSkills().get(0), brute, new Random(1));
+        assertTrue(brute.hasEffect(StatusEffect.Kind.POISON));
+        assertEquals(6, brute.getEffectAmount(StatusEffect.Kind.POISON));
+        assertFalse(rogue.hasEffect(StatusEffect.Kind.POISON));
+    }
+
+    @Test
+    public void testStunnedCharacterLosesTurns() {
+        Team player = heroes();
+        Team enemy = enemies();
+        for (CharacterClass c : enemy.getCharacters()) c.applyEffect(effect(StatusEffect.Kind.STUN, 0, 2));
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy(), 2);
+        sim.simulate(player, enemy, BattleRandom.seeded(3));
+        for (CharacterClass c : enemy.getCharacters()) {
+            assertEquals(c.getMaxStamina(), c.getCurrentStamina()); // Never acted
+            assertFalse(c.isStunned());
+        }
+    }
+
+    @Test
+    public void testHashesMatchFlatState() {
+        Team player = heroes();
+        Team enemy = enemies();
+        player.getCharacters().get(0).applyEffect(effect(StatusEffect.Kind.POISON, 6, 3));
+        enemy.getCharacters().get(0).applyEffect(effect(StatusEffect.Kind.STUN, 0, 2));
+        player.endOfRound();
+        enemy.endOfRound();
+        BattleState state = BattleState.of(player, enemy);
+        assertEquals(player.getHash() ^ enemy.getHash(), state.hash());
+        assertEquals(2, state.effectRounds(0, StatusEffect.Kind.POISON));
+        assertTrue(state.isStunned(state.unit(BattleState.ENEMY, 0)));
+        assertTrue(state.hasEffects());
+    }
+
+    @Test
+    public void testMatchesTeamBattles() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        Team player = heroes();
+        Team enemy = enemies();
+        BattleState state = BattleState.of(player, enemy);
+        for (int i = 0; i < 2000; i++) { // Same stream must give the same battle on both paths
+            BattleResult viaTeams = sim.simulate(player.clone(), enemy.clone(), BattleRandom.forBattle(8L, i));
+            BattleResult viaState = sim.simulate(state, BattleRandom.forBattle(8L, i));
+            assertEquals(viaTeams.getWinner(), viaState.getWinner());
+            assertEquals(viaTeams.getRounds(), viaState.getRounds());
+            assertArrayEquals(viaTeams.getPlayerHP(), viaState.getPlayerHP());
+            assertArrayEquals(viaTeams.getEnemyHP(), viaState.getEnemyHP());
+        }
+    }
+
+    @Test
+    public void testLoadedFromSkillData() throws Exception {
+        File file = File.createTempFile("effects", ".json");
+        file.deleteOnExit();
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("{\"skills\": ["
+                    + "{\"id\": \"backstab\", \"damage\": 45, \"effect\": {\"type\": \"poison\", \"amount\": 5, \"duration\": 3}},"
+                    + "{\"id\": \"ice_spike\", \"damage\": 30, \"effect\": {\"type\": \"stun\", \"duration\": 1}},"
+                    + "{\"id\": \"hex\", \"damage\": 10, \"effect\": {\"type\": \"curse\"}},"
+                    + "{\"id\": \"fireball\", \"damage\": 35}],"
+                    + "\"characters\": [{\"name\": \"Rogue\", \"skills\": [\"backstab\", \"ice_spike\", \"hex\", \"fireball\"]}]}");
+        }
+        GameDataLoader loader = new GameDataLoader(file.getPath());
+        loader.load();
+        StatusEffect poison = loader.getSkill("backstab").getEffect();
+        assertEquals(StatusEffect.Kind.POISON, poison.getKind());
+        assertEquals(5, poison.getAmount());
+        assertEquals(3, poison.getDuration());
+        assertEquals(StatusEffect.Kind.STUN, loader.getSkill("ice_spike").getEffect().getKind());
+        assertNull(loader.getSkill("hex").getEffect()); // Unknown type: the skill loads without it
+        assertNull(loader.getSkill("fireball").getEffect());
+        assertSame(poison, loader.getCharacters().get(0).getSkills().get(0).getEffect());
+    }
+
+    @Test
+    public void testStunLandingAfterTargetActedCostsNextTurn() { // Counted in the target's turns, not round ends
+        Team player = heroes();
+        Team enemy = enemies();
+        BattleState state = BattleState.of(player, enemy);
+        CharacterClass mage = enemy.getCharacters().get(0);
+        CharacterClass rogue = player.getCharacters().get(0);
+        int roll = new Random(5).nextInt(6);
+        mage.performSkill(mage.getSkills().get(0), rogue, new Random(5)); // Rogue has already acted this round
+        state.reset();
+        state.useSkill(state.unit(BattleState.ENEMY, 0), 0, 0, roll);
+        player.endOfRound();
+        enemy.endOfRound();
+        state.endOfRound();
+        assertTrue(rogue.isStunned());
+        assertTrue(state.isStunned(0));
+        assertEquals(player.getHash() ^ enemy.getHash(), state.hash());
+
+        assertTrue(rogue.loseTurnToStun()); // The next turn is lost
+        assertTrue(state.loseTurnToStun(0));
+        assertFalse(rogue.isStunned());
+        assertFalse(state.isStunned(0));
+        assertEquals(player.getHash() ^ enemy.getHash(), state.hash());
+        assertFalse(rogue.loseTurnToStun()); // and only that one
+        assertFalse(state.loseTurnToStun(0));
+    }
+
+    @Test
+    public void testShippedSkillsCarryEffects() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/characters.json", "../data/opponents.json");
+        loader.load();
+        StatusEffect stun = loader.getSkill("ice_spike").getEffect();
+        assertEquals(StatusEffect.Kind.STUN, stun.getKind());
+        assertEquals(1, stun.getDuration());
+        StatusEffect poison = loader.getSkill("backstab").getEffect();
+        assertEquals(StatusEffect.Kind.POISON, poison.getKind());
+        assertEquals(5, poison.getAmount());
+        assertEquals(3, poison.getDuration());
+    }
+}
@@ -3,6 +3,9 @@ import static org.junit.Assert.*;
 import mastersofmq.model.Team;
 import mastersofmq.model.CharacterClass;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
 public class TestTeam {
 
     @Test
@@ -68,6 +71,53 @@ public class TestTeam {
         assertTrue(emptyTeam.isDefeated());
     }
 
+    @Test
+    public void testAliveCountTracksDamageAndHeals() {
+        Team team = new Team("Test Team");
+        CharacterClass char1 = new CharacterClass("Char1", "Type", 100, 100, 10, 10, 10);
+        CharacterClass char2 = new CharacterClass("Char2", "Type", 50, 100, 10, 10, 10);
+        team.addCharacter(char1);
+        team.addCharacter(char2);
+        assertEquals(2, team.getAliveCount());
+
+        char2.takeDamage(80); // Overkill
+        char2.takeDamage(10); // Already down, no change
+        assertEquals(1, team.getAliveCount());
+        assertFalse(team.isAlive(1));
+        assertEquals(0, team.nthAlive(0));
+        assertEquals(-1, team.nthAlive(1));
+
+        char2.takeDamage(-20); // A heal skill on a fallen ally brings it back
+        assertEquals(2, team.getAliveCount());
+        assertEquals(char2, team.getAliveCharacter(1));
+
+        char1.takeDamage(100);
+        char2.takeDamage(20);
+        assertTrue(team.isDefeated());
+        char1.heal(5);
+        assertFalse(team.isDefeated());
+        assertEquals(char1, team.getAnyAlive());
+    }
+
+    @Test
+    public void testLargeTeamAliveQueries() {
+        Team team = new Team("Horde");
+        for (int i = 0; i < 150; i++) team.addCharacter(new CharacterClass("Grunt " + i, "Type", 10, 10, 5, 5, 5));
+        for (int i = 0; i < 150; i++) {
+            if (i % 3 != 0) team.getCharacters().get(i).takeDamage(10); // Every third survives
+        }
+        assertEquals(50, team.getAliveCount());
+        int n = 0;
+        for (int i = team.nextAlive(0); i >= 0; i = team.nextAlive(i + 1)) {
+            assertEquals(n * 3, i);
+            assertEquals(i, team.nthAlive(n));
+            n++;
+        }
+        assertEquals(50, n);
+        assertEquals(-1, team.nextAlive(148));
+        assertEquals(147, team.nextAlive(130 + 16));
+    }
+
     @Test
     public void testEndOfRound() {
         Team team = new Team("Test Team");
@@ -103,12 +153,41 @@ public class TestTeam {
 
     @Test
     public void testPrintStatus() {
-        // printStatus outputs to console, hard to test directly in unit test
-        // For now, skip or mock System.out if needed, but basic test assumes it runs without error
         Team team = new Team("Test Team");
         CharacterClass char1 = new CharacterClass("Char1", "Type", 100, 100, 10, 10, 10);
+        CharacterClass char2 = new CharacterClass("Char2", "Type", 80, 60, 10, 10, 10);
         team.addCharacter(char1);
-        // Assume it prints correctly; no assertion needed for output
-        assertTrue(true); // Placeholder
+        team.addCharacter(char2);
+        char2.takeDamage(80);
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true));
+        try {
+            team.printStatus();
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals("Test Team:\n - Char1: HP:100/100, ST:100/100\n - Char2: HP:0/80, ST:60/60 [DEFEATED]\n", out.toString());
+        assertEquals(out.toString(), team.getStatus());
+    }
+
+    @Test
+    public void testCloneIsIndependent() {
+        Team team = new Team("Test Team");
+        team.addCharacter(new CharacterClass("Char1", "Type", 100, 100, 10, 10, 10));
+        team.addCharacter(new CharacterClass("Char2", "Type", 80, 80, 10, 10, 10));
+        team.getCharacters().get(0).takeDamage(30);
+
+        Team copy = team.clone();
+        assertEquals("Test Team", copy.getName());
+        assertEquals(2, copy.getAliveCount());
+        assertNotSame(team.getCharacters().get(0), copy.getCharacters().get(0));
+        assertEquals(100, copy.getCharacters().get(0).getCurrentHP()); // Clones start fresh
+
+        copy.getCharacters().get(1).takeDamage(80);
+        assertEquals(1, copy.getAliveCount());
+        assertEquals(2, team.getAliveCount());
+        assertEquals(2, team.getCharacters().size());
     }
 }
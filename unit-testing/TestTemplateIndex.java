@@ -0,0 +1,77 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.Campaign;
+import mastersofmq.game.Encounter;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.TemplateIndex;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for looking up character templates by name, type and skill
+ */
+public class TestTemplateIndex {
+
+    private static CharacterClass character(String name, String type, String... skills) {
+        CharacterClass c = new CharacterClass(name, type, 50, 50, 5, 5, 5);
+        for (String id : skills) c.addSkill(new Skill(id, id, 10, 5, 1));
+        return c;
+    }
+
+    @Test
+    public void testLookups() {
+        CharacterClass mage = character("Mage", "Caster", "fireball", "ice_spike");
+        CharacterClass priest = character("Priest", "Caster", "heal");
+        CharacterClass knight = character("Knight", "Fighter", "fireball");
+        TemplateIndex index = new TemplateIndex(Arrays.asList(mage, priest, knight));
+
+        assertSame(priest, index.byName("Priest"));
+        assertNull(index.byName("priest")); // Exact match only
+        assertEquals(Arrays.asList(mage, priest), index.byType("Caster"));
+        assertEquals(Arrays.asList(mage, knight), index.bySkill("fireball"));
+        assertTrue(index.byType("Healer").isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testFirstNameWins() {
+        CharacterClass first = character("Twin", "Fighter");
+        CharacterClass second = character("Twin", "Caster");
+        TemplateIndex index = new TemplateIndex(Arrays.asList(first, second));
+        assertSame(first, index.byName("Twin"));
+        assertEquals(2, index.getTemplates().size());
+    }
+
+    @Test
+    public void testLoaderIndexesOpponents() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/characters.json", "../data/opponents.json");
+        loader.load();
+        TemplateIndex opponents = loader.getOpponentIndex();
+        assertEquals(5, opponents.size());
+        assertNull(opponents.byName("Warrior")); // Playable characters are indexed separately
+        assertNotNull(loader.getPlayableIndex().byName("Warrior"));
+        assertEquals(2, opponents.bySkill("cleave").size()); // Dark Warrior and Boss Overlord
+
+        CharacterClass warrior = loader.getPlayableIndex().byName("Warrior");
+        CharacterClass darkWarrior = opponents.byName("Dark Warrior");
+        assertEquals(Arrays.asList(darkWarrior, opponents.byName("Boss Overlord")), opponents.byType("Fighter"));
+        assertSame(warrior.getType(), darkWarrior.getType()); // Both "Fighter", kept once
+        assertSame(warrior.getSkills().get(0).getId(), darkWarrior.getSkills().get(0).getId()); // One string per ID
+    }
+
+    @Test
+    public void testEncountersBuildFromIndex() throws Exception {
+        GameDataLoader loader = new GameDataLoader("../data/opponents.json");
+        loader.load();
+        for (Encounter encounter : Campaign.load(Paths.get("../data/campaign.json")).encounters()) {
+            List<String> names = encounter.getOpponentNames();
+            assertEquals(names.size(), encounter.build(loader.getOpponentIndex(), null).getCharacters().size());
+        }
+        assertNull(new Encounter("Nobody", "Missing").build(loader.getOpponentIndex(), null));
+    }
+}
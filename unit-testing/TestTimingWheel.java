@@ -0,0 +1,83 @@
+import mastersofmq.model.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the hierarchical timing wheel
+ */
+public class TestTimingWheel {
+
+    private List<String> fired = new ArrayList<>();
+
+    private void advanceTo(TimingWheel<String> wheel, int round) {
+        while (wheel.now() < round) wheel.advance(item -> fired.add(item + "@" + wheel.now()));
+    }
+
+    @Test
+    public void testFiresOnTheDueRound() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        int[] delays = { 1, 2, 63, 64, 65, 100, 4095, 4096, 4097, 300_000 };
+        for (int d : delays) wheel.schedule("t" + d, d);
+        assertEquals(delays.length, wheel.size());
+        advanceTo(wheel, 300_000);
+        List<String> expected = new ArrayList<>();
+        for (int d : delays) expected.add("t" + d + "@" + d);
+        assertEquals(expected, fired);
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testScheduleFromLaterRounds() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        advanceTo(wheel, 4030); // Close to a level boundary
+        wheel.schedule("a", 70);
+        wheel.schedule("b", 66);
+        wheel.schedule("c", 5000);
+        advanceTo(wheel, 10_000);
+        assertEquals(Arrays.asList("b@4096", "a@4100", "c@9030"), fired);
+    }
+
+    @Test
+    public void testSameRoundKeepsScheduleOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("first", 130);
+        wheel.schedule("second", 130);
+        advanceTo(wheel, 60);
+        wheel.schedule("third", 70);
+        advanceTo(wheel, 200);
+        assertEquals(Arrays.asList("first@130", "second@130", "third@130"), fired);
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        TimingWheel.Timer<String> kept = wheel.schedule("kept", 10);
+        TimingWheel.Timer<String> dropped = wheel.schedule("dropped", 500);
+        dropped.cancel();
+        assertFalse(dropped.isPending());
+        assertEquals(1, wheel.size());
+        advanceTo(wheel, 1000);
+        assertEquals(Arrays.asList("kept@10"), fired);
+        assertFalse(kept.isPending());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testRescheduleFromCallback() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("tick", 3);
+        for (int i = 0; i < 12; i++) {
+            wheel.advance(item -> {
+                fired.add(item + "@" + wheel.now());
+                wheel.schedule(item, 3); // Repeats every three rounds
+            });
+        }
+        assertEquals(Arrays.asList("tick@3", "tick@6", "tick@9", "tick@12"), fired);
+        assertEquals(1, wheel.size());
+    }
+}
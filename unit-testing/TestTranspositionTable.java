@@ -0,0 +1,94 @@
+import mastersofmq.game.Actions;
+import mastersofmq.game.TranspositionTable;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the lock-free transposition table
+ */
+public class TestTranspositionTable {
+
+    private static long collider(long key, int capacity) { // Different key that maps to the same slot
+        return key ^ ((long) capacity << 32) ^ capacity;
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1000);
+        assertEquals(1024, table.capacity());
+        long key = 0x123456789abcdefL;
+        assertEquals(TranspositionTable.MISS, table.probe(key));
+
+        int action = Actions.skill(2, 1, true);
+        table.store(key, 0.625, 7, TranspositionTable.LOWER, action);
+        long entry = table.probe(key);
+        assertNotEquals(TranspositionTable.MISS, entry);
+        assertEquals(0.625, TranspositionTable.value(entry), 1e-7);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(action, table.bestAction(key));
+        assertEquals(TranspositionTable.MISS, table.probe(key + 1));
+        assertEquals(-1, table.bestAction(key + 1));
+    }
+
+    @Test
+    public void testLargeTargetsKeptWhole() {
+        TranspositionTable table = new TranspositionTable(16);
+        int action = Actions.attack(200); // Target index well past 63
+        table.store(7L, 1.5, 3, TranspositionTable.EXACT, action);
+        assertEquals(action, table.bestAction(7L));
+        assertEquals(200, Actions.target(table.bestAction(7L)));
+    }
+
+    @Test
+    public void testReplacementPolicy() {
+        TranspositionTable table = new TranspositionTable(64);
+        long deep = 42L;
+        long shallow = collider(deep, table.capacity());
+        table.store(deep, 1.0, 6, TranspositionTable.EXACT, Actions.defend());
+
+        table.store(shallow, 0.5, 2, TranspositionTable.EXACT, Actions.defend());
+        assertNotEquals(TranspositionTable.MISS, table.probe(deep)); // Deeper result of this search kept
+        assertEquals(TranspositionTable.MISS, table.probe(shallow));
+
+        table.store(deep, 0.75, 1, TranspositionTable.EXACT, Actions.attack(1)); // Same position always refreshes
+        assertEquals(0.75, TranspositionTable.value(table.probe(deep)), 1e-7);
+
+        table.store(deep, 1.0, 6, TranspositionTable.EXACT, Actions.defend());
+        table.newSearch();
+        table.store(shallow, 0.5, 2, TranspositionTable.EXACT, Actions.defend()); // Old generation gives way
+        assertEquals(TranspositionTable.MISS, table.probe(deep));
+        assertEquals(2, TranspositionTable.depth(table.probe(shallow)));
+    }
+
+    @Test
+    public void testConcurrentStoresNeverReadTorn() throws Exception {
+        TranspositionTable table = new TranspositionTable(256); // Small, so threads fight over slots
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom rng = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = rng.nextLong(4096);
+                    table.store(key, key, (int) (key & 31), TranspositionTable.EXACT, (int) (key & 0xff));
+                    long probeKey = rng.nextLong(4096);
+                    long entry = table.probe(probeKey);
+                    int action = table.bestAction(probeKey);
+                    if (entry != TranspositionTable.MISS && TranspositionTable.value(entry) != probeKey) {
+                        wrong.incrementAndGet(); // Data belonging to another key
+                    }
+                    if (action != -1 && action != (probeKey & 0xff)) wrong.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(0, wrong.get());
+    }
+}
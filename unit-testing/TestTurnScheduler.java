@@ -0,0 +1,126 @@
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.game.TurnScheduler;
+import mastersofmq.game.event.BattleEventSink;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Team;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for the turn scheduler and battles between teams of any size
+ */
+public class TestTurnScheduler {
+
+    private static Team team(String name, int size, int enduranceStep) {
+        Team team = new Team(name);
+        for (int i = 0; i < size; i++) {
+            team.addCharacter(new CharacterClass(name + " " + i, "Fighter", 40, 60, 14, 8, 10 + i * enduranceStep));
+        }
+        return team;
+    }
+
+    private static List<String> round(TurnScheduler turns) { // Turns of one round as "P0", "E1", ...
+        List<String> order = new ArrayList<>();
+        turns.startRound();
+        for (int slot = turns.next(); slot >= 0; slot = turns.next()) {
+            order.add((TurnScheduler.side(slot) == BattleState.PLAYER ? "P" : "E") + TurnScheduler.index(slot));
+        }
+        return order;
+    }
+
+    @Test
+    public void testClassicOrder() {
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(team("P", 2, 0), team("E", 2, 0)), TurnScheduler.Initiative.NONE);
+        assertEquals(List.of("P0", "E0", "P1", "E1"), round(turns));
+        turns = new TurnScheduler(TurnScheduler.roster(team("P", 3, 0), team("E", 1, 0)), TurnScheduler.Initiative.NONE);
+        assertEquals(List.of("P0", "E0", "P1", "P2"), round(turns));
+    }
+
+    @Test
+    public void testEnduranceOrderWithTies() {
+        Team players = team("P", 3, 5); // Endurance 10, 15, 20
+        Team enemies = team("E", 2, 10); // Endurance 10, 20
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(players, enemies), TurnScheduler.Initiative.ENDURANCE);
+        assertEquals(List.of("E1", "P2", "P1", "P0", "E0"), round(turns)); // Ties go to the lower slot
+    }
+
+    @Test
+    public void testPeekLooksAheadWithoutTakingTheTurn() {
+        Team players = team("P", 3, 5); // Endurance 10, 15, 20
+        Team enemies = team("E", 2, 10); // Endurance 10, 20
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(players, enemies), TurnScheduler.Initiative.ENDURANCE);
+        turns.startRound();
+        assertEquals(3, turns.next()); // E1
+        Team fallen = team("P", 3, 5);
+        fallen.getCharacters().get(2).takeDamage(100); // As if E1 took down P2
+        assertEquals(2 << 1, turns.peek(TurnScheduler.roster(players, enemies))); // P2
+        assertEquals(1 << 1, turns.peek(TurnScheduler.roster(fallen, enemies))); // P1 then
+        assertEquals(2 << 1, turns.next()); // Peeking took nothing
+    }
+
+    @Test
+    public void testSkipsFallenAndKeepsRevived() {
+        Team players = team("P", 2, 0);
+        Team enemies = team("E", 2, 0);
+        TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(players, enemies), TurnScheduler.Initiative.NONE);
+        players.getCharacters().get(1).takeDamage(100);
+        turns.startRound();
+        assertEquals(0, turns.next()); // P0
+        enemies.getCharacters().get(0).takeDamage(100); // P0 fells E0 during its turn
+        players.getCharacters().get(1).takeDamage(-20); // and P1 is healed back up before its slot
+        assertEquals(2, turns.next()); // P1
+        assertEquals(3, turns.next()); // E1
+        assertEquals(-1, turns.next());
+    }
+
+    @Test
+    public void testRemainingListsWhatNextHandsOut() {
+        for (TurnScheduler.Initiative initiative : TurnScheduler.Initiative.values()) {
+            Team players = team("P", 3, 2);
+            Team enemies = team("E", 2, 3);
+            players.getCharacters().get(1).takeDamage(100); // Down members are still listed
+            TurnScheduler turns = new TurnScheduler(TurnScheduler.roster(players, enemies), initiative);
+            turns.startRound();
+            turns.next();
+            int[] rest = new int[6];
+            int n = turns.remaining(rest);
+            TurnScheduler ahead = turns.copy();
+            players.getCharacters().get(1).heal(100); // Back up before its turn, so next() hands it out
+            for (int i = 0; i < n; i++) assertEquals(initiative.name(), rest[i], ahead.next());
+            assertEquals(-1, ahead.next());
+            assertEquals(n, turns.remaining(rest)); // The copy moved on alone
+        }
+    }
+
+    @Test
+    public void testClassicSchedulerMatchesFlatState() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        BattleState state = BattleState.of(team("Raiders", 5, 1), team("Horde", 7, 1));
+        for (int i = 0; i < 50; i++) {
+            BattleResult teams = sim.simulate(team("Raiders", 5, 1), team("Horde", 7, 1), BattleRandom.forBattle(8L, i));
+            BattleResult flat = sim.simulate(state, BattleRandom.forBattle(8L, i));
+            assertEquals(teams.getWinner(), flat.getWinner());
+            assertEquals(teams.getRounds(), flat.getRounds());
+        }
+    }
+
+    @Test
+    public void testRaidScaleBattle() {
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy(),
+                BattleSimulator.DEFAULT_MAX_ROUNDS, BattleEventSink.NONE, TurnScheduler.Initiative.ENDURANCE);
+        BattleState state = BattleState.of(team("Raiders", 500, 0), team("Horde", 500, 0));
+        long start = System.nanoTime();
+        BattleResult result = sim.simulate(state, BattleRandom.forBattle(9L, 0));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertNotEquals(BattleResult.Winner.DRAW, result.getWinner());
+        assertTrue("500v500 battle took " + millis + " ms", millis < 5000);
+    }
+}
@@ -0,0 +1,183 @@
+import mastersofmq.game.ActionPolicy;
+import mastersofmq.game.Actions;
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleResult;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+import mastersofmq.sim.WinProbability;
+import mastersofmq.sim.WinProbabilitySolver;
+
+import java.util.random.RandomGenerator;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the exact win-probability solver
+ */
+public class TestWinProbabilitySolver {
+
+    private static Team team(String name, CharacterClass... members) {
+        Team team = new Team(name);
+        for (CharacterClass c : members) team.addCharacter(c);
+        return team;
+    }
+
+    private static CharacterClass wounded(CharacterClass c, int hp) { // Starts the character part-way through a battle
+        c.takeDamage(c.getMaxHP() - hp);
+        return c;
+    }
+
+    private BattleState skirmish() { // Small enough to solve exactly, with a heal so positions can repeat
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 20, 12, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 10, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 10, 12, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -10, 10, 2));
+        CharacterClass darkWarrior = new CharacterClass("Dark Warrior", "Fighter", 30, 12, 22, 12, 10);
+        return BattleState.of(team("Heroes", warrior, cleric), team("Shadow Patrol", darkWarrior));
+    }
+
+    @Test
+    public void testClosedForm() {
+        // One hit kills either side and nobody runs out of stamina, so each turn ends the
+        // battle with chance 1/2: the player wins 2/3 of the time in 4/3 rounds on average
+        BattleState duel = BattleState.of(team("P", wounded(new CharacterClass("Hero", "Fighter", 50, 100, 10, 0, 10), 1)),
+                team("E", wounded(new CharacterClass("Foe", "Fighter", 50, 100, 10, 0, 10), 1)));
+        WinProbabilitySolver solver = new WinProbabilitySolver(duel, new RandomActionPolicy(), new RandomActionPolicy());
+        WinProbability result = solver.solve();
+        assertEquals(2.0 / 3, result.getWinProbability(), 1e-9);
+        assertEquals(1.0 / 3, result.getLossProbability(), 1e-9);
+        assertEquals(4.0 / 3, result.getExpectedRounds(), 1e-9);
+    }
+
+    @Test
+    public void testAgreesWithSimulation() {
+        BattleState state = skirmish();
+        WinProbability exact = new WinProbabilitySolver(state, new RandomActionPolicy(), new RandomActionPolicy()).solve();
+        assertEquals(1.0, exact.getWinProbability() + exact.getLossProbability(), 1e-9);
+
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        int battles = 200_000;
+        int wins = 0;
+        long rounds = 0;
+        for (int i = 0; i < battles; i++) {
+            BattleResult r = sim.simulate(state, BattleRandom.forBattle(21L, i));
+            if (r.isPlayerVictory()) wins++;
+            rounds += r.getRounds();
+        }
+        double rate = (double) wins / battles;
+        double stdErr = Math.sqrt(exact.getWinProbability() * (1 - exact.getWinProbability()) / battles);
+        assertEquals(exact.getWinProbability(), rate, 4 * stdErr);
+        assertEquals(exact.getExpectedRounds(), (double) rounds / battles, 0.05);
+    }
+
+    @Test
+    public void testRepeatedQueriesComeFromMemo() {
+        BattleState state = skirmish();
+        WinProbabilitySolver solver = new WinProbabilitySolver(state, new RandomActionPolicy(), new RandomActionPolicy());
+        WinProbability first = solver.solve();
+        int states = solver.getStates();
+        assertTrue(states > 0);
+
+        WinProbability again = solver.solve(state.copy());
+        assertEquals(states, solver.getStates()); // Nothing new explored
+        assertEquals(first.getWinProbability(), again.getWinProbability(), 0.0);
+        assertEquals(first.getExpectedRounds(), again.getExpectedRounds(), 0.0);
+    }
+
+    @Test
+    public void testEndlessBattleIsADraw() {
+        ActionPolicy alwaysDefend = new ActionPolicy() {
+            @Override
+            public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) { return Actions.defend(); }
+            @Override
+            public int chooseAction(BattleState state, int unit, RandomGenerator rng) { return Actions.defend(); }
+        };
+        WinProbabilitySolver solver = new WinProbabilitySolver(skirmish(), alwaysDefend, alwaysDefend);
+        WinProbability result = solver.solve();
+        assertEquals(0.0, result.getWinProbability(), 0.0);
+        assertEquals(0.0, result.getLossProbability(), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, result.getExpectedRounds(), 0.0);
+
+        // Only the enemy ever attacks, so every battle ends, in a loss
+        WinProbability oneSided = new WinProbabilitySolver(skirmish(), alwaysDefend, new RandomActionPolicy()).solve();
+        assertEquals(1.0, oneSided.getLossProbability(), 1e-9);
+        assertTrue(oneSided.getExpectedRounds() < Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void testStateBudget() {
+        WinProbabilitySolver solver = new WinProbabilitySolver(skirmish(), new RandomActionPolicy(), new RandomActionPolicy(), 50);
+        try {
+            solver.solve();
+            fail("Expected the state budget to be exceeded");
+        } catch (IllegalStateException expected) {
+            assertEquals(0, solver.getStates()); // Partial work is discarded
+        }
+    }
+
+    @Test
+    public void testLargerTeamsAgreeWithSimulation() { // Three against one, in the classic turn order
+        CharacterClass rogue = new CharacterClass("Rogue", "Assassin", 8, 10, 12, 4, 10);
+        BattleState state = BattleState.of(team("Heroes", wounded(new CharacterClass("Warrior", "Fighter", 20, 10, 15, 15, 12), 8),
+                        new CharacterClass("Cleric", "Healer", 6, 10, 10, 8, 15), rogue),
+                team("Brutes", new CharacterClass("Brute", "Fighter", 30, 10, 20, 10, 10)));
+        WinProbability exact = new WinProbabilitySolver(state, new RandomActionPolicy(), new RandomActionPolicy()).solve();
+
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+        int battles = 100_000;
+        int wins = 0;
+        for (int i = 0; i < battles; i++) {
+            if (sim.simulate(state, BattleRandom.forBattle(5L, i)).isPlayerVictory()) wins++;
+        }
+        double stdErr = Math.sqrt(exact.getWinProbability() * (1 - exact.getWinProbability()) / battles);
+        assertEquals(exact.getWinProbability(), (double) wins / battles, 4 * stdErr);
+    }
+
+    @Test
+    public void testEveryBoundedDrawBranches() {
+        ActionPolicy coin = new ActionPolicy() { // Attacks the first enemy or defends on a coin flip
+            @Override
+            public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) { return Actions.defend(); }
+            @Override
+            public int chooseAction(BattleState state, int unit, RandomGenerator rng) {
+                return rng.nextBoolean() ? Actions.attack(0) : Actions.defend();
+            }
+        };
+        ActionPolicy ranged = new ActionPolicy() { // Same choice drawn as nextInt(origin, bound)
+            @Override
+            public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) { return Actions.defend(); }
+            @Override
+            public int chooseAction(BattleState state, int unit, RandomGenerator rng) {
+                return rng.nextInt(5, 7) == 6 ? Actions.attack(0) : Actions.defend();
+            }
+        };
+        WinProbability a = new WinProbabilitySolver(skirmish(), coin, new RandomActionPolicy()).solve();
+        WinProbability b = new WinProbabilitySolver(skirmish(), ranged, new RandomActionPolicy()).solve();
+        assertEquals(a.getWinProbability(), b.getWinProbability(), 1e-12);
+        assertEquals(a.getExpectedRounds(), b.getExpectedRounds(), 1e-9);
+    }
+
+    @Test
+    public void testUnboundedDrawRejected() {
+        ActionPolicy uniform = new ActionPolicy() {
+            @Override
+            public int chooseAction(Team acting, int actorIndex, Team opponent, RandomGenerator rng) { return Actions.defend(); }
+            @Override
+            public int chooseAction(BattleState state, int unit, RandomGenerator rng) {
+                return rng.nextDouble() < 0.5 ? Actions.attack(0) : Actions.defend();
+            }
+        };
+        WinProbabilitySolver solver = new WinProbabilitySolver(skirmish(), uniform, new RandomActionPolicy());
+        try {
+            solver.solve();
+            fail("Expected nextDouble to be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, solver.getStates());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import mastersofmq.fileio.GameDataLoader;
+import mastersofmq.game.BattleSimulator;
+import mastersofmq.game.Campaign;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.Team;
+import mastersofmq.sim.WinRateEstimate;
+import mastersofmq.sim.WinRateEstimator;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unit tests for the parallel Monte Carlo win-rate estimator
+ */
+public class TestWinRateEstimator {
+
+    private static GameDataLoader load(String path) throws Exception {
+        GameDataLoader loader = new GameDataLoader(path);
+        loader.load();
+        return loader;
+    }
+
+    @Test
+    public void testAllTeams() throws Exception {
+        List<Team> teams = WinRateEstimator.allTeams(load("../data/characters.json").getCharacters());
+        assertEquals(12, teams.size()); // 4 characters, ordered picks without repeats
+        assertEquals("Warrior + Mage", teams.get(0).getName());
+        assertEquals(2, teams.get(0).getCharacters().size());
+    }
+
+    @Test
+    public void testSameSeedSameEstimateOnAnyThreadCount() throws Exception {
+        Team player = WinRateEstimator.allTeams(load("../data/characters.json").getCharacters()).get(0);
+        Team enemy = Campaign.load(Paths.get("../data/campaign.json")).encounters().get(0).build(load("../data/opponents.json").getOpponentIndex(), null);
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool many = new ForkJoinPool(4);
+        try {
+            WinRateEstimate a = new WinRateEstimator(sim, single).estimate(player, enemy, 5000, 99L);
+            WinRateEstimate b = new WinRateEstimator(sim, many).estimate(player, enemy, 5000, 99L);
+            assertEquals(a.getWins(), b.getWins());
+            assertEquals(a.getMeanRounds(), b.getMeanRounds(), 0.0);
+        } finally {
+            single.shutdown();
+            many.shutdown();
+        }
+        assertEquals(100, player.getCharacters().get(0).getCurrentHP()); // Template Warrior untouched
+    }
+
+    @Test
+    public void testLockstepMatchesScalar() throws Exception {
+        Team player = WinRateEstimator.allTeams(load("../data/characters.json").getCharacters()).get(5);
+        Team enemy = Campaign.load(Paths.get("../data/campaign.json")).encounters().get(1).build(load("../data/opponents.json").getOpponentIndex(), null);
+        BattleSimulator sim = new BattleSimulator(new RandomActionPolicy(), new RandomActionPolicy());
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            WinRateEstimate scalar = new WinRateEstimator(sim, pool).estimate(player, enemy, 3000, 7L);
+            WinRateEstimate lockstep = WinRateEstimator.lockstep(pool).estimate(player, enemy, 3000, 7L);
+            assertEquals(scalar.getWins(), lockstep.getWins());
+            assertEquals(scalar.getDraws(), lockstep.getDraws());
+            assertEquals(scalar.getMeanRounds(), lockstep.getMeanRounds(), 0.0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testConfidenceInterval() {
+        WinRateEstimate estimate = new WinRateEstimate("Team", "Enemy", 1000, 250, 0, 5000);
+        assertEquals(0.25, estimate.getWinRate(), 1e-9);
+        assertTrue(estimate.getLowerBound() < 0.25 && estimate.getUpperBound() > 0.25);
+        assertEquals(0.2243, estimate.getLowerBound(), 0.0005);
+        assertEquals(0.2777, estimate.getUpperBound(), 0.0005);
+
+        WinRateEstimate allLosses = new WinRateEstimate("Team", "Boss", 1000, 0, 0, 5000);
+        assertEquals(0.0, allLosses.getLowerBound(), 1e-12);
+        assertTrue(allLosses.getUpperBound() > 0);
+    }
+}
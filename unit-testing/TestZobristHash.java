@@ -0,0 +1,174 @@
+import mastersofmq.game.BattleRandom;
+import mastersofmq.game.BattleState;
+import mastersofmq.game.RandomActionPolicy;
+import mastersofmq.model.CharacterClass;
+import mastersofmq.model.Skill;
+import mastersofmq.model.Team;
+import mastersofmq.model.Zobrist;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Unit tests for incremental Zobrist hashing of teams and battle states
+ */
+public class TestZobristHash {
+
+    private Team heroes() {
+        Team team = new Team("Heroes");
+        CharacterClass warrior = new CharacterClass("Warrior", "Fighter", 100, 100, 15, 15, 12);
+        warrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass cleric = new CharacterClass("Cleric", "Healer", 70, 70, 10, 8, 15);
+        cleric.addSkill(new Skill("heal", "Heal", -20, 25, 3));
+        team.addCharacter(warrior);
+        team.addCharacter(cleric);
+        return team;
+    }
+
+    private Team enemies() {
+        Team team = new Team("Shadow Patrol");
+        team.setSide(BattleState.ENEMY);
+        CharacterClass darkWarrior = new CharacterClass("Dark Warrior", "Fighter", 120, 90, 18, 12, 10);
+        darkWarrior.addSkill(new Skill("power_strike", "Power Strike", 25, 15, 2));
+        CharacterClass shadowMage = new CharacterClass("Shadow Mage", "Caster", 85, 100, 8, 8, 12);
+        shadowMage.addSkill(new Skill("fireball", "Fireball", 35, 25, 3));
+        team.addCharacter(darkWarrior);
+        team.addCharacter(shadowMage);
+        return team;
+    }
+
+    private static long recompute(BattleState s) { // Hash built from scratch out of the state's fields
+        long h = 0;
+        for (int u = 0; u < s.unitCount(); u++) {
+            long salt = Zobrist.salt(s.sideOf(u), s.indexInTeam(u));
+            h ^= Zobrist.key(salt, Zobrist.HP, s.hp(u)) ^ Zobrist.key(salt, Zobrist.STAMINA, s.stamina(u));
+            if (s.isDefending(u)) h ^= Zobrist.key(salt, Zobrist.DEFENDING, 1);
+            for (int k = 0; k < s.skillCount(u); k++) h ^= Zobrist.key(salt, Zobrist.COOLDOWN + k, s.cooldown(u, k));
+        }
+        return h;
+    }
+
+    @Test
+    public void testIncrementalMatchesRecomputed() {
+        BattleState state = BattleState.of(heroes(), enemies());
+        RandomActionPolicy policy = new RandomActionPolicy();
+        SplittableRandom rng = BattleRandom.seeded(4L);
+        for (int battle = 0; battle < 50; battle++) {
+            state.reset();
+            assertEquals(recompute(state), state.hash());
+            while (!state.isDefeated(BattleState.PLAYER) && !state.isDefeated(BattleState.ENEMY)) {
+                for (int u = 0; u < state.unitCount(); u++) {
+                    if (!state.isAlive(u) || state.isDefeated(1 - state.sideOf(u))) continue;
+                    state.apply(policy.chooseAction(state, u, rng), u, rng);
+                    assertEquals(recompute(state), state.hash());
+                }
+                state.endOfRound();
+                assertEquals(recompute(state), state.hash());
+            }
+        }
+    }
+
+    @Test
+    public void testTeamHashMatchesBattleState() {
+        Team player = heroes();
+        Team enemy = enemies();
+        assertEquals(player.getHash() ^ enemy.getHash(), BattleState.of(player, enemy).hash());
+
+        CharacterClass warrior = player.getCharacters().get(0);
+        CharacterClass cleric = player.getCharacters().get(1);
+        CharacterClass mage = enemy.getCharacters().get(1);
+        warrior.performAttack(mage, 3);
+        mage.defend();
+        cleric.performSkill(cleric.getSkills().get(0), warrior, new SplittableRandom(1));
+        warrior.deductStamina(7);
+        // The state is built from the teams as they are now, stances and cooldowns included
+        assertEquals(player.getHash() ^ enemy.getHash(), BattleState.of(player, enemy).hash());
+
+        for (int round = 0; round < 4; round++) { // Until the heal is ready again, and past it
+            player.endOfRound();
+            enemy.endOfRound();
+            assertEquals(player.getHash() ^ enemy.getHash(), BattleState.of(player, enemy).hash());
+        }
+    }
+
+    @Test
+    public void testTeamHashFollowsMembers() {
+        Team player = heroes();
+        CharacterClass warrior = player.getCharacters().get(0);
+        warrior.takeDamage(12);
+        warrior.performSkill(warrior.getSkills().get(0), player.getCharacters().get(1), new SplittableRandom(2));
+        player.endOfRound();
+        assertEquals(warrior.getHash() ^ player.getCharacters().get(1).getHash(), player.getHash());
+        player.reset();
+        assertEquals(heroes().getHash(), player.getHash());
+    }
+
+    @Test
+    public void testSamePositionSameHash() {
+        CharacterClass a = heroes().getCharacters().get(0);
+        Team first = new Team("Heroes");
+        first.addCharacter(a);
+        a.takeDamage(10);
+        a.deductStamina(5);
+
+        CharacterClass b = heroes().getCharacters().get(0);
+        Team second = new Team("Heroes");
+        second.addCharacter(b);
+        b.deductStamina(5); // Same changes in the other order
+        b.takeDamage(10);
+        assertEquals(first.getHash(), second.getHash());
+
+        b.takeDamage(1);
+        assertNotEquals(first.getHash(), second.getHash());
+        b.heal(1);
+        assertEquals(first.getHash(), second.getHash());
+        b.defend();
+        assertNotEquals(first.getHash(), second.getHash());
+    }
+
+    @Test
+    public void testRoundsGoneByNotHashed() {
+        CharacterClass early = heroes().getCharacters().get(0);
+        CharacterClass late = heroes().getCharacters().get(0);
+        Team first = new Team("Heroes");
+        first.addCharacter(early);
+        Team second = new Team("Others"); // Team names are not hashed either
+        second.addCharacter(late);
+        for (int round = 0; round < 3; round++) late.endTurn(); // Same position, three rounds later
+        assertEquals(first.getHash(), second.getHash());
+
+        Random rng = new Random(1);
+        early.performSkill(early.getSkills().get(0), early, rng);
+        late.performSkill(late.getSkills().get(0), late, rng);
+        early.heal(100);
+        late.heal(100);
+        assertEquals(first.getHash(), second.getHash()); // Same cooldown left, ready at different rounds
+        for (int round = 0; round < 2; round++) {
+            early.endTurn();
+            late.endTurn();
+            assertEquals(first.getHash(), second.getHash());
+        }
+    }
+
+    @Test
+    public void testSideSaltsTheTeam() {
+        Team player = heroes();
+        Team enemy = heroes();
+        enemy.setSide(BattleState.ENEMY);
+        assertNotEquals(player.getHash(), enemy.getHash()); // Same members on the other side
+        enemy.setSide(BattleState.PLAYER);
+        assertEquals(player.getHash(), enemy.getHash());
+        assertEquals(BattleState.ENEMY, enemies().clone().getSide());
+        assertEquals(enemies().getHash(), enemies().clone().getHash());
+    }
+
+    @Test
+    public void testTurnKeysDiffer() {
+        assertNotEquals(Zobrist.turn(0), Zobrist.turn(1));
+        assertNotEquals(Zobrist.salt(BattleState.PLAYER, 0), Zobrist.salt(BattleState.PLAYER, 1));
+        assertNotEquals(Zobrist.salt(BattleState.PLAYER, 0), Zobrist.salt(BattleState.ENEMY, 0));
+    }
+}
@@ -3,9 +3,12 @@
 # Change to the script's directory
 cd "$(dirname "$0")"
 
+# Lockstep simulations use the Vector API, an incubator module on JDK 17
+VECTOR="--add-modules jdk.incubator.vector"
+
 # Compile all test files
 echo "Compiling test files..."
-javac -cp "../source:../lib/*" *.java
+javac $VECTOR -cp "../source:../lib/*" *.java
 
 if [ $? -ne 0 ]; then
     echo "Compilation failed."
@@ -27,4 +30,76 @@ java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestCharacterClass
 echo "Running TestGameDataLoader..."
 java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestGameDataLoader
 
+echo "Running TestGameEngine..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestGameEngine
+
+echo "Running TestBattleScenarios..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestBattleScenarios
+
+echo "Running TestBattleSimulator..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestBattleSimulator
+
+echo "Running TestWinRateEstimator..."
+java $VECTOR -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestWinRateEstimator
+
+echo "Running TestRandomActionPolicy..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestRandomActionPolicy
+
+echo "Running TestBattleEvents..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestBattleEvents
+
+echo "Running TestBattleState..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestBattleState
+
+echo "Running TestWinProbabilitySolver..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestWinProbabilitySolver
+
+echo "Running TestZobristHash..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestZobristHash
+
+echo "Running TestTranspositionTable..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestTranspositionTable
+
+echo "Running TestExpectimaxPolicy..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestExpectimaxPolicy
+
+echo "Running TestSpeculativeSearch..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestSpeculativeSearch
+
+echo "Running TestDamageTable..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestDamageTable
+
+echo "Running TestTurnScheduler..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestTurnScheduler
+
+echo "Running TestMassBattleSimulator..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestMassBattleSimulator
+
+echo "Running TestTimingWheel..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestTimingWheel
+
+echo "Running TestStatusEffects..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestStatusEffects
+
+echo "Running TestCombatantPool..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestCombatantPool
+
+echo "Running TestSkillTree..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestSkillTree
+
+echo "Running TestContentRegistry..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestContentRegistry
+
+echo "Running TestTemplateIndex..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestTemplateIndex
+
+echo "Running TestCampaign..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestCampaign
+
+echo "Running TestContentSnapshot..."
+java -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestContentSnapshot
+
+echo "Running TestLockstepSimulator..."
+java $VECTOR -cp ".:../source:../lib/*" org.junit.runner.JUnitCore TestLockstepSimulator
+
 echo "All tests completed."
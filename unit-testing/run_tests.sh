@@ -17,8 +17,8 @@ fi
 
 # Compile the tests
 echo "Compiling tests..."
-javac -cp .:../source:lib/junit-4.13.2.jar:lib/hamcrest-core-1.3.jar *.java
+javac --add-modules jdk.incubator.vector -cp ".:../source:lib/junit-4.13.2.jar:lib/hamcrest-core-1.3.jar:../lib/*" *.java
 
 # Run the tests
 echo "Running tests..."
-java -cp .:../source:lib/junit-4.13.2.jar:lib/hamcrest-core-1.3.jar org.junit.runner.JUnitCore TestGameEngine TestBattleScenarios 2>&1
\ No newline at end of file
+java --add-modules jdk.incubator.vector -cp ".:../source:lib/junit-4.13.2.jar:lib/hamcrest-core-1.3.jar:../lib/*" org.junit.runner.JUnitCore TestSkill TestTeam TestCharacterClass TestGameDataLoader TestGameEngine TestBattleScenarios TestBattleSimulator TestWinRateEstimator TestRandomActionPolicy TestBattleEvents TestBattleState TestWinProbabilitySolver TestZobristHash TestTranspositionTable TestExpectimaxPolicy TestSpeculativeSearch TestDamageTable TestTurnScheduler TestMassBattleSimulator TestTimingWheel TestStatusEffects TestCombatantPool TestSkillTree TestContentRegistry TestTemplateIndex TestCampaign TestContentSnapshot TestLockstepSimulator 2>&1
\ No newline at end of file